@@ -0,0 +1,107 @@
+package it.unicam.cs.mdp2024.formula1game.benchmark;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitLoader;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.learning.DrivingFeatures;
+import it.unicam.cs.mdp2024.formula1game.model.learning.MlpTrainer;
+import it.unicam.cs.mdp2024.formula1game.model.learning.MultilayerPerceptron;
+import it.unicam.cs.mdp2024.formula1game.model.strategy.NeuralMovementStrategy;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Addestramento della rete usata dalla strategia 8 e misura della sua
+ * velocità di inferenza.
+ * La rete viene distillata dalle politiche ottimali verso i checkpoint dei
+ * circuiti indicati e scritta nel file dei pesi; poi vengono misurate le
+ * decisioni al millisecondo per diverse dimensioni del lotto, su
+ * caratteristiche estratte da celle libere dei circuiti.
+ *
+ * Uso: {@code gradle trainNetwork --args="[indici circuiti, es. 0,1] [file] [epoche] [campioni per checkpoint]"}
+ */
+public class NeuralTraining {
+
+    private static final int[] HIDDEN_SIZES = {32, 32};
+    private static final int TARGETS_PER_CIRCUIT = 12;
+    private static final float LEARNING_RATE = 0.05f;
+    private static final int[] BATCH_SIZES = {1, 8, 64, 1024};
+    private static final long MEASURE_NANOS = 500_000_000L;
+
+    private NeuralTraining() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String[] indices = (args.length > 0 ? args[0] : "0,1").split(",");
+        Path file = args.length > 1 ? Path.of(args[1]) : NeuralMovementStrategy.DEFAULT_WEIGHTS_FILE;
+        int epochs = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+        int samples = args.length > 3 ? Integer.parseInt(args[3]) : 2000;
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            List<ICircuit> circuits = new ArrayList<>();
+            for (String index : indices) {
+                circuits.add(new CircuitLoader().loadCircuit(Integer.parseInt(index.trim())));
+            }
+            MlpTrainer.Result result = new MlpTrainer(HIDDEN_SIZES, TARGETS_PER_CIRCUIT, samples, epochs,
+                    LEARNING_RATE, 1L).train(circuits);
+            MultilayerPerceptron network = result.getNetwork();
+            network.save(file);
+            out.printf("Rete %s: %d campioni, accordo con la politica ottimale %.1f%%, %.0f ms%n", network,
+                    result.getSamples(), result.getAccuracy() * 100, result.getElapsedNanos() / 1e6);
+            out.printf("  scritta in %s%n", file);
+
+            float[] features = sampleFeatures(circuits, BATCH_SIZES[BATCH_SIZES.length - 1]);
+            for (int batchSize : BATCH_SIZES) {
+                out.printf("  lotto da %4d: %.0f decisioni/ms%n", batchSize,
+                        measureThroughput(network, features, batchSize));
+            }
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * Caratteristiche di celle libere casuali, ferme e con un checkpoint a caso.
+     */
+    private static float[] sampleFeatures(List<ICircuit> circuits, int count) {
+        Random random = new Random(7);
+        float[] features = new float[count * DrivingFeatures.COUNT];
+        for (int i = 0; i < count; ) {
+            ICircuit circuit = circuits.get(random.nextInt(circuits.size()));
+            int row = random.nextInt(circuit.getHeight());
+            int column = random.nextInt(circuit.getWidth());
+            if (circuit.isWall(column, row)) continue;
+            Position target = new Position(random.nextInt(circuit.getHeight()), random.nextInt(circuit.getWidth()));
+            DrivingFeatures.write(features, i * DrivingFeatures.COUNT, circuit, row, column,
+                    random.nextInt(3) - 1, random.nextInt(3) - 1, target, List.of());
+            i++;
+        }
+        return features;
+    }
+
+    private static double measureThroughput(MultilayerPerceptron network, float[] features, int batchSize) {
+        float[] outputs = new float[batchSize * network.getOutputSize()];
+        // Riscaldamento del compilatore JIT
+        long warmupEnd = System.nanoTime() + MEASURE_NANOS / 2;
+        while (System.nanoTime() < warmupEnd) {
+            network.forward(features, batchSize, outputs);
+        }
+        long decisions = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            network.forward(features, batchSize, outputs);
+            decisions += batchSize;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MEASURE_NANOS);
+        return decisions / (elapsed / 1e6);
+    }
+}
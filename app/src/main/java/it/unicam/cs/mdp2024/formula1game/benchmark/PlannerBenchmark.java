@@ -0,0 +1,153 @@
+package it.unicam.cs.mdp2024.formula1game.benchmark;
+
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.AStar;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.BidirectionalSearch;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.ParallelAStar;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.RaceStateSpace;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.Circuit;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitFileReader;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitLoader;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+import it.unicam.cs.mdp2024.formula1game.model.util.Vector;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark da riga di comando degli algoritmi di pianificazione.
+ * Confronta espansioni e latenza delle ricerche sugli stati di gara
+ * (unidirezionale, bidirezionale e parallela) e dell'A* usato in gioco su
+ * coppie casuali di celle distanti. Il circuito può essere ingrandito per
+ * simulare rettilinei più lunghi.
+ *
+ * Uso: {@code gradle benchmark --args="<file circuito> [scala] [query] [worker]"}
+ */
+public class PlannerBenchmark {
+
+    private static final long SEED = 42;
+    private static final int MIN_QUERY_DISTANCE = 20;
+
+    private PlannerBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        String circuitFile = args.length > 0 ? args[0] : "circuits/circuit1.txt";
+        int scale = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int workers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        ICircuit circuit = quietly(() -> loadScaled(circuitFile, scale));
+        System.out.printf("Circuito %s x%d: %dx%d, %d query, %d worker%n",
+                circuitFile, scale, circuit.getWidth(), circuit.getHeight(), queries, workers);
+
+        List<IPosition[]> pairs = generateQueries(circuit, queries);
+        BidirectionalSearch unidirectional = new BidirectionalSearch(false);
+        BidirectionalSearch bidirectional = new BidirectionalSearch(true);
+        ParallelAStar parallel = new ParallelAStar(workers);
+        AStar cellSearch = new AStar();
+
+        long[] nanos = new long[4];
+        long[] expansions = new long[3];
+        int found = 0;
+        int mismatches = 0;
+        for (IPosition[] pair : pairs) {
+            RaceStateSpace space = RaceStateSpace.forTarget(circuit, pair[1]);
+
+            BidirectionalSearch.Result uni = unidirectional.search(space, pair[0]);
+            BidirectionalSearch.Result bi = bidirectional.search(space, pair[0]);
+            ParallelAStar.Result par = parallel.search(space, pair[0]);
+            long start = System.nanoTime();
+            cellSearch.findPath(pair[0], pair[1], circuit, new Velocity(new Vector(0, 0)));
+            nanos[3] += System.nanoTime() - start;
+
+            nanos[0] += uni.getElapsedNanos();
+            nanos[1] += bi.getElapsedNanos();
+            nanos[2] += par.getElapsedNanos();
+            expansions[0] += uni.getExpansions();
+            expansions[1] += bi.getExpansions();
+            expansions[2] += par.getExpansions();
+            if (uni.isFound()) {
+                found++;
+            }
+            if (uni.getCost() != bi.getCost() || uni.getCost() != par.getCost()) {
+                mismatches++;
+            }
+        }
+
+        int n = pairs.size();
+        System.out.printf("Percorsi trovati: %d/%d, costi discordanti: %d%n", found, n, mismatches);
+        System.out.printf("%-16s %14s %12s%n", "Algoritmo", "espansioni", "ms medi");
+        print("A* unidirez.", expansions[0] / n, nanos[0] / n);
+        print("Bidirezionale", expansions[1] / n, nanos[1] / n);
+        print("HDA*", expansions[2] / n, nanos[2] / n);
+        print("AStar (celle)", -1, nanos[3] / n);
+    }
+
+    private static void print(String name, long expansions, long nanos) {
+        System.out.printf("%-16s %14s %12.3f%n", name, expansions < 0 ? "-" : String.valueOf(expansions), nanos / 1e6);
+    }
+
+    private static List<IPosition[]> generateQueries(ICircuit circuit, int count) {
+        Random random = new Random(SEED);
+        List<IPosition[]> pairs = new ArrayList<>();
+        int attempts = 0;
+        while (pairs.size() < count && attempts++ < count * 10_000) {
+            IPosition start = randomRoadCell(circuit, random);
+            IPosition target = randomRoadCell(circuit, random);
+            int distance = Math.max(Math.abs(start.getRow() - target.getRow()),
+                    Math.abs(start.getColumn() - target.getColumn()));
+            if (distance >= MIN_QUERY_DISTANCE) {
+                pairs.add(new IPosition[] {start, target});
+            }
+        }
+        return pairs;
+    }
+
+    private static IPosition randomRoadCell(ICircuit circuit, Random random) {
+        while (true) {
+            int row = random.nextInt(circuit.getHeight());
+            int column = random.nextInt(circuit.getWidth());
+            if (!circuit.isWall(column, row)) {
+                return new Position(row, column);
+            }
+        }
+    }
+
+    /**
+     * Carica un circuito ingrandendo ogni cella in un blocco scala x scala.
+     */
+    private static ICircuit loadScaled(String circuitFile, int scale) throws IOException {
+        char[][] track = CircuitFileReader.readFromFile(circuitFile);
+        char[][] scaled = new char[track.length * scale][track[0].length * scale];
+        for (int y = 0; y < scaled.length; y++) {
+            for (int x = 0; x < scaled[0].length; x++) {
+                scaled[y][x] = track[y / scale][x / scale];
+            }
+        }
+        return new Circuit(CircuitLoader.convertToCells(scaled));
+    }
+
+    private interface Loader<T> {
+        T load() throws IOException;
+    }
+
+    /**
+     * Esegue il caricamento silenziando i messaggi di debug del modello.
+     */
+    private static <T> T quietly(Loader<T> loader) throws IOException {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            return loader.load();
+        } finally {
+            System.setOut(out);
+        }
+    }
+}
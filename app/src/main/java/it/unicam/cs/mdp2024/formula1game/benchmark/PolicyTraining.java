@@ -0,0 +1,107 @@
+package it.unicam.cs.mdp2024.formula1game.benchmark;
+
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.CheckpointDistanceTable;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.LapPlanner;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.PolicyTable;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.PolicyTrainer;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.RaceStateSpace;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.TableStore;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitFingerprint;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitLoader;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.checkpoint.CheckpointManager;
+import it.unicam.cs.mdp2024.formula1game.model.strategy.PolicyMovementStrategy;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Addestramento offline delle politiche usate dalla strategia 6.
+ * Per ogni circuito calcola la politica ottimale sull'intero giro, con gli
+ * stessi checkpoint del gioco, e la scrive nell'archivio delle tabelle della
+ * cartella delle politiche insieme alla tabella delle distanze dai
+ * checkpoint.
+ * Riporta dimensione della tabella, stati risolti e, come verifica, le mosse
+ * con cui la politica completa il giro da ciascuna posizione di partenza.
+ *
+ * Uso: {@code gradle trainPolicies --args="[indici circuiti, es. 0,1] [cartella] [thread]"}
+ */
+public class PolicyTraining {
+
+    private static final int MAX_ROLLOUT_MOVES = 1000;
+
+    private PolicyTraining() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String[] circuits = (args.length > 0 ? args[0] : "0,1").split(",");
+        Path directory = args.length > 1 ? Path.of(args[1]) : PolicyMovementStrategy.DEFAULT_POLICY_DIRECTORY;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            TableStore store = new TableStore(directory);
+            PolicyTrainer trainer = new PolicyTrainer(threads);
+            for (String index : circuits) {
+                int circuitIndex = Integer.parseInt(index.trim());
+                ICircuit circuit = new CircuitLoader().loadCircuit(circuitIndex);
+                CheckpointManager checkpointManager = new CheckpointManager(circuit);
+                List<List<IPosition>> lines = checkpointManager.getCheckpointLines();
+                LapPlanner.LapLegs legs = LapPlanner.legsFor(circuit, lines);
+                if (legs == null) {
+                    out.printf("Circuito %d: nessun obiettivo, politica non calcolata%n", circuitIndex);
+                    continue;
+                }
+                long fingerprint = CircuitFingerprint.of(circuit);
+                PolicyTrainer.Result result = trainer.train(fingerprint, legs.space());
+                result.getTable().save(store);
+                CheckpointDistanceTable distances = CheckpointDistanceTable.open(store, circuit, lines);
+
+                out.printf("Circuito %d: %d tratti, %d stati, %d risolti, al più %d mosse, %.1f ms con %d thread%n",
+                        circuitIndex, legs.space().getLegCount(), result.getTable().size(), result.getSolvedStates(),
+                        result.getLayers(), result.getElapsedNanos() / 1e6, threads);
+                for (IPosition start : circuit.getStartPositions()) {
+                    out.printf("  partenza %s: %s%n", start, describeRollout(result.getTable(), legs, start));
+                }
+                Path file = store.fileOf(PolicyTable.TABLE_NAME, fingerprint);
+                out.printf("  scritta in %s (%d byte), distanze da %d linee%n", file, Files.size(file),
+                        distances.getLineCount());
+            }
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * Segue la politica dalla partenza, con l'auto ferma, fino al traguardo.
+     */
+    private static String describeRollout(PolicyTable table, LapPlanner.LapLegs legs, IPosition start) {
+        RaceStateSpace space = legs.space();
+        int leg = legs.legOf(0);
+        int row = start.getRow();
+        int column = start.getColumn();
+        int vx = 0;
+        int vy = 0;
+        for (int moves = 0; moves < MAX_ROLLOUT_MOVES; moves++) {
+            if (leg == space.getLegCount()) {
+                return moves + " mosse";
+            }
+            int action = table.action(space.encode(leg, row, column, vx, vy));
+            if (action == PolicyTable.NO_ACTION) {
+                return moves == 0 ? "giro impossibile" : "politica interrotta dopo " + moves + " mosse";
+            }
+            vx += PolicyTable.accelerationX(action);
+            vy += PolicyTable.accelerationY(action);
+            leg = space.legAfterMove(leg, row, column, vx, vy);
+            row += vy;
+            column += vx;
+        }
+        return "giro non completato in " + MAX_ROLLOUT_MOVES + " mosse";
+    }
+}
@@ -0,0 +1,183 @@
+package it.unicam.cs.mdp2024.formula1game.benchmark;
+
+import it.unicam.cs.mdp2024.formula1game.model.car.Car;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitLoader;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.checkpoint.CheckpointManager;
+import it.unicam.cs.mdp2024.formula1game.model.game.DefaultMoveValidator;
+import it.unicam.cs.mdp2024.formula1game.model.player.BotPlayer;
+import it.unicam.cs.mdp2024.formula1game.model.player.IPlayer;
+import it.unicam.cs.mdp2024.formula1game.model.player.SpeculativePlanner;
+import it.unicam.cs.mdp2024.formula1game.model.strategy.DecisionCache;
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Vector;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Benchmark da riga di comando del costo per turno dei bot.
+ * Gioca la stessa partita tre volte: una con la strategia di ogni bot
+ * conservata per tutta la partita, una scartandone lo stato a ogni turno
+ * come avveniva prima che il ciclo di vita dei bot fosse per partita, e una
+ * con la pianificazione speculativa durante i turni degli avversari, di cui
+ * riporta anche successi e tempo sprecato. Infine la gioca due volte con la
+ * cache delle decisioni: la prima la riempie, la seconda ripete la gara
+ * come in un torneo e risponde dalla cache alle situazioni già viste.
+ * Una partita di riscaldamento, non misurata, precede quelle misurate così
+ * che tutte trovino il JIT e le cache condivise tra i bot già pronti.
+ *
+ * La pausa facoltativa tra le mosse simula il tempo che l'interfaccia lascia
+ * tra un turno e l'altro, durante il quale lavorano le speculazioni.
+ *
+ * Uso: {@code gradle turnBenchmark --args="[indice circuito] [turni] [bot] [pausa ms]"}
+ */
+public class TurnBenchmark {
+
+    private TurnBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int circuitIndex = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        int turns = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int bots = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        long pauseMillis = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            ICircuit circuit = new CircuitLoader().loadCircuit(circuitIndex);
+            play(circuit, turns, bots, false, false, false, pauseMillis, out);
+            long[] rebuilt = play(circuit, turns, bots, true, false, false, pauseMillis, out);
+            long[] persistent = play(circuit, turns, bots, false, false, false, pauseMillis, out);
+            long[] speculative = play(circuit, turns, bots, false, true, false, pauseMillis, out);
+            long[] firstCached = play(circuit, turns, bots, false, false, true, pauseMillis, out);
+            long[] repeatedCached = play(circuit, turns, bots, false, false, true, pauseMillis, out);
+
+            out.printf("Circuito %d: %d turni, %d bot%n", circuitIndex, turns, bots);
+            out.printf("%-22s %8s %12s %12s %12s%n", "Ciclo di vita", "mosse", "us medi", "us mediana", "us p95");
+            print(out, "Per partita", persistent);
+            print(out, "Ricreato ogni turno", rebuilt);
+            print(out, "Speculativo", speculative);
+            print(out, "Cache, prima gara", firstCached);
+            print(out, "Cache, gara ripetuta", repeatedCached);
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * Gioca una partita e restituisce il tempo di scelta di ogni mossa.
+     * Con la pianificazione speculativa stampa su {@code out} le statistiche
+     * di ogni bot, con la cache delle decisioni quelle delle cache usate.
+     */
+    private static long[] play(ICircuit circuit, int turns, int botCount, boolean resetEveryTurn,
+            boolean speculative, boolean caching, long pauseMillis, PrintStream out) {
+        DefaultMoveValidator validator = new DefaultMoveValidator();
+        CheckpointManager checkpointManager = new CheckpointManager(circuit);
+        List<IPlayer> players = new ArrayList<>();
+        List<IPosition> starts = circuit.getStartPositions();
+        for (int i = 0; i < botCount && i < starts.size(); i++) {
+            BotPlayer bot = new BotPlayer("BOT_" + i, "000000", i % 2 + 1);
+            bot.setCar(new Car(starts.get(i), new Velocity(new Vector(0, 0)), new Acceleration(new Vector(0, 0))));
+            bot.initializeGameDependencies(circuit, validator, checkpointManager);
+            bot.setSpeculativePlanning(speculative);
+            bot.setDecisionCaching(caching);
+            bot.setCurrentPlayers(players);
+            checkpointManager.initializePlayer(bot);
+            players.add(bot);
+        }
+
+        List<DecisionCache> caches = new ArrayList<>();
+        List<long[]> countersBefore = new ArrayList<>();
+        for (IPlayer player : players) {
+            DecisionCache cache = ((BotPlayer) player).getDecisionCache();
+            if (cache != null && !caches.contains(cache)) {
+                caches.add(cache);
+                countersBefore.add(new long[] {cache.getHits(), cache.getMisses()});
+            }
+        }
+
+        long[] samples = new long[turns * players.size()];
+        int count = 0;
+        for (int turn = 0; turn < turns; turn++) {
+            for (IPlayer player : players) {
+                if (!player.isActive()) {
+                    continue;
+                }
+                BotPlayer bot = (BotPlayer) player;
+                if (resetEveryTurn) {
+                    bot.resetPlanningState();
+                }
+                IPosition oldPosition = bot.getCar().getPosition();
+                long start = System.nanoTime();
+                IAcceleration acceleration = bot.chooseAcceleration();
+                samples[count++] = System.nanoTime() - start;
+
+                if (!validator.isValidMove(bot, oldPosition, acceleration, circuit, players)) {
+                    bot.setActive(false);
+                    continue;
+                }
+                bot.getCar().setAcceleration(acceleration);
+                bot.getCar().move();
+                checkpointManager.checkAndUpdateCheckpoints(bot, oldPosition, bot.getCar().getPosition());
+                pause(pauseMillis);
+            }
+        }
+        if (speculative) {
+            for (IPlayer player : players) {
+                BotPlayer bot = (BotPlayer) player;
+                SpeculativePlanner planner = bot.getSpeculativePlanner();
+                planner.discard();
+                out.printf("%s speculazioni: %d, usate %d (%.0f%%), stato diverso %d, non valide %d, "
+                        + "ms sprecati %.1f, ms risparmiati %.1f%n",
+                        bot.getName(), planner.getStarted(), planner.getHits(), planner.getHitRate() * 100,
+                        planner.getMisses(), planner.getRejected(), planner.getWastedNanos() / 1e6,
+                        planner.getSavedNanos() / 1e6);
+                bot.setSpeculativePlanning(false);
+            }
+        }
+        for (int i = 0; i < caches.size(); i++) {
+            long hits = caches.get(i).getHits() - countersBefore.get(i)[0];
+            long misses = caches.get(i).getMisses() - countersBefore.get(i)[1];
+            out.printf("Cache decisioni %d: trovate %d su %d (%.0f%%)%n", i, hits, hits + misses,
+                    hits + misses == 0 ? 0.0 : 100.0 * hits / (hits + misses));
+        }
+        return Arrays.copyOf(samples, count);
+    }
+
+    private static void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void print(PrintStream out, String name, long[] samples) {
+        if (samples.length == 0) {
+            out.printf("%-22s %8d %12s %12s %12s%n", name, 0, "-", "-", "-");
+            return;
+        }
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long sample : sorted) {
+            total += sample;
+        }
+        long median = sorted[(sorted.length - 1) / 2];
+        long p95 = sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * 0.95) - 1)];
+        out.printf("%-22s %8d %12.1f %12.1f %12.1f%n", name, sorted.length, total / 1e3 / sorted.length,
+                median / 1e3, p95 / 1e3);
+    }
+}
@@ -0,0 +1,97 @@
+package it.unicam.cs.mdp2024.formula1game.benchmark;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitLoader;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.strategy.MovementWeights;
+import it.unicam.cs.mdp2024.formula1game.model.tuning.RaceEvaluator;
+import it.unicam.cs.mdp2024.formula1game.model.tuning.WeightTuner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Ricerca da riga di comando dei pesi di movimento migliori per ogni circuito.
+ * Per ogni circuito esegue il {@link WeightTuner} salvandone la popolazione
+ * nella cartella di output, così una ricerca interrotta riprende dall'ultima
+ * generazione completata, e scrive i pesi migliori in
+ * {@code pesi-migliori.properties} con chiave {@code circuito.<indice>.strategia.<codice>}.
+ *
+ * Uso: {@code gradle tuneWeights --args="[indici circuiti, es. 0,1] [strategia 1 o 2] [generazioni] [popolazione] [gare] [cartella]"}
+ */
+public class WeightTuning {
+
+    private static final long SEED = 42;
+    private static final int OPPONENTS = 1;
+    private static final int MAX_TURNS = 150;
+    private static final String BEST_WEIGHTS_FILE = "pesi-migliori.properties";
+
+    private WeightTuning() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String[] circuits = (args.length > 0 ? args[0] : "0,1").split(",");
+        int strategyCode = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int generations = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int populationSize = args.length > 3 ? Integer.parseInt(args[3]) : 24;
+        int races = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        Path outputDirectory = Path.of(args.length > 5 ? args[5] : "tuning");
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            Path bestWeightsFile = outputDirectory.resolve(BEST_WEIGHTS_FILE);
+            Properties bestWeights = load(bestWeightsFile);
+            for (String index : circuits) {
+                int circuitIndex = Integer.parseInt(index.trim());
+                ICircuit circuit = new CircuitLoader().loadCircuit(circuitIndex);
+                out.printf("Circuito %d, strategia %d: %d generazioni da %d individui, %d gare ciascuno%n",
+                        circuitIndex, strategyCode, generations, populationSize, races);
+
+                RaceEvaluator evaluator = new RaceEvaluator(circuit, strategyCode, races, OPPONENTS, MAX_TURNS);
+                WeightTuner tuner = new WeightTuner(evaluator, populationSize, SEED);
+                tuner.setCheckpointFile(outputDirectory.resolve(
+                        "popolazione-circuito" + circuitIndex + "-strategia" + strategyCode + ".txt"));
+                WeightTuner.Result result = tuner.run(generations, out);
+
+                MovementWeights weights = result.getWeights();
+                RaceEvaluator.Evaluation evaluation = result.getEvaluation();
+                String value = String.format(Locale.ROOT, "%.4f,%.4f,%.4f,%.4f",
+                        weights.getPathEfficiencyWeight(), weights.getSpeedControlWeight(),
+                        weights.getCollisionAvoidanceWeight(), weights.getCheckpointAlignmentWeight());
+                bestWeights.setProperty("circuito." + circuitIndex + ".strategia." + strategyCode, value);
+                out.printf(Locale.ROOT, "Migliori pesi: %s (costo %.2f, arrivi %.0f%%, turni medi %.1f, "
+                        + "uscite %.0f%%, giro %.0f%%)%n", value, evaluation.getFitness(),
+                        evaluation.getFinishRate() * 100, evaluation.getMeanTurnsToFinish(),
+                        evaluation.getCrashRate() * 100, evaluation.getMeanProgress() * 100);
+                store(bestWeights, bestWeightsFile);
+            }
+            out.printf("Pesi scritti in %s%n", bestWeightsFile);
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    private static Properties load(Path file) throws IOException {
+        Properties properties = new Properties();
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            }
+        }
+        return properties;
+    }
+
+    private static void store(Properties properties, Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, "Pesi di movimento migliori: percorso, velocita, collisioni, allineamento");
+        }
+    }
+}
@@ -33,6 +33,8 @@ import javafx.scene.control.Alert.AlertType;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class MainViewController {
     @FXML
@@ -48,7 +50,17 @@ public class MainViewController {
 
     private CircuitRenderer renderer;
     private IGame2 game;
-    private boolean isSimulationRunning = false;
+    /** Tempo massimo per la mossa di un bot, inferiore alla pausa tra i turni. */
+    private static final long DECISION_DEADLINE_MILLIS = 400;
+    /**
+     * Fa decidere i bot contemporaneamente: ogni passo esegue un giro intero
+     * di turni invece del turno di un solo giocatore.
+     */
+    private static final boolean PARALLEL_DECISIONS = true;
+
+    private volatile boolean isSimulationRunning = false;
+    /** Thread che esegue i turni della simulazione, fuori dal thread JavaFX. */
+    private Thread simulationThread;
     @FXML
     public void initialize() {
         renderer = new CircuitRenderer(gameCanvas);
@@ -157,6 +169,9 @@ public class MainViewController {
                     circuit,
                     playerLoader,
                     config);
+            gameInstance.setDecisionDeadline(TimeUnit.MILLISECONDS.toNanos(DECISION_DEADLINE_MILLIS));
+            gameInstance.setDecisionCaching(true);
+            gameInstance.setParallelDecisions(PARALLEL_DECISIONS);
             System.out.println("Debug: Istanza di Game2 creata");
 
             // Carica i giocatori passando l'istanza del gioco
@@ -230,7 +245,7 @@ public class MainViewController {
     }
 
     private void executeSingleStep() {
-        game.executeTurn();
+        advanceGame();
         updateView();
 
         if (game.isGameOver()) {
@@ -240,39 +255,68 @@ public class MainViewController {
     }
 
     private void startSimulation() {
+        // Il ciclo precedente sta ancora terminando il suo turno
+        if (simulationThread != null && simulationThread.isAlive()) {
+            return;
+        }
         isSimulationRunning = true;
-    runButton.setText("Ferma Simulazione");
-    stepButton.setDisable(true);
-
-    Thread simulationThread = new Thread(() -> {
-        while (isSimulationRunning && !game.isGameOver()) {
-            Platform.runLater(() -> {
-                game.executeTurn();  // Esegui il turno
-                renderer.render();    // Aggiorna la vista
-                
-                if (game.isGameOver()) {
-                    stopSimulation();
-                    showGameOver();
-                }
-            });
+        runButton.setText("Ferma Simulazione");
+        stepButton.setDisable(true);
 
-            try {
+        simulationThread = new Thread(this::runSimulation);
+        simulationThread.setDaemon(true);
+        simulationThread.start();
+    }
+
+    /**
+     * Ciclo della simulazione. I turni vengono eseguiti in questo thread, così
+     * il thread JavaFX resta libero mentre i bot decidono; a quel thread
+     * passano solo il disegno e la fine della partita. Il turno successivo
+     * parte dopo che il precedente è stato disegnato, quindi il gioco non
+     * viene mai letto mentre cambia.
+     */
+    private void runSimulation() {
+        try {
+            while (isSimulationRunning && !game.isGameOver()) {
+                advanceGame();  // Esegui il turno o il giro
+                CountDownLatch rendered = new CountDownLatch(1);
+                Platform.runLater(() -> {
+                    try {
+                        renderer.render();    // Aggiorna la vista
+                        if (game.isGameOver()) {
+                            stopSimulation();
+                            showGameOver();
+                        }
+                    } finally {
+                        rendered.countDown();
+                    }
+                });
+                rendered.await();
                 Thread.sleep(500); // Pausa di mezzo secondo tra i turni
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Il pulsante del passo singolo torna attivo solo a ciclo terminato
+            Platform.runLater(() -> stepButton.setDisable(false));
         }
-    });
+    }
 
-    simulationThread.setDaemon(true);
-    simulationThread.start();
+    /**
+     * Esegue un giro di turni con le decisioni in parallelo, altrimenti il
+     * turno del giocatore corrente.
+     */
+    private void advanceGame() {
+        if (PARALLEL_DECISIONS) {
+            game.executeRound();
+        } else {
+            game.executeTurn();
+        }
     }
 
     private void stopSimulation() {
         isSimulationRunning = false;
         runButton.setText("Esegui Fino alla Fine");
-        stepButton.setDisable(false);
     }
 
     private void updateView() {
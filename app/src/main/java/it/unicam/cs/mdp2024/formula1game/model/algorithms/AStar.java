@@ -10,7 +10,7 @@ import java.util.*;
  * Trova il percorso migliore tra due punti evitando ostacoli, rispettando
  * le regole del gioco di Formula 1.
  */
-public class AStar {
+public class AStar implements IPathFinder {
 
     private static class Node implements Comparable<Node> {
         IPosition position;
@@ -64,6 +64,7 @@ public class AStar {
      * @param lastVelocity velocità precedente per calcolare il punto principale
      * @return lista di posizioni che formano il percorso, vuota se non trovato
      */
+    @Override
     public List<IPosition> findPath(IPosition start, IPosition target, ICircuit circuit, IVelocity lastVelocity) {
         PriorityQueue<Node> openSet = new PriorityQueue<>();
         Map<IPosition, Node> openMap = new HashMap<>();
@@ -131,7 +132,7 @@ public class AStar {
         return directDistance * 1.2;
     }
 
-    private List<IPosition> getNeighbors(IPosition pos, ICircuit circuit, IVelocity currentVelocity) {
+    static List<IPosition> getNeighbors(IPosition pos, ICircuit circuit, IVelocity currentVelocity) {
         List<IPosition> neighbors = new ArrayList<>();
         
         // Calcola il punto principale basato sull'ultima velocità
@@ -161,26 +162,26 @@ public class AStar {
         return neighbors;
     }
 
-    private IPosition calculateMainPoint(IPosition currentPos, IVelocity currentVelocity) {
+    static IPosition calculateMainPoint(IPosition currentPos, IVelocity currentVelocity) {
         int newX = currentPos.getColumn() + currentVelocity.getCurrentVelocity().getX();
         int newY = currentPos.getRow() + currentVelocity.getCurrentVelocity().getY();
         return new Position(newY, newX);
     }
 
-    private IVelocity calculateNewVelocity(IPosition from, IPosition to) {
+    static IVelocity calculateNewVelocity(IPosition from, IPosition to) {
         int dx = to.getColumn() - from.getColumn();
         int dy = to.getRow() - from.getRow();
         return new Velocity(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(dx, dy));
     }
 
-    private boolean isValidVelocity(IVelocity velocity) {
+    static boolean isValidVelocity(IVelocity velocity) {
         // Verifica che la velocità non superi i limiti del gioco
         int vx = Math.abs(velocity.getCurrentVelocity().getX());
         int vy = Math.abs(velocity.getCurrentVelocity().getY());
         return vx <= 5 && vy <= 5;
     }
 
-    private boolean isValidPosition(IPosition pos, ICircuit circuit) {
+    static boolean isValidPosition(IPosition pos, ICircuit circuit) {
         if (!circuit.isValidPosition(pos) || circuit.isWall(pos.getRow(), pos.getColumn())) {
             return false;
         }
@@ -200,7 +201,7 @@ public class AStar {
         return true;
     }
 
-    private double getMoveCost(IPosition from, IPosition to) {
+    static double getMoveCost(IPosition from, IPosition to) {
         // Costo del movimento considerando anche le diagonali
         boolean isDiagonal = from.getColumn() != to.getColumn() && 
                            from.getRow() != to.getRow();
@@ -216,10 +217,12 @@ public class AStar {
         Node current = endNode;
 
         while (current != null) {
-            path.add(0, current.position);
+            path.add(current.position);
             current = current.parent;
         }
 
+        // Costruito dal target alla partenza: si inverte una sola volta
+        Collections.reverse(path);
         return path;
     }
 }
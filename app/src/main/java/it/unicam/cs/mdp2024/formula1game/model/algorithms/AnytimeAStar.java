@@ -0,0 +1,371 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+
+import java.util.*;
+
+/**
+ * Implementazione anytime dell'algoritmo A* (ARA*) con budget per turno.
+ * La prima soluzione viene cercata con un'euristica gonfiata di un fattore
+ * epsilon, che poi viene ridotto a ogni iterazione riusando i risultati già
+ * calcolati. La ricerca può essere interrotta allo scadere del budget e
+ * ripresa al turno successivo, restituendo sempre il miglior percorso trovato
+ * fino a quel momento insieme al suo limite di subottimalità.
+ * Usa le stesse regole di movimento di {@link AStar}, ma distingue gli stati
+ * anche per velocità, così che il limite riportato sia corretto.
+ */
+public class AnytimeAStar {
+
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+    private static final double MAX_CELLS_PER_MOVE = 5.0;
+    private static final double DEFAULT_INITIAL_EPSILON = 3.0;
+    private static final double DEFAULT_EPSILON_STEP = 0.5;
+
+    /**
+     * Risultato di un passo di pianificazione.
+     */
+    public static class Result {
+        private final List<IPosition> path;
+        private final double suboptimalityBound;
+        private final boolean complete;
+        private final boolean optimal;
+        private final int expansions;
+
+        Result(List<IPosition> path, double suboptimalityBound, boolean complete, boolean optimal, int expansions) {
+            this.path = path;
+            this.suboptimalityBound = suboptimalityBound;
+            this.complete = complete;
+            this.optimal = optimal;
+            this.expansions = expansions;
+        }
+
+        /**
+         * @return il miglior percorso trovato; se il target non è ancora stato
+         *         raggiunto, il percorso verso lo stato più vicino al target
+         */
+        public List<IPosition> getPath() {
+            return path;
+        }
+
+        /**
+         * @return fattore massimo tra il costo del percorso e quello ottimo,
+         *         infinito se non è ancora noto
+         */
+        public double getSuboptimalityBound() {
+            return suboptimalityBound;
+        }
+
+        /**
+         * @return true se il percorso raggiunge il target
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * @return true se il percorso è ottimo e la ricerca è terminata
+         */
+        public boolean isOptimal() {
+            return optimal;
+        }
+
+        /**
+         * @return numero di nodi espansi in questo passo
+         */
+        public int getExpansions() {
+            return expansions;
+        }
+    }
+
+    private static class Node {
+        final IPosition position;
+        final IVelocity velocity;
+        double g = INFINITY;
+        Node parent;
+        int closedIteration = -1;
+        int openVersion;
+        boolean inOpen;
+        boolean inIncons;
+
+        Node(IPosition position, IVelocity velocity) {
+            this.position = position;
+            this.velocity = velocity;
+        }
+    }
+
+    private record StateKey(int row, int column, int velocityX, int velocityY) {
+    }
+
+    private record OpenEntry(Node node, double f, int version) implements Comparable<OpenEntry> {
+        @Override
+        public int compareTo(OpenEntry other) {
+            return Double.compare(f, other.f);
+        }
+    }
+
+    private final double initialEpsilon;
+    private final double epsilonStep;
+
+    private ICircuit circuit;
+    private IPosition target;
+    private Map<StateKey, Node> nodes;
+    private PriorityQueue<OpenEntry> openSet;
+    private List<Node> incons;
+    private double epsilon;
+    private int iteration;
+    private Node bestGoal;
+    private Node closestNode;
+    private double publishedBound;
+    private boolean optimal;
+
+    /**
+     * Crea un pianificatore con i parametri di default.
+     */
+    public AnytimeAStar() {
+        this(DEFAULT_INITIAL_EPSILON, DEFAULT_EPSILON_STEP);
+    }
+
+    /**
+     * Crea un pianificatore con fattore iniziale e passo di riduzione indicati.
+     *
+     * @param initialEpsilon fattore di gonfiaggio iniziale dell'euristica
+     * @param epsilonStep    riduzione del fattore a ogni iterazione
+     * @throws IllegalArgumentException se i parametri non sono validi
+     */
+    public AnytimeAStar(double initialEpsilon, double epsilonStep) {
+        if (initialEpsilon < 1.0) {
+            throw new IllegalArgumentException("Il fattore epsilon deve essere almeno 1");
+        }
+        if (epsilonStep <= 0) {
+            throw new IllegalArgumentException("Il passo di riduzione deve essere positivo");
+        }
+        this.initialEpsilon = initialEpsilon;
+        this.epsilonStep = epsilonStep;
+    }
+
+    /**
+     * Avvia una nuova sessione di pianificazione, scartando quella precedente.
+     *
+     * @param start         posizione di partenza
+     * @param target        posizione di arrivo
+     * @param circuit       circuito con informazioni sugli ostacoli
+     * @param startVelocity velocità alla partenza
+     */
+    public void startSession(IPosition start, IPosition target, ICircuit circuit, IVelocity startVelocity) {
+        this.circuit = circuit;
+        this.target = target;
+        this.nodes = new HashMap<>();
+        this.openSet = new PriorityQueue<>();
+        this.incons = new ArrayList<>();
+        this.epsilon = initialEpsilon;
+        this.iteration = 0;
+        this.bestGoal = null;
+        this.publishedBound = INFINITY;
+        this.optimal = false;
+
+        Node startNode = getNode(start, startVelocity);
+        startNode.g = 0;
+        closestNode = startNode;
+        if (start.equals(target)) {
+            bestGoal = startNode;
+        }
+        pushOpen(startNode);
+    }
+
+    /**
+     * Verifica se esiste una sessione attiva verso il target indicato.
+     *
+     * @param target  il target
+     * @param circuit il circuito
+     * @return true se la sessione corrente riguarda lo stesso target e circuito
+     */
+    public boolean hasSession(IPosition target, ICircuit circuit) {
+        return nodes != null && this.circuit == circuit && this.target.equals(target);
+    }
+
+    /**
+     * Scarta la sessione corrente liberando la memoria occupata.
+     */
+    public void clearSession() {
+        nodes = null;
+        openSet = null;
+        incons = null;
+        bestGoal = null;
+        closestNode = null;
+    }
+
+    /**
+     * @return true se la sessione corrente ha già trovato il percorso ottimo
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * Prosegue la ricerca entro il budget indicato e restituisce il miglior
+     * percorso disponibile.
+     *
+     * @param timeBudgetNanos budget di tempo in nanosecondi, 0 per nessun limite
+     * @param expansionBudget numero massimo di espansioni per questo passo
+     * @return il risultato corrente della pianificazione
+     * @throws IllegalStateException se non è stata avviata alcuna sessione
+     */
+    public Result improve(long timeBudgetNanos, int expansionBudget) {
+        if (nodes == null) {
+            throw new IllegalStateException("Nessuna sessione di pianificazione attiva");
+        }
+        long deadline = timeBudgetNanos > 0 ? System.nanoTime() + timeBudgetNanos : Long.MAX_VALUE;
+        int[] expansions = {0};
+
+        while (!optimal) {
+            if (!improvePath(deadline, expansionBudget, expansions)) {
+                break; // Budget esaurito: si riprende al prossimo turno
+            }
+            publishSolution();
+            if (!optimal) {
+                nextIteration();
+            }
+        }
+
+        if (bestGoal != null) {
+            return new Result(reconstructPath(bestGoal), publishedBound, true, optimal, expansions[0]);
+        }
+        return new Result(reconstructPath(closestNode), INFINITY, false, optimal, expansions[0]);
+    }
+
+    private boolean improvePath(long deadline, int expansionBudget, int[] expansions) {
+        while (!openSet.isEmpty()) {
+            OpenEntry top = openSet.peek();
+            if (!top.node.inOpen || top.version != top.node.openVersion) {
+                openSet.poll(); // Voce obsoleta
+                continue;
+            }
+            double goalCost = bestGoal == null ? INFINITY : bestGoal.g;
+            if (goalCost <= top.f) {
+                return true;
+            }
+            if (expansions[0] >= expansionBudget || System.nanoTime() > deadline) {
+                return false;
+            }
+
+            openSet.poll();
+            top.node.inOpen = false;
+            expand(top.node);
+            expansions[0]++;
+        }
+        return true;
+    }
+
+    private void expand(Node current) {
+        current.closedIteration = iteration;
+
+        for (IPosition neighbor : AStar.getNeighbors(current.position, circuit, current.velocity)) {
+            IVelocity newVelocity = AStar.calculateNewVelocity(current.position, neighbor);
+            Node node = getNode(neighbor, newVelocity);
+            double newG = current.g + AStar.getMoveCost(current.position, neighbor);
+            if (newG >= node.g) {
+                continue;
+            }
+
+            node.g = newG;
+            node.parent = current;
+            if (neighbor.equals(target)) {
+                if (bestGoal == null || newG < bestGoal.g) {
+                    bestGoal = node;
+                }
+                continue; // Non serve espandere gli stati sul target
+            }
+            if (heuristic(neighbor) < heuristic(closestNode.position)) {
+                closestNode = node;
+            }
+            if (node.closedIteration != iteration) {
+                pushOpen(node);
+            } else if (!node.inIncons) {
+                // Stato già chiuso in questa iterazione: verrà riaperto alla successiva
+                node.inIncons = true;
+                incons.add(node);
+            }
+        }
+    }
+
+    private void publishSolution() {
+        double lowerBound = INFINITY;
+        for (OpenEntry entry : openSet) {
+            if (entry.node.inOpen && entry.version == entry.node.openVersion) {
+                lowerBound = Math.min(lowerBound, entry.node.g + heuristic(entry.node.position));
+            }
+        }
+        for (Node node : incons) {
+            lowerBound = Math.min(lowerBound, node.g + heuristic(node.position));
+        }
+
+        if (bestGoal == null) {
+            // Spazio esaurito senza raggiungere il target: non c'è altro da cercare
+            optimal = lowerBound == INFINITY;
+            return;
+        }
+
+        double bound = lowerBound == INFINITY || lowerBound <= 0
+                ? 1.0
+                : Math.max(1.0, bestGoal.g / lowerBound);
+        publishedBound = Math.min(epsilon, bound);
+        optimal = publishedBound <= 1.0 || epsilon <= 1.0;
+        if (optimal) {
+            publishedBound = 1.0;
+        }
+    }
+
+    private void nextIteration() {
+        epsilon = Math.max(1.0, epsilon - epsilonStep);
+        iteration++;
+
+        // Riapre gli stati inconsistenti e ricalcola le priorità con il nuovo epsilon
+        List<Node> reopened = new ArrayList<>();
+        for (OpenEntry entry : openSet) {
+            if (entry.node.inOpen && entry.version == entry.node.openVersion) {
+                reopened.add(entry.node);
+            }
+        }
+        for (Node node : incons) {
+            node.inIncons = false;
+            reopened.add(node);
+        }
+        incons.clear();
+        openSet.clear();
+        for (Node node : reopened) {
+            pushOpen(node);
+        }
+    }
+
+    private void pushOpen(Node node) {
+        node.openVersion++;
+        node.inOpen = true;
+        openSet.add(new OpenEntry(node, node.g + epsilon * heuristic(node.position), node.openVersion));
+    }
+
+    private Node getNode(IPosition position, IVelocity velocity) {
+        IVector v = velocity.getCurrentVelocity();
+        StateKey key = new StateKey(position.getRow(), position.getColumn(), v.getX(), v.getY());
+        return nodes.computeIfAbsent(key, k -> new Node(position, velocity));
+    }
+
+    private double heuristic(IPosition position) {
+        // Ogni mossa costa almeno 1 e sposta di al più 5 celle per componente:
+        // la distanza di Chebyshev divisa per 5 è quindi ammissibile
+        int dx = Math.abs(position.getColumn() - target.getColumn());
+        int dy = Math.abs(position.getRow() - target.getRow());
+        return Math.max(dx, dy) / MAX_CELLS_PER_MOVE;
+    }
+
+    private List<IPosition> reconstructPath(Node endNode) {
+        List<IPosition> path = new ArrayList<>();
+        for (Node current = endNode; current != null; current = current.parent) {
+            path.add(current.position);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
@@ -0,0 +1,141 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Cache limitata di risultati costosi, come tabelle e reti addestrate,
+ * calcolati in background una sola volta anche se più bot li chiedono
+ * insieme.
+ * Il calcolo non gira nel thread che lo chiede: se quel thread viene
+ * interrotto, ad esempio allo scadere del tempo di una decisione, smette
+ * solo di attendere e il calcolo prosegue, così alla richiesta successiva il
+ * risultato è pronto o più vicino. Un calcolo fallito o senza risultato
+ * viene tolto dalla cache e ripetuto alla richiesta successiva.
+ *
+ * @param <K> tipo della chiave
+ * @param <V> tipo del risultato
+ */
+public final class BackgroundCache<K, V> {
+
+    private static final ExecutorService SHARED_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final LruCache<K, FutureTask<V>> tasks;
+
+    /**
+     * @param capacity numero massimo di risultati mantenuti
+     * @throws IllegalArgumentException se la capacità non è positiva
+     */
+    public BackgroundCache(int capacity) {
+        this.tasks = new LruCache<>(capacity);
+    }
+
+    /**
+     * Avvia il calcolo del risultato se non è già in corso o concluso, senza
+     * attenderlo.
+     *
+     * @param key    la chiave
+     * @param loader il calcolo, eseguito in background; può restituire null
+     */
+    public void prefetch(K key, Callable<V> loader) {
+        task(key, loader);
+    }
+
+    /**
+     * Restituisce il risultato, avviandone il calcolo se serve e attendendone
+     * la fine.
+     *
+     * @param key    la chiave
+     * @param loader il calcolo, eseguito in background; può restituire null
+     * @return il risultato, o null se il calcolo non ne ha prodotto uno
+     * @throws InterruptedException se l'attesa viene interrotta; il calcolo prosegue
+     */
+    public V get(K key, Callable<V> loader) throws InterruptedException {
+        FutureTask<V> task = task(key, loader);
+        V value;
+        try {
+            value = task.get();
+        } catch (ExecutionException e) {
+            value = null;
+        }
+        if (value == null) {
+            forget(key, task);
+        }
+        return value;
+    }
+
+    /**
+     * Restituisce il risultato solo se il calcolo è già concluso.
+     *
+     * @param key la chiave
+     * @return il risultato, o null se manca o non è ancora pronto
+     */
+    public V getIfDone(K key) {
+        FutureTask<V> task;
+        synchronized (tasks) {
+            task = tasks.get(key);
+        }
+        if (task == null || !task.isDone()) {
+            return null;
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException | InterruptedException e) {
+            // Calcolo concluso: get non attende e fallisce solo se il calcolo è fallito
+            return null;
+        }
+    }
+
+    /**
+     * Svuota la cache; i calcoli in corso terminano comunque.
+     */
+    public void clear() {
+        synchronized (tasks) {
+            tasks.clear();
+        }
+    }
+
+    /**
+     * Il lock sulla cache copre solo la ricerca del calcolo in corso: chi
+     * chiede lo stesso risultato ne attende la fine, gli altri non vengono
+     * bloccati.
+     */
+    private FutureTask<V> task(K key, Callable<V> loader) {
+        FutureTask<V> task;
+        synchronized (tasks) {
+            task = tasks.get(key);
+            if (task != null) {
+                return task;
+            }
+            task = new FutureTask<>(loader);
+            tasks.put(key, task);
+        }
+        FutureTask<V> started = task;
+        SHARED_EXECUTOR.execute(() -> {
+            started.run();
+            if (result(started) == null) {
+                forget(key, started);
+            }
+        });
+        return task;
+    }
+
+    private static <V> V result(FutureTask<V> task) {
+        try {
+            return task.get();
+        } catch (ExecutionException | InterruptedException e) {
+            return null;
+        }
+    }
+
+    private void forget(K key, FutureTask<V> task) {
+        synchronized (tasks) {
+            if (tasks.get(key) == task) {
+                tasks.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Ricerca a fascio (beam search) sugli stati di gara per guardare più turni
+ * avanti della sola mossa successiva.
+ * A ogni livello vengono espansi solo gli stati più promettenti secondo il
+ * numero di mosse già fatte più una stima delle mosse mancanti, ricavata
+ * dalla distanza sulle celle di strada verso l'obiettivo. Gli stati già
+ * incontrati vengono scartati tramite una {@link TranspositionTable}, e
+ * quelli che non possono migliorare il miglior arrivo trovato vengono potati.
+ * Le strutture della ricerca sono riutilizzate tra un turno e l'altro; un'istanza
+ * non va usata da più ricerche contemporaneamente.
+ */
+public class BeamSearch {
+
+    /** Ampiezza massima del fascio. */
+    public static final int MAX_BEAM_WIDTH = 4096;
+
+    private static final int ACTIONS = RaceStateSpace.MAX_SUCCESSORS;
+    private static final long DISTANCE_SCALE = 1L << 16;
+    private static final int INDEX_BITS = 16;
+
+    /**
+     * Risultato di una ricerca.
+     */
+    public static class Result {
+        private final int accelerationX;
+        private final int accelerationY;
+        private final boolean found;
+        private final boolean reachesGoal;
+        private final int estimatedMoves;
+        private final int depthReached;
+        private final long expansions;
+        private final long elapsedNanos;
+
+        Result(int action, boolean reachesGoal, int estimatedMoves, int depthReached, long expansions,
+                long elapsedNanos) {
+            this.found = action >= 0;
+            this.accelerationX = found ? action % 3 - 1 : 0;
+            this.accelerationY = found ? action / 3 - 1 : 0;
+            this.reachesGoal = reachesGoal;
+            this.estimatedMoves = estimatedMoves;
+            this.depthReached = depthReached;
+            this.expansions = expansions;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getAccelerationX() {
+            return accelerationX;
+        }
+
+        public int getAccelerationY() {
+            return accelerationY;
+        }
+
+        /**
+         * @return false se dallo stato iniziale non esiste alcuna mossa valida
+         */
+        public boolean isFound() {
+            return found;
+        }
+
+        /**
+         * @return true se la sequenza scelta raggiunge l'obiettivo entro la profondità
+         */
+        public boolean reachesGoal() {
+            return reachesGoal;
+        }
+
+        /**
+         * @return mosse stimate fino all'obiettivo lungo la sequenza scelta
+         */
+        public int getEstimatedMoves() {
+            return estimatedMoves;
+        }
+
+        public int getDepthReached() {
+            return depthReached;
+        }
+
+        public long getExpansions() {
+            return expansions;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    private final int beamWidth;
+    private final TranspositionTable visited;
+    private final long[] buffer = new long[ACTIONS];
+    private final long[] arrivalBuffer = new long[ACTIONS];
+    private final long[] beamStates;
+    private final int[] beamActions;
+    private final long[] candidateStates;
+    private final int[] candidateActions;
+    private final long[] candidateKeys;
+    private int beamSize;
+
+    /**
+     * Crea una ricerca con l'ampiezza del fascio indicata.
+     *
+     * @param beamWidth numero di stati mantenuti a ogni livello
+     * @throws IllegalArgumentException se l'ampiezza non è tra 1 e {@value #MAX_BEAM_WIDTH}
+     */
+    public BeamSearch(int beamWidth) {
+        if (beamWidth < 1 || beamWidth > MAX_BEAM_WIDTH) {
+            throw new IllegalArgumentException("Ampiezza del fascio non valida: " + beamWidth);
+        }
+        this.beamWidth = beamWidth;
+        this.visited = new TranspositionTable(beamWidth * ACTIONS * 8);
+        this.beamStates = new long[beamWidth];
+        this.beamActions = new int[beamWidth];
+        this.candidateStates = new long[beamWidth * ACTIONS];
+        this.candidateActions = new int[beamWidth * ACTIONS];
+        this.candidateKeys = new long[beamWidth * ACTIONS];
+    }
+
+    public int getBeamWidth() {
+        return beamWidth;
+    }
+
+    /**
+     * Cerca la sequenza di mosse migliore entro la profondità indicata e ne
+     * restituisce la prima accelerazione.
+     *
+     * @param space     lo spazio degli stati di gara
+     * @param field     le distanze dall'obiettivo sulle celle di strada
+     * @param rootState lo stato attuale dell'auto
+     * @param opponents le posizioni degli avversari, da evitare alla prima mossa
+     * @param depth     numero di turni da guardare avanti
+     * @return il risultato della ricerca
+     * @throws IllegalArgumentException se la profondità non è positiva
+     */
+    public Result search(RaceStateSpace space, DistanceField field, long rootState,
+            Collection<IPosition> opponents, int depth) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("La profondità deve essere positiva");
+        }
+        long start = System.nanoTime();
+        // Se l'obiettivo non è raggiungibile sulle celle di strada si usa la
+        // stima in linea d'aria dello spazio degli stati
+        boolean useField = field.distance(space.row(rootState), space.column(rootState)) != DistanceField.UNREACHABLE;
+
+        visited.clear();
+        visited.add(rootState);
+        beamStates[0] = rootState;
+        beamActions[0] = -1;
+        beamSize = 1;
+
+        long expansions = 0;
+        int bestGoalMoves = Integer.MAX_VALUE;
+        int bestGoalAction = -1;
+        int level = 0;
+        while (level < depth && beamSize > 0) {
+            level++;
+            int candidates = 0;
+            for (int i = 0; i < beamSize; i++) {
+                long state = beamStates[i];
+                int count = space.successors(state, buffer);
+                expansions++;
+                for (int s = 0; s < count; s++) {
+                    long next = buffer[s];
+                    if (level == 1 && nearOpponent(space, next, opponents)) continue;
+                    if (!visited.add(next)) continue;
+                    int action = level == 1 ? actionOf(space, state, next) : beamActions[i];
+
+                    if (space.isGoal(next)) {
+                        if (level < bestGoalMoves && canContinue(space, next)) {
+                            bestGoalMoves = level;
+                            bestGoalAction = action;
+                        }
+                        continue;
+                    }
+                    int bound = bound(space, field, next, useField);
+                    if (bound == DistanceField.UNREACHABLE || level + bound >= bestGoalMoves) continue;
+
+                    candidateStates[candidates] = next;
+                    candidateActions[candidates] = action;
+                    int distance = useField ? field.distance(space.row(next), space.column(next)) : 0;
+                    long priority = (long) (level + bound) * DISTANCE_SCALE + Math.min(distance, DISTANCE_SCALE - 1);
+                    candidateKeys[candidates] = (priority << INDEX_BITS) | candidates;
+                    candidates++;
+                }
+            }
+            if (candidates == 0) {
+                beamSize = 0;
+                break;
+            }
+
+            // Ordinamento su chiavi primitive: priorità nei bit alti, indice nei bassi
+            Arrays.sort(candidateKeys, 0, candidates);
+            beamSize = Math.min(beamWidth, candidates);
+            for (int i = 0; i < beamSize; i++) {
+                int index = (int) (candidateKeys[i] & ((1 << INDEX_BITS) - 1));
+                beamStates[i] = candidateStates[index];
+                beamActions[i] = candidateActions[index];
+            }
+        }
+
+        if (bestGoalAction >= 0) {
+            return new Result(bestGoalAction, true, bestGoalMoves, level, expansions, System.nanoTime() - start);
+        }
+        // Nessun arrivo: la prima mossa del miglior stato dell'ultimo livello
+        // da cui l'auto può ancora muoversi
+        for (int i = 0; i < beamSize; i++) {
+            if (space.successors(beamStates[i], buffer) > 0) {
+                int estimate = level + bound(space, field, beamStates[i], useField);
+                return new Result(beamActions[i], false, estimate, level, expansions, System.nanoTime() - start);
+            }
+        }
+        return new Result(beamSize > 0 ? beamActions[0] : -1, false, Integer.MAX_VALUE, level, expansions,
+                System.nanoTime() - start);
+    }
+
+    private static int bound(RaceStateSpace space, DistanceField field, long state, boolean useField) {
+        return useField ? field.movesFrom(space.row(state), space.column(state)) : space.heuristic(state);
+    }
+
+    private boolean canContinue(RaceStateSpace space, long goalState) {
+        long moving = space.encode(0, space.row(goalState), space.column(goalState),
+                space.velocityX(goalState), space.velocityY(goalState));
+        return space.successors(moving, arrivalBuffer) > 0;
+    }
+
+    private static boolean nearOpponent(RaceStateSpace space, long state, Collection<IPosition> opponents) {
+        int row = space.row(state);
+        int column = space.column(state);
+        for (IPosition opponent : opponents) {
+            int dRow = row - opponent.getRow();
+            int dColumn = column - opponent.getColumn();
+            // Stessa soglia di collisione del validatore: distanza <= 1
+            if (dRow * dRow + dColumn * dColumn <= 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int actionOf(RaceStateSpace space, long from, long to) {
+        int ax = space.velocityX(to) - space.velocityX(from);
+        int ay = space.velocityY(to) - space.velocityY(from);
+        return (ay + 1) * 3 + (ax + 1);
+    }
+}
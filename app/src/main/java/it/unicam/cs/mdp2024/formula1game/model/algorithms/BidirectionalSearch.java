@@ -0,0 +1,377 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+
+import java.util.*;
+
+/**
+ * Ricerca bidirezionale sugli stati di gara (posizione e velocità), pensata
+ * per i tratti lunghi tra checkpoint distanti.
+ * La ricerca in avanti parte dallo stato iniziale, quella all'indietro dagli
+ * stati finali seguendo le transizioni invertite; ad ogni passo si espande
+ * la frontiera con la priorità minima più bassa. Come nell'algoritmo MM,
+ * la priorità di uno stato è max(f, 2g): nessuna delle due ricerche
+ * espande stati oltre la metà del percorso ottimo, quindi le frontiere si
+ * incontrano nel mezzo. La priorità minima tra le due frontiere è un
+ * limite inferiore al costo di qualunque percorso non ancora scoperto, per
+ * cui la ricerca termina quando il miglior incontro trovato non la supera.
+ * Può essere eseguita anche in modalità unidirezionale, per confrontare
+ * espansioni e latenza sullo stesso spazio degli stati.
+ */
+public class BidirectionalSearch {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private static final long NO_STATE = -1;
+
+    /**
+     * Risultato di una ricerca.
+     */
+    public static class Result {
+        private final List<IPosition> path;
+        private final long[] states;
+        private final int cost;
+        private final int forwardExpansions;
+        private final int backwardExpansions;
+        private final long elapsedNanos;
+        private final boolean exhausted;
+
+        Result(List<IPosition> path, long[] states, int cost, int forwardExpansions, int backwardExpansions,
+                long elapsedNanos, boolean exhausted) {
+            this.path = path;
+            this.states = states;
+            this.cost = cost;
+            this.forwardExpansions = forwardExpansions;
+            this.backwardExpansions = backwardExpansions;
+            this.elapsedNanos = elapsedNanos;
+            this.exhausted = exhausted;
+        }
+
+        /**
+         * @return le posizioni del percorso ottimo, vuoto se non esiste
+         */
+        public List<IPosition> getPath() {
+            return path;
+        }
+
+        /**
+         * @return gli stati codificati del percorso ottimo, vuoto se non esiste
+         */
+        public long[] getStates() {
+            return states.clone();
+        }
+
+        /**
+         * @return il numero di mosse del percorso ottimo, -1 se non esiste
+         */
+        public int getCost() {
+            return cost;
+        }
+
+        public boolean isFound() {
+            return cost >= 0;
+        }
+
+        /**
+         * @return true se la ricerca non ha trovato il percorso dopo aver
+         *         esaurito la frontiera: il percorso non esiste. Una ricerca
+         *         fermata dal limite di espansioni o da un'interruzione non
+         *         è esaurita
+         */
+        public boolean isExhausted() {
+            return exhausted;
+        }
+
+        public int getForwardExpansions() {
+            return forwardExpansions;
+        }
+
+        public int getBackwardExpansions() {
+            return backwardExpansions;
+        }
+
+        public int getExpansions() {
+            return forwardExpansions + backwardExpansions;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    private record OpenEntry(long state, int priority, int g) {
+    }
+
+    /**
+     * Una delle due frontiere della ricerca.
+     */
+    private static class Frontier {
+        final PriorityQueue<OpenEntry> openSet = new PriorityQueue<>(
+                Comparator.comparingInt(OpenEntry::priority).thenComparing(Comparator.comparingInt(OpenEntry::g).reversed()));
+        final Map<Long, Integer> gCosts = new HashMap<>();
+        // In avanti: stato precedente; all'indietro: stato successivo verso l'arrivo
+        final Map<Long, Long> links = new HashMap<>();
+        int expansions;
+
+        final boolean meetInMiddle;
+
+        Frontier(boolean meetInMiddle) {
+            this.meetInMiddle = meetInMiddle;
+        }
+
+        void push(long state, int g, int h, long link) {
+            gCosts.put(state, g);
+            links.put(state, link);
+            int priority = meetInMiddle ? Math.max(g + h, 2 * g) : g + h;
+            openSet.add(new OpenEntry(state, priority, g));
+        }
+
+        OpenEntry peek() {
+            while (!openSet.isEmpty()) {
+                OpenEntry top = openSet.peek();
+                if (top.g() == gCosts.get(top.state())) {
+                    return top;
+                }
+                openSet.poll(); // Voce obsoleta
+            }
+            return null;
+        }
+
+        int minPriority() {
+            OpenEntry top = peek();
+            return top == null ? INFINITY : top.priority();
+        }
+    }
+
+    private final boolean bidirectional;
+    private final int expansionLimit;
+
+    /**
+     * Crea una ricerca bidirezionale.
+     */
+    public BidirectionalSearch() {
+        this(true);
+    }
+
+    /**
+     * Crea una ricerca nella modalità indicata.
+     *
+     * @param bidirectional true per la ricerca bidirezionale, false per la
+     *                      sola ricerca in avanti (A* classico)
+     */
+    public BidirectionalSearch(boolean bidirectional) {
+        this(bidirectional, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Crea una ricerca nella modalità indicata che si arrende dopo il numero
+     * di espansioni indicato.
+     *
+     * @param bidirectional  true per la ricerca bidirezionale, false per la
+     *                       sola ricerca in avanti (A* classico)
+     * @param expansionLimit numero massimo di espansioni complessive
+     * @throws IllegalArgumentException se il limite non è positivo
+     */
+    public BidirectionalSearch(boolean bidirectional, int expansionLimit) {
+        if (expansionLimit <= 0) {
+            throw new IllegalArgumentException("Il limite di espansioni deve essere positivo");
+        }
+        this.bidirectional = bidirectional;
+        this.expansionLimit = expansionLimit;
+    }
+
+    /**
+     * Cerca il percorso con il minor numero di mosse dalla posizione indicata,
+     * partendo da fermi, fino all'ultimo obiettivo dello spazio degli stati.
+     *
+     * @param space lo spazio degli stati
+     * @param start la posizione di partenza
+     * @return il risultato della ricerca
+     */
+    public Result search(RaceStateSpace space, IPosition start) {
+        return search(space, space.startState(start));
+    }
+
+    /**
+     * Cerca il percorso con il minor numero di mosse dallo stato indicato,
+     * anche in movimento, fino all'ultimo obiettivo dello spazio degli stati.
+     *
+     * @param space      lo spazio degli stati
+     * @param startState lo stato di partenza codificato
+     * @return il risultato della ricerca; non trovato anche se il limite di
+     *         espansioni è stato superato o il thread è stato interrotto
+     */
+    public Result search(RaceStateSpace space, long startState) {
+        long startTime = System.nanoTime();
+        Frontier forward = new Frontier(bidirectional);
+        forward.push(startState, 0, space.heuristic(startState), NO_STATE);
+
+        if (!bidirectional) {
+            return searchForward(space, forward, startTime);
+        }
+
+        Frontier backward = new Frontier(true);
+        int[][] columnMoves = computeMovesFrom(space, space.velocityX(startState));
+        int[][] rowMoves = computeMovesFrom(space, space.velocityY(startState));
+        for (long goal : space.goalStates()) {
+            int h = backwardHeuristic(space, columnMoves, rowMoves, goal, startState);
+            if (h != INFINITY) {
+                backward.push(goal, 0, h, NO_STATE);
+            }
+        }
+
+        long[] buffer = new long[Math.max(RaceStateSpace.MAX_SUCCESSORS, space.getMaxPredecessors())];
+        int bestCost = space.isGoal(startState) ? 0 : INFINITY;
+        long meeting = bestCost == 0 ? startState : NO_STATE;
+        boolean exhausted = false;
+
+        while (true) {
+            int forwardMin = forward.minPriority();
+            int backwardMin = backward.minPriority();
+            if (forwardMin == INFINITY || backwardMin == INFINITY
+                    || bestCost <= Math.min(forwardMin, backwardMin)) {
+                exhausted = meeting == NO_STATE;
+                break;
+            }
+            if (forward.expansions + backward.expansions >= expansionLimit
+                    || Thread.currentThread().isInterrupted()) {
+                meeting = NO_STATE;
+                break;
+            }
+
+            boolean expandForward = forwardMin < backwardMin
+                    || (forwardMin == backwardMin && forward.openSet.size() <= backward.openSet.size());
+            Frontier current = expandForward ? forward : backward;
+            Frontier opposite = expandForward ? backward : forward;
+            OpenEntry entry = current.openSet.poll();
+            current.expansions++;
+
+            int count = expandForward
+                    ? space.successors(entry.state(), buffer)
+                    : space.predecessors(entry.state(), buffer);
+            int newG = entry.g() + 1;
+            for (int i = 0; i < count; i++) {
+                long next = buffer[i];
+                Integer known = current.gCosts.get(next);
+                if (known != null && known <= newG) continue;
+
+                int h = expandForward ? space.heuristic(next) : backwardHeuristic(space, columnMoves, rowMoves, next, startState);
+                if (h == INFINITY) continue;
+                current.push(next, newG, h, entry.state());
+
+                Integer oppositeG = opposite.gCosts.get(next);
+                if (oppositeG != null && newG + oppositeG < bestCost) {
+                    bestCost = newG + oppositeG;
+                    meeting = next;
+                }
+            }
+        }
+
+        long elapsed = System.nanoTime() - startTime;
+        if (meeting == NO_STATE) {
+            return new Result(new ArrayList<>(), new long[0], -1, forward.expansions, backward.expansions, elapsed,
+                    exhausted);
+        }
+        List<Long> states = new ArrayList<>();
+        for (long state = meeting; state != NO_STATE; state = forward.links.get(state)) {
+            states.add(state);
+        }
+        Collections.reverse(states);
+        for (long state = backward.links.getOrDefault(meeting, NO_STATE); state != NO_STATE;
+                state = backward.links.get(state)) {
+            states.add(state);
+        }
+        return new Result(space.toPositions(states), toArray(states), bestCost, forward.expansions,
+                backward.expansions, elapsed, false);
+    }
+
+    private Result searchForward(RaceStateSpace space, Frontier forward, long startTime) {
+        long[] buffer = new long[RaceStateSpace.MAX_SUCCESSORS];
+        OpenEntry entry;
+        boolean exhausted = true;
+        while ((entry = forward.peek()) != null) {
+            forward.openSet.poll();
+            if (space.isGoal(entry.state())) {
+                List<Long> states = new ArrayList<>();
+                for (long state = entry.state(); state != NO_STATE; state = forward.links.get(state)) {
+                    states.add(state);
+                }
+                Collections.reverse(states);
+                return new Result(space.toPositions(states), toArray(states), entry.g(), forward.expansions, 0,
+                        System.nanoTime() - startTime, false);
+            }
+            if (forward.expansions >= expansionLimit || Thread.currentThread().isInterrupted()) {
+                exhausted = false;
+                break;
+            }
+            forward.expansions++;
+
+            int count = space.successors(entry.state(), buffer);
+            int newG = entry.g() + 1;
+            for (int i = 0; i < count; i++) {
+                long next = buffer[i];
+                Integer known = forward.gCosts.get(next);
+                if (known != null && known <= newG) continue;
+                int h = space.heuristic(next);
+                if (h == INFINITY) continue;
+                forward.push(next, newG, h, entry.state());
+            }
+        }
+        return new Result(new ArrayList<>(), new long[0], -1, forward.expansions, 0, System.nanoTime() - startTime,
+                exhausted);
+    }
+
+    private static long[] toArray(List<Long> states) {
+        long[] result = new long[states.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = states.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Stima ammissibile e consistente delle mosse necessarie per arrivare
+     * allo stato da quello di partenza: il massimo tra le mosse minime lungo
+     * ciascun asse, considerato indipendentemente dall'altro.
+     */
+    private int backwardHeuristic(RaceStateSpace space, int[][] columnMoves, int[][] rowMoves,
+            long state, long startState) {
+        int offset = columnMoves.length / 2;
+        int dx = space.column(state) - space.column(startState) + offset;
+        int dy = space.row(state) - space.row(startState) + offset;
+        int vx = space.velocityX(state) + RaceStateSpace.MAX_SPEED;
+        int vy = space.velocityY(state) + RaceStateSpace.MAX_SPEED;
+        return Math.max(columnMoves[dx][vx], rowMoves[dy][vy]);
+    }
+
+    /**
+     * Calcola con una visita in ampiezza il numero minimo di mosse per
+     * spostarsi di d celle lungo un asse e arrivare con velocità v, partendo
+     * con la velocità indicata. Il margine oltre le dimensioni del circuito
+     * copre le manovre che superano la destinazione prima di tornare indietro.
+     */
+    private int[][] computeMovesFrom(RaceStateSpace space, int startVelocity) {
+        int maxSpeed = RaceStateSpace.MAX_SPEED;
+        int offset = space.getWidth() + space.getHeight() + maxSpeed * maxSpeed;
+        int[][] moves = new int[2 * offset + 1][2 * maxSpeed + 1];
+        for (int[] row : moves) {
+            Arrays.fill(row, INFINITY);
+        }
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        moves[offset][startVelocity + maxSpeed] = 0;
+        queue.add(new int[] {offset, startVelocity});
+        while (!queue.isEmpty()) {
+            int[] current = queue.poll();
+            int steps = moves[current[0]][current[1] + maxSpeed];
+            for (int a = -1; a <= 1; a++) {
+                int v = current[1] + a;
+                int d = current[0] + v;
+                if (Math.abs(v) > maxSpeed || d < 0 || d >= moves.length) continue;
+                if (moves[d][v + maxSpeed] == INFINITY) {
+                    moves[d][v + maxSpeed] = steps + 1;
+                    queue.add(new int[] {d, v});
+                }
+            }
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,198 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitFingerprint;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+
+/**
+ * Inviluppo di frenata di un circuito: per ogni cella e velocità indica se
+ * l'auto può ancora evitare lo schianto, cioè se esiste una sequenza di
+ * mosse valide che la porta a fermarsi su una cella da cui può restare
+ * ferma.
+ * Viene calcolato con una sola visita all'indietro, a partire dagli stati
+ * fermi, sulle stesse regole di {@link RaceStateSpace}: accelerazione in
+ * {-1, 0, 1} per componente, velocità euclidea massima 5 e destinazione
+ * libera con almeno due celle libere adiacenti. La visita in ampiezza dà
+ * anche il numero minimo di turni per fermarsi.
+ * Gli avversari non sono considerati. La tabella è immutabile e condivisa
+ * tra tutti i bot dello stesso circuito; ogni interrogazione è una lettura.
+ */
+public final class BrakingEnvelope {
+
+    /** Valore di {@link #turnsToStop} per gli stati da cui lo schianto è inevitabile. */
+    public static final int DOOMED = -1;
+
+    private static final int MAX_SPEED = RaceStateSpace.MAX_SPEED;
+    private static final int VELOCITY_SIDE = 2 * MAX_SPEED + 1;
+    private static final int VELOCITY_COUNT = VELOCITY_SIDE * VELOCITY_SIDE;
+    /** Valore memorizzato per gli stati senza scampo; gli altri valgono turni + 1. */
+    private static final byte STORED_DOOMED = 0;
+    private static final int MAX_STORED_TURNS = 0xFF - 1;
+    private static final int CACHE_CAPACITY = 8;
+
+    private static final LruCache<Long, BrakingEnvelope> SHARED_ENVELOPES = new LruCache<>(CACHE_CAPACITY);
+
+    private final int width;
+    private final int height;
+    private final byte[] turns;
+    private final boolean[] validDestination;
+
+    private BrakingEnvelope(int width, int height, byte[] turns, boolean[] validDestination) {
+        this.width = width;
+        this.height = height;
+        this.turns = turns;
+        this.validDestination = validDestination;
+    }
+
+    /**
+     * Restituisce l'inviluppo del circuito, calcolandolo una sola volta per
+     * circuiti con lo stesso contenuto.
+     *
+     * @param circuit il circuito
+     * @return l'inviluppo di frenata
+     */
+    public static BrakingEnvelope of(ICircuit circuit) {
+        return SHARED_ENVELOPES.getOrCompute(CircuitFingerprint.of(circuit), key -> compute(circuit));
+    }
+
+    /**
+     * Calcola l'inviluppo senza usare la cache condivisa.
+     *
+     * @param circuit il circuito
+     * @return l'inviluppo di frenata
+     */
+    public static BrakingEnvelope compute(ICircuit circuit) {
+        int width = circuit.getWidth();
+        int height = circuit.getHeight();
+        int cellCount = width * height;
+        boolean[] validDestination = RaceStateSpace.computeValidDestinations(circuit);
+        boolean[] validVelocity = new boolean[VELOCITY_COUNT];
+        for (int vy = -MAX_SPEED; vy <= MAX_SPEED; vy++) {
+            for (int vx = -MAX_SPEED; vx <= MAX_SPEED; vx++) {
+                validVelocity[velocityIndex(vx, vy)] = vx * vx + vy * vy <= MAX_SPEED * MAX_SPEED;
+            }
+        }
+
+        byte[] turns = new byte[cellCount * VELOCITY_COUNT];
+        int[] queue = new int[cellCount * VELOCITY_COUNT];
+        int head = 0;
+        int tail = 0;
+        // Un'auto ferma su una destinazione valida può restarci con accelerazione nulla
+        int stopped = velocityIndex(0, 0);
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (validDestination[cell]) {
+                int state = cell * VELOCITY_COUNT + stopped;
+                turns[state] = 1;
+                queue[tail++] = state;
+            }
+        }
+
+        // Lo stato (p, u) precede (d, w) se w = u + a e d = p + w: la cella di
+        // partenza dipende solo da w, le velocità precedenti da a
+        while (head < tail) {
+            int state = queue[head++];
+            int cell = state / VELOCITY_COUNT;
+            // Uno stato su una cella che non è una destinazione valida (per esempio
+            // un vicolo cieco) si può occupare solo alla partenza: nessuna mossa vi arriva
+            if (!validDestination[cell]) continue;
+            int velocity = state % VELOCITY_COUNT;
+            int vx = velocity % VELOCITY_SIDE - MAX_SPEED;
+            int vy = velocity / VELOCITY_SIDE - MAX_SPEED;
+            int row = cell / width - vy;
+            int column = cell % width - vx;
+            if (row < 0 || row >= height || column < 0 || column >= width || circuit.isWall(column, row)) continue;
+            int previousCell = row * width + column;
+            byte next = (byte) Math.min((turns[state] & 0xFF) + 1, MAX_STORED_TURNS + 1);
+            for (int ay = -1; ay <= 1; ay++) {
+                for (int ax = -1; ax <= 1; ax++) {
+                    int ux = vx - ax;
+                    int uy = vy - ay;
+                    if (Math.abs(ux) > MAX_SPEED || Math.abs(uy) > MAX_SPEED) continue;
+                    int previousVelocity = velocityIndex(ux, uy);
+                    if (!validVelocity[previousVelocity]) continue;
+                    int previous = previousCell * VELOCITY_COUNT + previousVelocity;
+                    if (turns[previous] == STORED_DOOMED) {
+                        turns[previous] = next;
+                        queue[tail++] = previous;
+                    }
+                }
+            }
+        }
+        return new BrakingEnvelope(width, height, turns, validDestination);
+    }
+
+    /**
+     * Indica se da questo stato l'auto può ancora fermarsi senza schiantarsi.
+     *
+     * @param row    riga dell'auto
+     * @param column colonna dell'auto
+     * @param vx     componente orizzontale della velocità
+     * @param vy     componente verticale della velocità
+     * @return false se lo stato è fuori dal circuito o lo schianto è inevitabile
+     */
+    public boolean canStop(int row, int column, int vx, int vy) {
+        int state = stateIndex(row, column, vx, vy);
+        return state >= 0 && turns[state] != STORED_DOOMED;
+    }
+
+    /**
+     * Indica se dopo la mossa l'auto può ancora fermarsi: la destinazione è
+     * valida e da lì esiste una frenata sicura.
+     *
+     * @param row    riga dell'auto
+     * @param column colonna dell'auto
+     * @param vx     componente orizzontale della velocità attuale
+     * @param vy     componente verticale della velocità attuale
+     * @param ax     componente orizzontale dell'accelerazione
+     * @param ay     componente verticale dell'accelerazione
+     * @return true se la mossa non condanna l'auto allo schianto
+     */
+    public boolean isSafeMove(int row, int column, int vx, int vy, int ax, int ay) {
+        int nvx = vx + ax;
+        int nvy = vy + ay;
+        int state = stateIndex(row + nvy, column + nvx, nvx, nvy);
+        return state >= 0 && validDestination[state / VELOCITY_COUNT] && turns[state] != STORED_DOOMED;
+    }
+
+    /**
+     * @param row    riga dell'auto
+     * @param column colonna dell'auto
+     * @param vx     componente orizzontale della velocità
+     * @param vy     componente verticale della velocità
+     * @return il numero minimo di turni per fermarsi, o {@link #DOOMED} se lo
+     *         schianto è inevitabile; oltre 254 turni il valore è limitato
+     */
+    public int turnsToStop(int row, int column, int vx, int vy) {
+        int state = stateIndex(row, column, vx, vy);
+        return state < 0 || turns[state] == STORED_DOOMED ? DOOMED : (turns[state] & 0xFF) - 1;
+    }
+
+    /**
+     * @return il numero di stati da cui l'auto può ancora fermarsi
+     */
+    public long safeStateCount() {
+        long count = 0;
+        for (byte value : turns) {
+            if (value != STORED_DOOMED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int stateIndex(int row, int column, int vx, int vy) {
+        if (row < 0 || row >= height || column < 0 || column >= width
+                || Math.abs(vx) > MAX_SPEED || Math.abs(vy) > MAX_SPEED) {
+            return -1;
+        }
+        return (row * width + column) * VELOCITY_COUNT + velocityIndex(vx, vy);
+    }
+
+    private static int velocityIndex(int vx, int vy) {
+        return (vy + MAX_SPEED) * VELOCITY_SIDE + (vx + MAX_SPEED);
+    }
+
+    @Override
+    public String toString() {
+        return "BrakingEnvelope[" + width + "x" + height + ", stati sicuri " + safeStateCount() + "]";
+    }
+}
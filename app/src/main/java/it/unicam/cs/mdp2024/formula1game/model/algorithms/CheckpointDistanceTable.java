@@ -0,0 +1,128 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitFingerprint;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Distanza di ogni cella del circuito da ciascuna linea dei checkpoint,
+ * conservata in un {@link TableStore}.
+ * La tabella ha dimensioni [linee][righe][colonne] con distanze senza segno
+ * da due byte; viene calcolata con un {@link DistanceField} per linea solo
+ * la prima volta e poi mappata dal file, così l'avvio di una partita non
+ * ripete le visite.
+ * L'impronta del file combina il circuito e le linee, quindi linee diverse
+ * sullo stesso circuito producono tabelle distinte.
+ */
+public final class CheckpointDistanceTable {
+
+    /** Nome delle tabelle nell'archivio. */
+    public static final String TABLE_NAME = "distanze-checkpoint";
+
+    private static final int CONTENT_VERSION = 1;
+    /** Valore memorizzato per le celle da cui la linea non è raggiungibile. */
+    private static final char STORED_UNREACHABLE = 0xFFFF;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final MappedTable table;
+    private final int lineCount;
+    private final int width;
+    private final int height;
+
+    private CheckpointDistanceTable(MappedTable table, int lineCount, int width, int height) {
+        this.table = table;
+        this.lineCount = lineCount;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Mappa la tabella delle linee indicate, calcolandola e scrivendola
+     * nell'archivio se non è ancora presente.
+     *
+     * @param store   l'archivio delle tabelle
+     * @param circuit il circuito
+     * @param lines   le linee dei checkpoint, nell'ordine del giro
+     * @return la tabella
+     * @throws IOException              se l'archivio non può essere letto o scritto
+     * @throws IllegalArgumentException se non ci sono linee
+     */
+    public static CheckpointDistanceTable open(TableStore store, ICircuit circuit, List<List<IPosition>> lines)
+            throws IOException {
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("Servono le linee dei checkpoint");
+        }
+        int width = circuit.getWidth();
+        int height = circuit.getHeight();
+        int[] shape = {lines.size(), height, width};
+        long fingerprint = fingerprint(circuit, lines);
+
+        MappedTable table = store.map(TABLE_NAME, fingerprint, CONTENT_VERSION);
+        if (table == null || table.getElementBytes() != 2 || !table.hasShape(shape)) {
+            table = store.write(TABLE_NAME, fingerprint, CONTENT_VERSION, 2, shape, buffer -> {
+                for (List<IPosition> line : lines) {
+                    DistanceField field = DistanceField.towards(circuit, line);
+                    for (int row = 0; row < height; row++) {
+                        for (int column = 0; column < width; column++) {
+                            int distance = field.distance(row, column);
+                            buffer.putChar(distance >= STORED_UNREACHABLE ? STORED_UNREACHABLE : (char) distance);
+                        }
+                    }
+                }
+            });
+        }
+        return new CheckpointDistanceTable(table, lines.size(), width, height);
+    }
+
+    /**
+     * @param line   indice della linea
+     * @param row    riga della cella
+     * @param column colonna della cella
+     * @return la distanza in celle dalla linea, o
+     *         {@link DistanceField#UNREACHABLE} se la cella è fuori dal
+     *         circuito o non raggiunge la linea
+     * @throws IndexOutOfBoundsException se la linea non esiste
+     */
+    public int distance(int line, int row, int column) {
+        if (line < 0 || line >= lineCount) {
+            throw new IndexOutOfBoundsException("Linea inesistente: " + line);
+        }
+        if (row < 0 || row >= height || column < 0 || column >= width) {
+            return DistanceField.UNREACHABLE;
+        }
+        char distance = table.getChar((line * height + row) * width + column);
+        return distance == STORED_UNREACHABLE ? DistanceField.UNREACHABLE : distance;
+    }
+
+    /**
+     * @param line     indice della linea
+     * @param position la cella
+     * @return la distanza in celle dalla linea
+     */
+    public int distance(int line, IPosition position) {
+        return distance(line, position.getRow(), position.getColumn());
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Impronta FNV-1a del circuito e delle celle delle linee.
+     */
+    static long fingerprint(ICircuit circuit, List<List<IPosition>> lines) {
+        long hash = CircuitFingerprint.of(circuit);
+        for (List<IPosition> line : lines) {
+            hash = (hash ^ line.size()) * FNV_PRIME;
+            for (IPosition cell : line) {
+                hash = (hash ^ cell.getRow()) * FNV_PRIME;
+                hash = (hash ^ cell.getColumn()) * FNV_PRIME;
+            }
+        }
+        return hash;
+    }
+}
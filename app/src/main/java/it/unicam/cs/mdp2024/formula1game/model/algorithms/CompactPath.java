@@ -0,0 +1,207 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rappresentazione compatta di un percorso: solo i punti di svolta, ciascuno
+ * impacchettato in un int, più un cursore sul prossimo punto da raggiungere.
+ * I punti intermedi lungo un tratto rettilineo percorso a passo costante
+ * vengono scartati perché ricostruibili dagli estremi del tratto.
+ * L'array dei punti non viene mai modificato, quindi più copie dello stesso
+ * percorso possono condividerlo, ciascuna con il proprio cursore.
+ */
+public final class CompactPath {
+
+    private static final int[] NO_POINTS = new int[0];
+
+    private final int[] points;
+    private final int originalLength;
+    private int cursor;
+
+    private CompactPath(int[] points, int originalLength) {
+        this.points = points;
+        this.originalLength = originalLength;
+        this.cursor = 0;
+    }
+
+    /**
+     * Crea un percorso compatto mantenendo solo i punti di svolta.
+     *
+     * @param path il percorso completo
+     * @return il percorso compatto, con il cursore sul primo punto
+     */
+    public static CompactPath of(List<IPosition> path) {
+        if (path == null || path.isEmpty()) {
+            return empty();
+        }
+        int[] buffer = new int[path.size()];
+        int count = 0;
+        buffer[count++] = pack(path.get(0));
+        for (int i = 1; i < path.size() - 1; i++) {
+            IPosition previous = path.get(i - 1);
+            IPosition current = path.get(i);
+            IPosition next = path.get(i + 1);
+            // Il punto è una svolta se cambia lo spostamento rispetto al precedente
+            if (current.getRow() - previous.getRow() != next.getRow() - current.getRow()
+                    || current.getColumn() - previous.getColumn() != next.getColumn() - current.getColumn()) {
+                buffer[count++] = pack(current);
+            }
+        }
+        if (path.size() > 1) {
+            buffer[count++] = pack(path.get(path.size() - 1));
+        }
+        int[] points = new int[count];
+        System.arraycopy(buffer, 0, points, 0, count);
+        return new CompactPath(points, path.size());
+    }
+
+    /**
+     * @return un percorso vuoto
+     */
+    public static CompactPath empty() {
+        return new CompactPath(NO_POINTS, 0);
+    }
+
+    /**
+     * Crea una copia che condivide i punti ma ha un cursore indipendente,
+     * posizionato all'inizio del percorso.
+     *
+     * @return la copia del percorso
+     */
+    public CompactPath copy() {
+        return new CompactPath(points, originalLength);
+    }
+
+    public boolean isEmpty() {
+        return cursor >= points.length;
+    }
+
+    /**
+     * @return il numero di punti di svolta non ancora raggiunti
+     */
+    public int remaining() {
+        return points.length - cursor;
+    }
+
+    /**
+     * @return il numero di punti di svolta memorizzati
+     */
+    public int getPointCount() {
+        return points.length;
+    }
+
+    /**
+     * @return il numero di punti del percorso prima della compressione
+     */
+    public int getOriginalLength() {
+        return originalLength;
+    }
+
+    /**
+     * @return il prossimo punto da raggiungere
+     * @throws IllegalStateException se il percorso è esaurito
+     */
+    public IPosition peek() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Percorso esaurito");
+        }
+        return unpack(points[cursor]);
+    }
+
+    /**
+     * Segna come raggiunto il prossimo punto.
+     */
+    public void advance() {
+        if (cursor < points.length) {
+            cursor++;
+        }
+    }
+
+    /**
+     * Sposta il cursore sul punto non ancora raggiunto più vicino alla
+     * posizione indicata.
+     *
+     * @param position la posizione attuale
+     */
+    public void advanceToNearest(IPosition position) {
+        int nearest = cursor;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        for (int i = cursor; i < points.length; i++) {
+            double distance = distance(points[i], position.getRow(), position.getColumn());
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = i;
+            }
+        }
+        cursor = nearest;
+    }
+
+    /**
+     * Verifica se il tratto ancora da percorrere passa entro la distanza
+     * indicata dalla posizione, considerando anche i punti scartati dalla
+     * compressione lungo i segmenti tra i punti di svolta.
+     *
+     * @param position la posizione da controllare
+     * @param distance la distanza massima
+     * @return true se il percorso passa abbastanza vicino alla posizione
+     */
+    public boolean passesNear(IPosition position, double distance) {
+        int row = position.getRow();
+        int column = position.getColumn();
+        int first = cursor;
+        if (first >= points.length) {
+            return false;
+        }
+        if (first == points.length - 1) {
+            return distance(points[first], row, column) <= distance;
+        }
+        for (int i = first; i < points.length - 1; i++) {
+            if (segmentDistance(points[i], points[i + 1], row, column) <= distance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return i punti di svolta non ancora raggiunti
+     */
+    public List<IPosition> toList() {
+        List<IPosition> list = new ArrayList<>(remaining());
+        for (int i = cursor; i < points.length; i++) {
+            list.add(unpack(points[i]));
+        }
+        return list;
+    }
+
+    private static int pack(IPosition position) {
+        return (position.getRow() << 16) | (position.getColumn() & 0xFFFF);
+    }
+
+    private static IPosition unpack(int point) {
+        return new Position(point >> 16, (short) point);
+    }
+
+    private static double distance(int point, int row, int column) {
+        int dRow = (point >> 16) - row;
+        int dColumn = (short) point - column;
+        return Math.sqrt(dRow * dRow + dColumn * dColumn);
+    }
+
+    private static double segmentDistance(int from, int to, int row, int column) {
+        double r1 = from >> 16;
+        double c1 = (short) from;
+        double dr = (to >> 16) - r1;
+        double dc = (short) to - c1;
+        double lengthSquared = dr * dr + dc * dc;
+        double t = lengthSquared == 0 ? 0 : ((row - r1) * dr + (column - c1) * dc) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double pr = r1 + t * dr - row;
+        double pc = c1 + t * dc - column;
+        return Math.sqrt(pr * pr + pc * pc);
+    }
+}
@@ -0,0 +1,254 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * A* cooperativo a finestra sugli stati di gara nel tempo.
+ * Ogni nodo è uno stato di gara a un certo turno; gli stati che al loro
+ * turno di arrivo sono in conflitto con le prenotazioni delle altre auto
+ * nella {@link ReservationTable} vengono scartati. La ricerca guarda avanti
+ * al più un numero fisso di turni: oltre la finestra le altre auto non hanno
+ * ancora pianificato, quindi il costo mancante è affidato alla stima sulle
+ * celle di strada.
+ * Le strutture della ricerca sono riutilizzate tra un turno e l'altro; un'istanza
+ * non va usata da più ricerche contemporaneamente.
+ */
+public class CooperativeAStar {
+
+    private static final int ACTIONS = RaceStateSpace.MAX_SUCCESSORS;
+    private static final long DISTANCE_SCALE = 1L << 16;
+    private static final int INDEX_BITS = 24;
+    private static final int MAX_NODES = 1 << INDEX_BITS;
+
+    /**
+     * Risultato di una ricerca.
+     */
+    public static class Result {
+        private final long[] states;
+        private final boolean reachesGoal;
+        private final long expansions;
+        private final long elapsedNanos;
+
+        Result(long[] states, boolean reachesGoal, long expansions, long elapsedNanos) {
+            this.states = states;
+            this.reachesGoal = reachesGoal;
+            this.expansions = expansions;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return false se non esiste alcuna mossa libera da conflitti
+         */
+        public boolean isFound() {
+            return states.length > 0;
+        }
+
+        /**
+         * @return gli stati pianificati dopo quello di partenza, uno per turno
+         */
+        public long[] getStates() {
+            return states.clone();
+        }
+
+        public int getLength() {
+            return states.length;
+        }
+
+        /**
+         * @param index indice della mossa, a partire da 0
+         * @return lo stato raggiunto con la mossa indicata
+         */
+        public long getState(int index) {
+            return states[index];
+        }
+
+        /**
+         * @return true se il piano raggiunge l'obiettivo entro la finestra
+         */
+        public boolean reachesGoal() {
+            return reachesGoal;
+        }
+
+        public long getExpansions() {
+            return expansions;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    private final int maxExpansions;
+    private final TranspositionTable closed;
+    private final long[] buffer = new long[ACTIONS];
+    private final long[] arrivalBuffer = new long[ACTIONS];
+    private long[] nodeStates = new long[1024];
+    private int[] nodeParents = new int[1024];
+    private int[] nodeDepths = new int[1024];
+    private long[] heap = new long[1024];
+    private int nodeCount;
+    private int heapSize;
+
+    /**
+     * Crea una ricerca con il numero massimo di espansioni per turno indicato.
+     *
+     * @param maxExpansions espansioni oltre le quali la ricerca restituisce il
+     *                      miglior piano parziale trovato
+     * @throws IllegalArgumentException se il limite non è positivo
+     */
+    public CooperativeAStar(int maxExpansions) {
+        if (maxExpansions <= 0) {
+            throw new IllegalArgumentException("Il numero massimo di espansioni deve essere positivo");
+        }
+        this.maxExpansions = maxExpansions;
+        this.closed = new TranspositionTable(Math.min(maxExpansions, MAX_NODES / ACTIONS) * 2);
+    }
+
+    /**
+     * Pianifica le prossime mosse di un'auto rispettando le prenotazioni delle altre.
+     *
+     * @param space     lo spazio degli stati di gara
+     * @param field     le distanze dall'obiettivo sulle celle di strada
+     * @param rootState lo stato attuale dell'auto
+     * @param table     le prenotazioni condivise
+     * @param owner     identificativo dell'auto nella tabella
+     * @param window    numero massimo di turni pianificati
+     * @return il piano trovato
+     * @throws IllegalArgumentException se la finestra non è positiva
+     */
+    public Result search(RaceStateSpace space, DistanceField field, long rootState,
+            ReservationTable table, int owner, int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("La finestra deve essere positiva");
+        }
+        long start = System.nanoTime();
+        int startTime = table.getCurrentTime();
+        // Oltre la finestra della tabella non ci sono prenotazioni da rispettare
+        window = Math.max(1, Math.min(window, table.getLastTime() - startTime));
+        boolean useField = field.distance(space.row(rootState), space.column(rootState)) != DistanceField.UNREACHABLE;
+
+        nodeCount = 0;
+        heapSize = 0;
+        closed.clear();
+        int root = addNode(rootState, -1, 0);
+        push(0, 0, root);
+
+        long expansions = 0;
+        int bestPartial = -1;
+        int bestPartialBound = Integer.MAX_VALUE;
+        while (heapSize > 0 && expansions < maxExpansions) {
+            int node = pop();
+            long state = nodeStates[node];
+            int depth = nodeDepths[node];
+            if (!closed.add(state * (window + 1) + depth)) continue;
+
+            if (node != root && space.isGoal(state)) {
+                return new Result(planTo(node), true, expansions, System.nanoTime() - start);
+            }
+            if (depth == window) {
+                // Primo nodo di frontiera estratto da cui l'auto può ancora
+                // muoversi: ha la stima complessiva migliore
+                if (space.successors(state, arrivalBuffer) > 0) {
+                    return new Result(planTo(node), false, expansions, System.nanoTime() - start);
+                }
+                continue;
+            }
+
+            int count = space.successors(state, buffer);
+            expansions++;
+            int time = startTime + depth + 1;
+            for (int s = 0; s < count; s++) {
+                long next = buffer[s];
+                int row = space.row(next);
+                int column = space.column(next);
+                if (table.isBlocked(owner, time, row, column)) continue;
+                if (closed.contains(next * (window + 1) + depth + 1)) continue;
+
+                int bound;
+                if (space.isGoal(next)) {
+                    // Si arriva solo a velocità da cui l'auto può ancora muoversi
+                    if (!canContinue(space, next)) continue;
+                    bound = 0;
+                } else {
+                    bound = useField ? field.movesFrom(row, column) : space.heuristic(next);
+                    if (bound == DistanceField.UNREACHABLE) continue;
+                }
+                if (nodeCount == MAX_NODES) break;
+                int child = addNode(next, node, depth + 1);
+                if (bound < bestPartialBound) {
+                    bestPartialBound = bound;
+                    bestPartial = child;
+                }
+                int distance = useField && bound > 0 ? field.distance(row, column) : 0;
+                push(depth + 1 + bound, distance, child);
+            }
+        }
+        // Budget esaurito o nessun piano completo: il nodo più vicino all'obiettivo
+        long[] plan = bestPartial >= 0 ? planTo(bestPartial) : new long[0];
+        return new Result(plan, false, expansions, System.nanoTime() - start);
+    }
+
+    private boolean canContinue(RaceStateSpace space, long goalState) {
+        long moving = space.encode(0, space.row(goalState), space.column(goalState),
+                space.velocityX(goalState), space.velocityY(goalState));
+        return space.successors(moving, arrivalBuffer) > 0;
+    }
+
+    private long[] planTo(int node) {
+        int length = nodeDepths[node];
+        long[] plan = new long[length];
+        for (int current = node; nodeParents[current] >= 0; current = nodeParents[current]) {
+            plan[nodeDepths[current] - 1] = nodeStates[current];
+        }
+        return plan;
+    }
+
+    private int addNode(long state, int parent, int depth) {
+        if (nodeCount == nodeStates.length) {
+            int capacity = Math.min(MAX_NODES, nodeCount * 2);
+            nodeStates = Arrays.copyOf(nodeStates, capacity);
+            nodeParents = Arrays.copyOf(nodeParents, capacity);
+            nodeDepths = Arrays.copyOf(nodeDepths, capacity);
+        }
+        nodeStates[nodeCount] = state;
+        nodeParents[nodeCount] = parent;
+        nodeDepths[nodeCount] = depth;
+        return nodeCount++;
+    }
+
+    /**
+     * Inserisce un nodo nello heap; la chiave ordina per stima complessiva,
+     * poi per distanza residua, e contiene l'indice del nodo nei bit bassi.
+     */
+    private void push(int estimate, int distance, int node) {
+        long priority = (long) estimate * DISTANCE_SCALE + Math.min(distance, DISTANCE_SCALE - 1);
+        long key = (priority << INDEX_BITS) | node;
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= key) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = key;
+    }
+
+    private int pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+            if (heap[child] >= last) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return (int) (top & (MAX_NODES - 1));
+    }
+}
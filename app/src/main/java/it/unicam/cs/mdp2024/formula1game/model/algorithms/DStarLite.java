@@ -0,0 +1,386 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import java.util.*;
+
+/**
+ * Implementazione dell'algoritmo D* Lite per la ripianificazione incrementale
+ * nel circuito.
+ * La ricerca procede all'indietro dal target verso la posizione del bot, così
+ * che lo spostamento del bot e la comparsa o scomparsa degli avversari lungo il
+ * percorso aggiornino solo i nodi effettivamente coinvolti dal cambiamento,
+ * invece di ripetere la ricerca sull'intero circuito.
+ * Con una mappa dei costi il pianificatore diventa un Dijkstra pesato e
+ * incrementale: il variare dei costi di alcune celle ripara solo la parte
+ * di soluzione che ne dipende.
+ */
+public class DStarLite {
+
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+    private static final double DIAGONAL_COST = Math.sqrt(2);
+    private static final ICostMap UNIT_COSTS = (row, column) -> 1.0;
+
+    // Le otto direzioni di movimento tra celle adiacenti
+    private static final int[][] DIRECTIONS = {
+        {-1, -1}, {0, -1}, {1, -1},
+        {-1, 0},           {1, 0},
+        {-1, 1},  {0, 1},  {1, 1}
+    };
+
+    private static class QueueEntry implements Comparable<QueueEntry> {
+        final int cell;
+        final double k1;
+        final double k2;
+
+        QueueEntry(int cell, double k1, double k2) {
+            this.cell = cell;
+            this.k1 = k1;
+            this.k2 = k2;
+        }
+
+        @Override
+        public int compareTo(QueueEntry other) {
+            int result = Double.compare(k1, other.k1);
+            return result != 0 ? result : Double.compare(k2, other.k2);
+        }
+    }
+
+    private final ICircuit circuit;
+    private final ICostMap costMap;
+    private final int width;
+    private final int height;
+    private final double[] g;
+    private final double[] rhs;
+    private final double[] queuedK1;
+    private final double[] queuedK2;
+    private final boolean[] inQueue;
+    private final boolean[] blocked;
+    private final PriorityQueue<QueueEntry> openSet;
+    private final Set<Integer> obstacleCells;
+    private final int goal;
+    private int start;
+    private int lastStart;
+    private double km;
+    private int lastExpansions;
+
+    /**
+     * Crea un nuovo pianificatore incrementale tra start e target.
+     *
+     * @param circuit circuito con informazioni sugli ostacoli
+     * @param start   posizione di partenza del bot
+     * @param target  posizione da raggiungere
+     */
+    public DStarLite(ICircuit circuit, IPosition start, IPosition target) {
+        this(circuit, start, target, UNIT_COSTS);
+    }
+
+    /**
+     * Crea un nuovo pianificatore incrementale che pesa i passi secondo la
+     * mappa dei costi indicata.
+     *
+     * @param circuit circuito con informazioni sugli ostacoli
+     * @param start   posizione di partenza del bot
+     * @param target  posizione da raggiungere
+     * @param costMap costi delle celle del circuito
+     */
+    public DStarLite(ICircuit circuit, IPosition start, IPosition target, ICostMap costMap) {
+        if (!circuit.isValidPosition(start) || !circuit.isValidPosition(target)) {
+            throw new IllegalArgumentException("Posizioni fuori dal circuito: " + start + " -> " + target);
+        }
+        this.circuit = circuit;
+        this.costMap = costMap;
+        this.width = circuit.getWidth();
+        this.height = circuit.getHeight();
+        int size = width * height;
+        this.g = new double[size];
+        this.rhs = new double[size];
+        this.queuedK1 = new double[size];
+        this.queuedK2 = new double[size];
+        this.inQueue = new boolean[size];
+        this.blocked = new boolean[size];
+        this.openSet = new PriorityQueue<>();
+        this.obstacleCells = new HashSet<>();
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+
+        this.goal = toCell(target);
+        this.start = toCell(start);
+        this.lastStart = this.start;
+        this.km = 0;
+
+        rhs[goal] = 0;
+        insert(goal, heuristic(this.start, goal), 0);
+    }
+
+    /**
+     * Aggiorna la posizione del bot. Il percorso già calcolato resta valido
+     * perché la ricerca è radicata nel target.
+     *
+     * @param newStart la nuova posizione del bot
+     */
+    public void moveStart(IPosition newStart) {
+        int cell = toCell(newStart);
+        if (cell == start) {
+            return;
+        }
+        km += heuristic(lastStart, cell);
+        lastStart = cell;
+        start = cell;
+    }
+
+    /**
+     * Aggiorna gli ostacoli dinamici (le auto avversarie).
+     * Vengono toccati solo i nodi vicini alle celle che cambiano stato.
+     *
+     * @param opponentPositions le posizioni correnti degli avversari
+     */
+    public void updateObstacles(Collection<IPosition> opponentPositions) {
+        Set<Integer> newObstacles = new HashSet<>();
+        for (IPosition opponent : opponentPositions) {
+            addObstacleArea(opponent, newObstacles);
+        }
+
+        Set<Integer> changed = new HashSet<>();
+        for (int cell : obstacleCells) {
+            if (!newObstacles.contains(cell)) {
+                changed.add(cell);
+            }
+        }
+        for (int cell : newObstacles) {
+            if (!obstacleCells.contains(cell)) {
+                changed.add(cell);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        obstacleCells.clear();
+        obstacleCells.addAll(newObstacles);
+        for (int cell : changed) {
+            blocked[cell] = newObstacles.contains(cell);
+            // Cambiano i costi di tutti gli archi che entrano o escono dalla cella
+            updateVertex(cell);
+            for (int[] dir : DIRECTIONS) {
+                int neighbor = neighborOf(cell, dir);
+                if (neighbor >= 0) {
+                    updateVertex(neighbor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Notifica che il costo delle celle indicate è cambiato nella mappa dei
+     * costi. Vengono toccati solo i nodi i cui archi entrano nelle celle.
+     *
+     * @param cells le celle il cui costo è cambiato
+     */
+    public void updateCosts(Collection<IPosition> cells) {
+        for (IPosition position : cells) {
+            if (position.getColumn() < 0 || position.getColumn() >= width
+                    || position.getRow() < 0 || position.getRow() >= height) {
+                continue;
+            }
+            int cell = toCell(position);
+            updateVertex(cell);
+            updatePredecessors(cell);
+        }
+    }
+
+    /**
+     * Restituisce il costo per raggiungere il target dalla posizione
+     * indicata, secondo l'ultima soluzione calcolata.
+     *
+     * @param position la posizione
+     * @return il costo, o infinito se la posizione non è ancora stata
+     *         raggiunta dalla ricerca o non porta al target
+     */
+    public double getCostToGo(IPosition position) {
+        if (position.getColumn() < 0 || position.getColumn() >= width
+                || position.getRow() < 0 || position.getRow() >= height) {
+            return INFINITY;
+        }
+        int cell = toCell(position);
+        return g[cell] == rhs[cell] ? g[cell] : INFINITY;
+    }
+
+    /**
+     * Ripara la soluzione precedente e restituisce il percorso aggiornato.
+     *
+     * @return lista di posizioni dalla partenza al target, vuota se non esiste
+     */
+    public List<IPosition> findPath() {
+        computeShortestPath();
+        if (g[start] == INFINITY) {
+            return new ArrayList<>();
+        }
+
+        List<IPosition> path = new ArrayList<>();
+        int current = start;
+        path.add(toPosition(current));
+        int maxSteps = width * height;
+        int[] lastDir = null;
+        while (current != goal && path.size() <= maxSteps) {
+            int next = -1;
+            int[] nextDir = null;
+            double best = INFINITY;
+            for (int[] dir : DIRECTIONS) {
+                int neighbor = neighborOf(current, dir);
+                // Si scende solo verso il target, così la scelta tra passi
+                // equivalenti non può riportare indietro il percorso
+                if (neighbor < 0 || g[neighbor] >= g[current]) continue;
+                double cost = cost(current, neighbor) + g[neighbor];
+                if (lastDir != null) {
+                    cost += costMap.getTurnCost(lastDir[1], lastDir[0], dir[1], dir[0]);
+                }
+                if (cost < best) {
+                    best = cost;
+                    next = neighbor;
+                    nextDir = dir;
+                }
+            }
+            if (next < 0) {
+                return new ArrayList<>();
+            }
+            current = next;
+            lastDir = nextDir;
+            path.add(toPosition(current));
+        }
+        return path;
+    }
+
+    /**
+     * Restituisce il numero di nodi espansi durante l'ultima riparazione.
+     *
+     * @return numero di espansioni
+     */
+    public int getLastExpansions() {
+        return lastExpansions;
+    }
+
+    private void computeShortestPath() {
+        lastExpansions = 0;
+        while (!openSet.isEmpty()) {
+            QueueEntry top = openSet.peek();
+            if (!inQueue[top.cell] || queuedK1[top.cell] != top.k1 || queuedK2[top.cell] != top.k2) {
+                openSet.poll(); // Voce obsoleta
+                continue;
+            }
+            double startK2 = Math.min(g[start], rhs[start]);
+            double startK1 = startK2 + km;
+            boolean topBeforeStart = top.k1 < startK1 || (top.k1 == startK1 && top.k2 < startK2);
+            if (!topBeforeStart && rhs[start] == g[start]) {
+                break;
+            }
+
+            openSet.poll();
+            int u = top.cell;
+            lastExpansions++;
+            double newK2 = Math.min(g[u], rhs[u]);
+            double newK1 = newK2 + heuristic(start, u) + km;
+
+            if (top.k1 < newK1 || (top.k1 == newK1 && top.k2 < newK2)) {
+                insert(u, newK1, newK2);
+            } else if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                inQueue[u] = false;
+                updatePredecessors(u);
+            } else {
+                g[u] = INFINITY;
+                updateVertex(u);
+                updatePredecessors(u);
+            }
+        }
+    }
+
+    private void updatePredecessors(int cell) {
+        for (int[] dir : DIRECTIONS) {
+            int neighbor = neighborOf(cell, dir);
+            if (neighbor >= 0) {
+                updateVertex(neighbor);
+            }
+        }
+    }
+
+    private void updateVertex(int u) {
+        if (u != goal) {
+            double best = INFINITY;
+            for (int[] dir : DIRECTIONS) {
+                int neighbor = neighborOf(u, dir);
+                if (neighbor < 0) continue;
+                best = Math.min(best, cost(u, neighbor) + g[neighbor]);
+            }
+            rhs[u] = best;
+        }
+
+        inQueue[u] = false;
+        if (g[u] != rhs[u]) {
+            double k2 = Math.min(g[u], rhs[u]);
+            insert(u, k2 + heuristic(start, u) + km, k2);
+        }
+    }
+
+    private void insert(int cell, double k1, double k2) {
+        queuedK1[cell] = k1;
+        queuedK2[cell] = k2;
+        inQueue[cell] = true;
+        openSet.add(new QueueEntry(cell, k1, k2));
+    }
+
+    private void addObstacleArea(IPosition opponent, Set<Integer> obstacles) {
+        // La soglia di collisione del validatore è distanza <= 1: si bloccano
+        // la cella dell'avversario e le quattro celle ortogonali
+        int[][] area = {{0, 0}, {1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        for (int[] offset : area) {
+            int column = opponent.getColumn() + offset[0];
+            int row = opponent.getRow() + offset[1];
+            if (column < 0 || column >= width || row < 0 || row >= height) continue;
+            int cell = row * width + column;
+            if (cell != goal && cell != start) {
+                obstacles.add(cell);
+            }
+        }
+    }
+
+    private double cost(int from, int to) {
+        if (!isTraversable(from) || !isTraversable(to)) {
+            return INFINITY;
+        }
+        boolean isDiagonal = (from % width) != (to % width) && (from / width) != (to / width);
+        double length = isDiagonal ? DIAGONAL_COST : 1;
+        return length * costMap.getCellCost(to / width, to % width);
+    }
+
+    private boolean isTraversable(int cell) {
+        return !blocked[cell] && !circuit.isWall(cell % width, cell / width);
+    }
+
+    private double heuristic(int from, int to) {
+        // Distanza ottagonale, ammissibile per costi 1 e sqrt(2) moltiplicati
+        // per costi di cella non inferiori a 1
+        int dx = Math.abs((from % width) - (to % width));
+        int dy = Math.abs((from / width) - (to / width));
+        return Math.max(dx, dy) + (DIAGONAL_COST - 1) * Math.min(dx, dy);
+    }
+
+    private int neighborOf(int cell, int[] dir) {
+        int column = cell % width + dir[0];
+        int row = cell / width + dir[1];
+        if (column < 0 || column >= width || row < 0 || row >= height) {
+            return -1;
+        }
+        return row * width + column;
+    }
+
+    private int toCell(IPosition position) {
+        return position.getRow() * width + position.getColumn();
+    }
+
+    private IPosition toPosition(int cell) {
+        return new Position(cell / width, cell % width);
+    }
+}
@@ -0,0 +1,122 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitFingerprint;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Distanza di ogni cella libera del circuito da un insieme di celle
+ * obiettivo, calcolata con una visita in ampiezza all'indietro sulle celle
+ * di strada con passi alle otto celle adiacenti.
+ * Diviso per {@value RaceStateSpace#MAX_SPEED}, fornisce una stima economica
+ * delle mosse mancanti che, a differenza della distanza in linea d'aria,
+ * tiene conto dei muri da aggirare.
+ * I campi sono immutabili e condivisi in cache tra tutti i bot.
+ */
+public final class DistanceField {
+
+    /** Distanza delle celle da cui l'obiettivo non è raggiungibile. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final int CACHE_CAPACITY = 32;
+    private static final LruCache<FieldKey, DistanceField> SHARED_FIELDS = new LruCache<>(CACHE_CAPACITY);
+
+    private record FieldKey(long fingerprint, List<IPosition> targets) {
+    }
+
+    private final int width;
+    private final int height;
+    private final int[] distances;
+
+    private DistanceField(ICircuit circuit, Collection<? extends IPosition> targets) {
+        this.width = circuit.getWidth();
+        this.height = circuit.getHeight();
+        this.distances = new int[width * height];
+        Arrays.fill(distances, UNREACHABLE);
+
+        int[] queue = new int[width * height];
+        int head = 0;
+        int tail = 0;
+        for (IPosition target : targets) {
+            int row = target.getRow();
+            int column = target.getColumn();
+            if (row < 0 || row >= height || column < 0 || column >= width) continue;
+            int cell = row * width + column;
+            if (distances[cell] == UNREACHABLE) {
+                distances[cell] = 0;
+                queue[tail++] = cell;
+            }
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            int row = cell / width;
+            int column = cell % width;
+            for (int dRow = -1; dRow <= 1; dRow++) {
+                for (int dColumn = -1; dColumn <= 1; dColumn++) {
+                    int r = row + dRow;
+                    int c = column + dColumn;
+                    if (r < 0 || r >= height || c < 0 || c >= width) continue;
+                    int neighbor = r * width + c;
+                    if (distances[neighbor] == UNREACHABLE && !circuit.isWall(c, r)) {
+                        distances[neighbor] = distances[cell] + 1;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Restituisce il campo delle distanze verso le celle indicate,
+     * calcolandolo solo se non è già in cache per lo stesso circuito.
+     *
+     * @param circuit il circuito
+     * @param targets le celle obiettivo; quelle fuori dal circuito sono ignorate
+     * @return il campo delle distanze
+     */
+    public static DistanceField towards(ICircuit circuit, Collection<? extends IPosition> targets) {
+        FieldKey key = new FieldKey(CircuitFingerprint.of(circuit), List.copyOf(new ArrayList<>(targets)));
+        return SHARED_FIELDS.getOrCompute(key, k -> new DistanceField(circuit, k.targets()));
+    }
+
+    /**
+     * @param row    riga della cella
+     * @param column colonna della cella
+     * @return la distanza in celle dall'obiettivo più vicino, o
+     *         {@link #UNREACHABLE} se la cella è fuori dal circuito o isolata
+     */
+    public int distance(int row, int column) {
+        if (row < 0 || row >= height || column < 0 || column >= width) {
+            return UNREACHABLE;
+        }
+        return distances[row * width + column];
+    }
+
+    /**
+     * @param position la cella
+     * @return la distanza in celle dall'obiettivo più vicino
+     */
+    public int distance(IPosition position) {
+        return distance(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * Stima delle mosse necessarie per raggiungere l'obiettivo dalla cella.
+     *
+     * @param row    riga della cella
+     * @param column colonna della cella
+     * @return la stima, o {@link #UNREACHABLE}
+     */
+    public int movesFrom(int row, int column) {
+        int distance = distance(row, column);
+        if (distance == UNREACHABLE) {
+            return UNREACHABLE;
+        }
+        return (distance + RaceStateSpace.MAX_SPEED - 1) / RaceStateSpace.MAX_SPEED;
+    }
+}
@@ -0,0 +1,392 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitFingerprint;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import java.util.*;
+
+/**
+ * Implementazione del pathfinding gerarchico (HPA*) per circuiti molto grandi.
+ * Il circuito viene diviso in cluster quadrati; lungo i confini tra cluster
+ * vengono individuati i punti di ingresso, collegati tra loro con le distanze
+ * precalcolate all'interno di ciascun cluster. La ricerca avviene prima sul
+ * grafo astratto e solo il primo tratto, quello che il bot sta per percorrere,
+ * viene raffinato cella per cella; i tratti successivi restano come punti di
+ * passaggio.
+ * L'astrazione viene costruita una volta per circuito e condivisa tra tutte
+ * le istanze, in una cache limitata agli ultimi circuiti usati. La ricerca avviene sulle celle, quindi la velocità di partenza
+ * non viene considerata.
+ */
+public class HierarchicalPathFinder implements IPathFinder {
+
+    private static final int DEFAULT_CLUSTER_SIZE = 10;
+    private static final int MAX_SINGLE_ENTRANCE_LENGTH = 6;
+    private static final double DIAGONAL_COST = Math.sqrt(2);
+    private static final int GRAPH_CACHE_CAPACITY = 8;
+    private static final LruCache<GraphKey, AbstractGraph> SHARED_GRAPHS = new LruCache<>(GRAPH_CACHE_CAPACITY);
+
+    private static final int[][] DIRECTIONS = {
+        {-1, -1}, {0, -1}, {1, -1},
+        {-1, 0},           {1, 0},
+        {-1, 1},  {0, 1},  {1, 1}
+    };
+
+    private record Edge(int to, double cost) {
+    }
+
+    private record GraphKey(long circuitFingerprint, int clusterSize) {
+    }
+
+    /**
+     * Grafo astratto: nodi di ingresso, archi tra cluster adiacenti e
+     * distanze precalcolate all'interno dei cluster.
+     */
+    private static class AbstractGraph {
+        final int width;
+        final int height;
+        final int clusterSize;
+        final int clustersX;
+        final boolean[] traversable;
+        final List<Integer> nodeCells = new ArrayList<>();
+        final Map<Integer, Integer> nodeByCell = new HashMap<>();
+        final List<List<Edge>> edges = new ArrayList<>();
+        final Map<Integer, List<Integer>> nodesByCluster = new HashMap<>();
+
+        AbstractGraph(ICircuit circuit, int clusterSize) {
+            this.width = circuit.getWidth();
+            this.height = circuit.getHeight();
+            this.clusterSize = clusterSize;
+            this.clustersX = (width + clusterSize - 1) / clusterSize;
+            this.traversable = new boolean[width * height];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    traversable[y * width + x] = !circuit.isWall(x, y);
+                }
+            }
+        }
+
+        int clusterOf(int cell) {
+            return (cell / width / clusterSize) * clustersX + (cell % width) / clusterSize;
+        }
+
+        int getOrCreateNode(int cell) {
+            Integer existing = nodeByCell.get(cell);
+            if (existing != null) {
+                return existing;
+            }
+            int id = nodeCells.size();
+            nodeCells.add(cell);
+            nodeByCell.put(cell, id);
+            edges.add(new ArrayList<>());
+            nodesByCluster.computeIfAbsent(clusterOf(cell), c -> new ArrayList<>()).add(id);
+            return id;
+        }
+    }
+
+    private final int clusterSize;
+
+    /**
+     * Crea un pathfinder gerarchico con cluster di dimensione predefinita.
+     */
+    public HierarchicalPathFinder() {
+        this(DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * Crea un pathfinder gerarchico con cluster della dimensione indicata.
+     *
+     * @param clusterSize lato dei cluster in celle
+     * @throws IllegalArgumentException se la dimensione è minore di 2
+     */
+    public HierarchicalPathFinder(int clusterSize) {
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException("La dimensione dei cluster deve essere almeno 2");
+        }
+        this.clusterSize = clusterSize;
+    }
+
+    @Override
+    public List<IPosition> findPath(IPosition start, IPosition target, ICircuit circuit, IVelocity lastVelocity) {
+        if (!circuit.isValidPosition(start) || !circuit.isValidPosition(target)) {
+            return new ArrayList<>();
+        }
+        AbstractGraph graph = getGraph(circuit);
+        int startCell = start.getRow() * graph.width + start.getColumn();
+        int targetCell = target.getRow() * graph.width + target.getColumn();
+        if (!graph.traversable[startCell] || !graph.traversable[targetCell]) {
+            return new ArrayList<>();
+        }
+
+        int startCluster = graph.clusterOf(startCell);
+        int targetCluster = graph.clusterOf(targetCell);
+        if (startCluster == targetCluster) {
+            // Start e target nello stesso cluster: basta una ricerca locale
+            List<Integer> localPath = localPath(graph, startCell, targetCell, startCluster);
+            if (!localPath.isEmpty()) {
+                return toPositions(graph, localPath);
+            }
+        }
+
+        List<Integer> abstractPath = searchAbstract(graph, startCell, targetCell);
+        if (abstractPath.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return refineFirstSegment(graph, abstractPath);
+    }
+
+    /**
+     * Restituisce il numero di nodi del grafo astratto per il circuito.
+     *
+     * @param circuit il circuito
+     * @return numero di punti di ingresso
+     */
+    public int getAbstractNodeCount(ICircuit circuit) {
+        return getGraph(circuit).nodeCells.size();
+    }
+
+    private AbstractGraph getGraph(ICircuit circuit) {
+        return SHARED_GRAPHS.getOrCompute(new GraphKey(CircuitFingerprint.of(circuit), clusterSize),
+                key -> buildGraph(circuit));
+    }
+
+    private AbstractGraph buildGraph(ICircuit circuit) {
+        AbstractGraph graph = new AbstractGraph(circuit, clusterSize);
+        findEntrances(graph);
+        connectClusters(graph);
+        return graph;
+    }
+
+    private void findEntrances(AbstractGraph graph) {
+        // Confini verticali tra cluster affiancati
+        for (int borderX = clusterSize - 1; borderX + 1 < graph.width; borderX += clusterSize) {
+            for (int y0 = 0; y0 < graph.height; y0 += clusterSize) {
+                int y1 = Math.min(graph.height, y0 + clusterSize);
+                scanBorder(graph, borderX, y0, 0, 1, y1 - y0, 1, 0);
+            }
+        }
+        // Confini orizzontali tra cluster sovrapposti
+        for (int borderY = clusterSize - 1; borderY + 1 < graph.height; borderY += clusterSize) {
+            for (int x0 = 0; x0 < graph.width; x0 += clusterSize) {
+                int x1 = Math.min(graph.width, x0 + clusterSize);
+                scanBorder(graph, x0, borderY, 1, 0, x1 - x0, 0, 1);
+            }
+        }
+    }
+
+    /**
+     * Scorre un confine e crea i punti di ingresso per ogni tratto libero
+     * su entrambi i lati: uno al centro per i tratti corti, due agli estremi
+     * per quelli lunghi.
+     */
+    private void scanBorder(AbstractGraph graph, int x, int y, int stepX, int stepY, int length,
+            int crossX, int crossY) {
+        int segmentStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean open = i < length && isOpenCrossing(graph, x + i * stepX, y + i * stepY, crossX, crossY);
+            if (open && segmentStart < 0) {
+                segmentStart = i;
+            } else if (!open && segmentStart >= 0) {
+                int segmentEnd = i - 1;
+                if (segmentEnd - segmentStart + 1 < MAX_SINGLE_ENTRANCE_LENGTH) {
+                    int middle = (segmentStart + segmentEnd) / 2;
+                    addTransition(graph, x + middle * stepX, y + middle * stepY, crossX, crossY);
+                } else {
+                    addTransition(graph, x + segmentStart * stepX, y + segmentStart * stepY, crossX, crossY);
+                    addTransition(graph, x + segmentEnd * stepX, y + segmentEnd * stepY, crossX, crossY);
+                }
+                segmentStart = -1;
+            }
+        }
+    }
+
+    private boolean isOpenCrossing(AbstractGraph graph, int x, int y, int crossX, int crossY) {
+        return graph.traversable[y * graph.width + x]
+                && graph.traversable[(y + crossY) * graph.width + (x + crossX)];
+    }
+
+    private void addTransition(AbstractGraph graph, int x, int y, int crossX, int crossY) {
+        int inside = graph.getOrCreateNode(y * graph.width + x);
+        int outside = graph.getOrCreateNode((y + crossY) * graph.width + (x + crossX));
+        graph.edges.get(inside).add(new Edge(outside, 1));
+        graph.edges.get(outside).add(new Edge(inside, 1));
+    }
+
+    private void connectClusters(AbstractGraph graph) {
+        // Distanze intra-cluster: una Dijkstra per ogni punto di ingresso
+        for (Map.Entry<Integer, List<Integer>> entry : graph.nodesByCluster.entrySet()) {
+            int cluster = entry.getKey();
+            List<Integer> clusterNodes = entry.getValue();
+            for (int from : clusterNodes) {
+                Map<Integer, Double> distances = clusterDistances(graph, graph.nodeCells.get(from), cluster);
+                for (int to : clusterNodes) {
+                    if (to == from) continue;
+                    Double distance = distances.get(graph.nodeCells.get(to));
+                    if (distance != null) {
+                        graph.edges.get(from).add(new Edge(to, distance));
+                    }
+                }
+            }
+        }
+    }
+
+    private List<Integer> searchAbstract(AbstractGraph graph, int startCell, int targetCell) {
+        int nodeCount = graph.nodeCells.size();
+        int startId = nodeCount;
+        int targetId = nodeCount + 1;
+
+        // Collega temporaneamente start e target ai punti di ingresso del proprio cluster
+        List<Edge> startEdges = new ArrayList<>();
+        Map<Integer, Double> startDistances = clusterDistances(graph, startCell, graph.clusterOf(startCell));
+        for (int node : graph.nodesByCluster.getOrDefault(graph.clusterOf(startCell), List.of())) {
+            Double distance = startDistances.get(graph.nodeCells.get(node));
+            if (distance != null) {
+                startEdges.add(new Edge(node, distance));
+            }
+        }
+        Map<Integer, Double> targetLinks = new HashMap<>();
+        Map<Integer, Double> targetDistances = clusterDistances(graph, targetCell, graph.clusterOf(targetCell));
+        for (int node : graph.nodesByCluster.getOrDefault(graph.clusterOf(targetCell), List.of())) {
+            Double distance = targetDistances.get(graph.nodeCells.get(node));
+            if (distance != null) {
+                targetLinks.put(node, distance);
+            }
+        }
+
+        Map<Integer, Double> gCost = new HashMap<>();
+        Map<Integer, Integer> parents = new HashMap<>();
+        PriorityQueue<double[]> openSet = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[0]));
+        gCost.put(startId, 0.0);
+        openSet.add(new double[] {octile(graph, startCell, targetCell), startId});
+
+        while (!openSet.isEmpty()) {
+            double[] entry = openSet.poll();
+            int current = (int) entry[1];
+            double currentG = gCost.get(current);
+            if (entry[0] > currentG + heuristicOf(graph, current, startCell, targetCell, startId, targetId) + 1e-9) {
+                continue; // Voce obsoleta
+            }
+            if (current == targetId) {
+                return rebuildAbstractPath(graph, parents, startCell, targetCell, startId, targetId);
+            }
+
+            List<Edge> neighbors = new ArrayList<>(current == startId ? startEdges : graph.edges.get(current));
+            Double toTarget = targetLinks.get(current);
+            if (toTarget != null) {
+                neighbors.add(new Edge(targetId, toTarget));
+            }
+            for (Edge edge : neighbors) {
+                double newG = currentG + edge.cost();
+                if (newG < gCost.getOrDefault(edge.to(), Double.POSITIVE_INFINITY)) {
+                    gCost.put(edge.to(), newG);
+                    parents.put(edge.to(), current);
+                    double h = heuristicOf(graph, edge.to(), startCell, targetCell, startId, targetId);
+                    openSet.add(new double[] {newG + h, edge.to()});
+                }
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    private double heuristicOf(AbstractGraph graph, int node, int startCell, int targetCell,
+            int startId, int targetId) {
+        int cell = node == startId ? startCell : node == targetId ? targetCell : graph.nodeCells.get(node);
+        return octile(graph, cell, targetCell);
+    }
+
+    private List<Integer> rebuildAbstractPath(AbstractGraph graph, Map<Integer, Integer> parents,
+            int startCell, int targetCell, int startId, int targetId) {
+        List<Integer> cells = new ArrayList<>();
+        for (Integer node = targetId; node != null; node = parents.get(node)) {
+            cells.add(node == startId ? startCell : node == targetId ? targetCell : graph.nodeCells.get(node));
+        }
+        Collections.reverse(cells);
+        return cells;
+    }
+
+    private List<IPosition> refineFirstSegment(AbstractGraph graph, List<Integer> abstractPath) {
+        List<Integer> cells = new ArrayList<>();
+        int first = abstractPath.get(0);
+        int second = abstractPath.size() > 1 ? abstractPath.get(1) : first;
+
+        // Solo il tratto che il bot sta per percorrere viene raffinato
+        if (graph.clusterOf(first) == graph.clusterOf(second)) {
+            List<Integer> segment = localPath(graph, first, second, graph.clusterOf(first));
+            cells.addAll(segment.isEmpty() ? List.of(first, second) : segment);
+        } else {
+            cells.add(first);
+            cells.add(second);
+        }
+        for (int i = 2; i < abstractPath.size(); i++) {
+            cells.add(abstractPath.get(i));
+        }
+        return toPositions(graph, cells);
+    }
+
+    private Map<Integer, Double> clusterDistances(AbstractGraph graph, int source, int cluster) {
+        Map<Integer, Double> distances = new HashMap<>();
+        runClusterDijkstra(graph, source, -1, cluster, distances, new HashMap<>());
+        return distances;
+    }
+
+    private List<Integer> localPath(AbstractGraph graph, int from, int to, int cluster) {
+        Map<Integer, Double> distances = new HashMap<>();
+        Map<Integer, Integer> parents = new HashMap<>();
+        runClusterDijkstra(graph, from, to, cluster, distances, parents);
+        if (!distances.containsKey(to)) {
+            return new ArrayList<>();
+        }
+        List<Integer> path = new ArrayList<>();
+        for (Integer cell = to; cell != null; cell = parents.get(cell)) {
+            path.add(cell);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private void runClusterDijkstra(AbstractGraph graph, int source, int stopAt, int cluster,
+            Map<Integer, Double> distances, Map<Integer, Integer> parents) {
+        PriorityQueue<double[]> queue = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[0]));
+        distances.put(source, 0.0);
+        queue.add(new double[] {0.0, source});
+
+        while (!queue.isEmpty()) {
+            double[] entry = queue.poll();
+            int cell = (int) entry[1];
+            if (entry[0] > distances.get(cell)) continue;
+            if (cell == stopAt) return;
+
+            int x = cell % graph.width;
+            int y = cell / graph.width;
+            for (int[] dir : DIRECTIONS) {
+                int nx = x + dir[0];
+                int ny = y + dir[1];
+                if (nx < 0 || nx >= graph.width || ny < 0 || ny >= graph.height) continue;
+                int neighbor = ny * graph.width + nx;
+                if (!graph.traversable[neighbor] || graph.clusterOf(neighbor) != cluster) continue;
+                double newDistance = entry[0] + (dir[0] != 0 && dir[1] != 0 ? DIAGONAL_COST : 1);
+                if (newDistance < distances.getOrDefault(neighbor, Double.POSITIVE_INFINITY)) {
+                    distances.put(neighbor, newDistance);
+                    parents.put(neighbor, cell);
+                    queue.add(new double[] {newDistance, neighbor});
+                }
+            }
+        }
+    }
+
+    private double octile(AbstractGraph graph, int from, int to) {
+        int dx = Math.abs(from % graph.width - to % graph.width);
+        int dy = Math.abs(from / graph.width - to / graph.width);
+        return Math.max(dx, dy) + (DIAGONAL_COST - 1) * Math.min(dx, dy);
+    }
+
+    private List<IPosition> toPositions(AbstractGraph graph, List<Integer> cells) {
+        List<IPosition> path = new ArrayList<>(cells.size());
+        for (int cell : cells) {
+            path.add(new Position(cell / graph.width, cell % graph.width));
+        }
+        return path;
+    }
+}
@@ -0,0 +1,35 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+/**
+ * Mappa dei costi delle celle del circuito usata dai pianificatori su
+ * griglia. Il costo di un passo è la sua lunghezza moltiplicata per il costo
+ * della cella di arrivo.
+ */
+@FunctionalInterface
+public interface ICostMap {
+
+    /**
+     * Restituisce il moltiplicatore del costo per entrare nella cella.
+     * Deve essere almeno 1, così che la distanza geometrica resti una stima
+     * ammissibile del costo rimanente.
+     *
+     * @param row    riga della cella
+     * @param column colonna della cella
+     * @return il moltiplicatore, o infinito se la cella non è attraversabile
+     */
+    double getCellCost(int row, int column);
+
+    /**
+     * Restituisce il costo aggiuntivo di un cambio di direzione, usato per
+     * scegliere tra passi di costo equivalente lungo il percorso.
+     *
+     * @param rowIn     spostamento in riga del passo precedente
+     * @param columnIn  spostamento in colonna del passo precedente
+     * @param rowOut    spostamento in riga del passo successivo
+     * @param columnOut spostamento in colonna del passo successivo
+     * @return il costo del cambio di direzione, 0 se non penalizzato
+     */
+    default double getTurnCost(int rowIn, int columnIn, int rowOut, int columnOut) {
+        return 0;
+    }
+}
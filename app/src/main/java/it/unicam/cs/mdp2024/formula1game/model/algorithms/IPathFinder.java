@@ -0,0 +1,26 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+
+import java.util.List;
+
+/**
+ * Interfaccia comune agli algoritmi di pathfinding nel circuito.
+ * Permette alle strategie di movimento di cambiare algoritmo di ricerca
+ * senza modificare la propria logica.
+ */
+public interface IPathFinder {
+
+    /**
+     * Trova un percorso tra start e target evitando ostacoli.
+     *
+     * @param start        posizione di partenza
+     * @param target       posizione di arrivo
+     * @param circuit      circuito con informazioni sugli ostacoli
+     * @param lastVelocity velocità alla partenza
+     * @return lista di posizioni che formano il percorso, vuota se non trovato
+     */
+    List<IPosition> findPath(IPosition start, IPosition target, ICircuit circuit, IVelocity lastVelocity);
+}
@@ -0,0 +1,219 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitFingerprint;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pianifica l'intero giro in un'unica ricerca: ogni linea di checkpoint è un
+ * obiettivo da attraversare in qualunque sua cella e il traguardo è l'ultimo,
+ * su cui ci si deve fermare. A differenza della pianificazione da un
+ * checkpoint al successivo, la velocità resta continua tra un tratto e
+ * l'altro.
+ * Le traiettorie trovate sono condivise in cache tra tutti i bot, quindi
+ * un bot ripianifica solo quando si allontana dalla traiettoria.
+ */
+public class LapPlanner {
+
+    private static final int DEFAULT_EXPANSION_LIMIT = 500_000;
+    private static final int TRAJECTORY_CACHE_CAPACITY = 64;
+    private static final int SPACE_CACHE_CAPACITY = 8;
+    private static final LruCache<LapKey, Trajectory> SHARED_TRAJECTORIES =
+            new LruCache<>(TRAJECTORY_CACHE_CAPACITY);
+    private static final LruCache<SpaceKey, LapLegs> SHARED_SPACES = new LruCache<>(SPACE_CACHE_CAPACITY);
+    private static final LruCache<LegKey, Boolean> UNSOLVABLE_LEGS = new LruCache<>(TRAJECTORY_CACHE_CAPACITY);
+
+    /** Segnaposto in cache per i giri senza soluzione. */
+    private static final Trajectory NO_TRAJECTORY = new Trajectory(null, new long[0]);
+
+    private record SpaceKey(long fingerprint, List<List<IPosition>> checkpointLines) {
+    }
+
+    private record LapKey(SpaceKey space, int leg, int row, int column, int velocityX, int velocityY,
+            int expansionLimit) {
+    }
+
+    private record LegKey(SpaceKey space, int leg) {
+    }
+
+    /**
+     * Obiettivi del giro: lo spazio degli stati e, per ogni linea di
+     * checkpoint del gioco, il tratto che la contiene.
+     *
+     * @param space          lo spazio degli stati del giro
+     * @param lineToLeg      tratto di ciascuna linea di checkpoint
+     * @param checkpointLegs tratti dei checkpoint, seguiti dal traguardo se presente
+     * @param goals          celle dell'obiettivo di ciascun tratto
+     */
+    public record LapLegs(RaceStateSpace space, int[] lineToLeg, int checkpointLegs, List<List<IPosition>> goals) {
+
+        /**
+         * @param nextCheckpointIndex indice della prossima linea da attraversare
+         * @return il tratto corrispondente nello spazio del giro
+         */
+        public int legOf(int nextCheckpointIndex) {
+            return nextCheckpointIndex < lineToLeg.length
+                    ? lineToLeg[Math.max(0, nextCheckpointIndex)]
+                    : checkpointLegs;
+        }
+    }
+
+    private final int expansionLimit;
+
+    /**
+     * Crea un pianificatore con il limite di espansioni predefinito.
+     */
+    public LapPlanner() {
+        this(DEFAULT_EXPANSION_LIMIT);
+    }
+
+    /**
+     * Crea un pianificatore che rinuncia dopo il numero di espansioni indicato.
+     *
+     * @param expansionLimit numero massimo di espansioni per ricerca
+     * @throws IllegalArgumentException se il limite non è positivo
+     */
+    public LapPlanner(int expansionLimit) {
+        if (expansionLimit <= 0) {
+            throw new IllegalArgumentException("Il limite di espansioni deve essere positivo");
+        }
+        this.expansionLimit = expansionLimit;
+    }
+
+    /**
+     * Restituisce la traiettoria dallo stato indicato fino al traguardo,
+     * attraversando i checkpoint mancanti nell'ordine del gioco.
+     *
+     * @param circuit             il circuito
+     * @param checkpointLines     le linee di checkpoint nell'ordine del gioco
+     * @param nextCheckpointIndex indice della prossima linea da attraversare
+     * @param position            posizione attuale
+     * @param velocity            velocità attuale
+     * @return la traiettoria, o null se il giro non ha soluzione entro il
+     *         limite di espansioni; se la ricerca da uno stato da cui l'auto
+     *         può fermarsi esaurisce gli stati raggiungibili, il tratto non
+     *         viene più cercato
+     */
+    public Trajectory plan(ICircuit circuit, List<? extends List<? extends IPosition>> checkpointLines,
+            int nextCheckpointIndex, IPosition position, IVelocity velocity) {
+        if (!circuit.isValidPosition(position)) {
+            return null;
+        }
+        SpaceKey spaceKey = new SpaceKey(CircuitFingerprint.of(circuit), copyOf(checkpointLines));
+        LapLegs legs = SHARED_SPACES.getOrCompute(spaceKey, key -> createLegs(circuit, key.checkpointLines()));
+        if (legs == null) {
+            return null;
+        }
+
+        int leg = legs.legOf(nextCheckpointIndex);
+        if (leg >= legs.space().getLegCount()) {
+            return null;
+        }
+        LegKey legKey = new LegKey(spaceKey, leg);
+        if (UNSOLVABLE_LEGS.get(legKey) != null) {
+            return null;
+        }
+        IVector v = velocity.getCurrentVelocity();
+        LapKey key = new LapKey(spaceKey, leg, position.getRow(), position.getColumn(), v.getX(), v.getY(),
+                expansionLimit);
+
+        Trajectory trajectory = SHARED_TRAJECTORIES.getOrCompute(key, k -> {
+            RaceStateSpace space = legs.space();
+            long startState = space.encode(leg, position.getRow(), position.getColumn(), v.getX(), v.getY());
+            BidirectionalSearch.Result result = new BidirectionalSearch(false, expansionLimit)
+                    .search(space, startState);
+            if (result.isFound()) {
+                return new Trajectory(space, result.getStates());
+            }
+            // Una ricerca interrotta non dice nulla sul giro: non viene memorizzata
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            // Da uno stato in cui l'auto può fermarsi si raggiunge, a bassa
+            // velocità, tutta la zona del circuito in cui si trova: se la ricerca
+            // ne ha esaurito gli stati il tratto non ha soluzione e non viene più
+            // cercato da nessun bot. Una ricerca fermata dal limite di espansioni
+            // non prova nulla e il fallimento resta legato allo stato di partenza
+            if (result.isExhausted()
+                    && BrakingEnvelope.of(circuit).canStop(position.getRow(), position.getColumn(), v.getX(), v.getY())) {
+                UNSOLVABLE_LEGS.put(legKey, Boolean.TRUE);
+            }
+            return NO_TRAJECTORY;
+        });
+        return trajectory == NO_TRAJECTORY ? null : trajectory;
+    }
+
+    /**
+     * Restituisce gli obiettivi del giro, condivisi in cache con la
+     * pianificazione dei bot.
+     *
+     * @param circuit         il circuito
+     * @param checkpointLines le linee di checkpoint nell'ordine del gioco
+     * @return gli obiettivi, o null se il circuito non ha né checkpoint né traguardo
+     */
+    public static LapLegs legsFor(ICircuit circuit, List<? extends List<? extends IPosition>> checkpointLines) {
+        SpaceKey spaceKey = new SpaceKey(CircuitFingerprint.of(circuit), copyOf(checkpointLines));
+        return SHARED_SPACES.getOrCompute(spaceKey, key -> createLegs(circuit, key.checkpointLines()));
+    }
+
+    /**
+     * Raggruppa le linee di checkpoint adiacenti: il gioco può restituire
+     * una linea fisica come più linee consecutive, ma per il giro conta
+     * attraversarla una sola volta.
+     *
+     * @param checkpointLines le linee nell'ordine del gioco
+     * @param lineToLeg       riempito con il gruppo di ciascuna linea
+     * @return le celle di ciascun gruppo, nell'ordine del gioco
+     */
+    static List<List<IPosition>> groupCheckpointLines(List<? extends List<? extends IPosition>> checkpointLines,
+            int[] lineToLeg) {
+        List<List<IPosition>> groups = new ArrayList<>();
+        for (int i = 0; i < checkpointLines.size(); i++) {
+            List<? extends IPosition> line = checkpointLines.get(i);
+            if (groups.isEmpty() || !isAdjacent(groups.get(groups.size() - 1), line)) {
+                groups.add(new ArrayList<>());
+            }
+            groups.get(groups.size() - 1).addAll(line);
+            lineToLeg[i] = groups.size() - 1;
+        }
+        return groups;
+    }
+
+    private static boolean isAdjacent(List<IPosition> group, List<? extends IPosition> line) {
+        for (IPosition a : group) {
+            for (IPosition b : line) {
+                if (a.isAdjacentTo(b)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static LapLegs createLegs(ICircuit circuit, List<List<IPosition>> checkpointLines) {
+        int[] lineToLeg = new int[checkpointLines.size()];
+        List<List<IPosition>> legs = groupCheckpointLines(checkpointLines, lineToLeg);
+        int checkpointLegs = legs.size();
+        boolean hasFinish = !circuit.getFinishPositions().isEmpty();
+        if (hasFinish) {
+            legs.add(new ArrayList<>(circuit.getFinishPositions()));
+        }
+        if (legs.isEmpty()) {
+            return null;
+        }
+        return new LapLegs(new RaceStateSpace(circuit, legs, hasFinish), lineToLeg, checkpointLegs, copyOf(legs));
+    }
+
+    private static List<List<IPosition>> copyOf(List<? extends List<? extends IPosition>> lines) {
+        List<List<IPosition>> copy = new ArrayList<>(lines.size());
+        for (List<? extends IPosition> line : lines) {
+            copy.add(List.copyOf(line));
+        }
+        return List.copyOf(copy);
+    }
+}
@@ -0,0 +1,144 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache limitata e thread-safe con politica di rimozione LRU
+ * (least recently used).
+ * Tiene traccia del numero di hit e miss per valutarne l'efficacia.
+ *
+ * @param <K> tipo della chiave
+ * @param <V> tipo del valore
+ */
+public class LruCache<K, V> {
+
+    private final int capacity;
+    private final Map<K, V> entries;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    /**
+     * Crea una nuova cache con la capacità indicata.
+     *
+     * @param capacity numero massimo di elementi mantenuti
+     * @throws IllegalArgumentException se la capacità non è positiva
+     */
+    public LruCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La capacità della cache deve essere positiva");
+        }
+        this.capacity = capacity;
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        // accessOrder = true: l'ordine di iterazione segue l'ultimo accesso
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Restituisce il valore associato alla chiave, aggiornando i contatori.
+     *
+     * @param key la chiave
+     * @return il valore, o null se assente
+     */
+    public V get(K key) {
+        V value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        if (value != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Inserisce un valore nella cache, rimuovendo se necessario
+     * l'elemento usato meno di recente.
+     *
+     * @param key   la chiave
+     * @param value il valore
+     */
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, value);
+        }
+    }
+
+    /**
+     * Restituisce il valore in cache oppure lo calcola e lo memorizza.
+     * Il calcolo avviene fuori dal lock, così che ricerche lunghe non
+     * blocchino gli altri utilizzatori della cache.
+     *
+     * @param key    la chiave
+     * @param loader funzione che calcola il valore in caso di miss
+     * @return il valore associato alla chiave
+     */
+    public V getOrCompute(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Rimuove il valore associato alla chiave, se presente.
+     *
+     * @param key la chiave
+     */
+    public void remove(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Svuota la cache senza azzerare i contatori.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Restituisce la frazione di richieste servite dalla cache.
+     *
+     * @return hit rate tra 0 e 1
+     */
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+}
@@ -0,0 +1,97 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Tabella a sola lettura di elementi di dimensione fissa, mappata in memoria
+ * da un file di {@link TableStore}.
+ * I dati non vengono copiati né deserializzati: le letture accedono alle
+ * pagine del file, condivise dal sistema operativo tra tutti i processi che
+ * mappano lo stesso file. Gli accessi sono assoluti, quindi un'istanza può
+ * essere letta da più thread contemporaneamente.
+ */
+public final class MappedTable {
+
+    private final long fingerprint;
+    private final int contentVersion;
+    private final int elementBytes;
+    private final int[] shape;
+    private final ByteBuffer data;
+
+    MappedTable(long fingerprint, int contentVersion, int elementBytes, int[] shape, ByteBuffer data) {
+        this.fingerprint = fingerprint;
+        this.contentVersion = contentVersion;
+        this.elementBytes = elementBytes;
+        this.shape = shape;
+        this.data = data;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public int getContentVersion() {
+        return contentVersion;
+    }
+
+    /**
+     * @return byte occupati da ogni elemento: 1, 2 o 4
+     */
+    public int getElementBytes() {
+        return elementBytes;
+    }
+
+    /**
+     * @return le dimensioni della tabella, dalla più esterna alla più interna
+     */
+    public int[] getShape() {
+        return shape.clone();
+    }
+
+    /**
+     * @param shape dimensioni attese
+     * @return true se la tabella ha esattamente queste dimensioni
+     */
+    public boolean hasShape(int... shape) {
+        return Arrays.equals(this.shape, shape);
+    }
+
+    /**
+     * @return numero di elementi
+     */
+    public int size() {
+        return data.capacity() / elementBytes;
+    }
+
+    /**
+     * @return gli elementi come buffer a sola lettura, da leggere con accessi assoluti
+     */
+    ByteBuffer data() {
+        return data;
+    }
+
+    /**
+     * @param index indice dell'elemento
+     * @return l'elemento, per tabelle da un byte
+     */
+    public byte getByte(int index) {
+        return data.get(index);
+    }
+
+    /**
+     * @param index indice dell'elemento
+     * @return l'elemento senza segno, per tabelle da due byte
+     */
+    public char getChar(int index) {
+        return data.getChar(index << 1);
+    }
+
+    /**
+     * @param index indice dell'elemento
+     * @return l'elemento, per tabelle da quattro byte
+     */
+    public int getInt(int index) {
+        return data.getInt(index << 2);
+    }
+}
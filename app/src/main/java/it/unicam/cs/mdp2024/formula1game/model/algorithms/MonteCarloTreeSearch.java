@@ -0,0 +1,437 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Monte Carlo Tree Search sulle nove accelerazioni possibili a ogni turno.
+ * La ricerca è parallela alla radice: ogni worker del {@link ForkJoinPool}
+ * costruisce un proprio albero dallo stesso stato e alla fine le visite dei
+ * figli della radice vengono sommate per accelerazione.
+ * Gli stati sono i long di {@link RaceStateSpace}, quindi le simulazioni
+ * non copiano auto né giocatori. Ogni worker ha un pool di nodi a capacità
+ * fissa, riutilizzato a ogni ricerca: quando è pieno l'albero smette di
+ * crescere ma le simulazioni continuano fino alla fine del budget.
+ * Un'istanza non va usata da più ricerche contemporaneamente.
+ */
+public class MonteCarloTreeSearch {
+
+    private static final int DEFAULT_NODE_CAPACITY = 1 << 15;
+    private static final int DEFAULT_ROLLOUT_DEPTH = 24;
+    private static final double EXPLORATION = Math.sqrt(2);
+    private static final double GREEDY_PROBABILITY = 0.8;
+    private static final int ACTIONS = RaceStateSpace.MAX_SUCCESSORS;
+    private static final long SEED_MIX = 0x9E3779B97F4A7C15L;
+    /** Costo di uno schianto: ricompensa nulla, qualunque sia il turno. */
+    private static final double CRASH = Double.POSITIVE_INFINITY;
+
+    /**
+     * Risultato di una ricerca: l'accelerazione più visitata alla radice.
+     */
+    public static class Result {
+        private final int accelerationX;
+        private final int accelerationY;
+        private final boolean found;
+        private final long[] visitsPerAction;
+        private final long iterations;
+        private final int nodes;
+        private final long elapsedNanos;
+
+        Result(int action, long[] visitsPerAction, long iterations, int nodes, long elapsedNanos) {
+            this.found = action >= 0;
+            this.accelerationX = found ? action % 3 - 1 : 0;
+            this.accelerationY = found ? action / 3 - 1 : 0;
+            this.visitsPerAction = visitsPerAction;
+            this.iterations = iterations;
+            this.nodes = nodes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getAccelerationX() {
+            return accelerationX;
+        }
+
+        public int getAccelerationY() {
+            return accelerationY;
+        }
+
+        /**
+         * @return false se dallo stato iniziale non esiste alcuna mossa valida
+         */
+        public boolean isFound() {
+            return found;
+        }
+
+        /**
+         * @return le visite alla radice per accelerazione, indicizzate come
+         *         (ay + 1) * 3 + (ax + 1)
+         */
+        public long[] getVisitsPerAction() {
+            return visitsPerAction.clone();
+        }
+
+        public long getIterations() {
+            return iterations;
+        }
+
+        public int getNodes() {
+            return nodes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    /**
+     * Pool di nodi di un albero, in array paralleli per evitare un oggetto
+     * per nodo. I figli di un nodo occupano posizioni consecutive.
+     */
+    private static final class NodePool {
+        final long[] states;
+        final int[] parents;
+        final int[] firstChild;
+        final int[] childCount;
+        final int[] visits;
+        final double[] rewards;
+        int size;
+
+        NodePool(int capacity) {
+            states = new long[capacity];
+            parents = new int[capacity];
+            firstChild = new int[capacity];
+            childCount = new int[capacity];
+            visits = new int[capacity];
+            rewards = new double[capacity];
+        }
+
+        void reset(long root) {
+            size = 0;
+            add(root, -1);
+        }
+
+        boolean hasRoom(int count) {
+            return size + count <= states.length;
+        }
+
+        int add(long state, int parent) {
+            int node = size++;
+            states[node] = state;
+            parents[node] = parent;
+            firstChild[node] = -1;
+            childCount[node] = -1;
+            visits[node] = 0;
+            rewards[node] = 0;
+            return node;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int nodeCapacity;
+    private final int rolloutDepth;
+    private NodePool[] trees;
+
+    /**
+     * Crea una ricerca che usa il pool comune e le impostazioni predefinite.
+     */
+    public MonteCarloTreeSearch() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Crea una ricerca con un worker per ogni thread del pool indicato.
+     *
+     * @param pool il pool su cui eseguire i worker
+     */
+    public MonteCarloTreeSearch(ForkJoinPool pool) {
+        this(pool, DEFAULT_NODE_CAPACITY, DEFAULT_ROLLOUT_DEPTH);
+    }
+
+    /**
+     * Crea una ricerca con capacità dei pool e profondità delle simulazioni
+     * indicate.
+     *
+     * @param pool         il pool su cui eseguire i worker
+     * @param nodeCapacity numero massimo di nodi per albero
+     * @param rolloutDepth numero massimo di mosse per simulazione
+     * @throws IllegalArgumentException se i parametri non sono positivi
+     */
+    public MonteCarloTreeSearch(ForkJoinPool pool, int nodeCapacity, int rolloutDepth) {
+        if (nodeCapacity <= ACTIONS || rolloutDepth <= 0) {
+            throw new IllegalArgumentException("Capacità dei nodi e profondità delle simulazioni non valide");
+        }
+        this.pool = pool;
+        this.nodeCapacity = nodeCapacity;
+        this.rolloutDepth = rolloutDepth;
+    }
+
+    /**
+     * Cerca l'accelerazione migliore dallo stato indicato entro il budget.
+     *
+     * @param space           lo spazio degli stati di gara
+     * @param field           le distanze dall'obiettivo, usate dalle simulazioni
+     * @param rootState       lo stato attuale dell'auto
+     * @param opponents       le posizioni degli avversari, da evitare alla prima mossa
+     * @param timeBudgetNanos tempo a disposizione in nanosecondi
+     * @return il risultato della ricerca
+     * @throws IllegalArgumentException se il budget non è positivo
+     */
+    public Result search(RaceStateSpace space, DistanceField field, long rootState,
+            Collection<IPosition> opponents, long timeBudgetNanos) {
+        if (timeBudgetNanos <= 0) {
+            throw new IllegalArgumentException("Il budget di tempo deve essere positivo");
+        }
+        long start = System.nanoTime();
+        long deadline = start + timeBudgetNanos;
+        int workers = Math.max(1, pool.getParallelism());
+        if (trees == null || trees.length != workers) {
+            trees = new NodePool[workers];
+            for (int i = 0; i < workers; i++) {
+                trees[i] = new NodePool(nodeCapacity);
+            }
+        }
+
+        int[] opponentRows = new int[opponents.size()];
+        int[] opponentColumns = new int[opponents.size()];
+        int index = 0;
+        for (IPosition opponent : opponents) {
+            opponentRows[index] = opponent.getRow();
+            opponentColumns[index] = opponent.getColumn();
+            index++;
+        }
+
+        List<ForkJoinTask<Long>> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            Worker worker = new Worker(space, field, trees[i], opponentRows, opponentColumns,
+                    new SplittableRandom(rootState * SEED_MIX + i));
+            tasks.add(pool.submit(() -> worker.run(rootState, deadline)));
+        }
+        long iterations = 0;
+        for (ForkJoinTask<Long> task : tasks) {
+            iterations += task.join();
+        }
+
+        // Somma le visite dei figli della radice di tutti gli alberi
+        long[] visits = new long[ACTIONS];
+        double[] rewards = new double[ACTIONS];
+        int nodes = 0;
+        for (NodePool tree : trees) {
+            nodes += tree.size;
+            for (int i = 0; i < Math.max(0, tree.childCount[0]); i++) {
+                int child = tree.firstChild[0] + i;
+                int action = actionOf(space, rootState, tree.states[child]);
+                visits[action] += tree.visits[child];
+                rewards[action] += tree.rewards[child];
+            }
+        }
+        int best = -1;
+        for (int action = 0; action < ACTIONS; action++) {
+            if (visits[action] == 0) continue;
+            if (best < 0 || visits[action] > visits[best]
+                    || (visits[action] == visits[best]
+                            && rewards[action] / visits[action] > rewards[best] / visits[best])) {
+                best = action;
+            }
+        }
+        return new Result(best, visits, iterations, nodes, System.nanoTime() - start);
+    }
+
+    private static int actionOf(RaceStateSpace space, long from, long to) {
+        int ax = space.velocityX(to) - space.velocityX(from);
+        int ay = space.velocityY(to) - space.velocityY(from);
+        return (ay + 1) * 3 + (ax + 1);
+    }
+
+    /**
+     * Costruisce un albero dalla radice fino alla scadenza.
+     */
+    private final class Worker {
+        private final RaceStateSpace space;
+        private final DistanceField field;
+        private final NodePool tree;
+        private final int[] opponentRows;
+        private final int[] opponentColumns;
+        private final SplittableRandom random;
+        private final long[] buffer = new long[ACTIONS];
+        private final long[] arrivalBuffer = new long[ACTIONS];
+        private double maxCost;
+
+        Worker(RaceStateSpace space, DistanceField field, NodePool tree, int[] opponentRows,
+                int[] opponentColumns, SplittableRandom random) {
+            this.space = space;
+            this.field = field;
+            this.tree = tree;
+            this.opponentRows = opponentRows;
+            this.opponentColumns = opponentColumns;
+            this.random = random;
+        }
+
+        long run(long rootState, long deadline) {
+            tree.reset(rootState);
+            // Costo oltre il quale una simulazione vale quanto uno schianto
+            maxCost = estimate(rootState) + 3.0 * rolloutDepth + 1;
+            long iterations = 0;
+            do {
+                iterate();
+                iterations++;
+            } while (System.nanoTime() < deadline);
+            return iterations;
+        }
+
+        private void iterate() {
+            int node = 0;
+            int depth = 0;
+            while (tree.childCount[node] > 0) {
+                node = select(node);
+                depth++;
+            }
+
+            long state = tree.states[node];
+            double cost;
+            if (space.isGoal(state)) {
+                cost = depth + arrivalCost(state);
+            } else {
+                // Un nodo viene espanso alla seconda visita, la radice subito
+                if (tree.childCount[node] < 0 && (node == 0 || tree.visits[node] > 0)) {
+                    expand(node, depth);
+                }
+                int count = tree.childCount[node];
+                if (count == 0) {
+                    cost = CRASH;
+                } else if (count > 0) {
+                    node = tree.firstChild[node] + random.nextInt(count);
+                    depth++;
+                    cost = rollout(tree.states[node], depth);
+                } else {
+                    cost = rollout(state, depth);
+                }
+            }
+
+            double reward = Math.max(0, 1 - cost / maxCost);
+            for (int n = node; n >= 0; n = tree.parents[n]) {
+                tree.visits[n]++;
+                tree.rewards[n] += reward;
+            }
+        }
+
+        private int select(int node) {
+            int first = tree.firstChild[node];
+            int count = tree.childCount[node];
+            double logVisits = Math.log(Math.max(1, tree.visits[node]));
+            int best = first;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int child = first; child < first + count; child++) {
+                int visits = tree.visits[child];
+                if (visits == 0) {
+                    return child;
+                }
+                double value = tree.rewards[child] / visits + EXPLORATION * Math.sqrt(logVisits / visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        private void expand(int node, int depth) {
+            int count = validSuccessors(tree.states[node], depth == 0);
+            if (!tree.hasRoom(count)) {
+                return;
+            }
+            tree.firstChild[node] = tree.size;
+            tree.childCount[node] = count;
+            for (int i = 0; i < count; i++) {
+                tree.add(buffer[i], node);
+            }
+        }
+
+        /**
+         * Simula la gara scegliendo per lo più il successore più vicino
+         * all'obiettivo e restituisce il costo stimato in mosse.
+         */
+        private double rollout(long state, int depth) {
+            for (int step = 0; step < rolloutDepth; step++) {
+                if (space.isGoal(state)) {
+                    return depth + step + arrivalCost(state);
+                }
+                int count = validSuccessors(state, false);
+                if (count == 0) {
+                    return CRASH;
+                }
+                state = random.nextDouble() < GREEDY_PROBABILITY
+                        ? closestToGoal(count)
+                        : buffer[random.nextInt(count)];
+            }
+            return depth + rolloutDepth + estimate(state);
+        }
+
+        private long closestToGoal(int count) {
+            long best = buffer[0];
+            int bestDistance = Integer.MAX_VALUE;
+            int ties = 0;
+            for (int i = 0; i < count; i++) {
+                int distance = space.isGoal(buffer[i]) ? -1
+                        : field.distance(space.row(buffer[i]), space.column(buffer[i]));
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = buffer[i];
+                    ties = 1;
+                } else if (distance == bestDistance && random.nextInt(++ties) == 0) {
+                    best = buffer[i];
+                }
+            }
+            return best;
+        }
+
+        private int validSuccessors(long state, boolean avoidOpponents) {
+            int count = space.successors(state, buffer);
+            if (!avoidOpponents || opponentRows.length == 0) {
+                return count;
+            }
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (!nearOpponent(space.row(buffer[i]), space.column(buffer[i]))) {
+                    buffer[kept++] = buffer[i];
+                }
+            }
+            return kept;
+        }
+
+        private boolean nearOpponent(int row, int column) {
+            for (int i = 0; i < opponentRows.length; i++) {
+                int dRow = row - opponentRows[i];
+                int dColumn = column - opponentColumns[i];
+                // Stessa soglia di collisione del validatore: distanza <= 1
+                if (dRow * dRow + dColumn * dColumn <= 1) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private double estimate(long state) {
+            if (space.isGoal(state)) {
+                return 0;
+            }
+            int moves = field.movesFrom(space.row(state), space.column(state));
+            return moves == DistanceField.UNREACHABLE ? rolloutDepth : moves;
+        }
+
+        /**
+         * Raggiungere l'obiettivo a una velocità da cui ogni mossa finisce
+         * contro un muro equivale a uno schianto al turno successivo.
+         */
+        private double arrivalCost(long state) {
+            long moving = space.encode(0, space.row(state), space.column(state),
+                    space.velocityX(state), space.velocityY(state));
+            return space.successors(moving, arrivalBuffer) == 0 ? CRASH : 0;
+        }
+    }
+}
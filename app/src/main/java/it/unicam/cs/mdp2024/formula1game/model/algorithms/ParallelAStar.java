@@ -0,0 +1,315 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementazione parallela di A* con distribuzione degli stati per hash
+ * (HDA*), pensata per l'analisi offline dei percorsi ottimi su interi
+ * circuiti.
+ * Ogni stato appartiene a un solo worker, scelto in base al suo hash: il
+ * worker mantiene la propria lista aperta e i costi dei propri stati senza
+ * alcun lock. I successori di altri worker vengono inviati tramite code
+ * non bloccanti. Il costo della miglior soluzione trovata è condiviso, così
+ * che ogni worker possa scartare gli stati che non possono migliorarla; la
+ * ricerca termina quando non restano né stati aperti né messaggi in
+ * transito, e a quel punto la soluzione è ottima.
+ */
+public class ParallelAStar {
+
+    private static final long NO_PARENT = -1;
+
+    /**
+     * Risultato di una ricerca parallela.
+     */
+    public static class Result {
+        private final List<IPosition> path;
+        private final int cost;
+        private final long[] expansionsPerWorker;
+        private final long elapsedNanos;
+
+        Result(List<IPosition> path, int cost, long[] expansionsPerWorker, long elapsedNanos) {
+            this.path = path;
+            this.cost = cost;
+            this.expansionsPerWorker = expansionsPerWorker;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return le posizioni del percorso ottimo, vuoto se non esiste
+         */
+        public List<IPosition> getPath() {
+            return path;
+        }
+
+        /**
+         * @return il numero di mosse del percorso ottimo, -1 se non esiste
+         */
+        public int getCost() {
+            return cost;
+        }
+
+        public boolean isFound() {
+            return cost >= 0;
+        }
+
+        /**
+         * @return il numero totale di stati espansi
+         */
+        public long getExpansions() {
+            long total = 0;
+            for (long expansions : expansionsPerWorker) {
+                total += expansions;
+            }
+            return total;
+        }
+
+        /**
+         * @return il numero di stati espansi da ciascun worker, utile per
+         *         valutare il bilanciamento del carico
+         */
+        public long[] getExpansionsPerWorker() {
+            return expansionsPerWorker.clone();
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    private record Message(long state, int g, long parent) {
+    }
+
+    private record OpenEntry(long state, int f, int g) {
+    }
+
+    private final int workerCount;
+
+    /**
+     * Crea una ricerca parallela con un worker per ogni core disponibile.
+     */
+    public ParallelAStar() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Crea una ricerca parallela con il numero di worker indicato.
+     *
+     * @param workerCount numero di thread di ricerca
+     * @throws IllegalArgumentException se il numero di worker non è positivo
+     */
+    public ParallelAStar(int workerCount) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Il numero di worker deve essere positivo");
+        }
+        this.workerCount = workerCount;
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    /**
+     * Cerca il percorso ottimo dalla posizione indicata, partendo da fermi,
+     * fino all'ultimo obiettivo dello spazio degli stati.
+     *
+     * @param space lo spazio degli stati
+     * @param start la posizione di partenza
+     * @return il risultato della ricerca
+     */
+    public Result search(RaceStateSpace space, IPosition start) {
+        return search(space, space.startState(start));
+    }
+
+    /**
+     * Cerca il percorso ottimo dallo stato indicato fino all'ultimo obiettivo.
+     *
+     * @param space      lo spazio degli stati
+     * @param startState lo stato di partenza codificato
+     * @return il risultato della ricerca
+     * @throws IllegalStateException se la ricerca viene interrotta
+     */
+    public Result search(RaceStateSpace space, long startState) {
+        long startTime = System.nanoTime();
+        Search search = new Search(space);
+        search.send(startState, 0, NO_PARENT);
+
+        Thread[] threads = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            Worker worker = search.workers[i];
+            threads[i] = new Thread(worker::run, "hda-worker-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                search.terminated = true;
+                throw new IllegalStateException("Ricerca parallela interrotta", e);
+            }
+        }
+
+        long[] expansions = new long[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            expansions[i] = search.workers[i].expansions;
+        }
+        long elapsed = System.nanoTime() - startTime;
+        long goal = search.goalState;
+        if (goal == NO_PARENT) {
+            return new Result(new ArrayList<>(), -1, expansions, elapsed);
+        }
+        return new Result(space.toPositions(search.reconstruct(goal)), (int) search.incumbent.get(),
+                expansions, elapsed);
+    }
+
+    /**
+     * Stato condiviso di una singola ricerca.
+     */
+    private class Search {
+        final RaceStateSpace space;
+        final Worker[] workers;
+        final AtomicLong incumbent = new AtomicLong(Long.MAX_VALUE);
+        // Messaggi in transito più worker con stati aperti: a zero la ricerca è finita
+        final AtomicLong outstanding = new AtomicLong();
+        final Object goalLock = new Object();
+        volatile boolean terminated;
+        long goalState = NO_PARENT;
+
+        Search(RaceStateSpace space) {
+            this.space = space;
+            this.workers = new Worker[workerCount];
+            for (int i = 0; i < workerCount; i++) {
+                workers[i] = new Worker(this);
+            }
+        }
+
+        Worker owner(long state) {
+            long hash = state * 0x9E3779B97F4A7C15L;
+            return workers[(int) ((hash >>> 33) % workerCount)];
+        }
+
+        void send(long state, int g, long parent) {
+            outstanding.incrementAndGet();
+            owner(state).inbox.add(new Message(state, g, parent));
+        }
+
+        void offerGoal(long state, int g) {
+            synchronized (goalLock) {
+                if (g < incumbent.get()) {
+                    goalState = state;
+                    incumbent.set(g);
+                }
+            }
+        }
+
+        List<Long> reconstruct(long goal) {
+            LinkedList<Long> states = new LinkedList<>();
+            for (long state = goal; state != NO_PARENT; state = owner(state).parents.get(state)) {
+                states.addFirst(state);
+            }
+            return states;
+        }
+    }
+
+    /**
+     * Worker proprietario di una partizione degli stati.
+     */
+    private class Worker {
+        final Search search;
+        final ConcurrentLinkedQueue<Message> inbox = new ConcurrentLinkedQueue<>();
+        final PriorityQueue<OpenEntry> openSet = new PriorityQueue<>(
+                Comparator.comparingInt(OpenEntry::f).thenComparing(Comparator.comparingInt(OpenEntry::g).reversed()));
+        final Map<Long, Integer> gCosts = new HashMap<>();
+        final Map<Long, Long> parents = new HashMap<>();
+        final long[] buffer = new long[RaceStateSpace.MAX_SUCCESSORS];
+        long expansions;
+        boolean busy;
+
+        Worker(Search search) {
+            this.search = search;
+        }
+
+        void run() {
+            while (!search.terminated) {
+                Message message;
+                while ((message = inbox.poll()) != null) {
+                    receive(message.state(), message.g(), message.parent());
+                    search.outstanding.decrementAndGet();
+                }
+
+                OpenEntry entry = nextOpen();
+                if (entry == null) {
+                    if (busy) {
+                        busy = false;
+                        search.outstanding.decrementAndGet();
+                    }
+                    if (search.outstanding.get() == 0) {
+                        search.terminated = true;
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                    continue;
+                }
+                expand(entry);
+            }
+        }
+
+        private void receive(long state, int g, long parent) {
+            Integer known = gCosts.get(state);
+            if (known != null && known <= g) {
+                return;
+            }
+            gCosts.put(state, g);
+            parents.put(state, parent);
+            RaceStateSpace space = search.space;
+            if (space.isGoal(state)) {
+                search.offerGoal(state, g);
+                return;
+            }
+            int h = space.heuristic(state);
+            if (h == Integer.MAX_VALUE || g + h >= search.incumbent.get()) {
+                return;
+            }
+            if (!busy) {
+                // Il contatore va incrementato prima di consumare il messaggio
+                busy = true;
+                search.outstanding.incrementAndGet();
+            }
+            openSet.add(new OpenEntry(state, g + h, g));
+        }
+
+        private OpenEntry nextOpen() {
+            while (!openSet.isEmpty()) {
+                OpenEntry entry = openSet.poll();
+                if (entry.g() != gCosts.get(entry.state())) {
+                    continue; // Voce obsoleta
+                }
+                if (entry.f() >= search.incumbent.get()) {
+                    // Nessuno stato rimasto può migliorare la soluzione corrente
+                    openSet.clear();
+                    return null;
+                }
+                return entry;
+            }
+            return null;
+        }
+
+        private void expand(OpenEntry entry) {
+            expansions++;
+            int count = search.space.successors(entry.state(), buffer);
+            int newG = entry.g() + 1;
+            for (int i = 0; i < count; i++) {
+                long successor = buffer[i];
+                if (search.owner(successor) == this) {
+                    receive(successor, newG, entry.state());
+                } else {
+                    search.send(successor, newG, entry.state());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitFingerprint;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache dei percorsi condivisa da tutti i bot che corrono sullo stesso
+ * circuito.
+ * Le istanze sono indicizzate per impronta del circuito, quindi anche
+ * partite successive sullo stesso tracciato riusano i percorsi già calcolati.
+ * I percorsi sono memorizzati in forma compatta e ogni richiesta riceve una
+ * copia con il proprio cursore.
+ */
+public class PathCache {
+
+    private static final int DEFAULT_CAPACITY = 512;
+    private static final Map<Long, PathCache> SHARED_CACHES = new ConcurrentHashMap<>();
+
+    /**
+     * Chiave di un percorso: stato di partenza (posizione e velocità) e
+     * target. Il target è il punto centrale della linea del checkpoint,
+     * quindi identifica univocamente la linea.
+     */
+    private record PathKey(int startRow, int startColumn, int velocityX, int velocityY,
+            int targetRow, int targetColumn) {
+    }
+
+    private final LruCache<PathKey, CompactPath> cache;
+
+    /**
+     * Crea una cache dei percorsi con la capacità indicata.
+     *
+     * @param capacity numero massimo di percorsi mantenuti
+     */
+    public PathCache(int capacity) {
+        this.cache = new LruCache<>(capacity);
+    }
+
+    /**
+     * Restituisce la cache condivisa per il circuito indicato.
+     *
+     * @param circuit il circuito
+     * @return la cache dei percorsi del circuito
+     */
+    public static PathCache forCircuit(ICircuit circuit) {
+        return SHARED_CACHES.computeIfAbsent(CircuitFingerprint.of(circuit),
+                fingerprint -> new PathCache(DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Restituisce il percorso in cache per lo stato indicato, oppure lo calcola
+     * con la ricerca fornita e lo memorizza.
+     *
+     * @param start    posizione di partenza
+     * @param velocity velocità alla partenza
+     * @param target   posizione da raggiungere
+     * @param search   ricerca da eseguire in caso di miss
+     * @return una copia del percorso con il cursore all'inizio
+     */
+    public CompactPath getOrCompute(IPosition start, IVelocity velocity, IPosition target,
+            Supplier<List<IPosition>> search) {
+        return cache.getOrCompute(createKey(start, velocity, target),
+                k -> CompactPath.of(search.get())).copy();
+    }
+
+    /**
+     * Cerca un percorso in cache senza avviare alcuna ricerca.
+     *
+     * @param start    posizione di partenza
+     * @param velocity velocità alla partenza
+     * @param target   posizione da raggiungere
+     * @return una copia del percorso con il cursore all'inizio, o null se assente
+     */
+    public CompactPath find(IPosition start, IVelocity velocity, IPosition target) {
+        CompactPath path = cache.get(createKey(start, velocity, target));
+        return path == null ? null : path.copy();
+    }
+
+    /**
+     * Memorizza un percorso calcolato altrove.
+     *
+     * @param start    posizione di partenza
+     * @param velocity velocità alla partenza
+     * @param target   posizione da raggiungere
+     * @param path     il percorso da memorizzare
+     */
+    public void store(IPosition start, IVelocity velocity, IPosition target, List<IPosition> path) {
+        cache.put(createKey(start, velocity, target), CompactPath.of(path));
+    }
+
+    private static PathKey createKey(IPosition start, IVelocity velocity, IPosition target) {
+        IVector v = velocity.getCurrentVelocity();
+        return new PathKey(start.getRow(), start.getColumn(), v.getX(), v.getY(),
+                target.getRow(), target.getColumn());
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    public double getHitRate() {
+        return cache.getHitRate();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+}
@@ -0,0 +1,150 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Politica di guida precalcolata: per ogni stato di uno spazio di gara
+ * l'accelerazione ottimale, in un byte.
+ * Lo stato codificato da {@link RaceStateSpace} fa direttamente da indice,
+ * quindi una decisione costa un accesso all'array. Il valore è l'indice
+ * (ay + 1) * 3 + (ax + 1) dell'accelerazione, oppure {@link #NO_ACTION} per
+ * gli stati da cui l'obiettivo non è raggiungibile.
+ * Le tabelle vengono salvate in un {@link TableStore} e, quando vengono
+ * lette, restano mappate in memoria: il bot usa le pagine del file senza
+ * copiarle.
+ * La tabella è immutabile e può essere condivisa tra thread.
+ */
+public final class PolicyTable {
+
+    /** Valore degli stati senza mossa ottimale. */
+    public static final byte NO_ACTION = -1;
+
+    /** Nome delle politiche nell'archivio delle tabelle. */
+    public static final String TABLE_NAME = "politica";
+
+    private static final int CONTENT_VERSION = 1;
+
+    private final long fingerprint;
+    private final int width;
+    private final int height;
+    private final int legCount;
+    private final ByteBuffer actions;
+
+    /**
+     * @param fingerprint impronta del circuito per cui è stata calcolata
+     * @param space       lo spazio degli stati della politica
+     * @param actions     un'azione per stato, nell'ordine delle codifiche
+     * @throws IllegalArgumentException se il numero di azioni non corrisponde agli stati
+     */
+    public PolicyTable(long fingerprint, RaceStateSpace space, byte[] actions) {
+        this(fingerprint, space.getWidth(), space.getHeight(), space.getLegCount(), ByteBuffer.wrap(actions));
+        if (actions.length != space.getStateCount()) {
+            throw new IllegalArgumentException("La politica deve avere un'azione per ogni stato");
+        }
+    }
+
+    private PolicyTable(long fingerprint, int width, int height, int legCount, ByteBuffer actions) {
+        this.fingerprint = fingerprint;
+        this.width = width;
+        this.height = height;
+        this.legCount = legCount;
+        this.actions = actions;
+    }
+
+    /**
+     * @param state lo stato codificato dallo spazio della politica
+     * @return l'indice dell'accelerazione ottimale, o {@link #NO_ACTION}
+     */
+    public int action(long state) {
+        return actions.get((int) state);
+    }
+
+    /**
+     * @param action indice di un'accelerazione
+     * @return la componente orizzontale dell'accelerazione
+     */
+    public static int accelerationX(int action) {
+        return action % 3 - 1;
+    }
+
+    /**
+     * @param action indice di un'accelerazione
+     * @return la componente verticale dell'accelerazione
+     */
+    public static int accelerationY(int action) {
+        return action / 3 - 1;
+    }
+
+    /**
+     * Verifica che la tabella sia stata calcolata per il circuito e lo spazio indicati.
+     *
+     * @param fingerprint impronta del circuito
+     * @param space       lo spazio degli stati usato per le decisioni
+     * @return true se le codifiche degli stati coincidono
+     */
+    public boolean matches(long fingerprint, RaceStateSpace space) {
+        return this.fingerprint == fingerprint && width == space.getWidth() && height == space.getHeight()
+                && legCount == space.getLegCount() && actions.capacity() == space.getStateCount();
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return numero di stati della tabella
+     */
+    public int size() {
+        return actions.capacity();
+    }
+
+    /**
+     * @return numero di stati da cui l'obiettivo è raggiungibile
+     */
+    public int countSolvedStates() {
+        int solved = 0;
+        for (int state = 0; state < actions.capacity(); state++) {
+            if (actions.get(state) != NO_ACTION) {
+                solved++;
+            }
+        }
+        return solved;
+    }
+
+    /**
+     * Scrive la tabella nell'archivio, con dimensioni
+     * [tratti + 1][righe][colonne][velocità] e un byte per stato.
+     *
+     * @param store l'archivio delle tabelle
+     * @return la stessa politica, letta dal file mappato
+     * @throws IOException se la scrittura fallisce
+     */
+    public PolicyTable save(TableStore store) throws IOException {
+        MappedTable table = store.write(TABLE_NAME, fingerprint, CONTENT_VERSION, 1, shape(legCount, height, width),
+                buffer -> buffer.put(actions.duplicate().clear()));
+        return new PolicyTable(fingerprint, width, height, legCount, table.data());
+    }
+
+    /**
+     * Mappa la politica salvata per un circuito e uno spazio di gara.
+     *
+     * @param store       l'archivio delle tabelle
+     * @param fingerprint impronta del circuito
+     * @param space       lo spazio degli stati usato per le decisioni
+     * @return la politica, o null se nell'archivio non ce n'è una compatibile
+     * @throws IOException se il file esiste ma non può essere letto
+     */
+    public static PolicyTable open(TableStore store, long fingerprint, RaceStateSpace space) throws IOException {
+        MappedTable table = store.map(TABLE_NAME, fingerprint, CONTENT_VERSION);
+        if (table == null || table.getElementBytes() != 1
+                || !table.hasShape(shape(space.getLegCount(), space.getHeight(), space.getWidth()))) {
+            return null;
+        }
+        return new PolicyTable(fingerprint, space.getWidth(), space.getHeight(), space.getLegCount(), table.data());
+    }
+
+    private static int[] shape(int legCount, int height, int width) {
+        return new int[] {legCount + 1, height, width, RaceStateSpace.VELOCITY_COUNT};
+    }
+}
@@ -0,0 +1,217 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Calcola offline la {@link PolicyTable} ottimale di uno spazio di gara con
+ * l'iterazione dei valori.
+ * Le mosse sono deterministiche e costano tutte un turno, quindi il valore
+ * di uno stato è il numero minimo di mosse per completare il giro e le
+ * equazioni di Bellman si risolvono esattamente in ordine di valore: partendo
+ * dagli stati finali, gli stati di valore d sono i predecessori non ancora
+ * risolti di quelli di valore d - 1. Ogni strato viene espanso in parallelo
+ * a blocchi; anche l'estrazione della politica, che per ogni stato sceglie il
+ * successore di valore minimo, è divisa a blocchi tra i thread.
+ */
+public class PolicyTrainer {
+
+    private static final int UNSOLVED = Integer.MAX_VALUE;
+    private static final int FRONTIER_CHUNK = 4096;
+    private static final int STATE_CHUNK = 1 << 16;
+
+    /**
+     * Risultato dell'addestramento.
+     */
+    public static class Result {
+        private final PolicyTable table;
+        private final int layers;
+        private final long solvedStates;
+        private final long elapsedNanos;
+
+        Result(PolicyTable table, int layers, long solvedStates, long elapsedNanos) {
+            this.table = table;
+            this.layers = layers;
+            this.solvedStates = solvedStates;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public PolicyTable getTable() {
+            return table;
+        }
+
+        /**
+         * @return il numero massimo di mosse necessarie da uno stato risolto
+         */
+        public int getLayers() {
+            return layers;
+        }
+
+        /**
+         * @return stati da cui l'obiettivo è raggiungibile, finali compresi
+         */
+        public long getSolvedStates() {
+            return solvedStates;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    private final int parallelism;
+
+    /**
+     * Crea un addestratore che usa tutti i core disponibili.
+     */
+    public PolicyTrainer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism thread usati per l'addestramento
+     * @throws IllegalArgumentException se non è positivo
+     */
+    public PolicyTrainer(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Il numero di thread deve essere positivo");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Calcola la politica ottimale dello spazio indicato.
+     *
+     * @param fingerprint impronta del circuito dello spazio
+     * @param space       lo spazio degli stati
+     * @return la politica e le statistiche dell'addestramento
+     * @throws IllegalArgumentException se lo spazio ha troppi stati per una tabella
+     * @throws InterruptedException     se l'attesa dei thread viene interrotta
+     */
+    public Result train(long fingerprint, RaceStateSpace space) throws InterruptedException {
+        long stateCount = space.getStateCount();
+        if (stateCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Spazio di gara troppo grande per una tabella: " + stateCount);
+        }
+        long start = System.nanoTime();
+        int[] values = new int[(int) stateCount];
+        Arrays.fill(values, UNSOLVED);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            long[] frontier = space.goalStates();
+            for (long goal : frontier) {
+                values[(int) goal] = 0;
+            }
+            long solved = frontier.length;
+            int layer = 0;
+            while (frontier.length > 0) {
+                layer++;
+                frontier = expandLayer(space, values, frontier, layer, executor);
+                solved += frontier.length;
+            }
+            byte[] actions = extractPolicy(space, values, executor);
+            return new Result(new PolicyTable(fingerprint, space, actions), Math.max(0, layer - 1), solved,
+                    System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Risolve gli stati di valore {@code layer}: i predecessori degli stati
+     * dello strato precedente vengono generati in parallelo, poi assegnati
+     * in sequenza così che ogni stato entri in un solo strato.
+     */
+    private long[] expandLayer(RaceStateSpace space, int[] values, long[] frontier, int layer,
+            ExecutorService executor) throws InterruptedException {
+        List<Callable<long[]>> tasks = new ArrayList<>();
+        for (int from = 0; from < frontier.length; from += FRONTIER_CHUNK) {
+            int chunkStart = from;
+            int chunkEnd = Math.min(frontier.length, from + FRONTIER_CHUNK);
+            tasks.add(() -> {
+                long[] buffer = new long[space.getMaxPredecessors()];
+                long[] found = new long[64];
+                int count = 0;
+                for (int i = chunkStart; i < chunkEnd; i++) {
+                    int predecessors = space.predecessors(frontier[i], buffer);
+                    for (int p = 0; p < predecessors; p++) {
+                        // Gli strati precedenti non cambiano durante l'espansione
+                        if (values[(int) buffer[p]] != UNSOLVED) continue;
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = buffer[p];
+                    }
+                }
+                return Arrays.copyOf(found, count);
+            });
+        }
+
+        long[] next = new long[64];
+        int size = 0;
+        for (long[] candidates : collect(executor.invokeAll(tasks))) {
+            for (long state : candidates) {
+                if (values[(int) state] != UNSOLVED) continue;
+                values[(int) state] = layer;
+                if (size == next.length) {
+                    next = Arrays.copyOf(next, size * 2);
+                }
+                next[size++] = state;
+            }
+        }
+        return Arrays.copyOf(next, size);
+    }
+
+    /**
+     * Per ogni stato risolto sceglie l'accelerazione che porta al successore
+     * di valore minimo; a parità vale la prima nell'ordine delle accelerazioni.
+     */
+    private byte[] extractPolicy(RaceStateSpace space, int[] values, ExecutorService executor)
+            throws InterruptedException {
+        byte[] actions = new byte[values.length];
+        List<Callable<long[]>> tasks = new ArrayList<>();
+        for (int from = 0; from < values.length; from += STATE_CHUNK) {
+            int chunkStart = from;
+            int chunkEnd = Math.min(values.length, from + STATE_CHUNK);
+            tasks.add(() -> {
+                long[] successors = new long[RaceStateSpace.MAX_SUCCESSORS];
+                for (int state = chunkStart; state < chunkEnd; state++) {
+                    actions[state] = PolicyTable.NO_ACTION;
+                    if (values[state] == UNSOLVED || values[state] == 0) continue;
+                    int count = space.successors(state, successors);
+                    int vx = space.velocityX(state);
+                    int vy = space.velocityY(state);
+                    int best = UNSOLVED;
+                    for (int s = 0; s < count; s++) {
+                        int value = values[(int) successors[s]];
+                        if (value < best) {
+                            best = value;
+                            int ax = space.velocityX(successors[s]) - vx;
+                            int ay = space.velocityY(successors[s]) - vy;
+                            actions[state] = (byte) ((ay + 1) * 3 + ax + 1);
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        collect(executor.invokeAll(tasks));
+        return actions;
+    }
+
+    private static List<long[]> collect(List<Future<long[]>> futures) throws InterruptedException {
+        List<long[]> results = new ArrayList<>(futures.size());
+        for (Future<long[]> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Addestramento della politica fallito", e.getCause());
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,532 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spazio degli stati di gara condiviso dagli algoritmi di ricerca offline.
+ * Uno stato è la tupla (tratto, riga, colonna, vx, vy) codificata in un long,
+ * dove il tratto è l'indice del prossimo obiettivo da attraversare (ad esempio
+ * la linea di un checkpoint). Le transizioni seguono le stesse regole di
+ * {@code DefaultMoveValidator}: accelerazione in {-1, 0, 1} per componente,
+ * velocità euclidea massima 5 e destinazione libera con almeno due celle
+ * libere adiacenti. Ogni mossa costa un turno.
+ * Le tabelle sono precalcolate alla costruzione, quindi lo spazio è
+ * immutabile e può essere condiviso tra più thread.
+ */
+public class RaceStateSpace {
+
+    /** Velocità massima per componente. */
+    public static final int MAX_SPEED = 5;
+    /** Numero massimo di successori di uno stato. */
+    public static final int MAX_SUCCESSORS = 9;
+
+    private static final int VELOCITY_SIDE = 2 * MAX_SPEED + 1;
+    static final int VELOCITY_COUNT = VELOCITY_SIDE * VELOCITY_SIDE;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int width;
+    private final int height;
+    private final int cellCount;
+    private final boolean[] validDestination;
+    private final boolean[][] goalMasks;
+    private final int[][] goalDistances;
+    private final int[] remainingDistances;
+    private final boolean landOnLastLeg;
+    private final boolean[] validVelocity;
+    private final int[][] segmentOffsets;
+
+    /**
+     * Crea lo spazio degli stati per una sequenza di obiettivi.
+     * Un obiettivo è attraversato quando il segmento di una mossa passa per
+     * una delle sue celle; la ricerca termina dopo l'ultimo obiettivo.
+     *
+     * @param circuit il circuito
+     * @param legs    celle di ciascun obiettivo, nell'ordine da attraversare
+     * @throws IllegalArgumentException se non è indicato alcun obiettivo o
+     *                                  un obiettivo è vuoto
+     */
+    public RaceStateSpace(ICircuit circuit, List<? extends Collection<? extends IPosition>> legs) {
+        this(circuit, legs, false);
+    }
+
+    /**
+     * Crea lo spazio degli stati per una sequenza di obiettivi, indicando se
+     * l'ultimo deve essere raggiunto fermandosi su una delle sue celle, come
+     * richiesto per il traguardo.
+     *
+     * @param circuit       il circuito
+     * @param legs          celle di ciascun obiettivo, nell'ordine da attraversare
+     * @param landOnLastLeg true se l'ultima mossa deve terminare sull'ultimo obiettivo
+     * @throws IllegalArgumentException se non è indicato alcun obiettivo o
+     *                                  un obiettivo è vuoto
+     */
+    public RaceStateSpace(ICircuit circuit, List<? extends Collection<? extends IPosition>> legs,
+            boolean landOnLastLeg) {
+        if (legs == null || legs.isEmpty()) {
+            throw new IllegalArgumentException("Serve almeno un obiettivo da raggiungere");
+        }
+        this.width = circuit.getWidth();
+        this.height = circuit.getHeight();
+        this.cellCount = width * height;
+        this.validDestination = computeValidDestinations(circuit);
+        this.goalMasks = new boolean[legs.size()][];
+        this.goalDistances = new int[legs.size()][];
+        for (int leg = 0; leg < legs.size(); leg++) {
+            goalMasks[leg] = toMask(legs.get(leg));
+            goalDistances[leg] = computeGoalDistances(goalMasks[leg]);
+        }
+        this.landOnLastLeg = landOnLastLeg;
+        this.remainingDistances = computeRemainingDistances();
+        this.validVelocity = new boolean[VELOCITY_COUNT];
+        this.segmentOffsets = new int[VELOCITY_COUNT][];
+        for (int vy = -MAX_SPEED; vy <= MAX_SPEED; vy++) {
+            for (int vx = -MAX_SPEED; vx <= MAX_SPEED; vx++) {
+                int index = velocityIndex(vx, vy);
+                validVelocity[index] = vx * vx + vy * vy <= MAX_SPEED * MAX_SPEED;
+                segmentOffsets[index] = computeSegmentOffsets(vx, vy);
+            }
+        }
+    }
+
+    /**
+     * Crea lo spazio degli stati per raggiungere una singola posizione.
+     *
+     * @param circuit il circuito
+     * @param target  la posizione da raggiungere
+     * @return lo spazio degli stati
+     */
+    public static RaceStateSpace forTarget(ICircuit circuit, IPosition target) {
+        return new RaceStateSpace(circuit, List.of(List.of(target)));
+    }
+
+    /**
+     * Codifica uno stato.
+     *
+     * @param leg    indice del prossimo obiettivo
+     * @param row    riga della posizione
+     * @param column colonna della posizione
+     * @param vx     componente orizzontale della velocità
+     * @param vy     componente verticale della velocità
+     * @return lo stato codificato
+     * @throws IllegalArgumentException se lo stato è fuori dallo spazio
+     */
+    public long encode(int leg, int row, int column, int vx, int vy) {
+        if (leg < 0 || leg > goalMasks.length || row < 0 || row >= height || column < 0 || column >= width
+                || Math.abs(vx) > MAX_SPEED || Math.abs(vy) > MAX_SPEED) {
+            throw new IllegalArgumentException("Stato fuori dallo spazio di gara");
+        }
+        return ((long) leg * cellCount + (long) row * width + column) * VELOCITY_COUNT + velocityIndex(vx, vy);
+    }
+
+    /**
+     * Codifica lo stato di partenza: primo tratto e auto ferma.
+     *
+     * @param start la posizione di partenza
+     * @return lo stato codificato
+     */
+    public long startState(IPosition start) {
+        return encode(0, start.getRow(), start.getColumn(), 0, 0);
+    }
+
+    public int leg(long state) {
+        return (int) (state / VELOCITY_COUNT / cellCount);
+    }
+
+    public int row(long state) {
+        return cell(state) / width;
+    }
+
+    public int column(long state) {
+        return cell(state) % width;
+    }
+
+    public int velocityX(long state) {
+        return (int) (state % VELOCITY_COUNT) % VELOCITY_SIDE - MAX_SPEED;
+    }
+
+    public int velocityY(long state) {
+        return (int) (state % VELOCITY_COUNT) / VELOCITY_SIDE - MAX_SPEED;
+    }
+
+    public IPosition position(long state) {
+        return new Position(row(state), column(state));
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getLegCount() {
+        return goalMasks.length;
+    }
+
+    /**
+     * Numero di codifiche possibili, compresi gli stati finali: ogni stato
+     * codificato è compreso tra 0 e questo valore escluso, quindi può fare da
+     * indice in una tabella.
+     *
+     * @return il numero di stati
+     */
+    public long getStateCount() {
+        return (long) (goalMasks.length + 1) * cellCount * VELOCITY_COUNT;
+    }
+
+    /**
+     * Tratto raggiunto con una mossa, per seguire il giro a partire dalle
+     * mosse effettivamente giocate.
+     *
+     * @param leg        il tratto prima della mossa
+     * @param fromRow    riga di partenza
+     * @param fromColumn colonna di partenza
+     * @param vx         componente orizzontale della velocità della mossa
+     * @param vy         componente verticale della velocità della mossa
+     * @return il tratto dopo la mossa, uguale a {@link #getLegCount()} se
+     *         sono stati attraversati tutti gli obiettivi
+     * @throws IllegalArgumentException se la mossa è fuori dallo spazio
+     */
+    public int legAfterMove(int leg, int fromRow, int fromColumn, int vx, int vy) {
+        if (leg < 0 || leg > goalMasks.length || fromRow < 0 || fromRow >= height || fromColumn < 0
+                || fromColumn >= width || Math.abs(vx) > MAX_SPEED || Math.abs(vy) > MAX_SPEED
+                || fromRow + vy < 0 || fromRow + vy >= height || fromColumn + vx < 0 || fromColumn + vx >= width) {
+            throw new IllegalArgumentException("Mossa fuori dallo spazio di gara");
+        }
+        return advanceLeg(leg, fromRow * width + fromColumn, velocityIndex(vx, vy));
+    }
+
+    /**
+     * @param state lo stato
+     * @return true se lo stato ha attraversato tutti gli obiettivi
+     */
+    public boolean isGoal(long state) {
+        return leg(state) == goalMasks.length;
+    }
+
+    /**
+     * Stima ammissibile del numero di mosse mancanti all'ultimo obiettivo:
+     * ogni mossa sposta l'auto di al più {@value #MAX_SPEED} celle per
+     * componente, quindi basta dividere la distanza di Chebyshev verso
+     * l'obiettivo corrente sommata alle distanze minime tra gli obiettivi
+     * successivi.
+     *
+     * @param state lo stato
+     * @return limite inferiore al numero di mosse necessarie
+     */
+    public int heuristic(long state) {
+        int leg = leg(state);
+        if (leg == goalMasks.length) {
+            return 0;
+        }
+        int distance = goalDistances[leg][cell(state)];
+        if (distance == UNREACHABLE || remainingDistances[leg] == UNREACHABLE) {
+            return UNREACHABLE;
+        }
+        return (distance + remainingDistances[leg] + MAX_SPEED - 1) / MAX_SPEED;
+    }
+
+    /**
+     * Genera i successori di uno stato secondo le regole di movimento.
+     * Gli stati finali non hanno successori.
+     *
+     * @param state lo stato da espandere
+     * @param out   buffer di almeno {@value #MAX_SUCCESSORS} elementi
+     * @return il numero di successori scritti nel buffer
+     */
+    public int successors(long state, long[] out) {
+        int leg = leg(state);
+        if (leg == goalMasks.length) {
+            return 0;
+        }
+        int cell = cell(state);
+        int row = cell / width;
+        int column = cell % width;
+        int vx = velocityX(state);
+        int vy = velocityY(state);
+        int count = 0;
+
+        for (int ay = -1; ay <= 1; ay++) {
+            for (int ax = -1; ax <= 1; ax++) {
+                int nvx = vx + ax;
+                int nvy = vy + ay;
+                if (Math.abs(nvx) > MAX_SPEED || Math.abs(nvy) > MAX_SPEED) continue;
+                int velocity = velocityIndex(nvx, nvy);
+                if (!validVelocity[velocity]) continue;
+
+                int newRow = row + nvy;
+                int newColumn = column + nvx;
+                if (newRow < 0 || newRow >= height || newColumn < 0 || newColumn >= width) continue;
+                if (!validDestination[newRow * width + newColumn]) continue;
+
+                int newLeg = advanceLeg(leg, cell, velocity);
+                out[count++] = ((long) newLeg * cellCount + (long) newRow * width + newColumn) * VELOCITY_COUNT
+                        + velocity;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return la dimensione minima del buffer per {@link #predecessors}
+     */
+    public int getMaxPredecessors() {
+        return MAX_SUCCESSORS * goalMasks.length;
+    }
+
+    /**
+     * Genera i predecessori di uno stato invertendo le transizioni: lo stato
+     * s' è predecessore di s se s è tra i successori di s'. Serve alle
+     * ricerche all'indietro.
+     *
+     * @param state lo stato di arrivo
+     * @param out   buffer di almeno {@link #getMaxPredecessors()} elementi
+     * @return il numero di predecessori scritti nel buffer
+     */
+    public int predecessors(long state, long[] out) {
+        int leg = leg(state);
+        int cell = cell(state);
+        int velocity = (int) (state % VELOCITY_COUNT);
+        int vx = velocityX(state);
+        int vy = velocityY(state);
+        int fromRow = cell / width - vy;
+        int fromColumn = cell % width - vx;
+        if (fromRow < 0 || fromRow >= height || fromColumn < 0 || fromColumn >= width) {
+            return 0;
+        }
+        int fromCell = fromRow * width + fromColumn;
+        if (!validDestination[fromCell]) {
+            return 0;
+        }
+
+        int count = 0;
+        for (int fromLeg = Math.min(leg, goalMasks.length - 1); fromLeg >= 0; fromLeg--) {
+            int reachedLeg = advanceLeg(fromLeg, fromCell, velocity);
+            if (reachedLeg < leg) {
+                break; // Partendo da tratti precedenti non si arriva più a questo
+            }
+            if (reachedLeg > leg) {
+                continue;
+            }
+            for (int ay = -1; ay <= 1; ay++) {
+                for (int ax = -1; ax <= 1; ax++) {
+                    int pvx = vx - ax;
+                    int pvy = vy - ay;
+                    if (Math.abs(pvx) > MAX_SPEED || Math.abs(pvy) > MAX_SPEED) continue;
+                    int previous = velocityIndex(pvx, pvy);
+                    if (!validVelocity[previous]) continue;
+                    out[count++] = ((long) fromLeg * cellCount + fromCell) * VELOCITY_COUNT + previous;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Elenca gli stati finali, cioè quelli raggiunti con la mossa che
+     * attraversa l'ultimo obiettivo. Sono il punto di partenza delle ricerche
+     * all'indietro.
+     *
+     * @return gli stati finali codificati
+     */
+    public long[] goalStates() {
+        int lastLeg = goalMasks.length - 1;
+        List<Long> goals = new ArrayList<>();
+        for (int cell = 0; cell < cellCount; cell++) {
+            // Solo le celle a portata di una mossa possono concludere l'attraversamento
+            if (!validDestination[cell] || goalDistances[lastLeg][cell] > MAX_SPEED) continue;
+            int row = cell / width;
+            int column = cell % width;
+            for (int velocity = 0; velocity < VELOCITY_COUNT; velocity++) {
+                if (!validVelocity[velocity]) continue;
+                int fromRow = row - (velocity / VELOCITY_SIDE - MAX_SPEED);
+                int fromColumn = column - (velocity % VELOCITY_SIDE - MAX_SPEED);
+                if (fromRow < 0 || fromRow >= height || fromColumn < 0 || fromColumn >= width) continue;
+                if (advanceLeg(lastLeg, fromRow * width + fromColumn, velocity) == goalMasks.length) {
+                    goals.add(((long) goalMasks.length * cellCount + cell) * VELOCITY_COUNT + velocity);
+                }
+            }
+        }
+        long[] result = new long[goals.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = goals.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Ricostruisce le posizioni attraversate da una sequenza di stati.
+     *
+     * @param states la sequenza di stati
+     * @return le posizioni corrispondenti
+     */
+    public List<IPosition> toPositions(List<Long> states) {
+        List<IPosition> positions = new ArrayList<>(states.size());
+        for (long state : states) {
+            positions.add(position(state));
+        }
+        return positions;
+    }
+
+    int cell(long state) {
+        return (int) (state / VELOCITY_COUNT % cellCount);
+    }
+
+    int advanceLeg(int leg, int fromCell, int velocity) {
+        // Una mossa veloce può attraversare più obiettivi consecutivi
+        while (leg < goalMasks.length && crosses(leg, fromCell, velocity)) {
+            leg++;
+        }
+        return leg;
+    }
+
+    private boolean crosses(int leg, int fromCell, int velocity) {
+        boolean[] mask = goalMasks[leg];
+        int[] offsets = segmentOffsets[velocity];
+        if (landOnLastLeg && leg == goalMasks.length - 1) {
+            return offsets.length > 0 && mask[fromCell + offsets[offsets.length - 1]];
+        }
+        for (int offset : offsets) {
+            if (mask[fromCell + offset]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int velocityIndex(int vx, int vy) {
+        return (vy + MAX_SPEED) * VELOCITY_SIDE + vx + MAX_SPEED;
+    }
+
+    /**
+     * Celle toccate dal segmento di una mossa, esclusa quella di partenza,
+     * espresse come scostamento dall'indice della cella di partenza.
+     */
+    private int[] computeSegmentOffsets(int vx, int vy) {
+        int steps = Math.max(Math.abs(vx), Math.abs(vy));
+        int[] offsets = new int[steps];
+        for (int i = 1; i <= steps; i++) {
+            int dRow = (int) Math.round((double) vy * i / steps);
+            int dColumn = (int) Math.round((double) vx * i / steps);
+            offsets[i - 1] = dRow * width + dColumn;
+        }
+        return offsets;
+    }
+
+    /**
+     * Celle su cui una mossa può terminare secondo il validatore: libere e
+     * con almeno due celle libere adiacenti.
+     *
+     * @return maschera indicizzata da {@code riga * larghezza + colonna}
+     */
+    static boolean[] computeValidDestinations(ICircuit circuit) {
+        int width = circuit.getWidth();
+        int height = circuit.getHeight();
+        int cellCount = width * height;
+        boolean[] free = new boolean[cellCount];
+        for (int row = 0; row < height; row++) {
+            for (int column = 0; column < width; column++) {
+                free[row * width + column] = !circuit.isWall(column, row);
+            }
+        }
+
+        // Come nel validatore: servono almeno due celle libere adiacenti
+        boolean[] valid = new boolean[cellCount];
+        for (int row = 0; row < height; row++) {
+            for (int column = 0; column < width; column++) {
+                if (!free[row * width + column]) continue;
+                int freeNeighbors = 0;
+                for (int dRow = -1; dRow <= 1; dRow++) {
+                    for (int dColumn = -1; dColumn <= 1; dColumn++) {
+                        if (dRow == 0 && dColumn == 0) continue;
+                        int r = row + dRow;
+                        int c = column + dColumn;
+                        if (r >= 0 && r < height && c >= 0 && c < width && free[r * width + c]) {
+                            freeNeighbors++;
+                        }
+                    }
+                }
+                valid[row * width + column] = freeNeighbors >= 2;
+            }
+        }
+        return valid;
+    }
+
+    private boolean[] toMask(Collection<? extends IPosition> goal) {
+        if (goal.isEmpty()) {
+            throw new IllegalArgumentException("Un obiettivo deve contenere almeno una cella");
+        }
+        boolean[] mask = new boolean[cellCount];
+        for (IPosition position : goal) {
+            if (position.getRow() >= 0 && position.getRow() < height
+                    && position.getColumn() >= 0 && position.getColumn() < width) {
+                mask[position.getRow() * width + position.getColumn()] = true;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Per ogni tratto, somma delle distanze minime tra ciascun obiettivo
+     * successivo e il seguente: qualunque percorso deve coprirle tutte.
+     */
+    private int[] computeRemainingDistances() {
+        int[] remaining = new int[goalMasks.length];
+        for (int leg = goalMasks.length - 2; leg >= 0; leg--) {
+            int gap = UNREACHABLE;
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (goalMasks[leg + 1][cell]) {
+                    gap = Math.min(gap, goalDistances[leg][cell]);
+                }
+            }
+            remaining[leg] = gap == UNREACHABLE || remaining[leg + 1] == UNREACHABLE
+                    ? UNREACHABLE
+                    : gap + remaining[leg + 1];
+        }
+        return remaining;
+    }
+
+    /**
+     * Distanza di Chebyshev di ogni cella dall'obiettivo, ignorando i muri:
+     * le mosse non controllano i muri lungo il segmento, quindi anche
+     * l'euristica non deve tenerne conto per restare ammissibile.
+     */
+    private int[] computeGoalDistances(boolean[] mask) {
+        int[] distances = new int[cellCount];
+        Arrays.fill(distances, UNREACHABLE);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (mask[cell]) {
+                distances[cell] = 0;
+                queue.add(cell);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            int row = cell / width;
+            int column = cell % width;
+            for (int dRow = -1; dRow <= 1; dRow++) {
+                for (int dColumn = -1; dColumn <= 1; dColumn++) {
+                    int r = row + dRow;
+                    int c = column + dColumn;
+                    if (r < 0 || r >= height || c < 0 || c >= width) continue;
+                    int neighbor = r * width + c;
+                    if (distances[neighbor] == UNREACHABLE) {
+                        distances[neighbor] = distances[cell] + 1;
+                        queue.add(neighbor);
+                    }
+                }
+            }
+        }
+        return distances;
+    }
+}
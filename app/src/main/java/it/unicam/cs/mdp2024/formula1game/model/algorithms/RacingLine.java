@@ -0,0 +1,127 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Traiettoria ideale di un circuito: il giro con il minor numero di mosse
+ * da una posizione di partenza, con l'auto ferma, attraverso tutti i
+ * checkpoint fino all'arresto sul traguardo.
+ * Viene calcolata una sola volta con {@link LapPlanner} e conservata in un
+ * {@link TableStore} come tabella [stati][4] di interi (riga, colonna, vx,
+ * vy), con un'impronta che combina circuito, linee e partenza; gli avvii
+ * successivi la mappano dal file. Il calcolo gira in background e le
+ * traiettorie sono condivise in memoria tra tutti i bot.
+ */
+public final class RacingLine {
+
+    /** Nome delle traiettorie nell'archivio. */
+    public static final String TABLE_NAME = "traiettoria";
+
+    private static final int CONTENT_VERSION = 1;
+    private static final int FIELDS = 4;
+    private static final int CACHE_CAPACITY = 32;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** Segnaposto in cache per i giri senza soluzione. */
+    private static final Trajectory NO_LINE = new Trajectory(new int[0], new int[0], new int[0], new int[0]);
+
+    private static final BackgroundCache<LineKey, Trajectory> SHARED_LINES = new BackgroundCache<>(CACHE_CAPACITY);
+
+    private record LineKey(Path directory, long fingerprint) {
+    }
+
+    private RacingLine() {
+    }
+
+    /**
+     * Restituisce la traiettoria ideale dalla partenza indicata, mappandola
+     * dall'archivio o calcolandola e scrivendola se manca. Se l'archivio non
+     * è accessibile la traiettoria resta solo in memoria.
+     * Il calcolo gira in background: se l'attesa viene interrotta prosegue,
+     * e una nuova chiamata ne attende il risultato.
+     *
+     * @param store   l'archivio delle tabelle
+     * @param circuit il circuito
+     * @param lines   le linee dei checkpoint nell'ordine del gioco
+     * @param start   la posizione di partenza
+     * @return la traiettoria, o null se il giro non ha soluzione
+     * @throws InterruptedException se l'attesa del calcolo viene interrotta
+     */
+    public static Trajectory from(TableStore store, ICircuit circuit, List<? extends List<? extends IPosition>> lines,
+            IPosition start) throws InterruptedException {
+        List<List<IPosition>> copy = new ArrayList<>(lines.size());
+        for (List<? extends IPosition> line : lines) {
+            copy.add(List.copyOf(line));
+        }
+        long fingerprint = CheckpointDistanceTable.fingerprint(circuit, copy);
+        fingerprint = (fingerprint ^ start.getRow()) * FNV_PRIME;
+        fingerprint = (fingerprint ^ start.getColumn()) * FNV_PRIME;
+        long key = fingerprint;
+
+        Trajectory line = SHARED_LINES.get(new LineKey(store.getDirectory(), key), () -> {
+            Trajectory loaded = load(store, key);
+            if (loaded != null) {
+                return loaded;
+            }
+            Trajectory planned = new LapPlanner().plan(circuit, copy, 0, start, new Velocity(0, 0));
+            if (planned == null) {
+                // Il calcolo in background non viene interrotto: il giro non ha soluzione
+                return NO_LINE;
+            }
+            save(store, key, planned);
+            return planned;
+        });
+        return line == NO_LINE ? null : line;
+    }
+
+    private static Trajectory load(TableStore store, long fingerprint) {
+        MappedTable table;
+        try {
+            table = store.map(TABLE_NAME, fingerprint, CONTENT_VERSION);
+        } catch (IOException e) {
+            return null;
+        }
+        if (table == null || table.getElementBytes() != Integer.BYTES) {
+            return null;
+        }
+        int[] shape = table.getShape();
+        if (shape.length != 2 || shape[1] != FIELDS) {
+            return null;
+        }
+        int size = shape[0];
+        int[] rows = new int[size];
+        int[] columns = new int[size];
+        int[] velocitiesX = new int[size];
+        int[] velocitiesY = new int[size];
+        for (int i = 0; i < size; i++) {
+            rows[i] = table.getInt(i * FIELDS);
+            columns[i] = table.getInt(i * FIELDS + 1);
+            velocitiesX[i] = table.getInt(i * FIELDS + 2);
+            velocitiesY[i] = table.getInt(i * FIELDS + 3);
+        }
+        return new Trajectory(rows, columns, velocitiesX, velocitiesY);
+    }
+
+    private static void save(TableStore store, long fingerprint, Trajectory line) {
+        try {
+            store.write(TABLE_NAME, fingerprint, CONTENT_VERSION, Integer.BYTES, new int[] {line.size(), FIELDS},
+                    buffer -> {
+                        for (int i = 0; i < line.size(); i++) {
+                            buffer.putInt(line.getRow(i));
+                            buffer.putInt(line.getColumn(i));
+                            buffer.putInt(line.getVelocityX(i));
+                            buffer.putInt(line.getVelocityY(i));
+                        }
+                    });
+        } catch (IOException e) {
+            // Archivio non scrivibile: la traiettoria resta solo in memoria
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Tabella spazio-tempo condivisa tra le auto: per ogni turno e ogni cella
+ * ricorda quale auto la occupa o ha pianificato di occuparla.
+ * Le auto che pianificano in modo cooperativo vi scrivono le traiettorie
+ * previste e scartano gli stati in conflitto con quelle delle altre, così i
+ * conflitti vengono risolti prima di muoversi invece che dal validatore.
+ * <p>
+ * Il tempo è il numero di giri di turni completati: al tempo t ogni auto si
+ * trova dove l'ha portata la sua t-esima mossa. Poiché le auto muovono una
+ * alla volta, chi muove al tempo t trova le auto che lo precedono già al
+ * tempo t e quelle che lo seguono ancora al tempo t-1; per questo un arrivo
+ * al tempo t è in conflitto con le occupazioni di entrambi i tempi.
+ * La tabella conserva solo una finestra di turni, riusando gli array.
+ */
+public final class ReservationTable {
+
+    /** Numero predefinito di turni conservati. */
+    public static final int DEFAULT_HORIZON = 16;
+
+    private static final int FREE = 0;
+
+    private final int width;
+    private final int height;
+    private final int horizon;
+    private final int[][] owners;
+    private final int[] slotTimes;
+    private int currentTime;
+
+    /**
+     * Crea una tabella con la finestra di turni predefinita.
+     *
+     * @param width  larghezza del circuito
+     * @param height altezza del circuito
+     */
+    public ReservationTable(int width, int height) {
+        this(width, height, DEFAULT_HORIZON);
+    }
+
+    /**
+     * Crea una tabella per un circuito delle dimensioni indicate.
+     *
+     * @param width   larghezza del circuito
+     * @param height  altezza del circuito
+     * @param horizon numero di turni conservati, compreso quello precedente al corrente
+     * @throws IllegalArgumentException se le dimensioni non sono positive o la
+     *                                  finestra ha meno di due turni
+     */
+    public ReservationTable(int width, int height, int horizon) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Le dimensioni del circuito devono essere positive");
+        }
+        if (horizon < 2) {
+            throw new IllegalArgumentException("La finestra deve contenere almeno due turni");
+        }
+        this.width = width;
+        this.height = height;
+        this.horizon = horizon;
+        this.owners = new int[horizon][width * height];
+        this.slotTimes = new int[horizon];
+        clear();
+    }
+
+    /**
+     * Elimina tutte le prenotazioni e riporta il tempo a zero.
+     */
+    public synchronized void clear() {
+        for (int[] slot : owners) {
+            Arrays.fill(slot, FREE);
+        }
+        Arrays.fill(slotTimes, -1);
+        currentTime = 0;
+    }
+
+    /**
+     * Avanza il tempo corrente; le prenotazioni uscite dalla finestra vengono
+     * dimenticate.
+     *
+     * @param time il nuovo tempo corrente
+     * @throws IllegalArgumentException se il tempo torna indietro
+     */
+    public synchronized void advanceTo(int time) {
+        if (time < currentTime) {
+            throw new IllegalArgumentException("Il tempo non può tornare indietro");
+        }
+        currentTime = time;
+    }
+
+    public synchronized int getCurrentTime() {
+        return currentTime;
+    }
+
+    /**
+     * @return l'ultimo tempo che può essere prenotato
+     */
+    public synchronized int getLastTime() {
+        return currentTime - 1 + horizon - 1;
+    }
+
+    /**
+     * Prenota una cella per un'auto a un certo tempo, sostituendo l'eventuale
+     * prenotazione precedente della stessa cella.
+     *
+     * @param owner  identificativo non negativo dell'auto
+     * @param time   il tempo
+     * @param row    la riga
+     * @param column la colonna
+     * @return false se il tempo è fuori dalla finestra o la cella fuori dal circuito
+     */
+    public synchronized boolean reserve(int owner, int time, int row, int column) {
+        checkOwner(owner);
+        if (!inWindow(time) || !inBounds(row, column)) {
+            return false;
+        }
+        int slot = slotFor(time);
+        owners[slot][row * width + column] = owner + 1;
+        return true;
+    }
+
+    /**
+     * Cancella le prenotazioni di un'auto a partire dal tempo indicato, ad
+     * esempio prima di scrivere una nuova traiettoria.
+     *
+     * @param owner    identificativo dell'auto
+     * @param fromTime primo tempo da liberare
+     */
+    public synchronized void release(int owner, int fromTime) {
+        checkOwner(owner);
+        int stored = owner + 1;
+        for (int slot = 0; slot < horizon; slot++) {
+            if (slotTimes[slot] < fromTime || !inWindow(slotTimes[slot])) continue;
+            int[] cells = owners[slot];
+            for (int cell = 0; cell < cells.length; cell++) {
+                if (cells[cell] == stored) {
+                    cells[cell] = FREE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancella tutte le prenotazioni di un'auto, ad esempio quando esce di gara.
+     *
+     * @param owner identificativo dell'auto
+     */
+    public synchronized void release(int owner) {
+        release(owner, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Verifica se un'auto che arriva in una cella al tempo indicato entra in
+     * collisione con un'altra: vale la stessa soglia del validatore, cioè
+     * distanza al più 1, al tempo di arrivo o a quello precedente.
+     *
+     * @param owner  identificativo dell'auto che si muove
+     * @param time   tempo di arrivo
+     * @param row    riga di arrivo
+     * @param column colonna di arrivo
+     * @return true se la cella o una adiacente in orizzontale o verticale è
+     *         prenotata da un'altra auto
+     */
+    public synchronized boolean isBlocked(int owner, int time, int row, int column) {
+        return isOccupied(owner + 1, time, row, column) || isOccupied(owner + 1, time - 1, row, column);
+    }
+
+    private boolean isOccupied(int stored, int time, int row, int column) {
+        if (!inWindow(time)) {
+            return false;
+        }
+        int slot = time % horizon;
+        if (slotTimes[slot] != time) {
+            return false;
+        }
+        int[] cells = owners[slot];
+        return occupiedByOther(cells, stored, row, column)
+                || occupiedByOther(cells, stored, row - 1, column)
+                || occupiedByOther(cells, stored, row + 1, column)
+                || occupiedByOther(cells, stored, row, column - 1)
+                || occupiedByOther(cells, stored, row, column + 1);
+    }
+
+    private boolean occupiedByOther(int[] cells, int stored, int row, int column) {
+        if (!inBounds(row, column)) {
+            return false;
+        }
+        int occupant = cells[row * width + column];
+        return occupant != FREE && occupant != stored;
+    }
+
+    private int slotFor(int time) {
+        int slot = time % horizon;
+        if (slotTimes[slot] != time) {
+            // Lo slot conteneva un tempo uscito dalla finestra
+            Arrays.fill(owners[slot], FREE);
+            slotTimes[slot] = time;
+        }
+        return slot;
+    }
+
+    private boolean inWindow(int time) {
+        return time >= Math.max(0, currentTime - 1) && time <= currentTime - 1 + horizon - 1;
+    }
+
+    private boolean inBounds(int row, int column) {
+        return row >= 0 && row < height && column >= 0 && column < width;
+    }
+
+    private static void checkOwner(int owner) {
+        if (owner < 0) {
+            throw new IllegalArgumentException("Identificativo dell'auto non valido: " + owner);
+        }
+    }
+}
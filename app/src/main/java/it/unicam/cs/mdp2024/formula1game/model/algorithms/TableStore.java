@@ -0,0 +1,196 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Archivio su disco di tabelle precalcolate per circuito, come distanze dai
+ * checkpoint o politiche di guida.
+ * Ogni tabella è un file binario piatto: un'intestazione di
+ * {@value #HEADER_BYTES} byte con impronta del circuito, versione del
+ * contenuto, dimensione degli elementi e dimensioni della tabella, seguita
+ * dagli elementi. I file vengono mappati in memoria a sola lettura con
+ * {@link FileChannel#map}, quindi aprire una tabella non richiede di
+ * leggerla: partite e processi diversi condividono le stesse pagine.
+ * All'interno del processo le tabelle mappate sono condivise tra tutti gli
+ * archivi. La scrittura avviene su un file temporaneo sostituito in modo
+ * atomico, così chi legge vede sempre un file completo.
+ * Una tabella non può superare i 2 GB.
+ */
+public final class TableStore {
+
+    private static final int MAGIC = 0x46315442; // "F1TB"
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_RANK = 4;
+    /** Byte dell'intestazione; allinea l'inizio dei dati. */
+    private static final int HEADER_BYTES = 64;
+
+    private static final Map<Path, MappedTable> MAPPED_TABLES = new ConcurrentHashMap<>();
+
+    private final Path directory;
+
+    /**
+     * @param directory la cartella delle tabelle, creata alla prima scrittura
+     */
+    public TableStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @param name        nome della tabella
+     * @param fingerprint impronta dei dati da cui è derivata
+     * @return il file della tabella
+     */
+    public Path fileOf(String name, long fingerprint) {
+        return directory.resolve(String.format("%s-%016x.tbl", name, fingerprint));
+    }
+
+    /**
+     * Mappa una tabella già scritta.
+     *
+     * @param name           nome della tabella
+     * @param fingerprint    impronta dei dati da cui è derivata
+     * @param contentVersion versione del calcolo che l'ha prodotta
+     * @return la tabella, o null se manca o è stata prodotta da un'altra
+     *         versione del calcolo o per altri dati
+     * @throws IOException se il file esiste ma non può essere letto
+     */
+    public MappedTable map(String name, long fingerprint, int contentVersion) throws IOException {
+        Path file = fileOf(name, fingerprint).toAbsolutePath().normalize();
+        MappedTable table = MAPPED_TABLES.get(file);
+        if (table == null) {
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            table = mapFile(file);
+            if (table == null) {
+                return null;
+            }
+            MappedTable previous = MAPPED_TABLES.putIfAbsent(file, table);
+            if (previous != null) {
+                table = previous;
+            }
+        }
+        if (table.getFingerprint() != fingerprint || table.getContentVersion() != contentVersion) {
+            return null;
+        }
+        return table;
+    }
+
+    /**
+     * Scrive una tabella e la restituisce mappata.
+     *
+     * @param name           nome della tabella
+     * @param fingerprint    impronta dei dati da cui è derivata
+     * @param contentVersion versione del calcolo che la produce
+     * @param elementBytes   byte per elemento: 1, 2 o 4
+     * @param shape          dimensioni della tabella, al più {@value #MAX_RANK}
+     * @param filler         riceve il buffer degli elementi, posizionato
+     *                       all'inizio, e lo riempie
+     * @return la tabella scritta
+     * @throws IOException              se la scrittura fallisce
+     * @throws IllegalArgumentException se dimensioni o dimensione degli elementi non sono valide
+     */
+    public MappedTable write(String name, long fingerprint, int contentVersion, int elementBytes, int[] shape,
+            Consumer<ByteBuffer> filler) throws IOException {
+        if (elementBytes != 1 && elementBytes != 2 && elementBytes != 4) {
+            throw new IllegalArgumentException("Dimensione degli elementi non valida: " + elementBytes);
+        }
+        long dataBytes = elementBytes * elementCount(shape);
+        if (HEADER_BYTES + dataBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tabella troppo grande: " + dataBytes + " byte");
+        }
+
+        Path file = fileOf(name, fingerprint).toAbsolutePath().normalize();
+        Files.createDirectories(file.getParent());
+        // Un file temporaneo per scrittura: chi scrive la stessa tabella in
+        // parallelo non tronca il file mappato da un altro
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + dataBytes);
+            buffer.putInt(MAGIC);
+            buffer.putInt(FORMAT_VERSION);
+            buffer.putLong(fingerprint);
+            buffer.putInt(contentVersion);
+            buffer.putInt(elementBytes);
+            buffer.putInt(shape.length);
+            for (int dimension : shape) {
+                buffer.putInt(dimension);
+            }
+            filler.accept(buffer.position(HEADER_BYTES).slice());
+            buffer.force();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        MappedTable table = mapFile(file);
+        if (table == null) {
+            throw new IOException("Tabella scritta non valida: " + file);
+        }
+        MAPPED_TABLES.put(file, table);
+        return table;
+    }
+
+    private static MappedTable mapFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            // La mappatura resta valida dopo la chiusura del canale
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            long fingerprint = buffer.getLong();
+            int contentVersion = buffer.getInt();
+            int elementBytes = buffer.getInt();
+            int rank = buffer.getInt();
+            if (rank < 1 || rank > MAX_RANK || (elementBytes != 1 && elementBytes != 2 && elementBytes != 4)) {
+                return null;
+            }
+            int[] shape = new int[rank];
+            for (int i = 0; i < rank; i++) {
+                shape[i] = buffer.getInt();
+            }
+            if (size != HEADER_BYTES + elementBytes * elementCount(shape)) {
+                return null;
+            }
+            ByteBuffer data = buffer.position(HEADER_BYTES).slice().asReadOnlyBuffer();
+            return new MappedTable(fingerprint, contentVersion, elementBytes, shape, data);
+        }
+    }
+
+    private static long elementCount(int[] shape) {
+        if (shape.length < 1 || shape.length > MAX_RANK) {
+            throw new IllegalArgumentException("Numero di dimensioni non valido: " + shape.length);
+        }
+        long count = 1;
+        for (int dimension : shape) {
+            if (dimension <= 0) {
+                throw new IllegalArgumentException("Dimensione non valida: " + dimension);
+            }
+            count *= dimension;
+            if (count > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Tabella troppo grande");
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,133 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+import it.unicam.cs.mdp2024.formula1game.model.util.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Traiettoria completa di un'auto: la sequenza di posizioni e velocità
+ * turno per turno. È immutabile, quindi può essere condivisa in cache tra
+ * più bot; ciascun bot tiene il proprio indice di avanzamento.
+ */
+public class Trajectory {
+
+    private final int[] rows;
+    private final int[] columns;
+    private final int[] velocitiesX;
+    private final int[] velocitiesY;
+
+    /**
+     * Crea una traiettoria dagli stati restituiti da una ricerca.
+     *
+     * @param space  lo spazio degli stati in cui sono codificati
+     * @param states gli stati, dal primo all'ultimo
+     */
+    public Trajectory(RaceStateSpace space, long[] states) {
+        this.rows = new int[states.length];
+        this.columns = new int[states.length];
+        this.velocitiesX = new int[states.length];
+        this.velocitiesY = new int[states.length];
+        for (int i = 0; i < states.length; i++) {
+            rows[i] = space.row(states[i]);
+            columns[i] = space.column(states[i]);
+            velocitiesX[i] = space.velocityX(states[i]);
+            velocitiesY[i] = space.velocityY(states[i]);
+        }
+    }
+
+    /**
+     * Crea una traiettoria da posizioni e velocità già decodificate.
+     */
+    Trajectory(int[] rows, int[] columns, int[] velocitiesX, int[] velocitiesY) {
+        this.rows = rows;
+        this.columns = columns;
+        this.velocitiesX = velocitiesX;
+        this.velocitiesY = velocitiesY;
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    public IPosition getPosition(int index) {
+        return new Position(rows[index], columns[index]);
+    }
+
+    public int getRow(int index) {
+        return rows[index];
+    }
+
+    public int getColumn(int index) {
+        return columns[index];
+    }
+
+    public int getVelocityX(int index) {
+        return velocitiesX[index];
+    }
+
+    public int getVelocityY(int index) {
+        return velocitiesY[index];
+    }
+
+    /**
+     * Cerca lo stato corrispondente alla posizione e velocità indicate, a
+     * partire dall'indice dato.
+     *
+     * @param position  la posizione
+     * @param velocity  la velocità
+     * @param fromIndex l'indice da cui iniziare la ricerca
+     * @return l'indice dello stato, o -1 se l'auto ha lasciato la traiettoria
+     */
+    public int indexOf(IPosition position, IVelocity velocity, int fromIndex) {
+        IVector v = velocity.getCurrentVelocity();
+        for (int i = Math.max(0, fromIndex); i < rows.length; i++) {
+            if (rows[i] == position.getRow() && columns[i] == position.getColumn()
+                    && velocitiesX[i] == v.getX() && velocitiesY[i] == v.getY()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param index indice dello stato corrente
+     * @return true se esiste uno stato successivo
+     */
+    public boolean hasNext(int index) {
+        return index >= 0 && index + 1 < rows.length;
+    }
+
+    /**
+     * Restituisce l'accelerazione che porta dallo stato indicato al successivo.
+     *
+     * @param index indice dello stato corrente
+     * @return l'accelerazione da applicare
+     * @throws IndexOutOfBoundsException se lo stato non ha successori
+     */
+    public IAcceleration accelerationAt(int index) {
+        if (!hasNext(index)) {
+            throw new IndexOutOfBoundsException("Nessuna mossa dopo lo stato " + index);
+        }
+        return new Acceleration(new Vector(velocitiesX[index + 1] - velocitiesX[index],
+                velocitiesY[index + 1] - velocitiesY[index]));
+    }
+
+    /**
+     * @param fromIndex indice del primo stato
+     * @return le posizioni ancora da percorrere
+     */
+    public List<IPosition> getPositions(int fromIndex) {
+        List<IPosition> positions = new ArrayList<>();
+        for (int i = Math.max(0, fromIndex); i < rows.length; i++) {
+            positions.add(new Position(rows[i], columns[i]));
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,119 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Insieme di stati codificati come long, a indirizzamento aperto con
+ * scansione lineare, usato per non espandere due volte lo stesso stato.
+ * Le celle sono marcate con la generazione corrente, così svuotare la
+ * tabella tra una ricerca e l'altra costa O(1) e gli array vengono
+ * riutilizzati.
+ */
+public final class TranspositionTable {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] stamps;
+    private int mask;
+    private int size;
+    private int generation;
+
+    /**
+     * Crea una tabella dimensionata per il numero di stati indicato.
+     *
+     * @param expectedSize numero di stati previsto per ricerca
+     * @throws IllegalArgumentException se la dimensione è negativa
+     */
+    public TranspositionTable(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("La dimensione prevista non può essere negativa");
+        }
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Aggiunge uno stato.
+     *
+     * @param key lo stato
+     * @return true se lo stato non era presente
+     */
+    public boolean add(long key) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int slot = slotOf(key);
+        while (stamps[slot] == generation) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        stamps[slot] = generation;
+        size++;
+        return true;
+    }
+
+    /**
+     * @param key lo stato
+     * @return true se lo stato è presente
+     */
+    public boolean contains(long key) {
+        int slot = slotOf(key);
+        while (stamps[slot] == generation) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Svuota la tabella mantenendo gli array allocati.
+     */
+    public void clear() {
+        size = 0;
+        generation++;
+        if (generation == 0) {
+            // Dopo 2^32 svuotamenti le marcature vecchie tornerebbero valide
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        stamps = new int[capacity];
+        mask = capacity - 1;
+        size = 0;
+        generation = 1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldStamps = stamps;
+        int oldGeneration = generation;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] == oldGeneration) {
+                add(oldKeys[i]);
+            }
+        }
+    }
+
+    private int slotOf(long key) {
+        // Mescolamento di splitmix64: gli stati vicini hanno codifiche vicine
+        long h = key;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h = h ^ (h >>> 31);
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,132 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import java.util.SplittableRandom;
+
+/**
+ * Chiavi casuali a 64 bit per l'hashing di Zobrist degli stati di guida.
+ * Ogni componente di uno stato (cella dell'auto, velocità, cella
+ * dell'obiettivo, indice del checkpoint, posizione relativa di un avversario
+ * vicino) ha la propria
+ * chiave; l'hash di uno stato è lo XOR delle chiavi dei suoi componenti,
+ * quindi cambiare un componente costa due XOR.
+ * Le chiavi sono generate da un seme fisso, perciò sono le stesse in ogni
+ * esecuzione, e sono condivise tra i circuiti con le stesse dimensioni.
+ */
+public final class ZobristKeys {
+
+    /**
+     * Distanza massima, per riga e per colonna, degli avversari che entrano
+     * nell'hash: un avversario più lontano non può trovarsi sulla
+     * destinazione di una mossa né accanto ad essa.
+     */
+    public static final int OPPONENT_RADIUS = RaceStateSpace.MAX_SPEED + 1;
+
+    private static final int OPPONENT_SIDE = 2 * OPPONENT_RADIUS + 1;
+    private static final int VELOCITY_SIDE = 2 * RaceStateSpace.MAX_SPEED + 1;
+    private static final long SEED = 0x5A0B_4157_F1F1_2024L;
+    private static final int LEG_KEYS = 64;
+    private static final int CACHE_CAPACITY = 8;
+
+    private static final LruCache<Long, ZobristKeys> SHARED_KEYS = new LruCache<>(CACHE_CAPACITY);
+
+    private final int width;
+    private final int height;
+    private final long[] cells;
+    private final long[] targets;
+    private final long[] velocities;
+    private final long[] opponents;
+    private final long[] legs;
+    private final long outside;
+
+    private ZobristKeys(int width, int height) {
+        this.width = width;
+        this.height = height;
+        SplittableRandom random = new SplittableRandom(SEED);
+        this.cells = randomKeys(random, width * height);
+        this.targets = randomKeys(random, width * height);
+        this.velocities = randomKeys(random, VELOCITY_SIDE * VELOCITY_SIDE);
+        this.opponents = randomKeys(random, OPPONENT_SIDE * OPPONENT_SIDE);
+        this.outside = random.nextLong();
+        this.legs = randomKeys(random, LEG_KEYS);
+    }
+
+    /**
+     * Restituisce le chiavi per un circuito delle dimensioni indicate.
+     *
+     * @param width  larghezza del circuito
+     * @param height altezza del circuito
+     * @return le chiavi condivise
+     * @throws IllegalArgumentException se le dimensioni non sono positive
+     */
+    public static ZobristKeys forSize(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Le dimensioni del circuito devono essere positive");
+        }
+        return SHARED_KEYS.getOrCompute(((long) width << 32) | height, key -> new ZobristKeys(width, height));
+    }
+
+    /**
+     * @return la chiave della cella occupata dall'auto
+     */
+    public long cell(int row, int column) {
+        return isInside(row, column) ? cells[row * width + column] : outside;
+    }
+
+    /**
+     * @return la chiave della cella dell'obiettivo
+     */
+    public long target(int row, int column) {
+        return isInside(row, column) ? targets[row * width + column] : ~outside;
+    }
+
+    /**
+     * @return la chiave della velocità, o 0 se supera la velocità massima
+     *         per componente
+     */
+    public long velocity(int vx, int vy) {
+        if (Math.abs(vx) > RaceStateSpace.MAX_SPEED || Math.abs(vy) > RaceStateSpace.MAX_SPEED) {
+            return 0L;
+        }
+        return velocities[(vy + RaceStateSpace.MAX_SPEED) * VELOCITY_SIDE + vx + RaceStateSpace.MAX_SPEED];
+    }
+
+    /**
+     * @param index indice del prossimo checkpoint da attraversare
+     * @return la chiave dell'indice
+     */
+    public long leg(int index) {
+        if (index >= 0 && index < LEG_KEYS) {
+            return legs[index];
+        }
+        // Indici oltre la tabella: chiave derivata con il mescolamento di splitmix64
+        long h = legs[0] + index * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * @param dRow    scostamento di riga dell'avversario dall'auto
+     * @param dColumn scostamento di colonna dell'avversario dall'auto
+     * @return la chiave della posizione relativa, o 0 se l'avversario è
+     *         oltre {@link #OPPONENT_RADIUS} e non influisce sullo stato
+     */
+    public long opponent(int dRow, int dColumn) {
+        if (Math.abs(dRow) > OPPONENT_RADIUS || Math.abs(dColumn) > OPPONENT_RADIUS) {
+            return 0L;
+        }
+        return opponents[(dRow + OPPONENT_RADIUS) * OPPONENT_SIDE + dColumn + OPPONENT_RADIUS];
+    }
+
+    private boolean isInside(int row, int column) {
+        return row >= 0 && row < height && column >= 0 && column < width;
+    }
+
+    private static long[] randomKeys(SplittableRandom random, int count) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = random.nextLong();
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,55 @@
+package it.unicam.cs.mdp2024.formula1game.model.circuit;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.checkpoint.DefaultCheckpointFinder;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dati derivati dalle celle di un circuito: le linee dei checkpoint
+ * nell'ordine del gioco.
+ * Dipendono solo dal contenuto del circuito, quindi possono essere calcolati
+ * una volta e conservati da {@link DerivedDataCache} con l'impronta delle
+ * celle. Le posizioni di partenza e di arrivo non ne fanno parte perché il
+ * circuito le trova già alla costruzione. Le istanze sono immutabili.
+ */
+public final class CircuitDerivedData {
+
+    private final long fingerprint;
+    private final List<List<IPosition>> checkpointLines;
+
+    CircuitDerivedData(long fingerprint, List<List<IPosition>> checkpointLines) {
+        this.fingerprint = fingerprint;
+        List<List<IPosition>> lines = new ArrayList<>(checkpointLines.size());
+        for (List<IPosition> line : checkpointLines) {
+            lines.add(List.copyOf(line));
+        }
+        this.checkpointLines = List.copyOf(lines);
+    }
+
+    /**
+     * Calcola i dati derivati di un circuito.
+     *
+     * @param circuit il circuito
+     * @return i dati derivati
+     */
+    public static CircuitDerivedData compute(ICircuit circuit) {
+        return new CircuitDerivedData(CircuitFingerprint.of(circuit),
+                new DefaultCheckpointFinder(circuit.getGrid()).findCheckpointLines());
+    }
+
+    /**
+     * @return l'impronta delle celle da cui sono derivati i dati
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return le linee dei checkpoint, come le trova {@link DefaultCheckpointFinder}
+     */
+    public List<List<IPosition>> getCheckpointLines() {
+        return checkpointLines;
+    }
+}
@@ -0,0 +1,38 @@
+package it.unicam.cs.mdp2024.formula1game.model.circuit;
+
+/**
+ * Calcola un'impronta compatta del contenuto di un circuito.
+ * Due circuiti con le stesse dimensioni e le stesse celle hanno la stessa
+ * impronta anche se caricati in momenti diversi, il che permette di
+ * condividere dati derivati tra partite successive.
+ */
+public final class CircuitFingerprint {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private CircuitFingerprint() {
+    }
+
+    /**
+     * Calcola l'impronta FNV-1a a 64 bit delle celle del circuito.
+     *
+     * @param circuit il circuito
+     * @return l'impronta del circuito
+     */
+    public static long of(ICircuit circuit) {
+        long hash = FNV_OFFSET;
+        hash = mix(hash, circuit.getWidth());
+        hash = mix(hash, circuit.getHeight());
+        for (int y = 0; y < circuit.getHeight(); y++) {
+            for (int x = 0; x < circuit.getWidth(); x++) {
+                hash = mix(hash, circuit.getCell(x, y).getSymbol());
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+}
@@ -1,6 +1,7 @@
 package it.unicam.cs.mdp2024.formula1game.model.circuit;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 import it.unicam.cs.mdp2024.formula1game.model.circuit.cell.CircuitCell;
 import it.unicam.cs.mdp2024.formula1game.model.circuit.cell.CheckpointCell;
@@ -9,6 +10,13 @@ import it.unicam.cs.mdp2024.formula1game.model.circuit.cell.RoadCell;
 import it.unicam.cs.mdp2024.formula1game.model.circuit.cell.StartCell;
 import it.unicam.cs.mdp2024.formula1game.model.circuit.cell.WallCell;
 
+/**
+ * Carica i circuiti dai file di testo.
+ * Insieme al circuito prepara i suoi dati derivati tramite una
+ * {@link DerivedDataCache}: al secondo avvio le linee dei checkpoint
+ * vengono lette dalla cache invece di essere ricalcolate, e vengono
+ * ricalcolate da sole se il file del circuito cambia.
+ */
 public class CircuitLoader implements ICircuitLoader {
     private static final String[] DEFAULT_CIRCUITS = {
         "circuits/circuit1.txt",
@@ -16,16 +24,26 @@ public class CircuitLoader implements ICircuitLoader {
     };
     
     private final String[] filePaths;
+    private final DerivedDataCache derivedDataCache;
 
     public CircuitLoader() {
         this(DEFAULT_CIRCUITS);
     }
 
     public CircuitLoader(String[] filePaths) {
+        this(filePaths, DerivedDataCache.DEFAULT_DIRECTORY);
+    }
+
+    /**
+     * @param filePaths      i percorsi dei circuiti
+     * @param cacheDirectory la cartella della cache dei dati derivati
+     */
+    public CircuitLoader(String[] filePaths, Path cacheDirectory) {
         if (filePaths == null || filePaths.length == 0) {
             throw new IllegalArgumentException("I percorsi dei circuiti non possono essere vuoti");
         }
         this.filePaths = filePaths;
+        this.derivedDataCache = new DerivedDataCache(cacheDirectory);
     }
 
     @Override
@@ -42,6 +60,7 @@ public class CircuitLoader implements ICircuitLoader {
 
             ICircuit circuit = new Circuit(cellTrack);
             circuit.validate();
+            derivedDataCache.get(circuit);
             return circuit;
         } catch (IOException e) {
             throw new IOException("Impossibile caricare il circuito " + (index + 1) + ": " + e.getMessage());
@@ -50,6 +69,16 @@ public class CircuitLoader implements ICircuitLoader {
         }
     }
 
+    /**
+     * Restituisce i dati derivati di un circuito, dalla cache di questo loader.
+     *
+     * @param circuit il circuito
+     * @return i dati derivati
+     */
+    public CircuitDerivedData getDerivedData(ICircuit circuit) {
+        return derivedDataCache.get(circuit);
+    }
+
     public static CircuitCell[][] convertToCells(char[][] charTrack) {
         int height = charTrack.length;
         int width = charTrack[0].length;
@@ -0,0 +1,181 @@
+package it.unicam.cs.mdp2024.formula1game.model.circuit;
+
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache su disco dei {@link CircuitDerivedData}, indirizzata dal contenuto.
+ * Il file di un circuito prende il nome dall'impronta delle sue celle
+ * combinata con {@link #DERIVATION_VERSION}: se il file del circuito cambia,
+ * o cambia il modo di derivare i dati, il nome non corrisponde più e i dati
+ * vengono ricalcolati senza bisogno di invalidare nulla.
+ * Il file di testo contiene versione, impronta e una riga per linea di
+ * checkpoint, con le posizioni scritte come riga,colonna:
+ * <pre>
+ * versione 2
+ * impronta 9f3a...
+ * checkpoint 3,10 4,10
+ * ...
+ * </pre>
+ * I dati caricati restano in memoria per tutto il processo, così le partite
+ * successive sullo stesso circuito li trovano già pronti.
+ */
+public final class DerivedDataCache {
+
+    /** Cartella predefinita della cache. */
+    public static final Path DEFAULT_DIRECTORY = Path.of("cache");
+
+    /** Versione del calcolo dei dati derivati; va incrementata quando cambia. */
+    public static final int DERIVATION_VERSION = 2;
+
+    private static final String VERSION = "versione";
+    private static final String FINGERPRINT = "impronta";
+    private static final String CHECKPOINT = "checkpoint";
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final Map<Long, CircuitDerivedData> LOADED = new ConcurrentHashMap<>();
+
+    private final Path directory;
+
+    /**
+     * @param directory la cartella della cache, creata alla prima scrittura
+     */
+    public DerivedDataCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Restituisce i dati derivati di un circuito già caricati nel processo,
+     * senza accedere al disco.
+     *
+     * @param circuit il circuito
+     * @return i dati, o null se nessuna cache li ha ancora caricati
+     */
+    public static CircuitDerivedData loaded(ICircuit circuit) {
+        return LOADED.get(CircuitFingerprint.of(circuit));
+    }
+
+    /**
+     * Dimentica i dati caricati nel processo; i file della cache restano.
+     */
+    public static void clearLoaded() {
+        LOADED.clear();
+    }
+
+    /**
+     * Restituisce i dati derivati di un circuito: dalla memoria, dal file
+     * della cache o calcolandoli e scrivendo il file. Se la cartella non è
+     * scrivibile i dati vengono comunque calcolati.
+     *
+     * @param circuit il circuito
+     * @return i dati derivati
+     */
+    public CircuitDerivedData get(ICircuit circuit) {
+        long fingerprint = CircuitFingerprint.of(circuit);
+        CircuitDerivedData data = LOADED.get(fingerprint);
+        if (data != null) {
+            return data;
+        }
+        Path file = fileOf(fingerprint);
+        try {
+            data = read(file, fingerprint);
+        } catch (IOException | RuntimeException e) {
+            // File illeggibile o corrotto: i dati vengono ricalcolati
+            data = null;
+        }
+        if (data == null) {
+            data = CircuitDerivedData.compute(circuit);
+            try {
+                write(file, data);
+            } catch (IOException e) {
+                // Cache non scrivibile: i dati restano solo in memoria
+            }
+        }
+        CircuitDerivedData previous = LOADED.putIfAbsent(fingerprint, data);
+        return previous != null ? previous : data;
+    }
+
+    /**
+     * @param fingerprint impronta delle celle del circuito
+     * @return il file della cache per il circuito e la versione attuale
+     */
+    public Path fileOf(long fingerprint) {
+        long key = (fingerprint ^ DERIVATION_VERSION) * FNV_PRIME;
+        return directory.resolve(String.format("circuito-%016x.txt", key));
+    }
+
+    private static CircuitDerivedData read(Path file, long fingerprint) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        List<String> lines = Files.readAllLines(file);
+        if (lines.size() < 2
+                || !lines.get(0).equals(VERSION + " " + DERIVATION_VERSION)
+                || !lines.get(1).equals(FINGERPRINT + " " + Long.toHexString(fingerprint))) {
+            return null;
+        }
+        List<List<IPosition>> checkpointLines = new ArrayList<>();
+        for (String line : lines.subList(2, lines.size())) {
+            if (!line.isBlank()) {
+                checkpointLines.add(parsePositions(line, CHECKPOINT));
+            }
+        }
+        return new CircuitDerivedData(fingerprint, checkpointLines);
+    }
+
+    private static List<IPosition> parsePositions(String line, String label) throws IOException {
+        String[] parts = line.trim().split("\\s+");
+        if (!parts[0].equals(label)) {
+            throw new IOException("Riga della cache non valida: " + line);
+        }
+        List<IPosition> positions = new ArrayList<>(parts.length - 1);
+        for (int i = 1; i < parts.length; i++) {
+            String[] coordinates = parts[i].split(",");
+            positions.add(new Position(Integer.parseInt(coordinates[0]), Integer.parseInt(coordinates[1])));
+        }
+        return positions;
+    }
+
+    /**
+     * Scrive i dati su un file temporaneo e lo sostituisce in modo atomico,
+     * così processi concorrenti non leggono mai un file incompleto.
+     */
+    private static void write(Path file, CircuitDerivedData data) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary)) {
+                writer.write(VERSION + " " + DERIVATION_VERSION);
+                writer.newLine();
+                writer.write(FINGERPRINT + " " + Long.toHexString(data.getFingerprint()));
+                writer.newLine();
+                for (List<IPosition> line : data.getCheckpointLines()) {
+                    writer.write(formatPositions(CHECKPOINT, line));
+                    writer.newLine();
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static String formatPositions(String label, List<IPosition> positions) {
+        StringBuilder line = new StringBuilder(label);
+        for (IPosition position : positions) {
+            line.append(' ').append(position.getRow()).append(',').append(position.getColumn());
+        }
+        return line.toString();
+    }
+}
@@ -2,6 +2,8 @@ package it.unicam.cs.mdp2024.formula1game.model.circuit.checkpoint;
 
 import it.unicam.cs.mdp2024.formula1game.model.player.IPlayer;
 import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitDerivedData;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.DerivedDataCache;
 import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
 
 import java.util.*;
@@ -20,10 +22,22 @@ public class CheckpointManager {
     public CheckpointManager(ICircuit circuit) {
         this.circuit = circuit;
         this.checkpointsReached = new HashMap<>();
-        this.checkpointLines = new DefaultCheckpointFinder(circuit.getGrid()).findCheckpointLines();
+        this.checkpointLines = findCheckpointLines(circuit);
         this.nextCheckpointIndex = new HashMap<>();
     }
 
+    /**
+     * Usa le linee già preparate dal loader del circuito, se ci sono, invece
+     * di cercarle di nuovo nella griglia
+     */
+    private static List<List<IPosition>> findCheckpointLines(ICircuit circuit) {
+        CircuitDerivedData derivedData = DerivedDataCache.loaded(circuit);
+        if (derivedData != null) {
+            return derivedData.getCheckpointLines();
+        }
+        return new DefaultCheckpointFinder(circuit.getGrid()).findCheckpointLines();
+    }
+
     /**
      * Inizializza il tracking dei checkpoint per un giocatore
      */
@@ -135,6 +149,24 @@ public class CheckpointManager {
         return checkpointLine.get(checkpointLine.size() / 2);
     }
 
+    /**
+     * Restituisce le linee dei checkpoint nell'ordine in cui vanno attraversate
+     */
+    public List<List<IPosition>> getCheckpointLines() {
+        return Collections.unmodifiableList(checkpointLines);
+    }
+
+    /**
+     * Restituisce l'indice della prossima linea di checkpoint da attraversare
+     * per il giocatore
+     */
+    public int getNextCheckpointIndex(IPlayer player) {
+        if (!nextCheckpointIndex.containsKey(player)) {
+            initializePlayer(player);
+        }
+        return nextCheckpointIndex.get(player);
+    }
+
     /**
      * Verifica se il giocatore ha attraversato tutti i checkpoint
      */
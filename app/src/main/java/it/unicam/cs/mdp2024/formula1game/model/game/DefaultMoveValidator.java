@@ -163,7 +163,7 @@ public class DefaultMoveValidator implements IMoveValidator {
                 int newX = position.getColumn() + dx;
                 int newY = position.getRow() + dy;
                 
-                if (circuit.isValidPosition(new Position(newX, newY)) &&
+                if (circuit.isValidPosition(new Position(newY, newX)) &&
                     !circuit.isWall(newX, newY)) {
                     validDirections++;
                     if (validDirections >= 2) { // Richiediamo almeno 2 direzioni valide
@@ -1,5 +1,6 @@
 package it.unicam.cs.mdp2024.formula1game.model.game;
 
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.ReservationTable;
 import it.unicam.cs.mdp2024.formula1game.model.car.Car;
 import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
 import it.unicam.cs.mdp2024.formula1game.model.util.Vector;
@@ -10,6 +11,7 @@ import it.unicam.cs.mdp2024.formula1game.model.circuit.checkpoint.CheckpointMana
 import it.unicam.cs.mdp2024.formula1game.model.player.IPlayer;
 import it.unicam.cs.mdp2024.formula1game.model.player.IPlayer;
 import it.unicam.cs.mdp2024.formula1game.model.player.IPlayerLoader;
+import it.unicam.cs.mdp2024.formula1game.model.strategy.BatchedMovementStrategy;
 import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
 import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
 import it.unicam.cs.mdp2024.formula1game.model.util.Position;
@@ -18,6 +20,13 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class Game2 implements IGame2 {
 
@@ -31,8 +40,12 @@ public class Game2 implements IGame2 {
     private final List<IPlayer> players;
     private final Map<IPlayer, Boolean> hasFinished;
     private final CheckpointManager checkpointManager;
+    private final ReservationTable reservations;
     private IPlayer winner;
     private boolean gameOver;
+    private boolean parallelDecisions;
+    private long decisionDeadlineNanos;
+    private boolean decisionCaching;
 
     public Game2(ITurnManager turnManager,
             IWinningStrategy winningStrategy,
@@ -50,6 +63,7 @@ public class Game2 implements IGame2 {
         this.players = new ArrayList<>();
         this.hasFinished = new HashMap<>();
         this.checkpointManager = new CheckpointManager(circuit);
+        this.reservations = new ReservationTable(circuit.getWidth(), circuit.getHeight());
         this.gameOver = false;
         this.winner = null;
     }
@@ -73,6 +87,7 @@ public class Game2 implements IGame2 {
             }
 
             turnManager.setPlayers(players);
+            reservations.clear();
 
             System.out.println("Debug: Inizializzazione del gioco...");
 
@@ -135,9 +150,19 @@ public class Game2 implements IGame2 {
                         player.getCar().getPosition().getRow() + "," +
                         player.getCar().getPosition().getColumn());
 
-                // Se il giocatore è un bot, inizializza la lista dei giocatori correnti
+                // Posizione di partenza visibile ai bot che pianificano in modo cooperativo
+                IPosition position = player.getCar().getPosition();
+                reservations.reserve(i, 0, position.getRow(), position.getColumn());
+
+                // Se il giocatore è un bot, prepara una volta per partita la
+                // strategia e la lista dei giocatori correnti
                 if (player instanceof BotPlayer) {
-                    ((BotPlayer) player).setCurrentPlayers(players);
+                    BotPlayer bot = (BotPlayer) player;
+                    bot.initializeGameDependencies(circuit, moveValidator, checkpointManager);
+                    bot.setReservationTable(reservations, i);
+                    bot.setDecisionDeadline(decisionDeadlineNanos);
+                    bot.setDecisionCaching(decisionCaching);
+                    bot.setCurrentPlayers(players);
                 }
             }
 
@@ -149,8 +174,160 @@ public class Game2 implements IGame2 {
         }
     }
 
+    /**
+     * Abilita o disabilita il calcolo in parallelo delle decisioni dei bot
+     * in {@link #executeRound()}.
+     *
+     * @param parallelDecisions true per far decidere i bot contemporaneamente
+     */
+    public void setParallelDecisions(boolean parallelDecisions) {
+        this.parallelDecisions = parallelDecisions;
+    }
+
+    public boolean isParallelDecisions() {
+        return parallelDecisions;
+    }
+
+    /**
+     * Imposta il tempo massimo concesso a ogni bot per scegliere una mossa:
+     * un bot che non decide in tempo usa una mossa di riserva, così la durata
+     * di un turno resta limitata qualunque sia la strategia.
+     *
+     * @param deadlineNanos tempo massimo in nanosecondi, 0 per nessun limite
+     * @throws IllegalArgumentException se il tempo è negativo
+     */
+    public void setDecisionDeadline(long deadlineNanos) {
+        if (deadlineNanos < 0) {
+            throw new IllegalArgumentException("La scadenza non può essere negativa");
+        }
+        this.decisionDeadlineNanos = deadlineNanos;
+        for (IPlayer player : players) {
+            if (player instanceof BotPlayer) {
+                ((BotPlayer) player).setDecisionDeadline(deadlineNanos);
+            }
+        }
+    }
+
+    public long getDecisionDeadline() {
+        return decisionDeadlineNanos;
+    }
+
+    /**
+     * Abilita o disabilita per tutti i bot la cache delle decisioni, che
+     * risolve senza chiamare la strategia le situazioni già incontrate da un
+     * bot con la stessa strategia e gli stessi pesi, anche in partite
+     * precedenti.
+     *
+     * @param decisionCaching true per abilitarla
+     */
+    public void setDecisionCaching(boolean decisionCaching) {
+        this.decisionCaching = decisionCaching;
+        for (IPlayer player : players) {
+            if (player instanceof BotPlayer) {
+                ((BotPlayer) player).setDecisionCaching(decisionCaching);
+            }
+        }
+    }
+
+    public boolean isDecisionCaching() {
+        return decisionCaching;
+    }
+
     @Override
     public void executeTurn() {
+        executeTurn(null);
+    }
+
+    /**
+     * Esegue i turni rimanenti del giro corrente.
+     * Con le decisioni in parallelo abilitate, all'inizio del giro viene presa
+     * un'istantanea dei giocatori e ogni bot sceglie l'accelerazione su di
+     * essa in un thread virtuale; le mosse vengono poi applicate nell'ordine
+     * dei turni, validandole di nuovo sullo stato reale. Una mossa resa non
+     * valida da chi ha mosso prima viene ricalcolata nel turno del bot, senza
+     * richiamarne la strategia.
+     * Le decisioni dipendono solo dall'istantanea, quindi il risultato non
+     * cambia con l'ordine in cui i calcoli terminano.
+     */
+    @Override
+    public void executeRound() {
+        if (isGameOver()) {
+            return;
+        }
+        int round = turnManager.getTurnCount();
+        Map<IPlayer, IAcceleration> decisions = parallelDecisions ? decideInParallel() : null;
+        // Un giro ha al più un turno per giocatore
+        for (int turn = 0; turn < players.size() && !isGameOver() && turnManager.getTurnCount() == round; turn++) {
+            executeTurn(decisions);
+        }
+    }
+
+    /**
+     * Calcola contemporaneamente le accelerazioni dei bot che devono ancora
+     * muovere, ciascuno sulla propria vista dell'istantanea. I bot che
+     * dipendono dall'ordine dei turni decidono invece nel proprio turno.
+     */
+    private Map<IPlayer, IAcceleration> decideInParallel() {
+        TurnSnapshot snapshot = TurnSnapshot.of(players);
+        List<BotPlayer> bots = new ArrayList<>();
+        List<Callable<IAcceleration>> tasks = new ArrayList<>();
+        for (IPlayer player : players) {
+            if (!(player instanceof BotPlayer) || !player.isActive() || hasFinished.get(player)) continue;
+            BotPlayer bot = (BotPlayer) player;
+            if (bot.requiresTurnOrder()) continue;
+            bot.setCurrentPlayers(snapshot.viewFor(bot));
+            bots.add(bot);
+            tasks.add(bot::chooseAcceleration);
+        }
+        decideInBatches(bots);
+
+        Map<IPlayer, IAcceleration> decisions = new IdentityHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<IAcceleration>> results = executor.invokeAll(tasks);
+            for (int i = 0; i < bots.size(); i++) {
+                try {
+                    decisions.put(bots.get(i), results.get(i).get());
+                } catch (ExecutionException e) {
+                    // Il bot deciderà di nuovo nel proprio turno
+                    System.out.println("Debug: Parallel decision failed for " + bots.get(i).getName()
+                            + ": " + e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (BotPlayer bot : bots) {
+                bot.setCurrentPlayers(players);
+            }
+        }
+        return decisions;
+    }
+
+    /**
+     * Valuta in un unico lotto i bot le cui strategie lo supportano,
+     * raggruppandoli per strategia compatibile; ciascun bot troverà la
+     * propria valutazione quando sceglierà l'accelerazione.
+     */
+    private void decideInBatches(List<BotPlayer> bots) {
+        Map<Object, List<BatchedMovementStrategy.Request>> batches = new LinkedHashMap<>();
+        for (BotPlayer bot : bots) {
+            BatchedMovementStrategy.Request request = bot.batchRequest();
+            if (request != null) {
+                batches.computeIfAbsent(request.strategy().batchKey(), key -> new ArrayList<>()).add(request);
+            }
+        }
+        for (List<BatchedMovementStrategy.Request> batch : batches.values()) {
+            batch.get(0).strategy().decideBatch(batch);
+        }
+    }
+
+    /**
+     * Esegue il turno del giocatore corrente.
+     *
+     * @param decisions accelerazioni già decise per questo giro, o null per
+     *                  farle scegliere ora ai giocatori
+     */
+    private void executeTurn(Map<IPlayer, IAcceleration> decisions) {
         System.out.println("Debug: Executing turn...");
         if (isGameOver()) {
             return;
@@ -159,28 +336,47 @@ public class Game2 implements IGame2 {
         IPlayer currentPlayer = turnManager.getCurrentPlayer();
         System.out.println("Debug: Current player: " + currentPlayer.getName());
 
+        // Il tempo delle prenotazioni è il numero di giri di turni completati
+        int time = turnManager.getTurnCount();
+        int playerIndex = players.indexOf(currentPlayer);
+        reservations.advanceTo(time);
+
         // Aggiungo debug per la posizione prima del movimento
         System.out.println("Debug: Position before move: " + currentPlayer.getCar().getPosition());
 
         // Se il giocatore ha già finito o non è attivo, passa al prossimo
         if (!currentPlayer.isActive() || hasFinished.get(currentPlayer)) {
+            if (currentPlayer.isActive()) {
+                // Chi ha finito resta fermo in pista
+                IPosition position = currentPlayer.getCar().getPosition();
+                reservations.reserve(playerIndex, time + 1, position.getRow(), position.getColumn());
+            }
             turnManager.nextTurn();
             return;
         }
 
         try {
-            // Aggiorna il contesto di gioco per i bot prima di scegliere l'accelerazione
+            // Aggiorna il contesto di gioco per i bot prima di scegliere l'accelerazione;
+            // la strategia creata all'avvio conserva il proprio stato tra i turni
             if (currentPlayer instanceof BotPlayer) {
-                BotPlayer bot = (BotPlayer) currentPlayer;
-                bot.initializeGameDependencies(circuit, moveValidator, checkpointManager);
-                bot.setCurrentPlayers(players);
+                ((BotPlayer) currentPlayer).setCurrentPlayers(players);
             }
 
             // Ottieni la posizione corrente prima del movimento
             IPosition oldPosition = currentPlayer.getCar().getPosition();
 
-            // Ottieni e valida l'accelerazione scelta dal giocatore
-            IAcceleration acceleration = currentPlayer.chooseAcceleration();
+            // Ottieni e valida l'accelerazione scelta dal giocatore; quella decisa
+            // sull'istantanea vale solo se è ancora valida sullo stato reale
+            IAcceleration acceleration = decisions == null ? null : decisions.remove(currentPlayer);
+            if (acceleration != null
+                    && !moveValidator.isValidMove(currentPlayer, oldPosition, acceleration, circuit, players)) {
+                System.out.println("Debug: Snapshot decision no longer valid for " + currentPlayer.getName());
+                // La strategia ha già deciso in questo giro: non va richiamata
+                acceleration = ((BotPlayer) currentPlayer).reconsiderAcceleration();
+            }
+            if (acceleration == null) {
+                acceleration = currentPlayer.chooseAcceleration();
+            }
 
             // Verifica se la mossa è valida usando il validator
             if (!moveValidator.isValidMove(currentPlayer,
@@ -189,6 +385,7 @@ public class Game2 implements IGame2 {
                     circuit,
                     players)) {
                 currentPlayer.setActive(false); // Il giocatore si è schiantato
+                reservations.release(playerIndex);
                 turnManager.nextTurn();
                 return;
             }
@@ -205,6 +402,7 @@ public class Game2 implements IGame2 {
             // Ottieni la nuova posizione dopo il movimento
             IPosition newPosition = currentPlayer.getCar().getPosition();
             System.out.println("Debug: New position after move: " + newPosition);
+            reservations.reserve(playerIndex, time + 1, newPosition.getRow(), newPosition.getColumn());
 
             // Verifica se il giocatore ha attraversato un checkpoint
             boolean checkpointCrossed = checkpointManager.checkAndUpdateCheckpoints(
@@ -230,11 +428,13 @@ public class Game2 implements IGame2 {
             if (!circuit.isValidPosition(newPosition)) {
                 System.out.println("Debug: Invalid position after move, deactivating player");
                 currentPlayer.setActive(false);
+                reservations.release(playerIndex);
             }
 
         } catch (Exception e) {
             // In caso di errore durante il movimento, disattiva il giocatore
             currentPlayer.setActive(false);
+            reservations.release(playerIndex);
         } finally {
             // Passa al prossimo turno
             turnManager.nextTurn();
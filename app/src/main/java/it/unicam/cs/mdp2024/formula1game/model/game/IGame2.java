@@ -17,6 +17,12 @@ public interface IGame2 {
      */
     void executeTurn();
 
+    /**
+     * Esegue i turni rimanenti del giro corrente, fino a quando tutti i
+     * giocatori hanno mosso una volta.
+     */
+    void executeRound();
+
     /**
      * Ritorna true se la partita è finita.
      * @return true se la partita è finita, false altrimenti.
@@ -0,0 +1,257 @@
+package it.unicam.cs.mdp2024.formula1game.model.game;
+
+import it.unicam.cs.mdp2024.formula1game.model.car.ICar;
+import it.unicam.cs.mdp2024.formula1game.model.player.IPlayer;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Istantanea immutabile dei giocatori all'inizio di un giro di turni.
+ * Permette ai bot di decidere le proprie mosse contemporaneamente: ognuno
+ * vede le auto degli altri come erano all'inizio del giro, anche mentre le
+ * mosse vengono applicate, quindi le decisioni non dipendono dall'ordine in
+ * cui i calcoli terminano.
+ */
+public final class TurnSnapshot {
+
+    private final List<IPlayer> livePlayers;
+    private final List<IPlayer> frozenPlayers;
+
+    private TurnSnapshot(List<IPlayer> livePlayers, List<IPlayer> frozenPlayers) {
+        this.livePlayers = List.copyOf(livePlayers);
+        this.frozenPlayers = Collections.unmodifiableList(frozenPlayers);
+    }
+
+    /**
+     * Congela lo stato attuale dei giocatori.
+     *
+     * @param players i giocatori nell'ordine dei turni
+     * @return l'istantanea
+     */
+    public static TurnSnapshot of(List<IPlayer> players) {
+        List<IPlayer> frozen = new ArrayList<>(players.size());
+        for (IPlayer player : players) {
+            frozen.add(new FrozenPlayer(player, player.getCar() == null ? null : new FrozenCar(player.getCar())));
+        }
+        return new TurnSnapshot(players, frozen);
+    }
+
+    /**
+     * Congela i giocatori come si prevede che saranno al turno successivo:
+     * il giocatore indicato nello stato dato, gli avversari attivi spostati
+     * della propria velocità. Anche il giocatore indicato è congelato, così
+     * chi decide sull'istantanea non legge mai un'auto che la partita sta
+     * modificando.
+     *
+     * @param players  i giocatori nell'ordine dei turni
+     * @param player   il giocatore di cui è nota la prossima mossa
+     * @param position la posizione prevista del giocatore
+     * @param velocity la velocità prevista del giocatore
+     * @return l'istantanea prevista
+     * @throws IllegalArgumentException se il giocatore non è tra i giocatori
+     */
+    public static TurnSnapshot predicted(List<IPlayer> players, IPlayer player, IPosition position,
+            IVelocity velocity) {
+        if (!players.contains(player)) {
+            throw new IllegalArgumentException("Giocatore non presente nell'istantanea: " + player.getName());
+        }
+        List<IPlayer> frozen = new ArrayList<>(players.size());
+        for (IPlayer other : players) {
+            ICar car = other.getCar();
+            FrozenCar predicted;
+            if (car == null) {
+                predicted = null;
+            } else if (other == player) {
+                predicted = new FrozenCar(position, velocity, car.getAcceleration());
+            } else if (other.isActive()) {
+                predicted = new FrozenCar(car.getPosition().nextPosition(car.getVelocity()), car.getVelocity(),
+                        car.getAcceleration());
+            } else {
+                predicted = new FrozenCar(car);
+            }
+            frozen.add(new FrozenPlayer(other, predicted));
+        }
+        return new TurnSnapshot(players, frozen);
+    }
+
+    /**
+     * Restituisce i giocatori come li vede uno di loro: gli avversari sono
+     * congelati, mentre il giocatore stesso resta l'oggetto reale, così i
+     * controlli per identità (ad esempio {@code other != currentPlayer} nel
+     * validatore) continuano a riconoscerlo.
+     *
+     * @param player il giocatore che deve decidere
+     * @return la lista non modificabile dei giocatori nell'ordine dei turni
+     * @throws IllegalArgumentException se il giocatore non fa parte dell'istantanea
+     */
+    public List<IPlayer> viewFor(IPlayer player) {
+        int index = livePlayers.indexOf(player);
+        if (index < 0) {
+            throw new IllegalArgumentException("Giocatore non presente nell'istantanea: " + player.getName());
+        }
+        List<IPlayer> view = new ArrayList<>(frozenPlayers);
+        view.set(index, player);
+        return Collections.unmodifiableList(view);
+    }
+
+    /**
+     * @return i giocatori congelati nell'ordine dei turni
+     */
+    public List<IPlayer> getPlayers() {
+        return frozenPlayers;
+    }
+
+    /**
+     * @param player uno dei giocatori reali
+     * @return la sua copia congelata
+     * @throws IllegalArgumentException se il giocatore non fa parte dell'istantanea
+     */
+    public IPlayer frozen(IPlayer player) {
+        int index = livePlayers.indexOf(player);
+        if (index < 0) {
+            throw new IllegalArgumentException("Giocatore non presente nell'istantanea: " + player.getName());
+        }
+        return frozenPlayers.get(index);
+    }
+
+    /**
+     * Giocatore in sola lettura con i valori copiati al momento dell'istantanea.
+     */
+    private static final class FrozenPlayer implements IPlayer {
+        private final String name;
+        private final String color;
+        private final boolean bot;
+        private final boolean active;
+        private final boolean finished;
+        private final ICar car;
+
+        FrozenPlayer(IPlayer player, ICar car) {
+            this.name = player.getName();
+            this.color = player.getColor();
+            this.bot = player.isBot();
+            this.active = player.isActive();
+            this.finished = player.hasFinished();
+            this.car = car;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public ICar getCar() {
+            return car;
+        }
+
+        @Override
+        public void setCar(ICar car) {
+            throw readOnly();
+        }
+
+        @Override
+        public IAcceleration chooseAcceleration() {
+            throw readOnly();
+        }
+
+        @Override
+        public boolean isBot() {
+            return bot;
+        }
+
+        @Override
+        public boolean hasFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isActive() {
+            return active;
+        }
+
+        @Override
+        public void setActive(boolean active) {
+            throw readOnly();
+        }
+
+        @Override
+        public String getColor() {
+            return color;
+        }
+
+        @Override
+        public void setColor(String color) {
+            throw readOnly();
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Auto in sola lettura. La velocità viene copiata perché
+     * {@link IVelocity} è modificabile; posizione e accelerazione sono immutabili.
+     */
+    private static final class FrozenCar implements ICar {
+        private final IPosition position;
+        private final IVelocity velocity;
+        private final IAcceleration acceleration;
+
+        FrozenCar(ICar car) {
+            this(car.getPosition(), car.getVelocity(), car.getAcceleration());
+        }
+
+        FrozenCar(IPosition position, IVelocity velocity, IAcceleration acceleration) {
+            this.position = position;
+            this.velocity = new Velocity(velocity.getCurrentVelocity());
+            this.acceleration = acceleration;
+        }
+
+        @Override
+        public IPosition getPosition() {
+            return position;
+        }
+
+        @Override
+        public IVelocity getVelocity() {
+            return velocity;
+        }
+
+        @Override
+        public IAcceleration getAcceleration() {
+            return acceleration;
+        }
+
+        @Override
+        public void setPosition(IPosition position) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setVelocity(IVelocity velocity) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setAcceleration(IAcceleration acceleration) {
+            throw readOnly();
+        }
+
+        @Override
+        public void move() {
+            throw readOnly();
+        }
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Lo stato dell'istantanea non è modificabile");
+    }
+}
@@ -0,0 +1,104 @@
+package it.unicam.cs.mdp2024.formula1game.model.learning;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+
+import java.util.List;
+
+/**
+ * Caratteristiche locali di uno stato di guida, ingresso della rete:
+ * <ul>
+ *   <li>distanza dal muro lungo otto raggi (nord, nord-est, ..., nord-ovest),
+ *       fino a {@value #RAY_LIMIT} celle;</li>
+ *   <li>velocità;</li>
+ *   <li>direzione del checkpoint, come versore e come scostamento limitato;</li>
+ *   <li>scostamento dell'avversario più vicino e un indicatore della sua presenza.</li>
+ * </ul>
+ * Tutti i valori sono normalizzati in [-1, 1]. Le celle fuori dal circuito
+ * contano come muro.
+ */
+public final class DrivingFeatures {
+
+    /** Numero di valori scritti per ogni stato. */
+    public static final int COUNT = 17;
+
+    /** Lunghezza massima di un raggio in celle. */
+    public static final int RAY_LIMIT = 10;
+
+    private static final int[] RAY_ROWS = {-1, -1, 0, 1, 1, 1, 0, -1};
+    private static final int[] RAY_COLUMNS = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final float MAX_SPEED = 5f;
+    private static final float TARGET_RANGE = 20f;
+    private static final float OPPONENT_RANGE = 10f;
+
+    private DrivingFeatures() {
+    }
+
+    /**
+     * Scrive le caratteristiche di uno stato.
+     *
+     * @param out       destinazione
+     * @param offset    primo indice da scrivere
+     * @param circuit   il circuito
+     * @param row       riga dell'auto
+     * @param column    colonna dell'auto
+     * @param vx        componente orizzontale della velocità
+     * @param vy        componente verticale della velocità
+     * @param target    il checkpoint da raggiungere
+     * @param opponents posizioni degli avversari
+     */
+    public static void write(float[] out, int offset, ICircuit circuit, int row, int column, int vx, int vy,
+            IPosition target, List<IPosition> opponents) {
+        int i = offset;
+        for (int ray = 0; ray < RAY_ROWS.length; ray++) {
+            out[i++] = castRay(circuit, row, column, RAY_ROWS[ray], RAY_COLUMNS[ray]) / (float) RAY_LIMIT;
+        }
+        out[i++] = vx / MAX_SPEED;
+        out[i++] = vy / MAX_SPEED;
+
+        int dRow = target.getRow() - row;
+        int dColumn = target.getColumn() - column;
+        float length = (float) Math.sqrt(dRow * dRow + dColumn * dColumn);
+        out[i++] = length == 0f ? 0f : dColumn / length;
+        out[i++] = length == 0f ? 0f : dRow / length;
+        out[i++] = clamp(dColumn / TARGET_RANGE);
+        out[i++] = clamp(dRow / TARGET_RANGE);
+
+        IPosition nearest = null;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (IPosition opponent : opponents) {
+            int distance = Math.max(Math.abs(opponent.getRow() - row), Math.abs(opponent.getColumn() - column));
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = opponent;
+            }
+        }
+        if (nearest == null || nearestDistance > OPPONENT_RANGE) {
+            out[i++] = 0f;
+            out[i++] = 0f;
+            out[i] = 0f;
+        } else {
+            out[i++] = (nearest.getColumn() - column) / OPPONENT_RANGE;
+            out[i++] = (nearest.getRow() - row) / OPPONENT_RANGE;
+            out[i] = 1f;
+        }
+    }
+
+    /**
+     * @return celle libere percorribili in linea retta prima di un muro
+     */
+    private static int castRay(ICircuit circuit, int row, int column, int dRow, int dColumn) {
+        for (int step = 1; step <= RAY_LIMIT; step++) {
+            int r = row + dRow * step;
+            int c = column + dColumn * step;
+            if (r < 0 || r >= circuit.getHeight() || c < 0 || c >= circuit.getWidth() || circuit.isWall(c, r)) {
+                return step - 1;
+            }
+        }
+        return RAY_LIMIT;
+    }
+
+    private static float clamp(float value) {
+        return Math.max(-1f, Math.min(1f, value));
+    }
+}
@@ -0,0 +1,349 @@
+package it.unicam.cs.mdp2024.formula1game.model.learning;
+
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.PolicyTable;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.PolicyTrainer;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.RaceStateSpace;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.checkpoint.CheckpointManager;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Addestra per distillazione la rete usata dalla strategia a rete neurale.
+ * Per ogni checkpoint di ogni circuito calcola con {@link PolicyTrainer} la
+ * politica ottimale per attraversarlo, ne estrae un campione casuale di
+ * stati e insegna alla rete a scegliere, dalle sole
+ * {@link DrivingFeatures caratteristiche locali}, la stessa accelerazione.
+ * L'ottimizzazione è una discesa del gradiente a mini-lotti con momento
+ * sull'entropia incrociata delle nove accelerazioni.
+ */
+public class MlpTrainer {
+
+    /** Uscite della rete: una per accelerazione, nell'ordine (ay + 1) * 3 + (ax + 1). */
+    public static final int ACTIONS = 9;
+
+    private static final int BATCH_SIZE = 64;
+    private static final float MOMENTUM = 0.9f;
+    private static final int ATTEMPTS_PER_SAMPLE = 50;
+
+    /**
+     * Risultato dell'addestramento.
+     */
+    public static class Result {
+        private final MultilayerPerceptron network;
+        private final int samples;
+        private final double accuracy;
+        private final long elapsedNanos;
+
+        Result(MultilayerPerceptron network, int samples, double accuracy, long elapsedNanos) {
+            this.network = network;
+            this.samples = samples;
+            this.accuracy = accuracy;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public MultilayerPerceptron getNetwork() {
+            return network;
+        }
+
+        public int getSamples() {
+            return samples;
+        }
+
+        /**
+         * @return frazione dei campioni in cui la rete sceglie l'accelerazione ottimale
+         */
+        public double getAccuracy() {
+            return accuracy;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    private final int[] hiddenSizes;
+    private final int maxTargetsPerCircuit;
+    private final int samplesPerTarget;
+    private final int epochs;
+    private final float learningRate;
+    private final long seed;
+
+    /**
+     * @param hiddenSizes          dimensioni degli strati nascosti
+     * @param maxTargetsPerCircuit checkpoint usati al più per circuito, distribuiti lungo il giro
+     * @param samplesPerTarget     stati campionati per checkpoint
+     * @param epochs               passate sui campioni
+     * @param learningRate         passo della discesa del gradiente
+     * @param seed                 seme del generatore casuale
+     * @throws IllegalArgumentException se un parametro non è positivo
+     */
+    public MlpTrainer(int[] hiddenSizes, int maxTargetsPerCircuit, int samplesPerTarget, int epochs,
+            float learningRate, long seed) {
+        if (maxTargetsPerCircuit <= 0 || samplesPerTarget <= 0 || epochs <= 0 || learningRate <= 0) {
+            throw new IllegalArgumentException("I parametri dell'addestramento devono essere positivi");
+        }
+        for (int size : hiddenSizes) {
+            if (size <= 0) {
+                throw new IllegalArgumentException("Dimensione dello strato nascosto non valida: " + size);
+            }
+        }
+        this.hiddenSizes = hiddenSizes.clone();
+        this.maxTargetsPerCircuit = maxTargetsPerCircuit;
+        this.samplesPerTarget = samplesPerTarget;
+        this.epochs = epochs;
+        this.learningRate = learningRate;
+        this.seed = seed;
+    }
+
+    /**
+     * Addestra una nuova rete sui circuiti indicati.
+     *
+     * @param circuits i circuiti da cui estrarre i campioni
+     * @return la rete e le statistiche dell'addestramento
+     * @throws IllegalArgumentException se i circuiti non forniscono campioni
+     * @throws InterruptedException     se il calcolo delle politiche o l'addestramento viene interrotto
+     */
+    public Result train(List<ICircuit> circuits) throws InterruptedException {
+        long start = System.nanoTime();
+        Random random = new Random(seed);
+        SampleSet samples = new SampleSet();
+        PolicyTrainer teacher = new PolicyTrainer();
+        for (ICircuit circuit : circuits) {
+            collectSamples(circuit, teacher, random, samples);
+        }
+        if (samples.size == 0) {
+            throw new IllegalArgumentException("Nessun campione per l'addestramento");
+        }
+
+        int[] layerSizes = new int[hiddenSizes.length + 2];
+        layerSizes[0] = DrivingFeatures.COUNT;
+        System.arraycopy(hiddenSizes, 0, layerSizes, 1, hiddenSizes.length);
+        layerSizes[layerSizes.length - 1] = ACTIONS;
+        MultilayerPerceptron network = initialize(layerSizes, random);
+        optimize(network, samples, random);
+        return new Result(network, samples.size, accuracy(network, samples), System.nanoTime() - start);
+    }
+
+    /**
+     * Campiona gli stati risolti della politica ottimale verso ciascun
+     * checkpoint scelto e verso il traguardo.
+     */
+    private void collectSamples(ICircuit circuit, PolicyTrainer teacher, Random random, SampleSet samples)
+            throws InterruptedException {
+        List<List<IPosition>> targets = new ArrayList<>();
+        List<List<IPosition>> lines = new CheckpointManager(circuit).getCheckpointLines();
+        int stride = Math.max(1, (lines.size() + maxTargetsPerCircuit - 1) / maxTargetsPerCircuit);
+        for (int i = 0; i < lines.size(); i += stride) {
+            targets.add(lines.get(i));
+        }
+        if (!circuit.getFinishPositions().isEmpty()) {
+            targets.add(new ArrayList<>(circuit.getFinishPositions()));
+        }
+
+        float[] features = new float[DrivingFeatures.COUNT];
+        for (List<IPosition> target : targets) {
+            RaceStateSpace space = new RaceStateSpace(circuit, List.of(target));
+            PolicyTable policy = teacher.train(0L, space).getTable();
+            // Gli stati del primo tratto precedono quelli finali nella codifica
+            int firstLegStates = (int) (space.getStateCount() / (space.getLegCount() + 1));
+            IPosition targetCell = target.get(target.size() / 2);
+            int found = 0;
+            for (int attempt = 0; attempt < samplesPerTarget * ATTEMPTS_PER_SAMPLE && found < samplesPerTarget;
+                    attempt++) {
+                int state = random.nextInt(firstLegStates);
+                int action = policy.action(state);
+                if (action == PolicyTable.NO_ACTION) continue;
+                DrivingFeatures.write(features, 0, circuit, space.row(state), space.column(state),
+                        space.velocityX(state), space.velocityY(state), targetCell, List.of());
+                samples.add(features, action);
+                found++;
+            }
+        }
+    }
+
+    private static MultilayerPerceptron initialize(int[] layerSizes, Random random) {
+        float[][] weights = new float[layerSizes.length - 1][];
+        float[][] biases = new float[layerSizes.length - 1][];
+        for (int layer = 0; layer < weights.length; layer++) {
+            int inSize = layerSizes[layer];
+            weights[layer] = new float[inSize * layerSizes[layer + 1]];
+            biases[layer] = new float[layerSizes[layer + 1]];
+            // Inizializzazione di He, adatta alla ReLU
+            double scale = Math.sqrt(2.0 / inSize);
+            for (int i = 0; i < weights[layer].length; i++) {
+                weights[layer][i] = (float) (random.nextGaussian() * scale);
+            }
+        }
+        return new MultilayerPerceptron(layerSizes, weights, biases);
+    }
+
+    private void optimize(MultilayerPerceptron network, SampleSet samples, Random random)
+            throws InterruptedException {
+        int[] sizes = network.getLayerSizes();
+        int layers = sizes.length - 1;
+        float[][] weights = network.weights();
+        float[][] biases = network.biases();
+        float[][] weightVelocity = new float[layers][];
+        float[][] biasVelocity = new float[layers][];
+        float[][] activations = new float[layers + 1][];
+        float[][] deltas = new float[layers + 1][];
+        for (int layer = 0; layer < layers; layer++) {
+            weightVelocity[layer] = new float[weights[layer].length];
+            biasVelocity[layer] = new float[biases[layer].length];
+        }
+        for (int layer = 0; layer <= layers; layer++) {
+            activations[layer] = new float[BATCH_SIZE * sizes[layer]];
+            deltas[layer] = new float[BATCH_SIZE * sizes[layer]];
+        }
+
+        int[] order = new int[samples.size];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        int[] labels = new int[BATCH_SIZE];
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            shuffle(order, random);
+            for (int from = 0; from < order.length; from += BATCH_SIZE) {
+                int batch = Math.min(BATCH_SIZE, order.length - from);
+                for (int b = 0; b < batch; b++) {
+                    int sample = order[from + b];
+                    System.arraycopy(samples.features, sample * DrivingFeatures.COUNT, activations[0],
+                            b * DrivingFeatures.COUNT, DrivingFeatures.COUNT);
+                    labels[b] = samples.labels[sample];
+                }
+                for (int layer = 0; layer < layers; layer++) {
+                    network.layer(layer, activations[layer], batch, activations[layer + 1], layer < layers - 1);
+                }
+                softmaxGradient(activations[layers], labels, batch, deltas[layers]);
+                for (int layer = layers - 1; layer >= 0; layer--) {
+                    backward(layer, sizes, weights[layer], activations[layer], deltas[layer + 1], batch,
+                            layer > 0 ? deltas[layer] : null, weightVelocity[layer], biasVelocity[layer]);
+                    update(weights[layer], weightVelocity[layer]);
+                    update(biases[layer], biasVelocity[layer]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gradiente dell'entropia incrociata rispetto alle uscite lineari,
+     * mediato sul lotto: softmax meno la codifica one-hot dell'etichetta.
+     */
+    private static void softmaxGradient(float[] logits, int[] labels, int batch, float[] delta) {
+        for (int b = 0; b < batch; b++) {
+            int row = b * ACTIONS;
+            float max = Float.NEGATIVE_INFINITY;
+            for (int j = 0; j < ACTIONS; j++) {
+                max = Math.max(max, logits[row + j]);
+            }
+            float sum = 0f;
+            for (int j = 0; j < ACTIONS; j++) {
+                delta[row + j] = (float) Math.exp(logits[row + j] - max);
+                sum += delta[row + j];
+            }
+            for (int j = 0; j < ACTIONS; j++) {
+                delta[row + j] = (delta[row + j] / sum - (j == labels[b] ? 1f : 0f)) / batch;
+            }
+        }
+    }
+
+    /**
+     * Accumula nelle velocità il passo per pesi e bias dello strato e, se
+     * richiesto, propaga l'errore allo strato precedente attraverso la ReLU.
+     */
+    private void backward(int layer, int[] sizes, float[] w, float[] input, float[] delta, int batch,
+            float[] previousDelta, float[] weightVelocity, float[] biasVelocity) {
+        int inSize = sizes[layer];
+        int outSize = sizes[layer + 1];
+        for (int i = 0; i < weightVelocity.length; i++) {
+            weightVelocity[i] *= MOMENTUM;
+        }
+        for (int j = 0; j < outSize; j++) {
+            biasVelocity[j] *= MOMENTUM;
+        }
+        for (int b = 0; b < batch; b++) {
+            int inRow = b * inSize;
+            int outRow = b * outSize;
+            for (int j = 0; j < outSize; j++) {
+                biasVelocity[j] -= learningRate * delta[outRow + j];
+            }
+            for (int i = 0; i < inSize; i++) {
+                float a = input[inRow + i];
+                int wRow = i * outSize;
+                if (previousDelta != null) {
+                    float sum = 0f;
+                    if (a > 0f) {
+                        for (int j = 0; j < outSize; j++) {
+                            sum += delta[outRow + j] * w[wRow + j];
+                        }
+                    }
+                    previousDelta[inRow + i] = sum;
+                }
+                if (a == 0f) continue;
+                float step = learningRate * a;
+                for (int j = 0; j < outSize; j++) {
+                    weightVelocity[wRow + j] -= step * delta[outRow + j];
+                }
+            }
+        }
+    }
+
+    private static void update(float[] values, float[] velocity) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] += velocity[i];
+        }
+    }
+
+    private static double accuracy(MultilayerPerceptron network, SampleSet samples) {
+        float[] scores = new float[samples.size * ACTIONS];
+        network.forward(samples.features, samples.size, scores);
+        int correct = 0;
+        for (int sample = 0; sample < samples.size; sample++) {
+            int best = 0;
+            for (int j = 1; j < ACTIONS; j++) {
+                if (scores[sample * ACTIONS + j] > scores[sample * ACTIONS + best]) {
+                    best = j;
+                }
+            }
+            if (best == samples.labels[sample]) {
+                correct++;
+            }
+        }
+        return (double) correct / samples.size;
+    }
+
+    private static void shuffle(int[] values, Random random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+
+    /**
+     * Campioni in array contigui: caratteristiche riga per riga ed etichette.
+     */
+    private static final class SampleSet {
+        private float[] features = new float[1024 * DrivingFeatures.COUNT];
+        private int[] labels = new int[1024];
+        private int size;
+
+        void add(float[] sampleFeatures, int label) {
+            if (size == labels.length) {
+                labels = Arrays.copyOf(labels, size * 2);
+                features = Arrays.copyOf(features, size * 2 * DrivingFeatures.COUNT);
+            }
+            System.arraycopy(sampleFeatures, 0, features, size * DrivingFeatures.COUNT, DrivingFeatures.COUNT);
+            labels[size++] = label;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package it.unicam.cs.mdp2024.formula1game.model.learning;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Percettrone multistrato con attivazione ReLU negli strati nascosti e
+ * uscite lineari.
+ * L'inferenza lavora a lotti su array di float contigui: le righe di input
+ * di tutti i campioni vengono moltiplicate per le matrici dei pesi con il
+ * ciclo interno sulle uscite, che scorre memoria contigua e viene
+ * vettorizzato dal compilatore JIT.
+ * La rete è immutabile, quindi può essere condivisa tra thread; ogni
+ * chiamata usa i propri buffer.
+ */
+public final class MultilayerPerceptron {
+
+    private static final int MAGIC = 0x46314E4E; // "F1NN"
+    private static final int VERSION = 1;
+
+    private final int[] layerSizes;
+    /** Per ogni strato, pesi [ingresso][uscita] in ordine di riga. */
+    private final float[][] weights;
+    private final float[][] biases;
+
+    /**
+     * @param layerSizes dimensioni degli strati, dall'ingresso all'uscita
+     * @param weights    pesi di ciascuno strato, [ingresso][uscita] in ordine di riga
+     * @param biases     bias di ciascuno strato
+     * @throws IllegalArgumentException se le dimensioni non sono coerenti
+     */
+    MultilayerPerceptron(int[] layerSizes, float[][] weights, float[][] biases) {
+        if (layerSizes.length < 2 || weights.length != layerSizes.length - 1 || biases.length != weights.length) {
+            throw new IllegalArgumentException("La rete deve avere almeno uno strato di pesi");
+        }
+        for (int layer = 0; layer < weights.length; layer++) {
+            if (layerSizes[layer] <= 0 || layerSizes[layer + 1] <= 0
+                    || weights[layer].length != layerSizes[layer] * layerSizes[layer + 1]
+                    || biases[layer].length != layerSizes[layer + 1]) {
+                throw new IllegalArgumentException("Dimensioni dello strato " + layer + " non valide");
+            }
+        }
+        this.layerSizes = layerSizes.clone();
+        this.weights = weights;
+        this.biases = biases;
+    }
+
+    public int getInputSize() {
+        return layerSizes[0];
+    }
+
+    public int getOutputSize() {
+        return layerSizes[layerSizes.length - 1];
+    }
+
+    /**
+     * @return dimensioni degli strati, dall'ingresso all'uscita
+     */
+    public int[] getLayerSizes() {
+        return layerSizes.clone();
+    }
+
+    /**
+     * Valuta la rete su un lotto di campioni.
+     *
+     * @param inputs    {@code batchSize} righe di {@link #getInputSize()} valori
+     * @param batchSize numero di campioni
+     * @param outputs   riceve {@code batchSize} righe di {@link #getOutputSize()} valori
+     * @throws IllegalArgumentException se gli array sono troppo piccoli
+     */
+    public void forward(float[] inputs, int batchSize, float[] outputs) {
+        if (inputs.length < batchSize * getInputSize() || outputs.length < batchSize * getOutputSize()) {
+            throw new IllegalArgumentException("Buffer troppo piccoli per un lotto di " + batchSize);
+        }
+        float[] current = inputs;
+        for (int layer = 0; layer < weights.length; layer++) {
+            boolean last = layer == weights.length - 1;
+            float[] next = last ? outputs : new float[batchSize * layerSizes[layer + 1]];
+            layer(layer, current, batchSize, next, !last);
+            current = next;
+        }
+    }
+
+    /**
+     * Calcola uno strato: {@code out = in · W + b}, con ReLU se richiesto.
+     */
+    void layer(int layer, float[] in, int batchSize, float[] out, boolean relu) {
+        int inSize = layerSizes[layer];
+        int outSize = layerSizes[layer + 1];
+        float[] w = weights[layer];
+        float[] b = biases[layer];
+        for (int sample = 0; sample < batchSize; sample++) {
+            int inRow = sample * inSize;
+            int outRow = sample * outSize;
+            System.arraycopy(b, 0, out, outRow, outSize);
+            for (int i = 0; i < inSize; i++) {
+                float a = in[inRow + i];
+                if (a == 0f) continue;
+                int wRow = i * outSize;
+                for (int j = 0; j < outSize; j++) {
+                    out[outRow + j] += a * w[wRow + j];
+                }
+            }
+            if (relu) {
+                for (int j = 0; j < outSize; j++) {
+                    if (out[outRow + j] < 0f) {
+                        out[outRow + j] = 0f;
+                    }
+                }
+            }
+        }
+    }
+
+    float[][] weights() {
+        return weights;
+    }
+
+    float[][] biases() {
+        return biases;
+    }
+
+    /**
+     * Scrive la rete in un file binario: intestazione con le dimensioni degli
+     * strati, poi pesi e bias di ogni strato come float. Il file viene
+     * sostituito in modo atomico.
+     *
+     * @param file il file di destinazione
+     * @throws IOException se la scrittura fallisce
+     */
+    public void save(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(layerSizes.length);
+            for (int size : layerSizes) {
+                out.writeInt(size);
+            }
+            for (int layer = 0; layer < weights.length; layer++) {
+                for (float value : weights[layer]) {
+                    out.writeFloat(value);
+                }
+                for (float value : biases[layer]) {
+                    out.writeFloat(value);
+                }
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Legge una rete scritta con {@link #save(Path)}.
+     *
+     * @param file il file da leggere
+     * @return la rete
+     * @throws IOException se la lettura fallisce o il file non è una rete valida
+     */
+    public static MultilayerPerceptron load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Formato della rete non valido: " + file);
+            }
+            int layerCount = in.readInt();
+            if (layerCount < 2 || layerCount > 16) {
+                throw new IOException("Numero di strati non valido: " + layerCount);
+            }
+            int[] layerSizes = new int[layerCount];
+            for (int i = 0; i < layerCount; i++) {
+                layerSizes[i] = in.readInt();
+                if (layerSizes[i] <= 0 || layerSizes[i] > 4096) {
+                    throw new IOException("Dimensione dello strato non valida: " + layerSizes[i]);
+                }
+            }
+            float[][] weights = new float[layerCount - 1][];
+            float[][] biases = new float[layerCount - 1][];
+            for (int layer = 0; layer < layerCount - 1; layer++) {
+                weights[layer] = readFloats(in, layerSizes[layer] * layerSizes[layer + 1]);
+                biases[layer] = readFloats(in, layerSizes[layer + 1]);
+            }
+            return new MultilayerPerceptron(layerSizes, weights, biases);
+        }
+    }
+
+    private static float[] readFloats(DataInputStream in, int count) throws IOException {
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readFloat();
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "MultilayerPerceptron" + Arrays.toString(layerSizes);
+    }
+}
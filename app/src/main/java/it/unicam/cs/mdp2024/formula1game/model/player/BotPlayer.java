@@ -1,16 +1,27 @@
 package it.unicam.cs.mdp2024.formula1game.model.player;
 
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.BrakingEnvelope;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.ReservationTable;
 import it.unicam.cs.mdp2024.formula1game.model.car.Car;
 import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
 import it.unicam.cs.mdp2024.formula1game.model.circuit.checkpoint.CheckpointManager;
 import it.unicam.cs.mdp2024.formula1game.model.game.DefaultMoveValidator;
 import it.unicam.cs.mdp2024.formula1game.model.game.IMoveValidator;
+import it.unicam.cs.mdp2024.formula1game.model.game.TurnSnapshot;
+import it.unicam.cs.mdp2024.formula1game.model.strategy.BatchedMovementStrategy;
+import it.unicam.cs.mdp2024.formula1game.model.strategy.DecisionCache;
 import it.unicam.cs.mdp2024.formula1game.model.strategy.MovementContext;
+import it.unicam.cs.mdp2024.formula1game.model.strategy.MovementStrategyFactory;
+import it.unicam.cs.mdp2024.formula1game.model.strategy.MovementWeights;
 import it.unicam.cs.mdp2024.formula1game.model.util.*;
 import java.util.stream.Collectors;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -19,11 +30,31 @@ import java.util.stream.Collectors;
  */
 public class BotPlayer extends Player {
 
+    /** Mosse del turno corrente per cui viene preparata la decisione successiva. */
+    private static final int SPECULATION_CANDIDATES = 3;
+
     private final int strategyCode;
     private ICircuit circuit;
+    private BrakingEnvelope brakingEnvelope;
     private IMoveValidator moveValidator;
     private CheckpointManager checkpointManager;
     private MovementContext movementContext;
+    private ReservationTable reservationTable;
+    private int reservationOwner;
+    private SpeculativePlanner speculativePlanner;
+    private MovementContext speculationContext;
+    private MovementWeights movementWeights;
+    private long decisionDeadlineNanos;
+    private long retiredDecisionTimeouts;
+    private boolean decisionCaching;
+    private boolean lapFollowing;
+    private boolean hierarchicalPathfinding;
+
+    /**
+     * Stato dell'auto per cui è stata calcolata una decisione speculativa.
+     */
+    private record SpeculationKey(IPosition position, int velocityX, int velocityY, IPosition target) {
+    }
 
     /**
      * Crea un nuovo bot player con il nome specificato e la strategia A* di default.
@@ -40,11 +71,11 @@ public class BotPlayer extends Player {
      *
      * @param name il nome del bot player
      * @param color il colore del bot player
-     * @param strategyCode il codice della strategia di pathfinding (1=A*, 2=Dijkstra)
+     * @param strategyCode il codice della strategia di pathfinding (1=A*, 2=Dijkstra, 3=Monte Carlo, 4=Beam, 5=Cooperativa, 6=Politica, 7=Traiettoria, 8=Rete neurale)
      */
     public BotPlayer(String name, String color, int strategyCode) {
         super(name, color);
-        if (strategyCode < 1 || strategyCode > 2) {
+        if (!MovementStrategyFactory.isValidCode(strategyCode)) {
             throw new IllegalArgumentException("Codice strategia non valido: " + strategyCode);
         }
         this.strategyCode = strategyCode;
@@ -52,28 +83,30 @@ public class BotPlayer extends Player {
 
     /**
      * Inizializza il bot con le dipendenze necessarie dal gioco.
+     * Va chiamato una volta per partita: chiamate successive con le stesse
+     * dipendenze non hanno effetto, così la strategia conserva percorsi e
+     * cache tra un turno e l'altro.
      */
     public void initializeGameDependencies(ICircuit circuit, IMoveValidator validator, CheckpointManager checkpointManager) {
-        this.circuit = circuit;
-        this.moveValidator = validator;
-        this.checkpointManager = checkpointManager;
-        
         if (!(validator instanceof DefaultMoveValidator)) {
             throw new IllegalArgumentException("Il validatore deve essere di tipo DefaultMoveValidator");
         }
-        
-        // Inizializza il movimento context
-        this.movementContext = new MovementContext(strategyCode, (DefaultMoveValidator) validator);
-        
-        // Configura i pesi per il movimento
-        if (strategyCode == 2) { // Strategia difensiva Dijkstra
-            this.movementContext.configureWeights(0.8, 1.5, 2.5, 0.8);
-        } else { // Strategia A*
-            this.movementContext.configureWeights(1.5, 0.8, 1.2, 1.5);
+        if (movementContext != null && this.circuit == circuit && this.moveValidator == validator
+                && this.checkpointManager == checkpointManager) {
+            return;
         }
+
+        discardSpeculation();
+        retireMovementContext();
+        this.circuit = circuit;
+        this.brakingEnvelope = BrakingEnvelope.of(circuit);
+        this.moveValidator = validator;
+        this.checkpointManager = checkpointManager;
+        this.movementContext = createMovementContext();
         
-        // Inizializza la macchina del bot dalla posizione di partenza del circuito
-        if (!circuit.getStartPositions().isEmpty()) {
+        // Inizializza la macchina del bot dalla posizione di partenza del circuito,
+        // se la partita non gliene ha già assegnata una
+        if (this.getCar() == null && !circuit.getStartPositions().isEmpty()) {
             IPosition startPosition = circuit.getStartPositions().get(0);
             this.setCar(new Car(
                 startPosition,
@@ -83,10 +116,244 @@ public class BotPlayer extends Player {
         }
     }
 
+    /**
+     * Scarta lo stato di pianificazione accumulato: la prossima mossa verrà
+     * calcolata da una strategia appena creata, senza percorsi precedenti.
+     */
+    public void resetPlanningState() {
+        if (moveValidator != null) {
+            discardSpeculation();
+            retireMovementContext();
+            this.movementContext = createMovementContext();
+        }
+    }
+
+    /**
+     * Imposta il tempo massimo concesso alla strategia per ogni mossa: oltre
+     * la scadenza il bot usa una mossa di riserva che frena.
+     * Con una scadenza impostata la pianificazione speculativa non viene
+     * avviata, perché il suo calcolo non sarebbe limitato.
+     *
+     * @param deadlineNanos tempo massimo in nanosecondi, 0 per nessun limite
+     * @throws IllegalArgumentException se il tempo è negativo
+     */
+    public void setDecisionDeadline(long deadlineNanos) {
+        if (deadlineNanos < 0) {
+            throw new IllegalArgumentException("La scadenza non può essere negativa");
+        }
+        this.decisionDeadlineNanos = deadlineNanos;
+        if (movementContext != null) {
+            discardSpeculation();
+            movementContext.setDecisionDeadline(deadlineNanos);
+        }
+    }
+
+    public long getDecisionDeadline() {
+        return decisionDeadlineNanos;
+    }
+
+    /**
+     * @return numero di mosse in cui la strategia non ha deciso entro la
+     *         scadenza ed è stata usata la mossa di riserva
+     */
+    public long getDecisionTimeouts() {
+        return retiredDecisionTimeouts + (movementContext == null ? 0 : movementContext.getDecisionTimeouts());
+    }
+
+    /**
+     * Abilita o disabilita la cache delle decisioni condivisa tra i bot con
+     * la stessa strategia e gli stessi pesi: le situazioni già incontrate,
+     * anche in partite precedenti, vengono risolte senza chiamare la
+     * strategia.
+     *
+     * @param enabled true per abilitarla
+     */
+    public void setDecisionCaching(boolean enabled) {
+        this.decisionCaching = enabled;
+        if (movementContext != null) {
+            discardSpeculation();
+            movementContext.setDecisionCaching(enabled);
+        }
+    }
+
+    public boolean isDecisionCaching() {
+        return decisionCaching;
+    }
+
+    /**
+     * @return la cache delle decisioni usata dal bot con le sue statistiche,
+     *         o null se è disabilitata o la strategia non la può usare
+     */
+    public DecisionCache getDecisionCache() {
+        return movementContext == null ? null : movementContext.getDecisionCache();
+    }
+
+    /**
+     * Abilita o disabilita l'inseguimento della traiettoria sull'intero giro
+     * per le strategie che lo supportano; di default il bot guida da un
+     * checkpoint al successivo.
+     *
+     * @param enabled true per seguire la traiettoria del giro
+     */
+    public void setLapFollowing(boolean enabled) {
+        this.lapFollowing = enabled;
+        if (movementContext != null) {
+            discardSpeculation();
+            movementContext.setLapFollowing(enabled);
+        }
+    }
+
+    public boolean isLapFollowing() {
+        return lapFollowing;
+    }
+
+    /**
+     * Abilita o disabilita il calcolo dei percorsi con HPA* per le strategie
+     * che lo supportano, utile sui circuiti molto grandi; di default i
+     * percorsi sono calcolati con ARA*.
+     *
+     * @param enabled true per usare la ricerca gerarchica
+     */
+    public void setHierarchicalPathfinding(boolean enabled) {
+        this.hierarchicalPathfinding = enabled;
+        if (movementContext != null) {
+            discardSpeculation();
+            movementContext.setHierarchicalPathfinding(enabled);
+        }
+    }
+
+    public boolean isHierarchicalPathfinding() {
+        return hierarchicalPathfinding;
+    }
+
+    private void retireMovementContext() {
+        if (movementContext != null) {
+            retiredDecisionTimeouts += movementContext.getDecisionTimeouts();
+        }
+    }
+
+    /**
+     * Abilita o disabilita la pianificazione speculativa: dopo ogni mossa il
+     * bot calcola in background, con una propria istanza della strategia, la
+     * decisione per gli stati in cui può arrivare, così al turno successivo
+     * può usarla senza attendere la strategia.
+     * Non ha effetto sulle strategie che devono decidere nell'ordine dei turni.
+     *
+     * @param enabled true per abilitarla
+     */
+    public void setSpeculativePlanning(boolean enabled) {
+        if (enabled && speculativePlanner == null) {
+            speculativePlanner = new SpeculativePlanner();
+        } else if (!enabled && speculativePlanner != null) {
+            discardSpeculation();
+            speculativePlanner = null;
+        }
+    }
+
+    /**
+     * @return il pianificatore speculativo con le sue statistiche, o null se
+     *         la pianificazione speculativa è disabilitata
+     */
+    public SpeculativePlanner getSpeculativePlanner() {
+        return speculativePlanner;
+    }
+
+    /**
+     * Scarta le speculazioni e la strategia che le calcolava: la prossima
+     * speculazione ne crea una con la configurazione aggiornata.
+     */
+    private void discardSpeculation() {
+        if (speculativePlanner != null) {
+            speculativePlanner.discard();
+        }
+        speculationContext = null;
+    }
+
+    /**
+     * Collega il bot alla tabella delle prenotazioni condivisa dalla partita,
+     * usata dalle strategie che pianificano in modo cooperativo.
+     *
+     * @param table la tabella condivisa
+     * @param owner identificativo del bot nella tabella
+     */
+    public void setReservationTable(ReservationTable table, int owner) {
+        this.reservationTable = table;
+        this.reservationOwner = owner;
+        if (movementContext != null) {
+            movementContext.setReservationTable(table, owner);
+        }
+    }
+
+    /**
+     * Indica se il bot deve decidere la mossa nel proprio turno invece che in
+     * parallelo agli altri, ad esempio perché pianifica sulle prenotazioni
+     * scritte da chi muove prima.
+     *
+     * @return true se la decisione dipende dall'ordine dei turni
+     */
+    public boolean requiresTurnOrder() {
+        return movementContext != null && movementContext.requiresTurnOrder();
+    }
+
+    /**
+     * Sostituisce i pesi predefiniti della strategia, ad esempio con quelli
+     * trovati dal tuner per il circuito.
+     *
+     * @param weights i pesi da usare, o null per tornare a quelli predefiniti
+     */
+    public void setMovementWeights(MovementWeights weights) {
+        this.movementWeights = weights == null ? null : new MovementWeights(
+            weights.getPathEfficiencyWeight(),
+            weights.getSpeedControlWeight(),
+            weights.getCollisionAvoidanceWeight(),
+            weights.getCheckpointAlignmentWeight());
+        if (movementContext != null) {
+            discardSpeculation();
+            applyWeights(movementContext);
+        }
+    }
+
+    private MovementContext createMovementContext() {
+        MovementContext context = new MovementContext(strategyCode, (DefaultMoveValidator) moveValidator);
+        if (reservationTable != null) {
+            context.setReservationTable(reservationTable, reservationOwner);
+        }
+        context.setDecisionDeadline(decisionDeadlineNanos);
+        context.setDecisionCaching(decisionCaching);
+        context.setLapFollowing(lapFollowing);
+        context.setHierarchicalPathfinding(hierarchicalPathfinding);
+        
+        applyWeights(context);
+        return context;
+    }
+
+    private void applyWeights(MovementContext context) {
+        MovementWeights weights = movementWeights != null ? movementWeights : defaultWeights(strategyCode);
+        context.configureWeights(
+            weights.getPathEfficiencyWeight(),
+            weights.getSpeedControlWeight(),
+            weights.getCollisionAvoidanceWeight(),
+            weights.getCheckpointAlignmentWeight());
+    }
+
+    /**
+     * Restituisce i pesi usati dai bot con la strategia indicata quando non
+     * ne vengono impostati altri.
+     *
+     * @param strategyCode il codice della strategia
+     * @return una nuova istanza dei pesi predefiniti
+     */
+    public static MovementWeights defaultWeights(int strategyCode) {
+        if (strategyCode == 2) { // Strategia difensiva Dijkstra
+            return new MovementWeights(0.8, 1.5, 2.5, 0.8);
+        }
+        return new MovementWeights(1.5, 0.8, 1.2, 1.5); // Strategia A*
+    }
+
     /**
      * Ottiene il codice della strategia di pathfinding di questo bot.
      *
-     * @return il codice della strategia (1=A*, 2=Dijkstra)
+     * @return il codice della strategia (1=A*, 2=Dijkstra, 3=Monte Carlo, 4=Beam, 5=Cooperativa, 6=Politica, 7=Traiettoria, 8=Rete neurale)
      */
     public int getStrategyCode() {
         return strategyCode;
@@ -100,8 +367,34 @@ public class BotPlayer extends Player {
 
     @Override
     public IAcceleration chooseAcceleration() {
+        return chooseAcceleration(movementContext, true);
+    }
+
+    /**
+     * Sceglie di nuovo l'accelerazione del turno quando quella già scelta non
+     * è più valida, ad esempio perché decisa su un'istantanea e resa
+     * impossibile da chi ha mosso prima. La strategia del bot ha già
+     * aggiornato il proprio stato per questo turno: la nuova decisione viene
+     * presa da un contesto creato apposta e poi scartato, così lo stato non
+     * avanza due volte.
+     *
+     * @return l'accelerazione scelta sullo stato reale
+     */
+    public IAcceleration reconsiderAcceleration() {
+        if (movementContext == null || circuit == null) {
+            return chooseAcceleration();
+        }
+        MovementContext context = createMovementContext();
+        try {
+            return chooseAcceleration(context, false);
+        } finally {
+            retiredDecisionTimeouts += context.getDecisionTimeouts();
+        }
+    }
+
+    private IAcceleration chooseAcceleration(MovementContext context, boolean useSpeculation) {
         // Verifica che il movimento context sia inizializzato
-        if (this.movementContext == null || this.circuit == null) {
+        if (context == null || this.circuit == null) {
             return new Acceleration(new Vector(0, 0));
         }
 
@@ -110,30 +403,33 @@ public class BotPlayer extends Player {
         IVelocity currentVelocity = this.getCar().getVelocity();
         
         // Calcola le posizioni degli avversari
-        List<IPosition> opponentPositions = currentPlayers.stream()
-            .filter(p -> p != this && p.isActive())
-            .map(p -> p.getCar().getPosition())
-            .collect(Collectors.toList());
+        List<IPosition> opponentPositions = opponentPositions();
             
-        // Aggiorna il contesto di gioco
-        movementContext.setGameContext(this, currentPlayers);
-        
         // Ottieni il prossimo checkpoint da raggiungere
-        IPosition nextCheckpoint = checkpointManager.getNextCheckpoint(this);
-        
-        // Se non ci sono più checkpoint da visitare, usa la linea del traguardo
-        if (nextCheckpoint == null && !circuit.getFinishPositions().isEmpty()) {
-            nextCheckpoint = circuit.getFinishPositions().get(0);
-        }
+        IPosition nextCheckpoint = currentTarget();
+
+        // Una speculazione sullo stato reale evita di chiamare la strategia;
+        // quelle sugli altri stati vengono scartate
+        IVector velocityVector = currentVelocity.getCurrentVelocity();
+        SpeculationKey key = new SpeculationKey(currentPosition, velocityVector.getX(), velocityVector.getY(),
+            nextCheckpoint);
+        IAcceleration speculated = speculativePlanner == null || !useSpeculation ? null : speculativePlanner.take(key,
+            move -> moveValidator.isValidMove(this, currentPosition, move, circuit, currentPlayers));
         
         // Se non c'è né checkpoint né traguardo, mantieni la posizione
         if (nextCheckpoint == null) {
             return new Acceleration(new Vector(0, 0));
         }
+
+        // Aggiorna il contesto di gioco
+        context.setGameContext(this, currentPlayers);
+        
+        // Informazioni sul giro per le strategie che lo pianificano per intero
+        context.setLapContext(checkpointManager.getCheckpointLines(),
+            checkpointManager.getNextCheckpointIndex(this));
         
-        // Calcola prossima mossa escludendo (0,0)
-        // Calcola la mossa principale
-        IAcceleration nextMove = movementContext.calculateNextMove(
+        // Calcola la mossa principale, se non è già pronta quella speculativa
+        IAcceleration nextMove = speculated != null ? speculated : context.calculateNextMove(
             currentPosition,
             currentVelocity,
             opponentPositions,
@@ -141,36 +437,185 @@ public class BotPlayer extends Player {
             nextCheckpoint
         );
 
-        // Verifica che la mossa sia valida
-        if (!moveValidator.isValidMove(this, currentPosition, nextMove, circuit, currentPlayers)) {
-            System.out.println("Debug: Primary move invalid, trying alternatives");
-            // Prova mosse alternative in ordine di priorità
-            int[][] alternatives = {
-                {0, -1}, {0, 1},  // Verticale
-                {-1, 0}, {1, 0},  // Orizzontale
-                {-1, -1}, {1, -1}, {-1, 1}, {1, 1}  // Diagonali
-            };
-            
-            for (int[] alt : alternatives) {
-                IAcceleration altMove = new Acceleration(new Vector(alt[0], alt[1]));
-                if (moveValidator.isValidMove(this, currentPosition, altMove, circuit, currentPlayers)) {
-                    System.out.println("Debug: Found valid alternative move: " + alt[0] + "," + alt[1]);
-                    nextMove = altMove;
-                    break;
-                }
-            }
+        // Limita l'accelerazione massima: ogni componente tra -1 e 1, così
+        // le accelerazioni diagonali restano valide
+        IVector moveVector = nextMove.getAccelerationVector();
+        if (Math.abs(moveVector.getX()) > 1 || Math.abs(moveVector.getY()) > 1) {
+            nextMove = new Acceleration(new Vector(Integer.signum(moveVector.getX()),
+                Integer.signum(moveVector.getY())));
         }
 
-        // Limita l'accelerazione massima
-        IVector moveVector = nextMove.getAccelerationVector();
-        if (moveVector.magnitude() > 1) {
-            IVector unitVec = moveVector.unitVector();
-            nextMove = new Acceleration(new Vector(unitVec.getX(), unitVec.getY()));
+        // Una mossa dopo la quale lo schianto è inevitabile, o non valida, viene
+        // sostituita dalla mossa più vicina che l'inviluppo di frenata considera sicura
+        if (!isSafeMove(currentPosition, velocityVector, nextMove.getAccelerationVector())
+                || !moveValidator.isValidMove(this, currentPosition, nextMove, circuit, currentPlayers)) {
+            System.out.println("Debug: Primary move unsafe or invalid, trying alternatives");
+            nextMove = nearestSafeMove(currentPosition, velocityVector, nextMove);
+        }
+
+        if (speculativePlanner != null && decisionDeadlineNanos == 0 && !context.requiresTurnOrder()) {
+            speculateNextTurn(currentPosition, currentVelocity, nextMove, nextCheckpoint);
         }
         
         return nextMove;
     }
 
+    private boolean isSafeMove(IPosition position, IVector velocity, IVector acceleration) {
+        return brakingEnvelope.isSafeMove(position.getRow(), position.getColumn(), velocity.getX(),
+            velocity.getY(), acceleration.getX(), acceleration.getY());
+    }
+
+    /**
+     * Cerca l'accelerazione più vicina a quella preferita che sia valida e
+     * dopo la quale l'auto possa ancora fermarsi; l'inviluppo scarta con una
+     * lettura le mosse senza scampo, così il validatore controlla solo le
+     * candidate utili. Se nessuna mossa è sicura si accontenta di una valida,
+     * preferendo quella indicata.
+     *
+     * @return la mossa trovata, o quella preferita se nessuna è valida
+     */
+    private IAcceleration nearestSafeMove(IPosition position, IVector velocity, IAcceleration preferred) {
+        IVector target = preferred.getAccelerationVector();
+        IAcceleration safeMove = null;
+        IAcceleration validMove = null;
+        int safeDistance = Integer.MAX_VALUE;
+        int validDistance = Integer.MAX_VALUE;
+        for (int ay = -1; ay <= 1; ay++) {
+            for (int ax = -1; ax <= 1; ax++) {
+                int distance = (ax - target.getX()) * (ax - target.getX()) + (ay - target.getY()) * (ay - target.getY());
+                if (distance == 0) continue;
+                boolean safe = isSafeMove(position, velocity, new Vector(ax, ay));
+                if (distance >= (safe ? safeDistance : validDistance)) continue;
+                IAcceleration candidate = new Acceleration(new Vector(ax, ay));
+                if (!moveValidator.isValidMove(this, position, candidate, circuit, currentPlayers)) continue;
+                if (safe) {
+                    safeMove = candidate;
+                    safeDistance = distance;
+                } else {
+                    validMove = candidate;
+                    validDistance = distance;
+                }
+            }
+        }
+        if (safeMove != null) {
+            return safeMove;
+        }
+        if (moveValidator.isValidMove(this, position, preferred, circuit, currentPlayers)) {
+            return preferred;
+        }
+        return validMove != null ? validMove : preferred;
+    }
+
+    /**
+     * Prepara la richiesta con cui la decisione di questo bot può essere
+     * calcolata in lotto insieme a quelle degli altri bot, se la sua
+     * strategia lo supporta.
+     *
+     * @return la richiesta, o null se il bot decide da solo
+     */
+    public BatchedMovementStrategy.Request batchRequest() {
+        if (this.movementContext == null || this.circuit == null) {
+            return null;
+        }
+        IPosition nextCheckpoint = currentTarget();
+        if (nextCheckpoint == null) {
+            return null;
+        }
+        return movementContext.batchRequest(getCar().getPosition(), getCar().getVelocity(), opponentPositions(),
+            circuit, nextCheckpoint);
+    }
+
+    private List<IPosition> opponentPositions() {
+        return currentPlayers.stream()
+            .filter(p -> p != this && p.isActive())
+            .map(p -> p.getCar().getPosition())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Il prossimo checkpoint da raggiungere o, se non ce ne sono più, la
+     * linea del traguardo.
+     */
+    private IPosition currentTarget() {
+        IPosition nextCheckpoint = checkpointManager.getNextCheckpoint(this);
+        if (nextCheckpoint == null && !circuit.getFinishPositions().isEmpty()) {
+            nextCheckpoint = circuit.getFinishPositions().get(0);
+        }
+        return nextCheckpoint;
+    }
+
+    /**
+     * Avvia il calcolo delle decisioni per gli stati in cui porteranno la
+     * mossa scelta e le alternative sicure più vicine, che il bot gioca se
+     * la mossa viene ricalcolata nel proprio turno. I calcoli usano una
+     * strategia riservata alla speculazione e un'istantanea prevista dei
+     * giocatori, in cui gli avversari mantengono la loro velocità: il thread
+     * in background non legge mai le auto della partita.
+     */
+    private void speculateNextTurn(IPosition position, IVelocity velocity, IAcceleration move,
+            IPosition target) {
+        if (speculationContext == null) {
+            speculationContext = createMovementContext();
+        }
+        MovementContext context = speculationContext;
+        List<List<IPosition>> lines = checkpointManager.getCheckpointLines();
+        int checkpointIndex = checkpointManager.getNextCheckpointIndex(this);
+        List<IPlayer> players = new ArrayList<>(currentPlayers);
+        if (!players.contains(this)) {
+            players.add(this);
+        }
+
+        Map<SpeculationKey, Supplier<IAcceleration>> planners = new LinkedHashMap<>();
+        for (IAcceleration candidate : speculationCandidates(position, velocity.getCurrentVelocity(), move)) {
+            IVelocity nextVelocity = velocity.addAcceleration(candidate);
+            IPosition nextPosition = position.nextPosition(nextVelocity);
+            TurnSnapshot snapshot = TurnSnapshot.predicted(players, this, nextPosition, nextVelocity);
+            IPlayer predictedSelf = snapshot.frozen(this);
+            List<IPlayer> predictedPlayers = snapshot.getPlayers();
+            List<IPosition> predictedOpponents = predictedPlayers.stream()
+                .filter(p -> p != predictedSelf && p.isActive())
+                .map(p -> p.getCar().getPosition())
+                .collect(Collectors.toList());
+            IVector nextVector = nextVelocity.getCurrentVelocity();
+            planners.putIfAbsent(new SpeculationKey(nextPosition, nextVector.getX(), nextVector.getY(), target), () -> {
+                context.setGameContext(predictedSelf, predictedPlayers);
+                context.setLapContext(lines, checkpointIndex);
+                return context.calculateNextMove(nextPosition, nextVelocity, predictedOpponents, circuit, target);
+            });
+        }
+        speculativePlanner.speculate(planners);
+    }
+
+    /**
+     * La mossa scelta seguita dalle alternative valide dopo cui l'auto può
+     * ancora fermarsi, dalla più vicina alla più lontana, in tutto al più
+     * {@link #SPECULATION_CANDIDATES}.
+     */
+    private List<IAcceleration> speculationCandidates(IPosition position, IVector velocity, IAcceleration chosen) {
+        IVector preferred = chosen.getAccelerationVector();
+        List<IAcceleration> alternatives = new ArrayList<>();
+        for (int ay = -1; ay <= 1; ay++) {
+            for (int ax = -1; ax <= 1; ax++) {
+                if (ax == preferred.getX() && ay == preferred.getY()) continue;
+                if (!isSafeMove(position, velocity, new Vector(ax, ay))) continue;
+                IAcceleration candidate = new Acceleration(new Vector(ax, ay));
+                if (moveValidator.isValidMove(this, position, candidate, circuit, currentPlayers)) {
+                    alternatives.add(candidate);
+                }
+            }
+        }
+        alternatives.sort(Comparator.comparingInt(candidate -> {
+            IVector vector = candidate.getAccelerationVector();
+            int dx = vector.getX() - preferred.getX();
+            int dy = vector.getY() - preferred.getY();
+            return dx * dx + dy * dy;
+        }));
+        List<IAcceleration> candidates = new ArrayList<>(SPECULATION_CANDIDATES);
+        candidates.add(chosen);
+        candidates.addAll(alternatives.subList(0, Math.min(alternatives.size(), SPECULATION_CANDIDATES - 1)));
+        return candidates;
+    }
+
     @Override
     public boolean isBot() {
         return true;
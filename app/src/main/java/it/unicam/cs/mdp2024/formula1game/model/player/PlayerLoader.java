@@ -1,6 +1,7 @@
 package it.unicam.cs.mdp2024.formula1game.model.player;
 
 import it.unicam.cs.mdp2024.formula1game.model.game.Game2;
+import it.unicam.cs.mdp2024.formula1game.model.strategy.MovementStrategyFactory;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
@@ -42,8 +43,9 @@ public class PlayerLoader implements IPlayerLoader {
                 int strategy;
                 try {
                     strategy = Integer.parseInt(strategyStr);
-                    if (strategy < 1 || strategy > 2) {
-                        throw new InvalidPlayerFormatException("Codice strategia non valido (deve essere 1 o 2)", lineNumber);
+                    if (!MovementStrategyFactory.isValidCode(strategy)) {
+                        throw new InvalidPlayerFormatException("Codice strategia non valido (deve essere tra 1 e "
+                                + MovementStrategyFactory.MAX_STRATEGY_CODE + ")", lineNumber);
                     }
                 } catch (NumberFormatException e) {
                     throw new InvalidPlayerFormatException("Codice strategia deve essere un numero", lineNumber);
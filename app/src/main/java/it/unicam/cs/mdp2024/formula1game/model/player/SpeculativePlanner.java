@@ -0,0 +1,280 @@
+package it.unicam.cs.mdp2024.formula1game.model.player;
+
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Pianificazione speculativa di un bot durante i turni degli avversari.
+ * Dopo aver scelto una mossa il bot conosce già lo stato in cui si troverà
+ * al turno successivo, quindi può calcolarne in anticipo la decisione in
+ * background; al proprio turno la usa se lo stato reale coincide con quello
+ * previsto, altrimenti la scarta. Si possono prevedere più stati, uno per
+ * ogni mossa che il bot potrebbe ancora giocare: i calcoli vengono eseguiti
+ * uno dopo l'altro, nell'ordine indicato, in un solo thread.
+ * I calcoli devono leggere solo dati immutabili e usare una strategia
+ * riservata alla speculazione; il pianificatore garantisce che due calcoli
+ * non si sovrappongano, perché {@link #speculate} e {@link #discard()}
+ * attendono l'uscita del thread di quelli già avviati.
+ * Tiene traccia di successi, scarti e tempo di calcolo sprecato.
+ */
+public final class SpeculativePlanner {
+
+    private static final ExecutorService SHARED_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Calcolo della decisione per uno stato previsto.
+     */
+    private static final class Speculation {
+        private final FutureTask<IAcceleration> task;
+        private volatile long nanos;
+        /** Il thread è arrivato al calcolo: annullarlo non lo ferma più. */
+        private volatile boolean started;
+        /** Il tempo del calcolo è già stato conteggiato come risparmiato o sprecato. */
+        private boolean accounted;
+
+        Speculation(Supplier<IAcceleration> planner) {
+            this.task = new FutureTask<>(() -> {
+                long start = System.nanoTime();
+                try {
+                    return planner.get();
+                } finally {
+                    nanos = System.nanoTime() - start;
+                }
+            });
+        }
+    }
+
+    private final ExecutorService executor;
+    private Map<Object, Speculation> pending;
+    private List<Speculation> batch;
+    private CountDownLatch finished;
+    private long started;
+    private long hits;
+    private long misses;
+    private long rejected;
+    private long cancelled;
+    private long wastedNanos;
+    private long savedNanos;
+
+    /**
+     * Crea un pianificatore che usa i thread virtuali condivisi tra i bot.
+     */
+    public SpeculativePlanner() {
+        this(SHARED_EXECUTOR);
+    }
+
+    /**
+     * Crea un pianificatore che esegue i calcoli con l'esecutore indicato.
+     *
+     * @param executor l'esecutore dei calcoli speculativi
+     * @throws IllegalArgumentException se l'esecutore è null
+     */
+    public SpeculativePlanner(ExecutorService executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("L'esecutore non può essere null");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Avvia in background il calcolo della decisione per uno stato previsto,
+     * scartando gli eventuali calcoli precedenti.
+     *
+     * @param key     lo stato previsto, confrontato con {@code equals}
+     * @param planner il calcolo della decisione
+     */
+    public synchronized void speculate(Object key, Supplier<IAcceleration> planner) {
+        speculate(Map.of(key, planner));
+    }
+
+    /**
+     * Avvia in background il calcolo delle decisioni per più stati previsti,
+     * dal più probabile al meno probabile, scartando gli eventuali calcoli
+     * precedenti.
+     *
+     * @param planners i calcoli delle decisioni per ogni stato previsto, nell'ordine di esecuzione
+     * @throws IllegalArgumentException se non viene indicato alcuno stato
+     */
+    public synchronized void speculate(Map<?, Supplier<IAcceleration>> planners) {
+        if (planners.isEmpty()) {
+            throw new IllegalArgumentException("Serve almeno uno stato da prevedere");
+        }
+        discard();
+        pending = new LinkedHashMap<>();
+        List<Speculation> speculations = new ArrayList<>(planners.size());
+        for (Map.Entry<?, Supplier<IAcceleration>> entry : planners.entrySet()) {
+            Speculation speculation = new Speculation(entry.getValue());
+            pending.put(entry.getKey(), speculation);
+            speculations.add(speculation);
+        }
+        batch = speculations;
+        CountDownLatch latch = new CountDownLatch(1);
+        finished = latch;
+        started += speculations.size();
+        executor.execute(() -> {
+            try {
+                // Un calcolo annullato prima di partire termina subito
+                for (Speculation speculation : speculations) {
+                    speculation.started = true;
+                    speculation.task.run();
+                }
+            } finally {
+                latch.countDown();
+            }
+        });
+    }
+
+    /**
+     * Restituisce la decisione speculativa se è stata calcolata per lo stato
+     * reale ed è ancora accettabile; in ogni altro caso la scarta. Le
+     * speculazioni sugli altri stati non ancora partite vengono annullate;
+     * di quella eventualmente in corso si attende la fine solo alla
+     * prossima speculazione.
+     * Attende la fine del calcolo per lo stato reale se è ancora in corso.
+     *
+     * @param key        lo stato reale
+     * @param stillValid verifica la decisione sullo stato reale
+     * @return la decisione, o null se il bot deve calcolarla ora
+     */
+    public synchronized IAcceleration take(Object key, Predicate<IAcceleration> stillValid) {
+        if (pending == null) {
+            return null;
+        }
+        Speculation speculation = pending.remove(key);
+        cancelPending();
+        if (speculation == null) {
+            misses++;
+            return null;
+        }
+        IAcceleration result = await(speculation);
+        speculation.accounted = true;
+        if (result == null || !stillValid.test(result)) {
+            rejected++;
+            wastedNanos += speculation.nanos;
+            result = null;
+        } else {
+            hits++;
+            savedNanos += speculation.nanos;
+        }
+        return result;
+    }
+
+    /**
+     * Scarta i calcoli in corso: quelli non ancora partiti vengono annullati,
+     * degli altri si attende la fine perché usano la strategia riservata alla
+     * speculazione.
+     */
+    public synchronized void discard() {
+        if (batch == null) {
+            return;
+        }
+        cancelPending();
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Un calcolo mai eseguito ha durata nulla
+        for (Speculation speculation : batch) {
+            if (!speculation.accounted) {
+                wastedNanos += speculation.nanos;
+            }
+        }
+        batch = null;
+        finished = null;
+    }
+
+    /**
+     * Annulla le speculazioni non ancora verificate che non sono partite;
+     * da qui in poi nessuna può più essere presa.
+     */
+    private void cancelPending() {
+        if (pending == null) {
+            return;
+        }
+        for (Speculation speculation : pending.values()) {
+            if (speculation.task.cancel(false) && !speculation.started) {
+                cancelled++;
+            }
+        }
+        pending = null;
+    }
+
+    private static IAcceleration await(Speculation speculation) {
+        try {
+            return speculation.task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | CancellationException e) {
+            return null;
+        }
+    }
+
+    public synchronized long getStarted() {
+        return started;
+    }
+
+    /**
+     * @return decisioni speculative usate al posto di un calcolo nel turno
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return turni in cui nessuna speculazione era per lo stato reale
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return speculazioni sullo stato giusto ma non più valide, ad esempio
+     *         per una collisione con un avversario
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return speculazioni annullate prima di partire
+     */
+    public synchronized long getCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return frazione delle speculazioni verificate che è stata usata
+     */
+    public synchronized double getHitRate() {
+        long checked = hits + misses + rejected;
+        return checked == 0 ? 0 : (double) hits / checked;
+    }
+
+    /**
+     * @return tempo di calcolo speso in speculazioni scartate, in nanosecondi
+     */
+    public synchronized long getWastedNanos() {
+        return wastedNanos;
+    }
+
+    /**
+     * @return tempo di calcolo tolto ai turni grazie alle speculazioni usate, in nanosecondi
+     */
+    public synchronized long getSavedNanos() {
+        return savedNanos;
+    }
+}
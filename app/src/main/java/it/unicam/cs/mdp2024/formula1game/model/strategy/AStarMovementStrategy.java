@@ -1,6 +1,14 @@
 package it.unicam.cs.mdp2024.formula1game.model.strategy;
 
 import it.unicam.cs.mdp2024.formula1game.model.algorithms.AStar;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.AnytimeAStar;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.CompactPath;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.DStarLite;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.HierarchicalPathFinder;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.IPathFinder;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.LapPlanner;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.PathCache;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.Trajectory;
 import it.unicam.cs.mdp2024.formula1game.model.car.Car;
 import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
 import it.unicam.cs.mdp2024.formula1game.model.game.DefaultMoveValidator;
@@ -13,18 +21,63 @@ import java.util.*;
 /**
  * Implementazione della strategia di movimento basata sull'algoritmo A*.
  * Ottimizza il percorso considerando velocità, ostacoli e checkpoint.
+ * Se abilitata con {@link #setLapFollowing(boolean)} e conosce le
+ * informazioni sul giro, segue una traiettoria pianificata sull'intero giro,
+ * tornando alla guida per checkpoint se la traiettoria non è disponibile o
+ * porterebbe a urtare un avversario.
+ * Con {@link #setHierarchicalPathfinding(boolean)} i percorsi tra i
+ * checkpoint vengono calcolati con HPA*, più rapido sui circuiti molto
+ * grandi ma non sempre ottimo.
  */
-public class AStarMovementStrategy implements MovementStrategy {
-    private final AStar pathFinder;
+public class AStarMovementStrategy implements MovementStrategy, LapAware {
+    private final IPathFinder pathFinder;
+    private final IPathFinder hierarchicalPathFinder;
+    private boolean hierarchicalPathfinding;
     private final DefaultMoveValidator moveValidator;
     private MovementWeights weights;
     private final IPlayer dummyPlayer;
-    private List<IPosition> currentPath;
+    private CompactPath currentPath;
     private IPosition currentTarget;
+    private DStarLite replanner;
+    private PathCache pathCache;
+    private ICircuit pathCacheCircuit;
+    private final AnytimeAStar anytimePlanner;
+    private IPosition sessionStart;
+    private IVelocity sessionStartVelocity;
+    private long planningTimeBudgetNanos;
+    private int planningExpansionBudget;
+    private final LapPlanner lapPlanner;
+    private List<List<IPosition>> lapCheckpointLines;
+    private int lapCheckpointIndex;
+    private boolean lapFollowing;
+    private Trajectory lapTrajectory;
+    private int lapCursor;
     private static final double OPTIMAL_SPEED = 3.0; // Velocità ottimale bilanciata
+    private static final int DEFAULT_EXPANSION_BUDGET = 4000; // Espansioni ARA* per turno
+    // Penalizza velocità troppo alte o troppo basse; il rischio decade in 3 celle
+    private static final MoveScoringKernel.Profile SCORING = new MoveScoringKernel.Profile(
+            speed -> 1.0 / (1.0 + Math.abs(speed - OPTIMAL_SPEED)), 3.0);
+    private final MoveScoringKernel scoringKernel = new MoveScoringKernel(SCORING);
 
     public AStarMovementStrategy(DefaultMoveValidator moveValidator) {
-        this.pathFinder = new AStar();
+        this(moveValidator, new AStar());
+    }
+
+    /**
+     * Crea la strategia usando l'algoritmo di ricerca indicato per i percorsi
+     * calcolati senza budget, ad esempio {@code HierarchicalPathFinder} sui
+     * circuiti molto grandi.
+     *
+     * @param moveValidator validatore delle mosse
+     * @param pathFinder    algoritmo di ricerca del percorso
+     */
+    public AStarMovementStrategy(DefaultMoveValidator moveValidator, IPathFinder pathFinder) {
+        this.pathFinder = pathFinder;
+        this.hierarchicalPathFinder = new HierarchicalPathFinder();
+        this.anytimePlanner = new AnytimeAStar();
+        this.lapPlanner = new LapPlanner();
+        this.planningTimeBudgetNanos = 0;
+        this.planningExpansionBudget = DEFAULT_EXPANSION_BUDGET;
         this.moveValidator = moveValidator;
         this.weights = new MovementWeights(0.6, 0.3, 0.4, 0.5); // Pesi bilanciati
         
@@ -36,7 +89,7 @@ public class AStarMovementStrategy implements MovementStrategy {
         );
         this.dummyPlayer = createDummyPlayer("TEST_BOT", "black", dummyCar);
         
-        this.currentPath = new ArrayList<>();
+        this.currentPath = CompactPath.empty();
     }
 
     private IPlayer createDummyPlayer(String name, String color, Car car) {
@@ -49,11 +102,28 @@ public class AStarMovementStrategy implements MovementStrategy {
     public IAcceleration calculateMove(IPosition currentPosition, IVelocity currentVelocity,
             List<IPosition> opponentPositions, ICircuit circuit,
             IPosition nextCheckpoint) {
+
+        // Segue la traiettoria del giro, se disponibile
+        IAcceleration lapMove = followLapTrajectory(currentPosition, currentVelocity, opponentPositions, circuit);
+        if (lapMove != null) {
+            return lapMove;
+        }
             
         // Aggiorna il percorso se il target è cambiato
         if (!nextCheckpoint.equals(currentTarget)) {
             currentTarget = nextCheckpoint;
-            currentPath = pathFinder.findPath(currentPosition, nextCheckpoint, circuit);
+            replanner = null;
+            planNewTarget(currentPosition, currentVelocity, circuit);
+        }
+
+        // Prosegue la pianificazione anytime entro il budget del turno
+        if (anytimePlanner.hasSession(currentTarget, circuit) && !anytimePlanner.isOptimal()) {
+            refinePath(currentPosition, circuit);
+        }
+
+        // Ripara il percorso se un avversario lo sta bloccando
+        if (isPathBlocked(opponentPositions)) {
+            repairPath(currentPosition, opponentPositions, circuit);
         }
 
         // Se il percorso è vuoto, calcola una mossa basata sulla posizione attuale
@@ -78,14 +148,194 @@ public class AStarMovementStrategy implements MovementStrategy {
                 opponentPositions, circuit, nextWaypoint, nextCheckpoint);
     }
 
+    @Override
+    public void setLapContext(List<List<IPosition>> checkpointLines, int nextCheckpointIndex) {
+        this.lapCheckpointLines = checkpointLines;
+        this.lapCheckpointIndex = nextCheckpointIndex;
+    }
+
+    /**
+     * Abilita o disabilita l'inseguimento della traiettoria sull'intero giro.
+     * È disabilitato di default: la strategia guida da un checkpoint al
+     * successivo con il percorso calcolato da A*.
+     *
+     * @param enabled true per seguire la traiettoria del giro
+     */
+    public void setLapFollowing(boolean enabled) {
+        this.lapFollowing = enabled;
+        if (!enabled) {
+            lapTrajectory = null;
+        }
+    }
+
+    public boolean isLapFollowing() {
+        return lapFollowing;
+    }
+
+    /**
+     * Abilita o disabilita il calcolo dei percorsi tra i checkpoint con HPA*.
+     * Il percorso viene calcolato in un'unica ricerca sul grafo astratto al
+     * posto di ARA* o A*; non essendo ottimo non entra nella cache condivisa
+     * dei percorsi. È disabilitato di default.
+     *
+     * @param enabled true per usare la ricerca gerarchica
+     */
+    public void setHierarchicalPathfinding(boolean enabled) {
+        if (enabled != hierarchicalPathfinding) {
+            this.hierarchicalPathfinding = enabled;
+            // Il percorso corrente viene ricalcolato al turno successivo
+            currentTarget = null;
+        }
+    }
+
+    public boolean isHierarchicalPathfinding() {
+        return hierarchicalPathfinding;
+    }
+
+    private IAcceleration followLapTrajectory(IPosition currentPosition, IVelocity currentVelocity,
+            List<IPosition> opponentPositions, ICircuit circuit) {
+        if (!lapFollowing || lapCheckpointLines == null) {
+            return null;
+        }
+
+        int index = lapTrajectory == null ? -1 : lapTrajectory.indexOf(currentPosition, currentVelocity, lapCursor);
+        if (index < 0 || !lapTrajectory.hasNext(index)) {
+            // Fuori traiettoria o giro concluso: si ripianifica dallo stato attuale
+            lapTrajectory = lapPlanner.plan(circuit, lapCheckpointLines, lapCheckpointIndex,
+                    currentPosition, currentVelocity);
+            index = 0;
+            if (lapTrajectory == null || !lapTrajectory.hasNext(index)) {
+                lapTrajectory = null;
+                return null;
+            }
+        }
+        lapCursor = index;
+
+        // La traiettoria non tiene conto degli avversari: se la prossima mossa
+        // porta troppo vicino a uno di loro si usa la guida per checkpoint
+        IAcceleration acceleration = lapTrajectory.accelerationAt(index);
+        IPosition nextPosition = currentPosition.nextPosition(currentVelocity.addAcceleration(acceleration));
+        for (IPosition opponent : opponentPositions) {
+            if (nextPosition.distanceTo(opponent) <= 1.0) {
+                return null;
+            }
+        }
+        return acceleration;
+    }
+
+    /**
+     * Imposta il budget di pianificazione per turno.
+     * Con un budget positivo il percorso viene calcolato con ARA* e raffinato
+     * nei turni successivi; con entrambi i valori non positivi si torna alla
+     * ricerca A* completa.
+     *
+     * @param timeBudgetNanos budget di tempo in nanosecondi, 0 per nessun limite
+     * @param expansionBudget numero massimo di espansioni per turno, 0 per nessun limite
+     */
+    public void setPlanningBudget(long timeBudgetNanos, int expansionBudget) {
+        this.planningTimeBudgetNanos = Math.max(0, timeBudgetNanos);
+        this.planningExpansionBudget = Math.max(0, expansionBudget);
+    }
+
+    private boolean hasPlanningBudget() {
+        return planningTimeBudgetNanos > 0 || planningExpansionBudget > 0;
+    }
+
+    private void planNewTarget(IPosition currentPosition, IVelocity currentVelocity, ICircuit circuit) {
+        if (hierarchicalPathfinding) {
+            anytimePlanner.clearSession();
+            currentPath = CompactPath.of(
+                    hierarchicalPathFinder.findPath(currentPosition, currentTarget, circuit, currentVelocity));
+            return;
+        }
+
+        PathCache cache = getPathCache(circuit);
+        if (!hasPlanningBudget()) {
+            anytimePlanner.clearSession();
+            currentPath = cache.getOrCompute(currentPosition, currentVelocity, currentTarget,
+                    () -> pathFinder.findPath(currentPosition, currentTarget, circuit, currentVelocity));
+            return;
+        }
+
+        CompactPath cachedPath = cache.find(currentPosition, currentVelocity, currentTarget);
+        if (cachedPath != null) {
+            anytimePlanner.clearSession();
+            currentPath = cachedPath;
+            return;
+        }
+
+        sessionStart = currentPosition;
+        sessionStartVelocity = currentVelocity;
+        anytimePlanner.startSession(currentPosition, currentTarget, circuit, currentVelocity);
+        currentPath = CompactPath.empty();
+    }
+
+    private void refinePath(IPosition currentPosition, ICircuit circuit) {
+        int expansionBudget = planningExpansionBudget > 0 ? planningExpansionBudget : Integer.MAX_VALUE;
+        AnytimeAStar.Result result = anytimePlanner.improve(planningTimeBudgetNanos, expansionBudget);
+
+        // Solo i percorsi ottimi finiscono nella cache condivisa
+        if (result.isOptimal() && result.isComplete()) {
+            getPathCache(circuit).store(sessionStart, sessionStartVelocity, currentTarget, result.getPath());
+        }
+        currentPath = trimToPosition(result.getPath(), currentPosition);
+    }
+
+    private CompactPath trimToPosition(List<IPosition> path, IPosition currentPosition) {
+        // Il percorso parte dallo stato iniziale della sessione: si scartano
+        // i punti che precedono quello più vicino alla posizione attuale
+        CompactPath trimmed = CompactPath.of(path);
+        trimmed.advanceToNearest(currentPosition);
+        return trimmed;
+    }
+
+    private PathCache getPathCache(ICircuit circuit) {
+        // La cache è condivisa tra tutti i bot dello stesso circuito
+        if (circuit != pathCacheCircuit) {
+            pathCache = PathCache.forCircuit(circuit);
+            pathCacheCircuit = circuit;
+        }
+        return pathCache;
+    }
+
+    private boolean isPathBlocked(List<IPosition> opponentPositions) {
+        for (IPosition opponent : opponentPositions) {
+            // Stessa soglia usata dal validatore per le collisioni
+            if (currentPath.passesNear(opponent, 1.0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void repairPath(IPosition currentPosition, List<IPosition> opponentPositions, ICircuit circuit) {
+        if (!circuit.isValidPosition(currentPosition) || !circuit.isValidPosition(currentTarget)) {
+            return;
+        }
+
+        // Il pianificatore incrementale viene creato una sola volta per target:
+        // le riparazioni successive costano in proporzione al cambiamento
+        if (replanner == null) {
+            replanner = new DStarLite(circuit, currentPosition, currentTarget);
+        } else {
+            replanner.moveStart(currentPosition);
+        }
+        replanner.updateObstacles(opponentPositions);
+
+        List<IPosition> repairedPath = replanner.findPath();
+        if (!repairedPath.isEmpty()) {
+            currentPath = CompactPath.of(repairedPath);
+        }
+    }
+
     private IPosition findNextWaypoint(IPosition currentPosition) {
-        // Rimuovi i waypoint già raggiunti
-        while (!currentPath.isEmpty() && currentPosition.distanceTo(currentPath.get(0)) < 2.0) {
-            currentPath.remove(0);
+        // Salta i waypoint già raggiunti spostando il cursore
+        while (!currentPath.isEmpty() && currentPosition.distanceTo(currentPath.peek()) < 2.0) {
+            currentPath.advance();
         }
         
         // Se non ci sono più waypoint, usa il target finale
-        return currentPath.isEmpty() ? currentTarget : currentPath.get(0);
+        return currentPath.isEmpty() ? currentTarget : currentPath.peek();
     }
 
     private IAcceleration calculateDirectMove(IPosition currentPosition, IVelocity currentVelocity,
@@ -110,17 +360,15 @@ public class AStarMovementStrategy implements MovementStrategy {
             IVelocity currentVelocity, List<IPosition> opponentPositions,
             ICircuit circuit) {
         List<IAcceleration> validMoves = new ArrayList<>();
+        List<IPlayer> opponents = createDummyPlayers(opponentPositions);
 
         // Genera tutte le possibili accelerazioni (-1, 0, 1 per x e y)
         for (int dx = -1; dx <= 1; dx++) {
             for (int dy = -1; dy <= 1; dy++) {
                 IAcceleration acc = new Acceleration(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(dx, dy));
-                IVelocity newVelocity = currentVelocity.addAcceleration(acc);
-                IPosition newPosition = currentPosition.nextPosition(newVelocity);
 
                 // Verifica se la mossa è valida considerando gli avversari
-                if (moveValidator.isValidMove(dummyPlayer, currentPosition, acc, circuit, 
-                        createDummyPlayers(opponentPositions))) {
+                if (moveValidator.isValidMove(dummyPlayer, currentPosition, acc, circuit, opponents)) {
                     validMoves.add(acc);
                 }
             }
@@ -151,16 +399,14 @@ public class AStarMovementStrategy implements MovementStrategy {
         
         IAcceleration bestAcceleration = validAccelerations.get(0);
         double bestScore = Double.NEGATIVE_INFINITY;
+        scoringKernel.prepare(currentPosition, currentVelocity, opponentPositions);
 
         for (IAcceleration acc : validAccelerations) {
-            IVelocity newVelocity = currentVelocity.addAcceleration(acc);
-            IPosition newPosition = currentPosition.nextPosition(newVelocity);
+            int candidate = MoveScoringKernel.indexOf(acc);
 
             // Calcola il punteggio considerando sia il waypoint che il target finale
-            double waypointScore = evaluateMove(newPosition, newVelocity, 
-                    opponentPositions, circuit, waypoint);
-            double targetScore = evaluateMove(newPosition, newVelocity, 
-                    opponentPositions, circuit, finalTarget);
+            double waypointScore = evaluateMove(candidate, waypoint);
+            double targetScore = evaluateMove(candidate, finalTarget);
             
             // Combina i punteggi dando più peso al waypoint
             double score = (waypointScore * 0.7) + (targetScore * 0.3);
@@ -174,74 +420,21 @@ public class AStarMovementStrategy implements MovementStrategy {
         return bestAcceleration;
     }
 
-    private double evaluateMove(IPosition newPosition, IVelocity newVelocity,
-            List<IPosition> opponentPositions, ICircuit circuit,
-            IPosition target) {
+    private double evaluateMove(int candidate, IPosition target) {
         double score = 0.0;
 
         // Valuta efficienza del percorso
-        double distanceToTarget = newPosition.distanceTo(target);
-        score += weights.getPathEfficiencyWeight() * (1.0 / (distanceToTarget + 1));
+        score += weights.getPathEfficiencyWeight() * scoringKernel.targetProximity(candidate, target);
 
         // Valuta controllo della velocità
-        double speedScore = evaluateSpeed(newVelocity);
-        score += weights.getSpeedControlWeight() * speedScore;
+        score += weights.getSpeedControlWeight() * scoringKernel.speedScore(candidate);
 
         // Valuta rischio collisioni
-        double collisionRisk = evaluateCollisionRisk(newPosition, opponentPositions);
-        score += weights.getCollisionAvoidanceWeight() * (1.0 - collisionRisk);
+        score += weights.getCollisionAvoidanceWeight() * (1.0 - scoringKernel.collisionRisk(candidate));
 
         // Valuta allineamento al target
-        double alignmentScore = evaluateTargetAlignment(newPosition, newVelocity, target);
-        score += weights.getCheckpointAlignmentWeight() * alignmentScore;
+        score += weights.getCheckpointAlignmentWeight() * scoringKernel.targetAlignment(candidate, target);
 
         return score;
     }
-
-    private double evaluateSpeed(IVelocity velocity) {
-        // Penalizza velocità troppo alte o troppo basse
-        IVector velocityVector = velocity.getCurrentVelocity();
-        double speed = Math.sqrt(
-                velocityVector.getX() * velocityVector.getX() +
-                        velocityVector.getY() * velocityVector.getY());
-        
-        return 1.0 / (1.0 + Math.abs(speed - OPTIMAL_SPEED));
-    }
-
-    private double evaluateCollisionRisk(IPosition position, List<IPosition> opponentPositions) {
-        if (opponentPositions.isEmpty()) {
-            return 0.0;
-        }
-
-        double minDistance = Double.POSITIVE_INFINITY;
-        for (IPosition opponent : opponentPositions) {
-            double distance = position.distanceTo(opponent);
-            minDistance = Math.min(minDistance, distance);
-        }
-
-        // Normalizza il rischio di collisione con una funzione esponenziale
-        return Math.exp(-minDistance / 3.0);
-    }
-
-    private double evaluateTargetAlignment(IPosition position, IVelocity velocity,
-            IPosition target) {
-        // Calcola l'angolo tra la velocità e la direzione verso il target
-        IVector velocityVector = velocity.getCurrentVelocity();
-        IVector directionVector = position.vectorTo(target);
-
-        double vx = velocityVector.getX();
-        double vy = velocityVector.getY();
-        double dx = directionVector.getX();
-        double dy = directionVector.getY();
-
-        // Prodotto scalare normalizzato per ottenere il coseno dell'angolo
-        double magnitude = Math.sqrt((vx * vx + vy * vy) * (dx * dx + dy * dy));
-        if (magnitude < 0.0001) // Evita divisione per zero
-            return 0;
-
-        double dotProduct = (vx * dx + vy * dy) / magnitude;
-
-        // Converte in un punteggio da 0 a 1, dove 1 è perfettamente allineato
-        return (dotProduct + 1.0) / 2.0;
-    }
 }
@@ -0,0 +1,47 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+
+import java.util.List;
+
+/**
+ * Strategia di movimento in grado di calcolare insieme le decisioni di più
+ * bot, ad esempio valutando una rete neurale su un unico lotto.
+ * All'inizio di un giro la partita raccoglie le richieste dei bot, le
+ * raggruppa per {@link #batchKey()} e passa ogni gruppo a
+ * {@link #decideBatch(List)}; ogni strategia userà poi il proprio risultato
+ * nella successiva {@link #calculateMove}, se lo stato non è cambiato.
+ */
+public interface BatchedMovementStrategy extends MovementStrategy {
+
+    /**
+     * Stato di un bot da valutare nel lotto, con gli stessi argomenti di
+     * {@link MovementStrategy#calculateMove}.
+     *
+     * @param strategy          la strategia del bot
+     * @param position          posizione attuale
+     * @param velocity          velocità attuale
+     * @param opponentPositions posizioni degli avversari
+     * @param circuit           il circuito
+     * @param nextCheckpoint    il prossimo checkpoint da raggiungere
+     */
+    record Request(BatchedMovementStrategy strategy, IPosition position, IVelocity velocity,
+            List<IPosition> opponentPositions, ICircuit circuit, IPosition nextCheckpoint) {
+    }
+
+    /**
+     * @return chiave del lotto: le strategie con chiavi uguali possono essere
+     *         valutate insieme da una qualunque di esse
+     */
+    Object batchKey();
+
+    /**
+     * Calcola in un unico lotto le decisioni delle richieste indicate e le
+     * consegna alle rispettive strategie.
+     *
+     * @param requests richieste con la stessa {@link #batchKey()}
+     */
+    void decideBatch(List<Request> requests);
+}
@@ -0,0 +1,117 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.BeamSearch;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.DistanceField;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.RaceStateSpace;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+
+import java.util.List;
+
+/**
+ * Strategia di movimento che guarda più turni avanti con una ricerca a
+ * fascio sulle coppie (posizione, velocità), invece di valutare solo le
+ * nove accelerazioni della mossa successiva.
+ * La profondità può essere cambiata durante la partita; l'ultimo risultato
+ * espone latenza ed espansioni della ricerca.
+ */
+public class BeamSearchMovementStrategy implements MovementStrategy {
+
+    private static final int DEFAULT_DEPTH = 8;
+    private static final int DEFAULT_BEAM_WIDTH = 64;
+
+    private final BeamSearch search;
+    private int lookaheadDepth;
+    private ICircuit spaceCircuit;
+    private IPosition spaceTarget;
+    private RaceStateSpace space;
+    private DistanceField distanceField;
+    private BeamSearch.Result lastResult;
+
+    /**
+     * Crea la strategia con profondità e ampiezza del fascio predefinite.
+     */
+    public BeamSearchMovementStrategy() {
+        this(DEFAULT_DEPTH, DEFAULT_BEAM_WIDTH);
+    }
+
+    /**
+     * Crea la strategia con profondità e ampiezza del fascio indicate.
+     *
+     * @param lookaheadDepth numero di turni da guardare avanti
+     * @param beamWidth      numero di stati mantenuti a ogni livello
+     * @throws IllegalArgumentException se i parametri non sono validi
+     */
+    public BeamSearchMovementStrategy(int lookaheadDepth, int beamWidth) {
+        this.search = new BeamSearch(beamWidth);
+        this.lookaheadDepth = requirePositiveDepth(lookaheadDepth);
+    }
+
+    /**
+     * Imposta il numero di turni da guardare avanti.
+     *
+     * @param lookaheadDepth la profondità della ricerca
+     * @throws IllegalArgumentException se la profondità non è positiva
+     */
+    public void setLookaheadDepth(int lookaheadDepth) {
+        this.lookaheadDepth = requirePositiveDepth(lookaheadDepth);
+    }
+
+    private static int requirePositiveDepth(int lookaheadDepth) {
+        if (lookaheadDepth <= 0) {
+            throw new IllegalArgumentException("La profondità deve essere positiva");
+        }
+        return lookaheadDepth;
+    }
+
+    public int getLookaheadDepth() {
+        return lookaheadDepth;
+    }
+
+    /**
+     * @return il risultato dell'ultima ricerca, o null se non ne sono state eseguite
+     */
+    public BeamSearch.Result getLastResult() {
+        return lastResult;
+    }
+
+    @Override
+    public IAcceleration calculateMove(IPosition currentPosition, IVelocity currentVelocity,
+            List<IPosition> opponentPositions, ICircuit circuit, IPosition nextCheckpoint) {
+        if (!circuit.isValidPosition(currentPosition)) {
+            return stay();
+        }
+        if (circuit != spaceCircuit || !nextCheckpoint.equals(spaceTarget)) {
+            // Stima delle mosse mancanti calcolata una volta per obiettivo
+            spaceCircuit = circuit;
+            spaceTarget = nextCheckpoint;
+            space = RaceStateSpace.forTarget(circuit, nextCheckpoint);
+            distanceField = DistanceField.towards(circuit, List.of(nextCheckpoint));
+        }
+
+        IVector v = currentVelocity.getCurrentVelocity();
+        if (Math.abs(v.getX()) > RaceStateSpace.MAX_SPEED || Math.abs(v.getY()) > RaceStateSpace.MAX_SPEED) {
+            return stay();
+        }
+        long rootState = space.encode(0, currentPosition.getRow(), currentPosition.getColumn(), v.getX(), v.getY());
+        lastResult = search.search(space, distanceField, rootState, opponentPositions, lookaheadDepth);
+        if (!lastResult.isFound()) {
+            return stay();
+        }
+        return new Acceleration(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(
+                lastResult.getAccelerationX(), lastResult.getAccelerationY()));
+    }
+
+    @Override
+    public void configureWeights(MovementWeights weights) {
+        // Il fascio ordina gli stati per mosse mancanti all'obiettivo: i pesi non servono
+    }
+
+    private IAcceleration stay() {
+        return new Acceleration(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(0, 0));
+    }
+}
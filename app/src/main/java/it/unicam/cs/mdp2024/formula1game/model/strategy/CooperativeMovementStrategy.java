@@ -0,0 +1,152 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.CooperativeAStar;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.DistanceField;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.RaceStateSpace;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.ReservationTable;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+
+import java.util.List;
+
+/**
+ * Strategia di movimento cooperativa: a ogni turno pianifica le prossime
+ * mosse con un A* nel tempo che rispetta le traiettorie prenotate dalle altre
+ * auto, poi scrive la propria nella tabella condivisa.
+ * Le auto che pianificano prima hanno la precedenza, quelle successive si
+ * adattano; i conflitti vengono così risolti in pianificazione invece che
+ * provando accelerazioni alternative dopo il rifiuto del validatore.
+ * Senza una tabella condivisa la strategia evita solo le posizioni attuali
+ * degli avversari.
+ */
+public class CooperativeMovementStrategy implements MovementStrategy {
+
+    private static final int DEFAULT_WINDOW = 8;
+    private static final int DEFAULT_MAX_EXPANSIONS = 20_000;
+
+    private final CooperativeAStar search;
+    private int window;
+    private ReservationTable sharedTable;
+    private int owner;
+    private ReservationTable localTable;
+    private ICircuit spaceCircuit;
+    private IPosition spaceTarget;
+    private RaceStateSpace space;
+    private DistanceField distanceField;
+    private CooperativeAStar.Result lastResult;
+
+    /**
+     * Crea la strategia con finestra e limite di espansioni predefiniti.
+     */
+    public CooperativeMovementStrategy() {
+        this.search = new CooperativeAStar(DEFAULT_MAX_EXPANSIONS);
+        this.window = DEFAULT_WINDOW;
+    }
+
+    /**
+     * Collega la strategia alla tabella delle prenotazioni condivisa tra le auto.
+     *
+     * @param table la tabella condivisa, o null per pianificare da sola
+     * @param owner identificativo dell'auto nella tabella
+     * @throws IllegalArgumentException se l'identificativo è negativo
+     */
+    public void setReservationTable(ReservationTable table, int owner) {
+        if (owner < 0) {
+            throw new IllegalArgumentException("Identificativo dell'auto non valido: " + owner);
+        }
+        this.sharedTable = table;
+        this.owner = owner;
+    }
+
+    /**
+     * Imposta quanti turni vengono pianificati e prenotati a ogni mossa.
+     *
+     * @param window numero di turni
+     * @throws IllegalArgumentException se la finestra non è positiva
+     */
+    public void setWindow(int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("La finestra deve essere positiva");
+        }
+        this.window = window;
+    }
+
+    /**
+     * @return il risultato dell'ultima ricerca, o null se non ne sono state eseguite
+     */
+    public CooperativeAStar.Result getLastResult() {
+        return lastResult;
+    }
+
+    @Override
+    public IAcceleration calculateMove(IPosition currentPosition, IVelocity currentVelocity,
+            List<IPosition> opponentPositions, ICircuit circuit, IPosition nextCheckpoint) {
+        if (!circuit.isValidPosition(currentPosition)) {
+            return stay();
+        }
+        if (circuit != spaceCircuit || !nextCheckpoint.equals(spaceTarget)) {
+            if (circuit != spaceCircuit) {
+                localTable = null;
+            }
+            spaceCircuit = circuit;
+            spaceTarget = nextCheckpoint;
+            space = RaceStateSpace.forTarget(circuit, nextCheckpoint);
+            distanceField = DistanceField.towards(circuit, List.of(nextCheckpoint));
+        }
+
+        IVector v = currentVelocity.getCurrentVelocity();
+        if (Math.abs(v.getX()) > RaceStateSpace.MAX_SPEED || Math.abs(v.getY()) > RaceStateSpace.MAX_SPEED) {
+            return stay();
+        }
+        ReservationTable table = sharedTable != null ? sharedTable : prepareLocalTable(circuit, opponentPositions);
+        int id = sharedTable != null ? owner : 0;
+        int time = table.getCurrentTime();
+
+        long rootState = space.encode(0, currentPosition.getRow(), currentPosition.getColumn(), v.getX(), v.getY());
+        lastResult = search.search(space, distanceField, rootState, table, id, window);
+
+        // Sostituisce la traiettoria prenotata al turno precedente con quella nuova
+        table.release(id, time + 1);
+        table.reserve(id, time, currentPosition.getRow(), currentPosition.getColumn());
+        for (int i = 0; i < lastResult.getLength(); i++) {
+            long state = lastResult.getState(i);
+            table.reserve(id, time + 1 + i, space.row(state), space.column(state));
+        }
+
+        if (!lastResult.isFound()) {
+            return stay();
+        }
+        long first = lastResult.getState(0);
+        return new Acceleration(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(
+                space.velocityX(first) - v.getX(), space.velocityY(first) - v.getY()));
+    }
+
+    /**
+     * Tabella usata senza prenotazioni condivise: contiene solo le posizioni
+     * attuali degli avversari.
+     */
+    private ReservationTable prepareLocalTable(ICircuit circuit, List<IPosition> opponentPositions) {
+        if (localTable == null) {
+            localTable = new ReservationTable(circuit.getWidth(), circuit.getHeight());
+        }
+        localTable.clear();
+        for (int i = 0; i < opponentPositions.size(); i++) {
+            IPosition opponent = opponentPositions.get(i);
+            localTable.reserve(i + 1, 0, opponent.getRow(), opponent.getColumn());
+        }
+        return localTable;
+    }
+
+    @Override
+    public void configureWeights(MovementWeights weights) {
+        // Il percorso dipende solo dalle distanze e dalle prenotazioni: i pesi non servono
+    }
+
+    private IAcceleration stay() {
+        return new Acceleration(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(0, 0));
+    }
+}
@@ -0,0 +1,135 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.LruCache;
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache limitata e concorrente delle decisioni, indicizzata dall'hash di
+ * Zobrist della situazione locale.
+ * È una tabella a indirizzamento diretto senza lock: ogni posizione è un
+ * long che contiene l'hash, con i quattro bit bassi sostituiti dall'indice
+ * dell'accelerazione. I bit bassi dell'hash scelgono la posizione, quindi
+ * la verifica sul resto dell'hash confronta l'intera chiave. Una nuova
+ * decisione sostituisce quella che occupava la stessa posizione.
+ * Le cache sono condivise tra i bot con la stessa strategia e gli stessi
+ * pesi, anche tra partite successive.
+ */
+public final class DecisionCache {
+
+    /** Capacità predefinita delle cache condivise. */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final int MIN_CAPACITY = 16;
+    private static final long ACTION_MASK = 0xFL;
+    private static final int SHARED_CAPACITY = 16;
+
+    private static final LruCache<Object, DecisionCache> SHARED_CACHES = new LruCache<>(SHARED_CAPACITY);
+
+    private final AtomicLongArray entries;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity numero di decisioni conservate, potenza di due
+     * @throws IllegalArgumentException se la capacità non è una potenza di
+     *                                  due di almeno 16
+     */
+    public DecisionCache(int capacity) {
+        if (capacity < MIN_CAPACITY || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("La capacità deve essere una potenza di due di almeno "
+                    + MIN_CAPACITY + ": " + capacity);
+        }
+        this.entries = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Restituisce la cache condivisa dai bot con la stessa configurazione,
+     * creandola una sola volta anche se più bot la chiedono insieme.
+     *
+     * @param scope la configurazione, confrontata con {@code equals}
+     * @return la cache condivisa
+     */
+    public static DecisionCache shared(Object scope) {
+        DecisionCache cache = SHARED_CACHES.get(scope);
+        if (cache != null) {
+            return cache;
+        }
+        synchronized (SHARED_CACHES) {
+            cache = SHARED_CACHES.get(scope);
+            if (cache == null) {
+                cache = new DecisionCache(DEFAULT_CAPACITY);
+                SHARED_CACHES.put(scope, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * @param hash l'hash della situazione
+     * @return la decisione memorizzata, o null se manca
+     */
+    public IAcceleration get(long hash) {
+        long entry = entries.get((int) hash & mask);
+        if (entry == 0L || (entry & ~ACTION_MASK) != (hash & ~ACTION_MASK)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        int action = (int) (entry & ACTION_MASK) - 1;
+        return new Acceleration(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(action % 3 - 1,
+                action / 3 - 1));
+    }
+
+    /**
+     * Memorizza una decisione. Le accelerazioni con componenti fuori da
+     * {-1, 0, 1} non vengono memorizzate.
+     *
+     * @param hash     l'hash della situazione
+     * @param decision la decisione
+     */
+    public void put(long hash, IAcceleration decision) {
+        IVector vector = decision.getAccelerationVector();
+        if (Math.abs(vector.getX()) > 1 || Math.abs(vector.getY()) > 1) {
+            return;
+        }
+        int action = (vector.getY() + 1) * 3 + vector.getX() + 1;
+        entries.set((int) hash & mask, (hash & ~ACTION_MASK) | (action + 1));
+    }
+
+    /**
+     * Svuota la cache senza azzerare i contatori.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, 0L);
+        }
+    }
+
+    public int getCapacity() {
+        return entries.length();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return frazione delle richieste trovate in cache, 0 se non ce ne sono state
+     */
+    public double getHitRate() {
+        long found = getHits();
+        long total = found + getMisses();
+        return total == 0 ? 0.0 : (double) found / total;
+    }
+}
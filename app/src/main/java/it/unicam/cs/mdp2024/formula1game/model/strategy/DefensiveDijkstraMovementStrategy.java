@@ -1,5 +1,6 @@
 package it.unicam.cs.mdp2024.formula1game.model.strategy;
 
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.DStarLite;
 import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
 import it.unicam.cs.mdp2024.formula1game.model.game.DefaultMoveValidator;
 import it.unicam.cs.mdp2024.formula1game.model.player.IPlayer;
@@ -10,6 +11,10 @@ import java.util.*;
 /**
  * Implementazione di una strategia di movimento difensiva basata su Dijkstra.
  * Cerca di mantenere una distanza di sicurezza dagli altri veicoli.
+ * Il percorso verso il checkpoint è calcolato con Dijkstra su una mappa dei
+ * costi che penalizza la vicinanza ad avversari e muri; la mappa e la
+ * soluzione restano valide tra un turno e l'altro e vengono riparate solo
+ * dove gli avversari si sono spostati.
  */
 public class DefensiveDijkstraMovementStrategy implements MovementStrategy {
     private final DefaultMoveValidator moveValidator;
@@ -18,6 +23,13 @@ public class DefensiveDijkstraMovementStrategy implements MovementStrategy {
     private List<IPlayer> allPlayers;
     private static final double SAFETY_DISTANCE = 2.0;
     private static final double OPTIMAL_SPEED = 3.0;
+    private static final int MIN_LOOKAHEAD = 2;
+    private static final MoveScoringKernel.Profile SCORING = new MoveScoringKernel.Profile(
+            DefensiveDijkstraMovementStrategy::speedScore, SAFETY_DISTANCE);
+    private final MoveScoringKernel scoringKernel = new MoveScoringKernel(SCORING);
+    private final SafetyWeights safetyWeights;
+    private SafetyCostMap costMap;
+    private DStarLite planner;
     private int stationaryTurns = 0;
     private int consecutiveInvalidMoves = 0;
     private IPosition lastTarget;
@@ -26,6 +38,7 @@ public class DefensiveDijkstraMovementStrategy implements MovementStrategy {
     public DefensiveDijkstraMovementStrategy(DefaultMoveValidator moveValidator) {
         this.moveValidator = moveValidator;
         this.weights = new MovementWeights();
+        this.safetyWeights = new SafetyWeights();
         this.currentPath = new ArrayList<>();
     }
 
@@ -63,6 +76,7 @@ public class DefensiveDijkstraMovementStrategy implements MovementStrategy {
             stationaryTurns = 0;
             consecutiveInvalidMoves = 0;
         }
+        updatePath(currentPosition, opponentPositions, nextCheckpoint);
 
         // Lista delle mosse valide, escludendo (0,0)
         List<IAcceleration> validMoves = getValidMovesExcludingStall(currentPosition, currentVelocity, circuit);
@@ -74,8 +88,9 @@ public class DefensiveDijkstraMovementStrategy implements MovementStrategy {
         }
 
         consecutiveInvalidMoves = 0;
+        IPosition waypoint = selectWaypoint(currentVelocity);
         return findBestAcceleration(validMoves, currentPosition, currentVelocity,
-                opponentPositions, circuit, nextCheckpoint);
+                opponentPositions, circuit, waypoint);
     }
 
     private List<IAcceleration> getValidMovesExcludingStall(IPosition currentPosition,
@@ -109,8 +124,37 @@ public class DefensiveDijkstraMovementStrategy implements MovementStrategy {
     }
 
     private void recalculatePath(IPosition start, IPosition target, ICircuit circuit) {
-        currentPath = new ArrayList<>();
-        currentPath.add(target);
+        if (costMap == null || costMap.getCircuit() != circuit) {
+            costMap = new SafetyCostMap(circuit, safetyWeights);
+        }
+        planner = null;
+        if (circuit.isValidPosition(start) && circuit.isValidPosition(target)) {
+            planner = new DStarLite(circuit, start, target, costMap);
+        }
+    }
+
+    private void updatePath(IPosition currentPosition, List<IPosition> opponentPositions, IPosition target) {
+        // Si ricalcolano solo le celle attorno agli avversari che si sono
+        // spostati e si ripara la soluzione del turno precedente
+        List<IPosition> changedCells = costMap.updateOpponents(opponentPositions);
+        if (planner != null) {
+            planner.updateCosts(changedCells);
+            planner.moveStart(currentPosition);
+            currentPath = planner.findPath();
+        }
+        if (planner == null || currentPath.isEmpty()) {
+            // Target irraggiungibile o fuori dal circuito: si punta direttamente
+            currentPath = new ArrayList<>();
+            currentPath.add(target);
+        }
+    }
+
+    private IPosition selectWaypoint(IVelocity currentVelocity) {
+        // Più l'auto è veloce, più avanti si guarda lungo il percorso
+        IVector velocity = currentVelocity.getCurrentVelocity();
+        double speed = Math.sqrt(velocity.getX() * velocity.getX() + velocity.getY() * velocity.getY());
+        int lookahead = Math.max(MIN_LOOKAHEAD, (int) Math.ceil(speed));
+        return currentPath.get(Math.min(lookahead, currentPath.size() - 1));
     }
 
     private boolean isValidMove(IPosition currentPosition, IVelocity currentVelocity,
@@ -182,10 +226,10 @@ public class DefensiveDijkstraMovementStrategy implements MovementStrategy {
         
         IAcceleration bestMove = validMoves.get(0);
         double bestScore = Double.NEGATIVE_INFINITY;
+        scoringKernel.prepare(currentPosition, currentVelocity, opponentPositions);
 
         for (IAcceleration acc : validMoves) {
-            double score = evaluateMove(currentPosition, currentVelocity, acc,
-                    opponentPositions, target);
+            double score = evaluateMove(MoveScoringKernel.indexOf(acc), target);
 
             // Bonus per uscire dallo stallo
             if (stationaryTurns > 0) {
@@ -201,17 +245,11 @@ public class DefensiveDijkstraMovementStrategy implements MovementStrategy {
         return bestMove;
     }
 
-    private double evaluateMove(IPosition currentPosition, IVelocity currentVelocity,
-            IAcceleration acceleration, List<IPosition> opponentPositions,
-            IPosition target) {
-        
-        IVelocity newVelocity = currentVelocity.addAcceleration(acceleration);
-        IPosition newPosition = currentPosition.nextPosition(newVelocity);
-
-        double pathScore = evaluateTargetDistance(newPosition, target);
-        double speedScore = evaluateSpeed(newVelocity);
-        double safetyScore = evaluateSafetyDistance(newPosition, opponentPositions);
-        double alignmentScore = evaluateTargetAlignment(newPosition, newVelocity, target);
+    private double evaluateMove(int candidate, IPosition target) {
+        double pathScore = scoringKernel.targetProximity(candidate, target);
+        double speedScore = scoringKernel.speedScore(candidate);
+        double safetyScore = scoringKernel.hasOpponents() ? scoringKernel.collisionRisk(candidate) : 1.0;
+        double alignmentScore = scoringKernel.targetAlignment(candidate, target);
 
         return (weights.getPathEfficiencyWeight() * pathScore) +
                (weights.getSpeedControlWeight() * speedScore) +
@@ -219,14 +257,7 @@ public class DefensiveDijkstraMovementStrategy implements MovementStrategy {
                (weights.getCheckpointAlignmentWeight() * alignmentScore);
     }
 
-    private double evaluateTargetDistance(IPosition position, IPosition target) {
-        return 1.0 / (1.0 + position.distanceTo(target));
-    }
-
-    private double evaluateSpeed(IVelocity velocity) {
-        double speed = Math.sqrt(velocity.getCurrentVelocity().getX() * velocity.getCurrentVelocity().getX() +
-                velocity.getCurrentVelocity().getY() * velocity.getCurrentVelocity().getY());
-
+    private static double speedScore(double speed) {
         if (speed > 5.0) return 0.0;
 
         if (speed < 1.0) {
@@ -239,34 +270,4 @@ public class DefensiveDijkstraMovementStrategy implements MovementStrategy {
 
         return 1.0 - Math.abs(speed - OPTIMAL_SPEED) / OPTIMAL_SPEED;
     }
-
-    private double evaluateSafetyDistance(IPosition position, List<IPosition> opponentPositions) {
-        if (opponentPositions.isEmpty()) {
-            return 1.0;
-        }
-
-        double minDistance = opponentPositions.stream()
-                .mapToDouble(pos -> position.distanceTo(pos))
-                .min()
-                .orElse(Double.POSITIVE_INFINITY);
-
-        return Math.exp(-minDistance / SAFETY_DISTANCE);
-    }
-
-    private double evaluateTargetAlignment(IPosition position, IVelocity velocity,
-            IPosition target) {
-        IVector velocityVector = velocity.getCurrentVelocity();
-        IVector directionVector = position.vectorTo(target);
-
-        double vx = velocityVector.getX();
-        double vy = velocityVector.getY();
-        double dx = directionVector.getX();
-        double dy = directionVector.getY();
-
-        double magnitude = Math.sqrt((vx * vx + vy * vy) * (dx * dx + dy * dy));
-        if (magnitude < 0.0001) return 0;
-
-        double dotProduct = (vx * dx + vy * dy) / magnitude;
-        return (dotProduct + 1.0) / 2.0;
-    }
 }
@@ -0,0 +1,20 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+
+import java.util.List;
+
+/**
+ * Interfaccia per le strategie di movimento in grado di pianificare l'intero
+ * giro invece del solo tratto fino al prossimo checkpoint.
+ */
+public interface LapAware {
+
+    /**
+     * Aggiorna le informazioni sul giro prima del calcolo della mossa.
+     *
+     * @param checkpointLines     le linee di checkpoint nell'ordine del gioco
+     * @param nextCheckpointIndex indice della prossima linea da attraversare
+     */
+    void setLapContext(List<List<IPosition>> checkpointLines, int nextCheckpointIndex);
+}
@@ -0,0 +1,86 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.ZobristKeys;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitFingerprint;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+
+import java.util.List;
+
+/**
+ * Hash di Zobrist della situazione locale di un'auto, aggiornato in modo
+ * incrementale da una mossa all'altra: cella, velocità, obiettivo e indice
+ * del checkpoint vengono
+ * sostituiti con due XOR solo quando cambiano, mentre la parte degli
+ * avversari vicini, relativa alla posizione dell'auto, viene ricalcolata.
+ * L'impronta del circuito fa parte dell'hash, così situazioni uguali su
+ * circuiti diversi restano distinte.
+ * Non è thread-safe: ogni contesto di movimento ha il proprio.
+ */
+final class LocalStateHash {
+
+    private final ICircuit circuit;
+    private final ZobristKeys keys;
+    private boolean initialized;
+    private int row;
+    private int column;
+    private int vx;
+    private int vy;
+    private int targetRow;
+    private int targetColumn;
+    private int leg;
+    private long opponentsHash;
+    private long hash;
+
+    LocalStateHash(ICircuit circuit) {
+        this.circuit = circuit;
+        this.keys = ZobristKeys.forSize(circuit.getWidth(), circuit.getHeight());
+    }
+
+    ICircuit getCircuit() {
+        return circuit;
+    }
+
+    /**
+     * Porta l'hash sulla situazione indicata.
+     *
+     * @return l'hash della situazione
+     */
+    long update(IPosition position, int vx, int vy, IPosition target, int leg, List<IPosition> opponentPositions) {
+        int newRow = position.getRow();
+        int newColumn = position.getColumn();
+        if (!initialized) {
+            hash = CircuitFingerprint.of(circuit) ^ keys.cell(newRow, newColumn) ^ keys.velocity(vx, vy)
+                    ^ keys.target(target.getRow(), target.getColumn()) ^ keys.leg(leg);
+            initialized = true;
+        } else {
+            if (newRow != row || newColumn != column) {
+                hash ^= keys.cell(row, column) ^ keys.cell(newRow, newColumn);
+            }
+            if (vx != this.vx || vy != this.vy) {
+                hash ^= keys.velocity(this.vx, this.vy) ^ keys.velocity(vx, vy);
+            }
+            if (target.getRow() != targetRow || target.getColumn() != targetColumn) {
+                hash ^= keys.target(targetRow, targetColumn) ^ keys.target(target.getRow(), target.getColumn());
+            }
+            if (leg != this.leg) {
+                hash ^= keys.leg(this.leg) ^ keys.leg(leg);
+            }
+        }
+        row = newRow;
+        column = newColumn;
+        this.vx = vx;
+        this.vy = vy;
+        targetRow = target.getRow();
+        targetColumn = target.getColumn();
+        this.leg = leg;
+
+        long opponents = 0L;
+        for (IPosition opponent : opponentPositions) {
+            opponents ^= keys.opponent(opponent.getRow() - newRow, opponent.getColumn() - newColumn);
+        }
+        hash ^= opponentsHash ^ opponents;
+        opponentsHash = opponents;
+        return hash;
+    }
+}
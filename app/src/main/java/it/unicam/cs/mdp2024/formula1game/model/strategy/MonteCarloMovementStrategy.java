@@ -0,0 +1,132 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.BrakingEnvelope;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.DistanceField;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.MonteCarloTreeSearch;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.RaceStateSpace;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+
+import java.util.List;
+
+/**
+ * Strategia di movimento basata su Monte Carlo Tree Search.
+ * A ogni turno simula, entro un budget di tempo, molte possibili
+ * continuazioni della gara verso il prossimo checkpoint e sceglie
+ * l'accelerazione che le simulazioni hanno premiato più spesso, purché da
+ * lì l'auto possa ancora fermarsi secondo l'{@link BrakingEnvelope
+ * inviluppo di frenata}.
+ */
+public class MonteCarloMovementStrategy implements MovementStrategy {
+
+    private static final long DEFAULT_TIME_BUDGET_NANOS = 20_000_000L;
+
+    private final MonteCarloTreeSearch search;
+    private long timeBudgetNanos;
+    private ICircuit spaceCircuit;
+    private IPosition spaceTarget;
+    private RaceStateSpace space;
+    private DistanceField distanceField;
+    private MonteCarloTreeSearch.Result lastResult;
+
+    /**
+     * Crea la strategia sul pool comune con il budget predefinito.
+     */
+    public MonteCarloMovementStrategy() {
+        this(new MonteCarloTreeSearch());
+    }
+
+    /**
+     * Crea la strategia con la ricerca indicata.
+     *
+     * @param search la ricerca da usare a ogni turno
+     */
+    public MonteCarloMovementStrategy(MonteCarloTreeSearch search) {
+        this.search = search;
+        this.timeBudgetNanos = DEFAULT_TIME_BUDGET_NANOS;
+    }
+
+    /**
+     * Imposta il tempo dedicato alla ricerca a ogni turno.
+     *
+     * @param timeBudgetNanos budget di tempo in nanosecondi
+     * @throws IllegalArgumentException se il budget non è positivo
+     */
+    public void setTimeBudget(long timeBudgetNanos) {
+        if (timeBudgetNanos <= 0) {
+            throw new IllegalArgumentException("Il budget di tempo deve essere positivo");
+        }
+        this.timeBudgetNanos = timeBudgetNanos;
+    }
+
+    /**
+     * @return il risultato dell'ultima ricerca, o null se non ne sono state eseguite
+     */
+    public MonteCarloTreeSearch.Result getLastResult() {
+        return lastResult;
+    }
+
+    @Override
+    public IAcceleration calculateMove(IPosition currentPosition, IVelocity currentVelocity,
+            List<IPosition> opponentPositions, ICircuit circuit, IPosition nextCheckpoint) {
+        if (!circuit.isValidPosition(currentPosition)) {
+            return stay();
+        }
+        if (circuit != spaceCircuit || !nextCheckpoint.equals(spaceTarget)) {
+            spaceCircuit = circuit;
+            spaceTarget = nextCheckpoint;
+            space = RaceStateSpace.forTarget(circuit, nextCheckpoint);
+            distanceField = DistanceField.towards(circuit, List.of(nextCheckpoint));
+        }
+
+        IVector v = currentVelocity.getCurrentVelocity();
+        if (Math.abs(v.getX()) > RaceStateSpace.MAX_SPEED || Math.abs(v.getY()) > RaceStateSpace.MAX_SPEED) {
+            return stay();
+        }
+        long rootState = space.encode(0, currentPosition.getRow(), currentPosition.getColumn(), v.getX(), v.getY());
+        lastResult = search.search(space, distanceField, rootState, opponentPositions, timeBudgetNanos);
+        if (!lastResult.isFound()) {
+            return stay();
+        }
+        return safestMove(lastResult, BrakingEnvelope.of(circuit), currentPosition, v);
+    }
+
+    /**
+     * Le simulazioni si fermano dopo pochi turni e possono premiare una mossa
+     * da cui lo schianto è già inevitabile: in quel caso si sceglie, tra le
+     * mosse esplorate, la più visitata da cui l'auto può ancora fermarsi.
+     */
+    private IAcceleration safestMove(MonteCarloTreeSearch.Result result, BrakingEnvelope envelope,
+            IPosition position, IVector v) {
+        int ax = result.getAccelerationX();
+        int ay = result.getAccelerationY();
+        if (!envelope.isSafeMove(position.getRow(), position.getColumn(), v.getX(), v.getY(), ax, ay)) {
+            long[] visits = result.getVisitsPerAction();
+            long bestVisits = 0;
+            for (int action = 0; action < visits.length; action++) {
+                int x = action % 3 - 1;
+                int y = action / 3 - 1;
+                if (visits[action] > bestVisits
+                        && envelope.isSafeMove(position.getRow(), position.getColumn(), v.getX(), v.getY(), x, y)) {
+                    bestVisits = visits[action];
+                    ax = x;
+                    ay = y;
+                }
+            }
+        }
+        return new Acceleration(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(ax, ay));
+    }
+
+    @Override
+    public void configureWeights(MovementWeights weights) {
+        // Le simulazioni contano le mosse fino all'obiettivo: i pesi non servono
+    }
+
+    private IAcceleration stay() {
+        return new Acceleration(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(0, 0));
+    }
+}
@@ -0,0 +1,258 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Valutazione delle nove accelerazioni candidate tramite tabelle
+ * precalcolate.
+ * Velocità, accelerazioni e scostamenti tra celle sono piccoli interi, quindi
+ * radici, esponenziali e reciproci usati dai punteggi delle strategie vengono
+ * calcolati una volta sola: a ogni turno {@link #prepare} ricava con sole
+ * operazioni intere posizione, velocità, punteggio di velocità e rischio di
+ * collisione di ogni candidata, e i punteggi verso un obiettivo costano poi
+ * qualche accesso agli array, senza creare oggetti.
+ * Le tabelle del {@link Profile} sono immutabili e condivise; un kernel
+ * contiene invece i valori del turno e appartiene a una sola strategia.
+ */
+public final class MoveScoringKernel {
+
+    /** Numero di accelerazioni candidate. */
+    public static final int CANDIDATES = 9;
+
+    /** Scostamento massimo per componente coperto dalle tabelle delle distanze. */
+    private static final int MAX_OFFSET = 127;
+    private static final int OFFSET_SIDE = MAX_OFFSET + 1;
+    /** Componente massima della velocità coperta dalla tabella dei punteggi di velocità. */
+    private static final int MAX_VELOCITY = 6;
+    private static final int VELOCITY_SIDE = 2 * MAX_VELOCITY + 1;
+
+    /** Distanza euclidea per scostamento (|righe|, |colonne|). */
+    private static final double[] DISTANCES = new double[OFFSET_SIDE * OFFSET_SIDE];
+    /** 1 / (1 + distanza), punteggio di vicinanza all'obiettivo. */
+    private static final double[] PROXIMITY = new double[OFFSET_SIDE * OFFSET_SIDE];
+    /** Reciproco della norma, 0 per il vettore nullo; vale anche per le velocità. */
+    private static final double[] INVERSE_NORMS = new double[OFFSET_SIDE * OFFSET_SIDE];
+
+    static {
+        for (int dRow = 0; dRow < OFFSET_SIDE; dRow++) {
+            for (int dColumn = 0; dColumn < OFFSET_SIDE; dColumn++) {
+                int index = dRow * OFFSET_SIDE + dColumn;
+                double distance = Math.sqrt(dRow * dRow + dColumn * dColumn);
+                DISTANCES[index] = distance;
+                PROXIMITY[index] = 1.0 / (1.0 + distance);
+                INVERSE_NORMS[index] = distance == 0 ? 0 : 1.0 / distance;
+            }
+        }
+    }
+
+    /**
+     * Tabelle dei punteggi che dipendono dalla strategia: punteggio per ogni
+     * velocità e rischio di collisione {@code exp(-distanza / decadimento)}
+     * per ogni scostamento dall'avversario più vicino.
+     */
+    public static final class Profile {
+        private final DoubleUnaryOperator speedFunction;
+        private final double collisionDecay;
+        private final double[] speedScores = new double[VELOCITY_SIDE * VELOCITY_SIDE];
+        private final double[] collisionRisks = new double[OFFSET_SIDE * OFFSET_SIDE];
+
+        /**
+         * @param speedFunction  punteggio in funzione del modulo della velocità
+         * @param collisionDecay distanza alla quale il rischio di collisione si riduce di un fattore e
+         * @throws IllegalArgumentException se il decadimento non è positivo
+         */
+        public Profile(DoubleUnaryOperator speedFunction, double collisionDecay) {
+            if (collisionDecay <= 0) {
+                throw new IllegalArgumentException("Il decadimento del rischio deve essere positivo");
+            }
+            this.speedFunction = speedFunction;
+            this.collisionDecay = collisionDecay;
+            for (int vy = -MAX_VELOCITY; vy <= MAX_VELOCITY; vy++) {
+                for (int vx = -MAX_VELOCITY; vx <= MAX_VELOCITY; vx++) {
+                    speedScores[(vy + MAX_VELOCITY) * VELOCITY_SIDE + vx + MAX_VELOCITY] =
+                            speedFunction.applyAsDouble(Math.sqrt(vx * vx + vy * vy));
+                }
+            }
+            for (int i = 0; i < collisionRisks.length; i++) {
+                collisionRisks[i] = Math.exp(-DISTANCES[i] / collisionDecay);
+            }
+        }
+
+        double speedScore(int vx, int vy) {
+            if (Math.abs(vx) > MAX_VELOCITY || Math.abs(vy) > MAX_VELOCITY) {
+                return speedFunction.applyAsDouble(Math.sqrt(vx * vx + vy * vy));
+            }
+            return speedScores[(vy + MAX_VELOCITY) * VELOCITY_SIDE + vx + MAX_VELOCITY];
+        }
+
+        double collisionRisk(int dRow, int dColumn) {
+            if (dRow > MAX_OFFSET || dColumn > MAX_OFFSET) {
+                return Math.exp(-Math.sqrt((double) dRow * dRow + (double) dColumn * dColumn) / collisionDecay);
+            }
+            return collisionRisks[dRow * OFFSET_SIDE + dColumn];
+        }
+    }
+
+    private final Profile profile;
+    private final int[] rows = new int[CANDIDATES];
+    private final int[] columns = new int[CANDIDATES];
+    private final int[] velocitiesX = new int[CANDIDATES];
+    private final int[] velocitiesY = new int[CANDIDATES];
+    private final double[] speedScores = new double[CANDIDATES];
+    private final double[] collisionRisks = new double[CANDIDATES];
+    private int[] opponentRows = new int[4];
+    private int[] opponentColumns = new int[4];
+    private int opponentCount;
+
+    /**
+     * @param profile le tabelle dei punteggi della strategia
+     */
+    public MoveScoringKernel(Profile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Indice della candidata corrispondente a un'accelerazione.
+     *
+     * @param acceleration l'accelerazione, con componenti tra -1 e 1
+     * @return l'indice tra 0 e {@value #CANDIDATES} - 1
+     * @throws IllegalArgumentException se l'accelerazione è fuori dai limiti
+     */
+    public static int indexOf(IAcceleration acceleration) {
+        IVector vector = acceleration.getAccelerationVector();
+        int ax = vector.getX();
+        int ay = vector.getY();
+        if (Math.abs(ax) > 1 || Math.abs(ay) > 1) {
+            throw new IllegalArgumentException("Accelerazione fuori dai limiti: " + vector);
+        }
+        return (ay + 1) * 3 + ax + 1;
+    }
+
+    /**
+     * Calcola i valori delle nove candidate per lo stato attuale.
+     *
+     * @param position  la posizione attuale
+     * @param velocity  la velocità attuale
+     * @param opponents le posizioni degli avversari
+     */
+    public void prepare(IPosition position, IVelocity velocity, List<IPosition> opponents) {
+        opponentCount = opponents.size();
+        if (opponentCount > opponentRows.length) {
+            opponentRows = new int[opponentCount];
+            opponentColumns = new int[opponentCount];
+        }
+        for (int i = 0; i < opponentCount; i++) {
+            IPosition opponent = opponents.get(i);
+            opponentRows[i] = opponent.getRow();
+            opponentColumns[i] = opponent.getColumn();
+        }
+
+        IVector current = velocity.getCurrentVelocity();
+        for (int candidate = 0; candidate < CANDIDATES; candidate++) {
+            int vx = current.getX() + candidate % 3 - 1;
+            int vy = current.getY() + candidate / 3 - 1;
+            int row = position.getRow() + vy;
+            int column = position.getColumn() + vx;
+            rows[candidate] = row;
+            columns[candidate] = column;
+            velocitiesX[candidate] = vx;
+            velocitiesY[candidate] = vy;
+            speedScores[candidate] = profile.speedScore(vx, vy);
+            collisionRisks[candidate] = nearestOpponentRisk(row, column);
+        }
+    }
+
+    /**
+     * @return true se all'ultima preparazione c'era almeno un avversario
+     */
+    public boolean hasOpponents() {
+        return opponentCount > 0;
+    }
+
+    /**
+     * @param candidate indice della candidata
+     * @return il punteggio della velocità dopo la mossa
+     */
+    public double speedScore(int candidate) {
+        return speedScores[candidate];
+    }
+
+    /**
+     * @param candidate indice della candidata
+     * @return il rischio di collisione con l'avversario più vicino dopo la
+     *         mossa, 0 se non ci sono avversari
+     */
+    public double collisionRisk(int candidate) {
+        return collisionRisks[candidate];
+    }
+
+    /**
+     * @param candidate indice della candidata
+     * @param target    l'obiettivo
+     * @return 1 / (1 + distanza dall'obiettivo dopo la mossa)
+     */
+    public double targetProximity(int candidate, IPosition target) {
+        int dRow = Math.abs(target.getRow() - rows[candidate]);
+        int dColumn = Math.abs(target.getColumn() - columns[candidate]);
+        if (dRow > MAX_OFFSET || dColumn > MAX_OFFSET) {
+            return 1.0 / (1.0 + Math.sqrt((double) dRow * dRow + (double) dColumn * dColumn));
+        }
+        return PROXIMITY[dRow * OFFSET_SIDE + dColumn];
+    }
+
+    /**
+     * Allineamento tra la velocità dopo la mossa e la direzione verso
+     * l'obiettivo: (coseno + 1) / 2, oppure 0 se uno dei due vettori è nullo.
+     *
+     * @param candidate indice della candidata
+     * @param target    l'obiettivo
+     * @return il punteggio tra 0 e 1
+     */
+    public double targetAlignment(int candidate, IPosition target) {
+        int vx = velocitiesX[candidate];
+        int vy = velocitiesY[candidate];
+        int dx = target.getColumn() - columns[candidate];
+        int dy = target.getRow() - rows[candidate];
+        double inverseNorms = inverseNorm(vx, vy) * inverseNorm(dx, dy);
+        if (inverseNorms == 0) {
+            return 0;
+        }
+        return ((vx * dx + vy * dy) * inverseNorms + 1.0) / 2.0;
+    }
+
+    private double nearestOpponentRisk(int row, int column) {
+        if (opponentCount == 0) {
+            return 0.0;
+        }
+        // Confronto sulle distanze al quadrato, intere; la tabella fa il resto
+        int bestSquared = Integer.MAX_VALUE;
+        int bestRow = 0;
+        int bestColumn = 0;
+        for (int i = 0; i < opponentCount; i++) {
+            int dRow = Math.abs(opponentRows[i] - row);
+            int dColumn = Math.abs(opponentColumns[i] - column);
+            int squared = dRow * dRow + dColumn * dColumn;
+            if (squared < bestSquared) {
+                bestSquared = squared;
+                bestRow = dRow;
+                bestColumn = dColumn;
+            }
+        }
+        return profile.collisionRisk(bestRow, bestColumn);
+    }
+
+    private static double inverseNorm(int x, int y) {
+        int ax = Math.abs(x);
+        int ay = Math.abs(y);
+        if (ax > MAX_OFFSET || ay > MAX_OFFSET) {
+            return 1.0 / Math.sqrt((double) ax * ax + (double) ay * ay);
+        }
+        return INVERSE_NORMS[ay * OFFSET_SIDE + ax];
+    }
+}
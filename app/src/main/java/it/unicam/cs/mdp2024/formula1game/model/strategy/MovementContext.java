@@ -1,30 +1,146 @@
 package it.unicam.cs.mdp2024.formula1game.model.strategy;
 
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.BrakingEnvelope;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.ReservationTable;
 import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
 import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
 import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
 import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
 import it.unicam.cs.mdp2024.formula1game.model.player.IPlayer;
 import it.unicam.cs.mdp2024.formula1game.model.game.DefaultMoveValidator;
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Classe che implementa il pattern Context per le strategie di movimento.
  * Gestisce la strategia corrente e coordina le operazioni di movimento.
  */
 public class MovementContext {
+    /**
+     * Thread dei calcoli con scadenza. Sono thread di piattaforma: un calcolo
+     * che impegna la CPU non cede il thread portante, e in un thread virtuale
+     * impedirebbe al bot in attesa di accorgersi della scadenza.
+     */
+    private static final ExecutorService DECISION_THREADS = Executors.newCachedThreadPool(
+            Thread.ofPlatform().daemon().name("decisione-", 0).factory());
+    /** Penalità della riserva per le mosse dopo cui lo schianto è inevitabile. */
+    private static final int DOOMED_PENALTY = 1000;
+
     private MovementStrategy currentStrategy;
     private final MovementWeights weights;
     private final DefaultMoveValidator moveValidator;
     private IPlayer currentPlayer;
     private List<IPlayer> allPlayers;
+    private List<List<IPosition>> checkpointLines;
+    private int nextCheckpointIndex;
+    private long decisionDeadlineNanos;
+    private Decision runningDecision;
+    private final AtomicLong decisionTimeouts = new AtomicLong();
+    private int strategyCode;
+    private boolean decisionCaching;
+    private DecisionCache decisionCache;
+    private LocalStateHash stateHash;
+
+    /**
+     * Configurazione che identifica le decisioni di una strategia: bot con
+     * la stessa strategia e gli stessi pesi decidono allo stesso modo.
+     */
+    private record CacheScope(int strategyCode, double pathEfficiency, double speedControl,
+            double collisionAvoidance, double checkpointAlignment) {
+    }
+
+    /**
+     * Calcolo di una mossa con scadenza. Annullato, il task risulta subito
+     * concluso mentre la strategia può essere ancora al lavoro: il latch si
+     * apre solo quando il thread ne è davvero uscito, così la stessa
+     * strategia non esegue mai due calcoli insieme.
+     */
+    private static final class Decision {
+        private final FutureTask<IAcceleration> task;
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        Decision(Callable<IAcceleration> computation) {
+            this.task = new FutureTask<>(computation);
+        }
+
+        void start() {
+            DECISION_THREADS.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+
+        /**
+         * Interrompe il thread del calcolo; le ricerche lunghe controllano
+         * l'interruzione e terminano senza memorizzare risultati parziali.
+         */
+        void cancel() {
+            task.cancel(true);
+        }
+
+        boolean isRunning() {
+            return finished.getCount() > 0;
+        }
+
+        /**
+         * Attende che il thread esca dalla strategia fino all'istante indicato.
+         *
+         * @return true se il calcolo è terminato, anche con un errore
+         */
+        boolean finishesBy(long deadline) {
+            try {
+                if (deadline == Long.MAX_VALUE) {
+                    finished.await();
+                    return true;
+                }
+                return finished.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        /**
+         * Restituisce la mossa calcolata, rilanciando l'eventuale errore della
+         * strategia come se fosse stata chiamata direttamente.
+         */
+        IAcceleration result() {
+            try {
+                return task.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new IllegalStateException("Errore nel calcolo della mossa", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
 
     public MovementContext(DefaultMoveValidator moveValidator) {
         this.moveValidator = moveValidator;
         this.weights = new MovementWeights();
         // Default a strategia A* (codice 1) con pesi bilanciati
         this.currentStrategy = MovementStrategyFactory.createStrategy(1, moveValidator);
+        this.strategyCode = 1;
         configureWeights(2.0, 1.0, 0.5, 1.0); // A* priorità al percorso efficiente
         this.currentStrategy.configureWeights(weights);
     }
@@ -33,28 +149,38 @@ public class MovementContext {
         this.moveValidator = moveValidator;
         this.weights = new MovementWeights();
         this.currentStrategy = MovementStrategyFactory.createStrategy(strategyCode, moveValidator);
+        this.strategyCode = strategyCode;
         
         // Configura i pesi in base alla strategia
         if (strategyCode == 1) {
             // A* priorità al percorso efficiente
             configureWeights(2.0, 1.0, 0.5, 1.0);
         } else {
-            // Dijkstra priorità alla sicurezza
+            // Le altre strategie privilegiano la sicurezza
             configureWeights(1.0, 1.5, 2.0, 1.0);
         }
         
         this.currentStrategy.configureWeights(weights);
     }
 
+    /**
+     * Memorizza il giocatore e i giocatori della partita; la strategia li
+     * riceve al prossimo calcolo della mossa, quando non sta già calcolando.
+     */
     public void setGameContext(IPlayer player, List<IPlayer> players) {
         this.currentPlayer = player;
         this.allPlayers = players;
-        if (currentStrategy instanceof DefensiveDijkstraMovementStrategy) {
-            ((DefensiveDijkstraMovementStrategy) currentStrategy).setGameContext(player, players);
-        }
     }
 
     public void setStrategy(MovementStrategy newStrategy) {
+        // Un calcolo ancora in corso usa la vecchia strategia: viene interrotto e ignorato
+        if (runningDecision != null) {
+            runningDecision.cancel();
+            this.runningDecision = null;
+        }
+        // Le decisioni di una strategia esterna non hanno un codice con cui condividerle
+        this.strategyCode = 0;
+        this.decisionCache = null;
         this.currentStrategy = newStrategy;
         this.currentStrategy.configureWeights(weights);
         if (newStrategy instanceof DefensiveDijkstraMovementStrategy) {
@@ -62,24 +188,342 @@ public class MovementContext {
         }
     }
 
+    /**
+     * Imposta il budget di pianificazione per turno della strategia corrente,
+     * se la strategia lo supporta.
+     *
+     * @param timeBudgetNanos budget di tempo in nanosecondi, 0 per nessun limite
+     * @param expansionBudget numero massimo di espansioni per turno, 0 per nessun limite
+     */
+    public void setPlanningBudget(long timeBudgetNanos, int expansionBudget) {
+        if (currentStrategy instanceof AStarMovementStrategy) {
+            ((AStarMovementStrategy) currentStrategy).setPlanningBudget(timeBudgetNanos, expansionBudget);
+        } else if (currentStrategy instanceof MonteCarloMovementStrategy && timeBudgetNanos > 0) {
+            ((MonteCarloMovementStrategy) currentStrategy).setTimeBudget(timeBudgetNanos);
+        }
+    }
+
+    /**
+     * Abilita o disabilita l'inseguimento della traiettoria sull'intero giro
+     * per la strategia corrente, se la strategia lo supporta.
+     *
+     * @param enabled true per seguire la traiettoria del giro
+     */
+    public void setLapFollowing(boolean enabled) {
+        if (currentStrategy instanceof AStarMovementStrategy) {
+            ((AStarMovementStrategy) currentStrategy).setLapFollowing(enabled);
+        }
+    }
+
+    /**
+     * Abilita o disabilita il calcolo dei percorsi con HPA* per la strategia
+     * corrente, se la strategia lo supporta.
+     *
+     * @param enabled true per usare la ricerca gerarchica
+     */
+    public void setHierarchicalPathfinding(boolean enabled) {
+        if (currentStrategy instanceof AStarMovementStrategy) {
+            ((AStarMovementStrategy) currentStrategy).setHierarchicalPathfinding(enabled);
+        }
+    }
+
+    /**
+     * Imposta quanti turni avanti guarda la strategia corrente, se la
+     * strategia lo supporta.
+     *
+     * @param lookaheadDepth numero di turni da guardare avanti
+     */
+    public void setLookaheadDepth(int lookaheadDepth) {
+        if (currentStrategy instanceof BeamSearchMovementStrategy) {
+            ((BeamSearchMovementStrategy) currentStrategy).setLookaheadDepth(lookaheadDepth);
+        }
+    }
+
+    /**
+     * Collega la strategia corrente alla tabella delle prenotazioni condivisa,
+     * se la strategia pianifica in modo cooperativo.
+     *
+     * @param table la tabella condivisa tra le auto
+     * @param owner identificativo dell'auto nella tabella
+     */
+    public void setReservationTable(ReservationTable table, int owner) {
+        if (currentStrategy instanceof CooperativeMovementStrategy) {
+            ((CooperativeMovementStrategy) currentStrategy).setReservationTable(table, owner);
+        }
+    }
+
+    /**
+     * Indica se la strategia corrente deve decidere nell'ordine dei turni,
+     * perché legge stato condiviso scritto dalle auto che muovono prima.
+     *
+     * @return true se la strategia non può decidere in parallelo alle altre
+     */
+    public boolean requiresTurnOrder() {
+        return currentStrategy instanceof CooperativeMovementStrategy;
+    }
+
+    /**
+     * Prepara la richiesta con cui la strategia corrente può essere valutata
+     * in lotto insieme a quelle degli altri bot, se lo supporta.
+     *
+     * @param currentPosition   posizione attuale
+     * @param currentVelocity   velocità attuale
+     * @param opponentPositions posizioni degli avversari
+     * @param circuit           il circuito
+     * @param nextCheckpoint    il prossimo checkpoint da raggiungere
+     * @return la richiesta, o null se la strategia decide da sola
+     */
+    public BatchedMovementStrategy.Request batchRequest(IPosition currentPosition, IVelocity currentVelocity,
+            List<IPosition> opponentPositions, ICircuit circuit, IPosition nextCheckpoint) {
+        if (currentStrategy instanceof BatchedMovementStrategy && !isDeciding()) {
+            return new BatchedMovementStrategy.Request((BatchedMovementStrategy) currentStrategy, currentPosition,
+                    currentVelocity, opponentPositions, circuit, nextCheckpoint);
+        }
+        return null;
+    }
+
+    /**
+     * Aggiorna le informazioni sul giro per la strategia corrente, se la
+     * strategia è in grado di pianificare l'intero giro. Come il contesto di
+     * gioco, vengono consegnate al prossimo calcolo della mossa.
+     *
+     * @param checkpointLines     le linee di checkpoint nell'ordine del gioco
+     * @param nextCheckpointIndex indice della prossima linea da attraversare
+     */
+    public void setLapContext(List<List<IPosition>> checkpointLines, int nextCheckpointIndex) {
+        this.checkpointLines = checkpointLines;
+        this.nextCheckpointIndex = nextCheckpointIndex;
+    }
+
+    /**
+     * Imposta il tempo massimo concesso alla strategia per ogni mossa.
+     * Con una scadenza, ogni calcolo gira in un proprio thread: se
+     * non termina in tempo viene usata una mossa di riserva e il thread
+     * viene interrotto. Le ricerche lunghe si arrendono all'interruzione;
+     * finché il thread non esce dalla strategia, le mosse successive usano
+     * la riserva e la strategia non viene più chiamata, così ogni contesto
+     * occupa al più un thread.
+     *
+     * @param deadlineNanos tempo massimo in nanosecondi, 0 per nessun limite
+     * @throws IllegalArgumentException se il tempo è negativo
+     */
+    public void setDecisionDeadline(long deadlineNanos) {
+        if (deadlineNanos < 0) {
+            throw new IllegalArgumentException("La scadenza non può essere negativa");
+        }
+        this.decisionDeadlineNanos = deadlineNanos;
+    }
+
+    public long getDecisionDeadline() {
+        return decisionDeadlineNanos;
+    }
+
+    /**
+     * @return numero di mosse sostituite dalla riserva perché la strategia
+     *         non ha deciso entro la scadenza
+     */
+    public long getDecisionTimeouts() {
+        return decisionTimeouts.get();
+    }
+
+    /**
+     * @return true se un calcolo scaduto della strategia è ancora in corso
+     */
+    public boolean isDeciding() {
+        Decision decision = runningDecision;
+        return decision != null && decision.isRunning();
+    }
+
+    /**
+     * Abilita o disabilita la cache delle decisioni: le situazioni locali
+     * già incontrate, da questo o da un altro bot con la stessa strategia e
+     * gli stessi pesi, ricevono la decisione memorizzata senza chiamare la
+     * strategia. La situazione è identificata dall'hash di Zobrist di cella,
+     * velocità, obiettivo, indice del checkpoint e avversari vicini.
+     * Non ha effetto sulle strategie che deducono da sole il tratto del giro
+     * raggiunto o leggono le prenotazioni degli altri bot, che l'hash non vede.
+     *
+     * @param enabled true per abilitarla
+     */
+    public void setDecisionCaching(boolean enabled) {
+        this.decisionCaching = enabled;
+        this.decisionCache = null;
+    }
+
+    public boolean isDecisionCaching() {
+        return decisionCaching;
+    }
+
+    /**
+     * @return la cache delle decisioni usata dalla strategia corrente, o null
+     *         se la cache è disabilitata o la strategia non la può usare
+     */
+    public DecisionCache getDecisionCache() {
+        if (!decisionCaching || strategyCode == 0 || currentStrategy instanceof PolicyMovementStrategy
+                || currentStrategy instanceof RacingLineMovementStrategy || requiresTurnOrder()
+                || (currentStrategy instanceof AStarMovementStrategy
+                        && (((AStarMovementStrategy) currentStrategy).isLapFollowing()
+                                || ((AStarMovementStrategy) currentStrategy).isHierarchicalPathfinding()))) {
+            return null;
+        }
+        if (decisionCache == null) {
+            decisionCache = DecisionCache.shared(new CacheScope(strategyCode, weights.getPathEfficiencyWeight(),
+                    weights.getSpeedControlWeight(), weights.getCollisionAvoidanceWeight(),
+                    weights.getCheckpointAlignmentWeight()));
+        }
+        return decisionCache;
+    }
+
     public void activateDefensiveStrategy() {
         MovementStrategy defensiveStrategy = MovementStrategyFactory.createStrategy(2, moveValidator);
         setStrategy(defensiveStrategy);
+        this.strategyCode = 2;
         
         // Configura i pesi per una guida più difensiva ma mantenendo velocità accettabile
         configureWeights(1.0, 1.5, 2.0, 1.0);
     }
 
+    /**
+     * Calcola la mossa con la strategia corrente, entro la scadenza se è
+     * impostata. Con la cache delle decisioni abilitata, una situazione già
+     * vista riceve la decisione memorizzata.
+     *
+     * @return la mossa della strategia o, se non arriva in tempo, la mossa
+     *         di riserva
+     */
     public IAcceleration calculateNextMove(IPosition currentPosition,
             IVelocity currentVelocity,
             List<IPosition> opponentPositions,
             ICircuit circuit,
             IPosition nextCheckpoint) {
-        return currentStrategy.calculateMove(currentPosition,
+        DecisionCache cache = nextCheckpoint == null ? null : getDecisionCache();
+        long hash = 0L;
+        if (cache != null) {
+            if (stateHash == null || stateHash.getCircuit() != circuit) {
+                stateHash = new LocalStateHash(circuit);
+            }
+            IVector v = currentVelocity.getCurrentVelocity();
+            hash = stateHash.update(currentPosition, v.getX(), v.getY(), nextCheckpoint, nextCheckpointIndex,
+                    opponentPositions);
+            IAcceleration cached = cache.get(hash);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        if (decisionDeadlineNanos == 0) {
+            if (runningDecision != null) {
+                runningDecision.finishesBy(Long.MAX_VALUE);
+                runningDecision = null;
+            }
+            applyTurnContext();
+            IAcceleration move = currentStrategy.calculateMove(currentPosition,
+                    currentVelocity,
+                    opponentPositions,
+                    circuit,
+                    nextCheckpoint);
+            if (cache != null && move != null) {
+                cache.put(hash, move);
+            }
+            return move;
+        }
+
+        long deadline = System.nanoTime() + decisionDeadlineNanos;
+        // La riserva è pronta prima di attendere la strategia
+        IAcceleration fallback = fallbackMove(currentPosition, currentVelocity, opponentPositions, circuit);
+        if (runningDecision != null) {
+            if (!runningDecision.finishesBy(deadline)) {
+                decisionTimeouts.incrementAndGet();
+                return fallback;
+            }
+            // Il risultato riguarda uno stato ormai passato
+            runningDecision = null;
+        }
+
+        applyTurnContext();
+        MovementStrategy strategy = currentStrategy;
+        Decision decision = new Decision(() -> strategy.calculateMove(currentPosition,
                 currentVelocity,
                 opponentPositions,
                 circuit,
-                nextCheckpoint);
+                nextCheckpoint));
+        decision.start();
+        if (!decision.finishesBy(deadline)) {
+            decision.cancel();
+            runningDecision = decision;
+            decisionTimeouts.incrementAndGet();
+            return fallback;
+        }
+        IAcceleration move = decision.result();
+        if (move == null) {
+            return fallback;
+        }
+        // Solo le decisioni della strategia entrano in cache, mai le riserve
+        if (cache != null) {
+            cache.put(hash, move);
+        }
+        return move;
+    }
+
+    /**
+     * Consegna alla strategia il contesto di gioco e di giro memorizzati.
+     */
+    private void applyTurnContext() {
+        if (currentStrategy instanceof DefensiveDijkstraMovementStrategy) {
+            ((DefensiveDijkstraMovementStrategy) currentStrategy).setGameContext(currentPlayer, allPlayers);
+        }
+        if (currentStrategy instanceof LapAware && checkpointLines != null) {
+            ((LapAware) currentStrategy).setLapContext(checkpointLines, nextCheckpointIndex);
+        }
+    }
+
+    /**
+     * Mossa di riserva, calcolata in tempo costante: frena se la cella
+     * raggiunta è libera, altrimenti sceglie tra le altre accelerazioni
+     * quella che lascia la velocità più bassa verso una cella libera,
+     * preferendo le mosse dopo cui l'{@link BrakingEnvelope inviluppo di
+     * frenata} garantisce ancora l'arresto.
+     */
+    private static IAcceleration fallbackMove(IPosition position, IVelocity velocity,
+            List<IPosition> opponentPositions, ICircuit circuit) {
+        BrakingEnvelope envelope = BrakingEnvelope.of(circuit);
+        IVector v = velocity.getCurrentVelocity();
+        int brakeX = -Integer.signum(v.getX());
+        int brakeY = -Integer.signum(v.getY());
+        int bestX = brakeX;
+        int bestY = brakeY;
+        int bestSpeed = Integer.MAX_VALUE;
+        for (int ay = -1; ay <= 1; ay++) {
+            for (int ax = -1; ax <= 1; ax++) {
+                int vx = v.getX() + ax;
+                int vy = v.getY() + ay;
+                int row = position.getRow() + vy;
+                int column = position.getColumn() + vx;
+                if (!isFreeCell(circuit, row, column, opponentPositions)) continue;
+                // Prima le mosse sicure; a parità di velocità vince la frenata
+                int speed = (envelope.canStop(row, column, vx, vy) ? 0 : DOOMED_PENALTY)
+                        + (vx * vx + vy * vy) * 2 + (ax == brakeX && ay == brakeY ? 0 : 1);
+                if (speed < bestSpeed) {
+                    bestSpeed = speed;
+                    bestX = ax;
+                    bestY = ay;
+                }
+            }
+        }
+        return new Acceleration(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(bestX, bestY));
+    }
+
+    private static boolean isFreeCell(ICircuit circuit, int row, int column, List<IPosition> opponentPositions) {
+        if (row < 0 || row >= circuit.getHeight() || column < 0 || column >= circuit.getWidth()
+                || circuit.isWall(column, row)) {
+            return false;
+        }
+        for (IPosition opponent : opponentPositions) {
+            if (opponent.getRow() == row && opponent.getColumn() == column) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public void configureWeights(double pathEfficiency, double speedControl,
@@ -88,6 +532,7 @@ public class MovementContext {
         weights.setSpeedControlWeight(speedControl);
         weights.setCollisionAvoidanceWeight(collisionAvoidance);
         weights.setCheckpointAlignmentWeight(checkpointAlign);
+        decisionCache = null;
         currentStrategy.configureWeights(weights);
     }
 
@@ -5,14 +5,39 @@ import it.unicam.cs.mdp2024.formula1game.model.game.Game2;
 
 /**
  * Factory per creare strategie di movimento.
- * Supporta diversi tipi di strategie come A* e Dijkstra.
+ * Supporta diversi tipi di strategie come A*, Dijkstra, Monte Carlo, ricerca a fascio, A* cooperativo,
+ * politica precalcolata, traiettoria ideale e rete neurale.
  */
 public class MovementStrategyFactory {
+
+    /** Codice più alto tra le strategie disponibili. */
+    public static final int MAX_STRATEGY_CODE = 8;
+
+    /**
+     * Verifica se il codice corrisponde a una strategia disponibile.
+     *
+     * @param strategyCode il codice della strategia
+     * @return true se la factory è in grado di creare la strategia
+     */
+    public static boolean isValidCode(int strategyCode) {
+        return strategyCode >= 1 && strategyCode <= MAX_STRATEGY_CODE;
+    }
+
+    /**
+     * Verifica se le decisioni della strategia dipendono dai {@link MovementWeights}:
+     * solo A* e Dijkstra difensivo li leggono, le altre strategie li ignorano.
+     *
+     * @param strategyCode il codice della strategia
+     * @return true se i pesi cambiano le mosse della strategia
+     */
+    public static boolean usesWeights(int strategyCode) {
+        return strategyCode == 1 || strategyCode == 2;
+    }
     
     /**
      * Crea una nuova strategia di movimento basata sul codice fornito.
      *
-     * @param strategyCode codice della strategia (1=A*, 2=Dijkstra)
+     * @param strategyCode codice della strategia (1=A*, 2=Dijkstra, 3=Monte Carlo, 4=Beam, 5=Cooperativa, 6=Politica, 7=Traiettoria, 8=Rete neurale)
      * @param moveValidator validatore delle mosse
      * @return la strategia di movimento creata
      */
@@ -22,6 +47,18 @@ public class MovementStrategyFactory {
                 return new AStarMovementStrategy(moveValidator);
             case 2:
                 return new DefensiveDijkstraMovementStrategy(moveValidator);
+            case 3:
+                return new MonteCarloMovementStrategy();
+            case 4:
+                return new BeamSearchMovementStrategy();
+            case 5:
+                return new CooperativeMovementStrategy();
+            case 6:
+                return new PolicyMovementStrategy();
+            case 7:
+                return new RacingLineMovementStrategy();
+            case 8:
+                return new NeuralMovementStrategy();
             default:
                 throw new IllegalArgumentException("Codice strategia non valido: " + strategyCode);
         }
@@ -0,0 +1,299 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.BackgroundCache;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.BrakingEnvelope;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.RaceStateSpace;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitFingerprint;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.learning.DrivingFeatures;
+import it.unicam.cs.mdp2024.formula1game.model.learning.MlpTrainer;
+import it.unicam.cs.mdp2024.formula1game.model.learning.MultilayerPerceptron;
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Strategia di movimento guidata da una rete neurale: un
+ * {@link MultilayerPerceptron} valuta le {@link DrivingFeatures
+ * caratteristiche locali} dello stato e assegna un punteggio a ciascuna delle
+ * nove accelerazioni; viene scelta quella con il punteggio più alto tra le
+ * mosse che non finiscono su un muro o su un avversario e dopo le quali
+ * l'auto può ancora fermarsi secondo l'{@link BrakingEnvelope inviluppo di
+ * frenata}.
+ * I pesi sono letti da un file binario; se manca, la rete viene addestrata
+ * in background sul circuito alla prima mossa e salvata in un file accanto,
+ * con l'impronta del circuito nel nome. Finché la rete non è pronta il bot
+ * resta fermo. Le reti sono condivise in cache tra tutti i bot, e la partita
+ * valuta insieme, in un unico lotto, i bot che usano la stessa rete già
+ * pronta.
+ */
+public class NeuralMovementStrategy implements BatchedMovementStrategy {
+
+    /** File predefinito dei pesi della rete. */
+    public static final Path DEFAULT_WEIGHTS_FILE = Path.of("models", "rete-guida.bin");
+
+    private static final int NETWORK_CACHE_CAPACITY = 4;
+    private static final BackgroundCache<NetworkKey, MultilayerPerceptron> SHARED_NETWORKS =
+            new BackgroundCache<>(NETWORK_CACHE_CAPACITY);
+
+    /** Addestramento ridotto usato quando il file dei pesi manca. */
+    private static final int[] DEFAULT_HIDDEN_SIZES = {32, 32};
+    private static final int ON_DEMAND_TARGETS = 6;
+    private static final int ON_DEMAND_SAMPLES = 1000;
+    private static final int ON_DEMAND_EPOCHS = 8;
+    private static final float LEARNING_RATE = 0.05f;
+
+    private static final int ACTIONS = MlpTrainer.ACTIONS;
+
+    /** Stato per cui è stato calcolato il punteggio del lotto. */
+    private record PendingKey(ICircuit circuit, int row, int column, int vx, int vy, IPosition target,
+            List<IPosition> opponents) {
+    }
+
+    /** Rete per un circuito: quella del file dei pesi o, se manca, quella addestrata sul circuito. */
+    private record NetworkKey(Path weightsFile, long circuitFingerprint) {
+    }
+
+    private final Path weightsFile;
+    private ICircuit networkCircuit;
+    private NetworkKey networkKey;
+    private PendingKey pendingKey;
+    private float[] pendingScores;
+
+    /**
+     * Crea la strategia con il file dei pesi predefinito.
+     */
+    public NeuralMovementStrategy() {
+        this(DEFAULT_WEIGHTS_FILE);
+    }
+
+    /**
+     * @param weightsFile il file dei pesi della rete
+     */
+    public NeuralMovementStrategy(Path weightsFile) {
+        this.weightsFile = weightsFile.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public Object batchKey() {
+        return weightsFile;
+    }
+
+    @Override
+    public void decideBatch(List<Request> requests) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        ICircuit circuit = requests.get(0).circuit();
+        NetworkKey key = networkKey(circuit);
+        MultilayerPerceptron network = SHARED_NETWORKS.getIfDone(key);
+        if (network == null) {
+            // Rete non ancora pronta: ogni bot la attende nella propria decisione, entro la scadenza
+            SHARED_NETWORKS.prefetch(key, () -> loadOrTrain(key, circuit));
+            return;
+        }
+        int count = requests.size();
+        float[] inputs = new float[count * DrivingFeatures.COUNT];
+        float[] scores = new float[count * ACTIONS];
+        for (int i = 0; i < count; i++) {
+            Request request = requests.get(i);
+            IVector v = request.velocity().getCurrentVelocity();
+            DrivingFeatures.write(inputs, i * DrivingFeatures.COUNT, request.circuit(), request.position().getRow(),
+                    request.position().getColumn(), v.getX(), v.getY(), request.nextCheckpoint(),
+                    request.opponentPositions());
+        }
+        network.forward(inputs, count, scores);
+        for (int i = 0; i < count; i++) {
+            Request request = requests.get(i);
+            if (request.strategy() instanceof NeuralMovementStrategy) {
+                float[] own = new float[ACTIONS];
+                System.arraycopy(scores, i * ACTIONS, own, 0, ACTIONS);
+                ((NeuralMovementStrategy) request.strategy()).offer(keyOf(request.circuit(), request.position(),
+                        request.velocity(), request.nextCheckpoint(), request.opponentPositions()), own);
+            }
+        }
+    }
+
+    private void offer(PendingKey key, float[] scores) {
+        this.pendingKey = key;
+        this.pendingScores = scores;
+    }
+
+    @Override
+    public IAcceleration calculateMove(IPosition currentPosition, IVelocity currentVelocity,
+            List<IPosition> opponentPositions, ICircuit circuit, IPosition nextCheckpoint) {
+        if (!circuit.isValidPosition(currentPosition) || nextCheckpoint == null) {
+            return stay();
+        }
+        PendingKey key = keyOf(circuit, currentPosition, currentVelocity, nextCheckpoint, opponentPositions);
+        float[] scores = key.equals(pendingKey) ? pendingScores : null;
+        pendingKey = null;
+        pendingScores = null;
+        if (scores == null) {
+            MultilayerPerceptron network = sharedNetwork(circuit);
+            if (network == null) {
+                return stay();
+            }
+            float[] inputs = new float[DrivingFeatures.COUNT];
+            DrivingFeatures.write(inputs, 0, circuit, key.row(), key.column(), key.vx(), key.vy(), nextCheckpoint,
+                    opponentPositions);
+            scores = new float[ACTIONS];
+            network.forward(inputs, 1, scores);
+        }
+        return bestSafeAcceleration(scores, circuit, key, opponentPositions);
+    }
+
+    /**
+     * Sceglie l'accelerazione con il punteggio più alto tra quelle che
+     * rispettano la velocità massima, portano su una cella libera e lasciano
+     * all'auto lo spazio per fermarsi; se nessuna lo lascia, si accontenta
+     * della cella libera.
+     */
+    private IAcceleration bestSafeAcceleration(float[] scores, ICircuit circuit, PendingKey state,
+            List<IPosition> opponentPositions) {
+        BrakingEnvelope envelope = BrakingEnvelope.of(circuit);
+        int best = -1;
+        int bestUnsafe = -1;
+        for (int action = 0; action < ACTIONS; action++) {
+            int vx = state.vx() + action % 3 - 1;
+            int vy = state.vy() + action / 3 - 1;
+            if (vx * vx + vy * vy > RaceStateSpace.MAX_SPEED * RaceStateSpace.MAX_SPEED) continue;
+            int row = state.row() + vy;
+            int column = state.column() + vx;
+            if (!isFree(circuit, row, column) || isOccupied(row, column, opponentPositions)) continue;
+            if (!envelope.canStop(row, column, vx, vy)) {
+                if (bestUnsafe < 0 || scores[action] > scores[bestUnsafe]) {
+                    bestUnsafe = action;
+                }
+            } else if (best < 0 || scores[action] > scores[best]) {
+                best = action;
+            }
+        }
+        if (best < 0) {
+            best = bestUnsafe;
+        }
+        if (best < 0) {
+            return stay();
+        }
+        return new Acceleration(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(best % 3 - 1, best / 3 - 1));
+    }
+
+    private static boolean isFree(ICircuit circuit, int row, int column) {
+        return row >= 0 && row < circuit.getHeight() && column >= 0 && column < circuit.getWidth()
+                && !circuit.isWall(column, row);
+    }
+
+    private static PendingKey keyOf(ICircuit circuit, IPosition position, IVelocity velocity, IPosition target,
+            List<IPosition> opponents) {
+        IVector v = velocity.getCurrentVelocity();
+        return new PendingKey(circuit, position.getRow(), position.getColumn(), v.getX(), v.getY(), target,
+                List.copyOf(opponents));
+    }
+
+    private NetworkKey networkKey(ICircuit circuit) {
+        if (circuit != networkCircuit) {
+            networkKey = new NetworkKey(weightsFile, CircuitFingerprint.of(circuit));
+            networkCircuit = circuit;
+        }
+        return networkKey;
+    }
+
+    /**
+     * Restituisce la rete condivisa, leggendola o addestrandola in background
+     * una sola volta anche se più bot la chiedono insieme.
+     *
+     * @return la rete, o null se non è disponibile o l'attesa è stata interrotta
+     */
+    private MultilayerPerceptron sharedNetwork(ICircuit circuit) {
+        NetworkKey key = networkKey(circuit);
+        try {
+            return SHARED_NETWORKS.get(key, () -> loadOrTrain(key, circuit));
+        } catch (InterruptedException e) {
+            // Tempo scaduto: l'addestramento prosegue in background
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Legge la rete dal file dei pesi; se manca legge o addestra quella del
+     * circuito, salvata in un file che porta l'impronta del circuito nel nome.
+     */
+    private static MultilayerPerceptron loadOrTrain(NetworkKey key, ICircuit circuit) throws InterruptedException {
+        MultilayerPerceptron network = load(key.weightsFile());
+        if (network != null) {
+            return network;
+        }
+        Path circuitFile = onDemandFile(key);
+        network = load(circuitFile);
+        if (network != null) {
+            return network;
+        }
+        try {
+            network = new MlpTrainer(DEFAULT_HIDDEN_SIZES, ON_DEMAND_TARGETS, ON_DEMAND_SAMPLES, ON_DEMAND_EPOCHS,
+                    LEARNING_RATE, 1L).train(List.of(circuit)).getNetwork();
+        } catch (IllegalArgumentException e) {
+            // Il circuito non fornisce campioni
+            return null;
+        }
+        try {
+            network.save(circuitFile);
+        } catch (IOException e) {
+            // Cartella non scrivibile: la rete resta in memoria
+        }
+        return network;
+    }
+
+    /**
+     * File della rete addestrata sul circuito: il nome del file dei pesi
+     * seguito dall'impronta del circuito.
+     */
+    private static Path onDemandFile(NetworkKey key) {
+        String name = key.weightsFile().getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        return key.weightsFile().resolveSibling(
+                base + "-" + Long.toHexString(key.circuitFingerprint()) + extension);
+    }
+
+    private static MultilayerPerceptron load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            MultilayerPerceptron network = MultilayerPerceptron.load(file);
+            if (network.getInputSize() == DrivingFeatures.COUNT && network.getOutputSize() == ACTIONS) {
+                return network;
+            }
+        } catch (IOException e) {
+            // File illeggibile: la rete viene addestrata di nuovo
+        }
+        return null;
+    }
+
+    private static boolean isOccupied(int row, int column, List<IPosition> opponentPositions) {
+        for (IPosition opponent : opponentPositions) {
+            if (opponent.getRow() == row && opponent.getColumn() == column) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void configureWeights(MovementWeights weights) {
+        // La rete imita la politica ottima del giro: i pesi non cambiano le sue scelte
+    }
+
+    private IAcceleration stay() {
+        return new Acceleration(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(0, 0));
+    }
+}
@@ -0,0 +1,199 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.BackgroundCache;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.LapPlanner;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.PolicyTable;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.PolicyTrainer;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.RaceStateSpace;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.TableStore;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitFingerprint;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strategia di movimento che segue una {@link PolicyTable} precalcolata per
+ * l'intero giro: ogni decisione è un accesso alla tabella.
+ * La politica viene mappata dall'archivio delle tabelle nella cartella delle
+ * politiche, dove la scrive l'addestramento offline; se manca o non
+ * corrisponde al circuito viene calcolata alla prima mossa e salvata per gli
+ * avvii successivi. Il calcolo gira in background: se il tempo della
+ * decisione scade prima della fine il bot resta fermo e riprova al turno
+ * successivo, senza ricominciare l'addestramento. Le politiche sono
+ * condivise in cache tra tutti i bot.
+ * La politica ignora gli avversari: le collisioni sono lasciate alle mosse
+ * alternative del bot. Il tratto del giro viene seguito anche a partire dalle
+ * mosse giocate, così la politica resta corretta se il gioco registra un
+ * checkpoint in ritardo.
+ */
+public class PolicyMovementStrategy implements MovementStrategy, LapAware {
+
+    /** Cartella predefinita delle politiche addestrate offline. */
+    public static final Path DEFAULT_POLICY_DIRECTORY = Path.of("policies");
+
+    private static final int POLICY_CACHE_CAPACITY = 8;
+    private static final BackgroundCache<PolicyKey, PolicyTable> SHARED_POLICIES =
+            new BackgroundCache<>(POLICY_CACHE_CAPACITY);
+
+    private record PolicyKey(Path directory, long fingerprint, List<List<IPosition>> checkpointLines) {
+    }
+
+    private final Path policyDirectory;
+    private List<List<IPosition>> checkpointLines = List.of();
+    private int nextCheckpointIndex;
+    private ICircuit policyCircuit;
+    private List<List<IPosition>> policyLines;
+    private LapPlanner.LapLegs legs;
+    private PolicyTable policy;
+    private IPosition lastPosition;
+    private int lastLeg = -1;
+
+    /**
+     * Crea la strategia con la cartella delle politiche predefinita.
+     */
+    public PolicyMovementStrategy() {
+        this(DEFAULT_POLICY_DIRECTORY);
+    }
+
+    /**
+     * @param policyDirectory la cartella in cui cercare le politiche addestrate
+     */
+    public PolicyMovementStrategy(Path policyDirectory) {
+        this.policyDirectory = policyDirectory;
+    }
+
+    @Override
+    public void setLapContext(List<List<IPosition>> checkpointLines, int nextCheckpointIndex) {
+        this.checkpointLines = checkpointLines;
+        this.nextCheckpointIndex = nextCheckpointIndex;
+    }
+
+    /**
+     * @return la politica in uso, o null se non è ancora stata caricata
+     */
+    public PolicyTable getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public IAcceleration calculateMove(IPosition currentPosition, IVelocity currentVelocity,
+            List<IPosition> opponentPositions, ICircuit circuit, IPosition nextCheckpoint) {
+        if (!circuit.isValidPosition(currentPosition)) {
+            return stay();
+        }
+        if (circuit != policyCircuit
+                || (checkpointLines != policyLines && !checkpointLines.equals(policyLines))) {
+            preparePolicy(circuit);
+        } else {
+            policyLines = checkpointLines;
+        }
+        IVector v = currentVelocity.getCurrentVelocity();
+        if (policy == null
+                || Math.abs(v.getX()) > RaceStateSpace.MAX_SPEED || Math.abs(v.getY()) > RaceStateSpace.MAX_SPEED) {
+            return stay();
+        }
+
+        RaceStateSpace space = legs.space();
+        int leg = currentLeg(space, currentPosition, v);
+        if (leg >= space.getLegCount()) {
+            // Giro completato: l'auto si ferma sul traguardo
+            return new Acceleration(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(
+                    -Integer.signum(v.getX()), -Integer.signum(v.getY())));
+        }
+        lastPosition = currentPosition;
+        lastLeg = leg;
+        int action = policy.action(space.encode(leg, currentPosition.getRow(), currentPosition.getColumn(),
+                v.getX(), v.getY()));
+        if (action == PolicyTable.NO_ACTION) {
+            return stay();
+        }
+        return new Acceleration(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(
+                PolicyTable.accelerationX(action), PolicyTable.accelerationY(action)));
+    }
+
+    /**
+     * Tratto del giro in cui si trova l'auto: quello indicato dal gioco, o
+     * uno successivo se l'ultima mossa ha attraversato un obiettivo che il
+     * gioco non ha ancora registrato.
+     */
+    private int currentLeg(RaceStateSpace space, IPosition position, IVector velocity) {
+        int leg = legs.legOf(nextCheckpointIndex);
+        if (lastPosition != null && lastLeg >= 0
+                && position.getRow() == lastPosition.getRow() + velocity.getY()
+                && position.getColumn() == lastPosition.getColumn() + velocity.getX()) {
+            leg = Math.max(leg, space.legAfterMove(lastLeg, lastPosition.getRow(), lastPosition.getColumn(),
+                    velocity.getX(), velocity.getY()));
+        }
+        return leg;
+    }
+
+    /**
+     * Carica la politica per il circuito e le linee attuali. Il circuito
+     * viene considerato pronto solo se la politica è stata ottenuta, così
+     * una decisione interrotta durante l'addestramento riprova al turno
+     * successivo.
+     */
+    private void preparePolicy(ICircuit circuit) {
+        policy = null;
+        lastPosition = null;
+        lastLeg = -1;
+        legs = LapPlanner.legsFor(circuit, checkpointLines);
+        if (legs == null) {
+            return;
+        }
+        long fingerprint = CircuitFingerprint.of(circuit);
+        List<List<IPosition>> lines = new ArrayList<>(checkpointLines.size());
+        for (List<IPosition> line : checkpointLines) {
+            lines.add(List.copyOf(line));
+        }
+        PolicyKey key = new PolicyKey(policyDirectory, fingerprint, List.copyOf(lines));
+        RaceStateSpace space = legs.space();
+        try {
+            policy = SHARED_POLICIES.get(key, () -> loadOrTrain(key, space));
+        } catch (InterruptedException e) {
+            // Tempo scaduto: l'addestramento prosegue in background
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (policy != null) {
+            policyCircuit = circuit;
+            policyLines = checkpointLines;
+        }
+    }
+
+    private static PolicyTable loadOrTrain(PolicyKey key, RaceStateSpace space) throws InterruptedException {
+        TableStore store = new TableStore(key.directory());
+        try {
+            PolicyTable table = PolicyTable.open(store, key.fingerprint(), space);
+            if (table != null) {
+                return table;
+            }
+        } catch (IOException e) {
+            // File illeggibile: la politica viene ricalcolata
+        }
+        PolicyTable table = new PolicyTrainer().train(key.fingerprint(), space).getTable();
+        try {
+            return table.save(store);
+        } catch (IOException e) {
+            // Cartella non scrivibile: la politica resta in memoria
+            return table;
+        }
+    }
+
+    @Override
+    public void configureWeights(MovementWeights weights) {
+        // La politica è già ottimale per il giro: i pesi non cambiano le decisioni
+    }
+
+    private IAcceleration stay() {
+        return new Acceleration(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(0, 0));
+    }
+}
@@ -0,0 +1,368 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.CheckpointDistanceTable;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.LapPlanner;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.RaceStateSpace;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.RacingLine;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.TableStore;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.Trajectory;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.DerivedDataCache;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Strategia di movimento che segue la traiettoria ideale del circuito,
+ * calcolata una sola volta da {@link RacingLine} e conservata nella cache
+ * del circuito.
+ * Finché l'auto è sul punto atteso della traiettoria la mossa è quella
+ * memorizzata, con costo costante. Se gli avversari la costringono a
+ * deviare, un controllo locale sceglie tra le mosse valide quella che la
+ * riporta più vicino, per posizione e velocità, a uno dei prossimi punti
+ * della traiettoria; se dopo alcuni turni non l'ha ancora ritrovata, il
+ * resto del giro viene ripianificato dalla posizione attuale.
+ * Finché la traiettoria non è pronta, ad esempio perché il tempo della
+ * decisione è scaduto durante il calcolo, il bot usa il controllo locale e
+ * la richiede di nuovo al turno successivo. Senza traiettoria il controllo
+ * avanza verso l'obiettivo del tratto seguendo le distanze di una
+ * {@link CheckpointDistanceTable}, conservata accanto alle traiettorie,
+ * così aggira i muri invece di puntare all'obiettivo in linea d'aria.
+ */
+public class RacingLineMovementStrategy implements MovementStrategy, LapAware {
+
+    /** Cartella predefinita delle traiettorie, la stessa dei dati derivati dei circuiti. */
+    public static final Path DEFAULT_LINE_DIRECTORY = DerivedDataCache.DEFAULT_DIRECTORY;
+
+    /** Punti della traiettoria, a partire dall'ultimo raggiunto, tra cui cercare il rientro. */
+    private static final int REJOIN_WINDOW = 12;
+    /** Turni fuori traiettoria dopo i quali il giro viene ripianificato. */
+    private static final int MAX_OFF_LINE_TURNS = 3;
+
+    private final TableStore store;
+    private List<List<IPosition>> checkpointLines = List.of();
+    private int nextCheckpointIndex;
+    private ICircuit lineCircuit;
+    private List<List<IPosition>> lineCheckpoints;
+    private IPosition lineStart;
+    private LapPlanner.LapLegs legs;
+    private CheckpointDistanceTable legDistances;
+    private boolean legDistancesUnavailable;
+    private Trajectory line;
+    private int lineIndex = -1;
+    private int lastLineIndex;
+    private int offLineTurns;
+    private IPosition lastPosition;
+    private int lastLeg = -1;
+
+    /**
+     * Crea la strategia con la cartella delle traiettorie predefinita.
+     */
+    public RacingLineMovementStrategy() {
+        this(DEFAULT_LINE_DIRECTORY);
+    }
+
+    /**
+     * @param lineDirectory la cartella in cui conservare le traiettorie
+     */
+    public RacingLineMovementStrategy(Path lineDirectory) {
+        this.store = new TableStore(lineDirectory);
+    }
+
+    @Override
+    public void setLapContext(List<List<IPosition>> checkpointLines, int nextCheckpointIndex) {
+        this.checkpointLines = checkpointLines;
+        this.nextCheckpointIndex = nextCheckpointIndex;
+    }
+
+    /**
+     * @return la traiettoria seguita, o null se non è ancora stata calcolata
+     */
+    public Trajectory getLine() {
+        return line;
+    }
+
+    @Override
+    public IAcceleration calculateMove(IPosition currentPosition, IVelocity currentVelocity,
+            List<IPosition> opponentPositions, ICircuit circuit, IPosition nextCheckpoint) {
+        if (!circuit.isValidPosition(currentPosition)) {
+            return stay();
+        }
+        if (circuit != lineCircuit
+                || (checkpointLines != lineCheckpoints && !checkpointLines.equals(lineCheckpoints))) {
+            prepareLine(circuit, currentPosition);
+        }
+        lineCheckpoints = checkpointLines;
+        if (legDistances == null && !legDistancesUnavailable && legs != null) {
+            openLegDistances(circuit);
+        }
+        if (line == null && legs != null) {
+            fetchLine(circuit);
+        }
+        IVector v = currentVelocity.getCurrentVelocity();
+        if (legs == null
+                || Math.abs(v.getX()) > RaceStateSpace.MAX_SPEED || Math.abs(v.getY()) > RaceStateSpace.MAX_SPEED) {
+            return stay();
+        }
+
+        RaceStateSpace space = legs.space();
+        int leg = currentLeg(space, currentPosition, v);
+        lastPosition = currentPosition;
+        lastLeg = leg;
+        if (leg >= space.getLegCount()) {
+            return stopAfterLap(circuit, currentPosition, v);
+        }
+
+        if (line != null) {
+            lineIndex = locate(currentPosition, v);
+            if (lineIndex >= 0 && line.hasNext(lineIndex)
+                    && !isOccupied(line.getRow(lineIndex + 1), line.getColumn(lineIndex + 1), opponentPositions)) {
+                offLineTurns = 0;
+                lastLineIndex = lineIndex;
+                return line.accelerationAt(lineIndex);
+            }
+        }
+        if (line != null && ++offLineTurns > MAX_OFF_LINE_TURNS) {
+            offLineTurns = 0;
+            IAcceleration replanned = replan(circuit, currentPosition, currentVelocity, leg, opponentPositions);
+            if (replanned != null) {
+                return replanned;
+            }
+        }
+        return rejoin(space, leg, currentPosition, v, opponentPositions);
+    }
+
+    /**
+     * A giro completato la traiettoria termina sul traguardo, anche in
+     * velocità: l'auto rallenta il più possibile senza finire su un muro.
+     */
+    private IAcceleration stopAfterLap(ICircuit circuit, IPosition position, IVector velocity) {
+        int bestX = 0;
+        int bestY = 0;
+        int bestSpeed = Integer.MAX_VALUE;
+        for (int ay = -1; ay <= 1; ay++) {
+            for (int ax = -1; ax <= 1; ax++) {
+                int vx = velocity.getX() + ax;
+                int vy = velocity.getY() + ay;
+                int row = position.getRow() + vy;
+                int column = position.getColumn() + vx;
+                if (row < 0 || row >= circuit.getHeight() || column < 0 || column >= circuit.getWidth()
+                        || circuit.isWall(column, row)) continue;
+                int speed = Math.abs(vx) + Math.abs(vy);
+                if (speed < bestSpeed) {
+                    bestSpeed = speed;
+                    bestX = ax;
+                    bestY = ay;
+                }
+            }
+        }
+        return accelerate(bestX, bestY);
+    }
+
+    /**
+     * Indice della traiettoria in cui si trova l'auto: nel caso comune è il
+     * punto successivo a quello del turno precedente, altrimenti viene
+     * cercato tra i prossimi punti.
+     *
+     * @return l'indice, o -1 se l'auto è fuori traiettoria
+     */
+    private int locate(IPosition position, IVector velocity) {
+        if (matches(lineIndex + 1, position, velocity)) {
+            return lineIndex + 1;
+        }
+        int end = Math.min(line.size(), lastLineIndex + REJOIN_WINDOW);
+        for (int i = lastLineIndex; i < end; i++) {
+            if (matches(i, position, velocity)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(int index, IPosition position, IVector velocity) {
+        return index >= 0 && index < line.size()
+                && line.getRow(index) == position.getRow() && line.getColumn(index) == position.getColumn()
+                && line.getVelocityX(index) == velocity.getX() && line.getVelocityY(index) == velocity.getY();
+    }
+
+    /**
+     * Controllo locale di rientro: tra le mosse valide che non finiscono su
+     * un avversario sceglie quella più vicina a uno dei prossimi punti della
+     * traiettoria, pesando la distanza in celle il doppio della differenza
+     * di velocità.
+     */
+    private IAcceleration rejoin(RaceStateSpace space, int leg, IPosition position, IVector velocity,
+            List<IPosition> opponentPositions) {
+        long[] successors = new long[RaceStateSpace.MAX_SUCCESSORS];
+        int count = space.successors(space.encode(leg, position.getRow(), position.getColumn(),
+                velocity.getX(), velocity.getY()), successors);
+        int end = line == null ? 0 : Math.min(line.size(), lastLineIndex + REJOIN_WINDOW);
+        long bestState = -1;
+        long bestCost = Long.MAX_VALUE;
+        for (int s = 0; s < count; s++) {
+            int row = space.row(successors[s]);
+            int column = space.column(successors[s]);
+            if (isOccupied(row, column, opponentPositions)) continue;
+            int vx = space.velocityX(successors[s]);
+            int vy = space.velocityY(successors[s]);
+            long cost = end == 0 ? progressCost(space, successors[s]) : Long.MAX_VALUE;
+            for (int i = lastLineIndex; i < end; i++) {
+                int distance = Math.max(Math.abs(line.getRow(i) - row), Math.abs(line.getColumn(i) - column));
+                cost = Math.min(cost, 2 * distance + Math.abs(line.getVelocityX(i) - vx)
+                        + Math.abs(line.getVelocityY(i) - vy));
+            }
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestState = successors[s];
+            }
+        }
+        if (bestState < 0) {
+            return stay();
+        }
+        return accelerate(space.velocityX(bestState) - velocity.getX(), space.velocityY(bestState) - velocity.getY());
+    }
+
+    /**
+     * Costo di uno stato per la guida senza traiettoria: prima i tratti
+     * mancanti, poi la distanza in celle dall'obiettivo del tratto. Se la
+     * tabella delle distanze non è disponibile si usa la stima dello spazio
+     * degli stati, che ignora i muri.
+     */
+    private long progressCost(RaceStateSpace space, long state) {
+        int leg = space.leg(state);
+        if (leg >= space.getLegCount()) {
+            return 0;
+        }
+        long distance = legDistances == null
+                ? space.heuristic(state)
+                : legDistances.distance(leg, space.row(state), space.column(state));
+        return (space.getLegCount() - leg) * ((long) Integer.MAX_VALUE + 1) + distance;
+    }
+
+    /**
+     * Ripianifica il resto del giro dalla posizione attuale e lo adotta come
+     * nuova traiettoria del bot.
+     *
+     * @return la prima mossa della nuova traiettoria, o null se il giro non
+     *         ha soluzione da qui
+     */
+    private IAcceleration replan(ICircuit circuit, IPosition position, IVelocity velocity, int leg,
+            List<IPosition> opponentPositions) {
+        Trajectory replanned = new LapPlanner().plan(circuit, checkpointLines, firstLineOf(leg), position, velocity);
+        if (replanned == null || !replanned.hasNext(0)
+                || isOccupied(replanned.getRow(1), replanned.getColumn(1), opponentPositions)) {
+            return null;
+        }
+        line = replanned;
+        lineIndex = 0;
+        lastLineIndex = 0;
+        offLineTurns = 0;
+        return line.accelerationAt(0);
+    }
+
+    /**
+     * Prima linea di checkpoint del tratto indicato, per ripianificare dal
+     * tratto seguito dalla strategia anche se il gioco non lo ha ancora
+     * registrato.
+     */
+    private int firstLineOf(int leg) {
+        int[] lineToLeg = legs.lineToLeg();
+        for (int i = 0; i < lineToLeg.length; i++) {
+            if (lineToLeg[i] >= leg) {
+                return i;
+            }
+        }
+        return lineToLeg.length;
+    }
+
+    /**
+     * Tratto del giro in cui si trova l'auto: quello indicato dal gioco, o
+     * uno successivo se l'ultima mossa ha attraversato un obiettivo che il
+     * gioco non ha ancora registrato.
+     */
+    private int currentLeg(RaceStateSpace space, IPosition position, IVector velocity) {
+        int leg = legs.legOf(nextCheckpointIndex);
+        if (lastPosition != null && lastLeg >= 0
+                && position.getRow() == lastPosition.getRow() + velocity.getY()
+                && position.getColumn() == lastPosition.getColumn() + velocity.getX()) {
+            leg = Math.max(leg, space.legAfterMove(lastLeg, lastPosition.getRow(), lastPosition.getColumn(),
+                    velocity.getX(), velocity.getY()));
+        }
+        return leg;
+    }
+
+    private void prepareLine(ICircuit circuit, IPosition start) {
+        lineCircuit = circuit;
+        lineCheckpoints = checkpointLines;
+        lastPosition = null;
+        lastLeg = -1;
+        lineIndex = -1;
+        lastLineIndex = 0;
+        offLineTurns = 0;
+        lineStart = start;
+        legs = LapPlanner.legsFor(circuit, checkpointLines);
+        legDistances = null;
+        legDistancesUnavailable = false;
+        line = null;
+    }
+
+    /**
+     * Mappa le distanze dagli obiettivi dei tratti, calcolandole solo la
+     * prima volta per circuito e checkpoint. Se la decisione viene interrotta
+     * durante la lettura la tabella viene richiesta di nuovo al turno
+     * successivo.
+     */
+    private void openLegDistances(ICircuit circuit) {
+        try {
+            legDistances = CheckpointDistanceTable.open(store, circuit, legs.goals());
+        } catch (ClosedByInterruptException e) {
+            // Il canale ha già ripristinato l'interruzione del thread
+        } catch (IOException e) {
+            // Archivio non utilizzabile: si guida con la stima dello spazio degli stati
+            legDistancesUnavailable = true;
+        }
+    }
+
+    /**
+     * Chiede la traiettoria dalla partenza del giro. Se l'attesa viene
+     * interrotta il calcolo prosegue in background e la traiettoria viene
+     * richiesta di nuovo al turno successivo; un giro senza soluzione è in
+     * cache e la nuova richiesta non lo ricalcola.
+     */
+    private void fetchLine(ICircuit circuit) {
+        try {
+            line = RacingLine.from(store, circuit, checkpointLines, lineStart);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean isOccupied(int row, int column, List<IPosition> opponentPositions) {
+        for (IPosition opponent : opponentPositions) {
+            if (opponent.getRow() == row && opponent.getColumn() == column) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void configureWeights(MovementWeights weights) {
+        // La traiettoria ideale e il controllore che la segue non dipendono dai pesi
+    }
+
+    private IAcceleration accelerate(int ax, int ay) {
+        return new Acceleration(new it.unicam.cs.mdp2024.formula1game.model.util.Vector(ax, ay));
+    }
+
+    private IAcceleration stay() {
+        return accelerate(0, 0);
+    }
+}
@@ -0,0 +1,160 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.ICostMap;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Mappa dei costi per la guida difensiva, costruita sulle penalità di
+ * {@link SafetyWeights}: la distanza dai muri è calcolata una sola volta per
+ * circuito, mentre la vicinanza agli avversari viene aggiornata solo nelle
+ * celle attorno alle auto che si sono spostate.
+ */
+public class SafetyCostMap implements ICostMap {
+
+    private final ICircuit circuit;
+    private final SafetyWeights weights;
+    private final int width;
+    private final int height;
+    private final double[] clearancePenalty;
+    private final double[] proximityPenalty;
+    private final int radius;
+    private List<IPosition> opponents;
+
+    /**
+     * Crea la mappa dei costi per il circuito indicato, senza avversari.
+     *
+     * @param circuit il circuito
+     * @param weights i pesi difensivi da cui derivare le penalità
+     */
+    public SafetyCostMap(ICircuit circuit, SafetyWeights weights) {
+        this.circuit = circuit;
+        this.weights = weights;
+        this.width = circuit.getWidth();
+        this.height = circuit.getHeight();
+        this.clearancePenalty = computeClearancePenalty();
+        this.proximityPenalty = new double[width * height];
+        Arrays.fill(proximityPenalty, 1.0);
+        this.radius = (int) Math.ceil(weights.getSafeDistance());
+        this.opponents = new ArrayList<>();
+    }
+
+    /**
+     * @return il circuito su cui è costruita la mappa
+     */
+    public ICircuit getCircuit() {
+        return circuit;
+    }
+
+    @Override
+    public double getCellCost(int row, int column) {
+        int cell = row * width + column;
+        return clearancePenalty[cell] * proximityPenalty[cell];
+    }
+
+    @Override
+    public double getTurnCost(int rowIn, int columnIn, int rowOut, int columnOut) {
+        if (rowIn == rowOut && columnIn == columnOut) {
+            return 0;
+        }
+        // La penalità di curva pesa il passo extra rispetto a uno rettilineo
+        return weights.getCurvePenalty() - 1.0;
+    }
+
+    /**
+     * Aggiorna le posizioni degli avversari, ricalcolando solo le celle
+     * entro il raggio di sicurezza delle posizioni vecchie e nuove.
+     *
+     * @param opponentPositions le posizioni correnti degli avversari
+     * @return le celle il cui costo è cambiato
+     */
+    public List<IPosition> updateOpponents(Collection<IPosition> opponentPositions) {
+        List<IPosition> newOpponents = new ArrayList<>(opponentPositions);
+        if (newOpponents.equals(opponents)) {
+            return new ArrayList<>();
+        }
+
+        Set<Integer> touched = new LinkedHashSet<>();
+        for (IPosition opponent : opponents) {
+            if (!newOpponents.contains(opponent)) {
+                addArea(opponent, touched);
+            }
+        }
+        for (IPosition opponent : newOpponents) {
+            if (!opponents.contains(opponent)) {
+                addArea(opponent, touched);
+            }
+        }
+        opponents = newOpponents;
+
+        List<IPosition> changed = new ArrayList<>();
+        for (int cell : touched) {
+            IPosition position = new Position(cell / width, cell % width);
+            double penalty = weights.calculateProximityPenalty(position, opponents);
+            if (penalty != proximityPenalty[cell]) {
+                proximityPenalty[cell] = penalty;
+                changed.add(position);
+            }
+        }
+        return changed;
+    }
+
+    private void addArea(IPosition center, Set<Integer> cells) {
+        for (int row = center.getRow() - radius; row <= center.getRow() + radius; row++) {
+            for (int column = center.getColumn() - radius; column <= center.getColumn() + radius; column++) {
+                if (row >= 0 && row < height && column >= 0 && column < width) {
+                    cells.add(row * width + column);
+                }
+            }
+        }
+    }
+
+    private double[] computeClearancePenalty() {
+        // Visita in ampiezza a partire da tutti i muri: ogni cella riceve la
+        // distanza (in mosse del re) dal muro più vicino
+        int[] clearance = new int[width * height];
+        Arrays.fill(clearance, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int row = 0; row < height; row++) {
+            for (int column = 0; column < width; column++) {
+                if (circuit.isWall(column, row)) {
+                    clearance[row * width + column] = 0;
+                    queue.add(row * width + column);
+                }
+            }
+        }
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            int row = cell / width;
+            int column = cell % width;
+            for (int dRow = -1; dRow <= 1; dRow++) {
+                for (int dColumn = -1; dColumn <= 1; dColumn++) {
+                    int r = row + dRow;
+                    int c = column + dColumn;
+                    if (r < 0 || r >= height || c < 0 || c >= width) continue;
+                    int neighbor = r * width + c;
+                    if (clearance[neighbor] < 0) {
+                        clearance[neighbor] = clearance[cell] + 1;
+                        queue.add(neighbor);
+                    }
+                }
+            }
+        }
+
+        double[] penalty = new double[width * height];
+        for (int cell = 0; cell < penalty.length; cell++) {
+            // Senza muri sul circuito nessuna cella è penalizzata
+            penalty[cell] = clearance[cell] < 0 ? 1.0 : weights.calculateClearancePenalty(clearance[cell]);
+        }
+        return penalty;
+    }
+}
@@ -11,9 +11,19 @@ public class SafetyWeights extends MovementWeights {
     private static final double CURVE_PENALTY = 2.0;
     private static final double OPPONENT_PROXIMITY_PENALTY = 3.0;
     private static final double SAFE_DISTANCE = 3.0;
+    private static final double WALL_PROXIMITY_PENALTY = 1.5;
+    private static final int SAFE_WALL_DISTANCE = 3;
     
     private final IPosition[] opponentPositions;
     
+    /**
+     * Crea i pesi difensivi senza avversari noti, per chi calcola le
+     * penalità cella per cella.
+     */
+    public SafetyWeights() {
+        this(new IPosition[0]);
+    }
+    
     public SafetyWeights(IPosition[] opponentPositions) {
         super(1.0, 2.0, 3.0, 1.0); // Aumenta i pesi per velocità e collisioni
         this.opponentPositions = opponentPositions;
@@ -48,6 +58,50 @@ public class SafetyWeights extends MovementWeights {
         return baseWeight;
     }
     
+    /**
+     * Calcola la penalità per la vicinanza agli avversari di una cella.
+     * 
+     * @param position la cella
+     * @param opponents le posizioni degli avversari
+     * @return moltiplicatore del costo, 1 se nessun avversario è vicino
+     */
+    public double calculateProximityPenalty(IPosition position, Iterable<IPosition> opponents) {
+        double penalty = 1.0;
+        for (IPosition opponent : opponents) {
+            if (isNearOpponent(position, opponent)) {
+                penalty *= OPPONENT_PROXIMITY_PENALTY;
+            }
+        }
+        return penalty;
+    }
+    
+    /**
+     * Calcola la penalità per la vicinanza ai muri di una cella.
+     * 
+     * @param clearance distanza in celle dal muro più vicino
+     * @return moltiplicatore del costo, 1 se la cella è abbastanza lontana
+     */
+    public double calculateClearancePenalty(int clearance) {
+        if (clearance >= SAFE_WALL_DISTANCE) {
+            return 1.0;
+        }
+        return 1.0 + WALL_PROXIMITY_PENALTY * (SAFE_WALL_DISTANCE - clearance) / SAFE_WALL_DISTANCE;
+    }
+    
+    /**
+     * @return il costo aggiuntivo di un cambio di direzione
+     */
+    public double getCurvePenalty() {
+        return CURVE_PENALTY;
+    }
+    
+    /**
+     * @return il raggio entro cui un avversario penalizza una cella
+     */
+    public double getSafeDistance() {
+        return SAFE_DISTANCE;
+    }
+    
     private boolean isTurn(IPosition from, IPosition to) {
         // Calcola se c'è un cambio di direzione significativo
         int dRow = to.getRow() - from.getRow();
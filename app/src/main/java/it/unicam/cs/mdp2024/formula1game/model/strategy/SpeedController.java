@@ -1,64 +1,71 @@
 package it.unicam.cs.mdp2024.formula1game.model.strategy;
 
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.BrakingEnvelope;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
 import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
 import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
-import it.unicam.cs.mdp2024.formula1game.model.util.Vector;
 import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
 
 /**
  * Controller per la gestione della velocità in base alle condizioni del
  * circuito.
- * Si occupa di regolare la velocità in modo difensivo, specialmente in curva.
+ * Usa l'{@link BrakingEnvelope inviluppo di frenata} del circuito: tra le
+ * velocità raggiungibili con una sola accelerazione sceglie la più vicina
+ * a quella desiderata da cui l'auto può ancora fermarsi, così rallenta
+ * solo quando serve, ad esempio prima di una curva.
  */
 public class SpeedController {
 
-    private static final double MAX_CURVE_SPEED = 1.5;
-    private static final double SAFE_SPEED = 1.0;
-    private static final double ACCELERATION_FACTOR = 0.5;
+    private final BrakingEnvelope envelope;
 
     /**
-     * Calcola la velocità sicura per una data posizione e direzione.
+     * @param circuit il circuito su cui corre l'auto
+     */
+    public SpeedController(ICircuit circuit) {
+        this.envelope = BrakingEnvelope.of(circuit);
+    }
+
+    /**
+     * Calcola la velocità sicura per andare verso una data posizione.
      *
      * @param currentPos      posizione attuale
-     * @param nextPos         prossima posizione
+     * @param nextPos         prossima posizione desiderata
      * @param currentVelocity velocità attuale
-     * @return velocità regolata in base alle condizioni
+     * @return la velocità raggiungibile più vicina a quella che porta in
+     *         {@code nextPos} tra quelle che lasciano lo spazio per fermarsi;
+     *         se non ce ne sono, la frenata più decisa
      */
     public IVelocity calculateSafeVelocity(IPosition currentPos, IPosition nextPos, IVelocity currentVelocity) {
-        double speedMultiplier = 1.0;
-
-        // Riduce la velocità in curva
-        if (isTurning(currentPos, nextPos, currentVelocity)) {
-            speedMultiplier = Math.min(speedMultiplier, MAX_CURVE_SPEED);
-        }
-
-        // Applica l'accelerazione graduale
-        double currentSpeed = Math.sqrt(
-                Math.pow(currentVelocity.getCurrentVelocity().getX(), 2) +
-                        Math.pow(currentVelocity.getCurrentVelocity().getY(), 2));
+        IVector v = currentVelocity.getCurrentVelocity();
+        int desiredX = nextPos.getColumn() - currentPos.getColumn();
+        int desiredY = nextPos.getRow() - currentPos.getRow();
 
-        if (currentSpeed > SAFE_SPEED) {
-            speedMultiplier *= ACCELERATION_FACTOR;
+        int bestX = v.getX() - Integer.signum(v.getX());
+        int bestY = v.getY() - Integer.signum(v.getY());
+        int bestDistance = Integer.MAX_VALUE;
+        for (int ay = -1; ay <= 1; ay++) {
+            for (int ax = -1; ax <= 1; ax++) {
+                if (!envelope.isSafeMove(currentPos.getRow(), currentPos.getColumn(), v.getX(), v.getY(), ax, ay)) {
+                    continue;
+                }
+                int vx = v.getX() + ax;
+                int vy = v.getY() + ay;
+                int distance = (vx - desiredX) * (vx - desiredX) + (vy - desiredY) * (vy - desiredY);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    bestX = vx;
+                    bestY = vy;
+                }
+            }
         }
-
-        // Crea una nuova velocità regolata
-        Vector newVector = new Vector(
-                (int) (currentVelocity.getCurrentVelocity().getX() * speedMultiplier),
-                (int) (currentVelocity.getCurrentVelocity().getY() * speedMultiplier));
-
-        return new Velocity(newVector);
+        return new Velocity(bestX, bestY);
     }
 
     /**
-     * Determina se la macchina sta effettuando una curva.
+     * @return l'inviluppo di frenata usato dal controller
      */
-    private boolean isTurning(IPosition currentPos, IPosition nextPos, IVelocity currentVelocity) {
-        // Calcola il cambio di direzione
-        int dRow = nextPos.getRow() - currentPos.getRow();
-        int dCol = nextPos.getColumn() - currentPos.getColumn();
-
-        // Se la direzione attuale è diversa dalla velocità corrente, è una curva
-        return dRow != currentVelocity.getCurrentVelocity().getY() ||
-                dCol != currentVelocity.getCurrentVelocity().getX();
+    public BrakingEnvelope getEnvelope() {
+        return envelope;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,149 @@
+package it.unicam.cs.mdp2024.formula1game.model.tuning;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Stato del tuner salvato su disco dopo ogni generazione, per riprendere una
+ * ricerca interrotta.
+ * Il file di testo contiene la generazione da valutare, il miglior individuo
+ * trovato con il suo costo e la popolazione, un individuo per riga:
+ * <pre>
+ * generazione 7
+ * migliore 12.5 1.5 0.8 1.2 1.5
+ * 1.4 0.9 1.1 1.6
+ * ...
+ * </pre>
+ * Il file viene sostituito in modo atomico, quindi un'interruzione durante la
+ * scrittura lascia intatto quello precedente.
+ */
+final class PopulationCheckpoint {
+
+    private static final String GENERATION = "generazione";
+    private static final String BEST = "migliore";
+
+    private final int generation;
+    private final double[] best;
+    private final double bestFitness;
+    private final List<double[]> population;
+
+    PopulationCheckpoint(int generation, double[] best, double bestFitness, List<double[]> population) {
+        this.generation = generation;
+        this.best = best;
+        this.bestFitness = bestFitness;
+        this.population = population;
+    }
+
+    int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return il miglior individuo, o null se nessuno è ancora stato valutato
+     */
+    double[] getBest() {
+        return best;
+    }
+
+    double getBestFitness() {
+        return bestFitness;
+    }
+
+    List<double[]> getPopulation() {
+        return population;
+    }
+
+    /**
+     * Scrive lo stato nel file indicato.
+     *
+     * @param file il file di destinazione
+     * @throws IOException se la scrittura fallisce
+     */
+    void save(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary)) {
+            writer.write(GENERATION + " " + generation);
+            writer.newLine();
+            if (best != null) {
+                writer.write(BEST + " " + format(bestFitness) + " " + format(best));
+                writer.newLine();
+            }
+            for (double[] genome : population) {
+                writer.write(format(genome));
+                writer.newLine();
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Legge uno stato salvato.
+     *
+     * @param file  il file da leggere
+     * @param genes numero di pesi di ogni individuo
+     * @return lo stato letto
+     * @throws IOException              se la lettura fallisce
+     * @throws IllegalArgumentException se il contenuto non è valido
+     */
+    static PopulationCheckpoint load(Path file, int genes) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        if (lines.isEmpty() || !lines.get(0).startsWith(GENERATION + " ")) {
+            throw new IllegalArgumentException("Stato del tuner non valido: " + file);
+        }
+        int generation = Integer.parseInt(lines.get(0).substring(GENERATION.length()).trim());
+        double[] best = null;
+        double bestFitness = Double.POSITIVE_INFINITY;
+        List<double[]> population = new ArrayList<>();
+        for (int i = 1; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.startsWith(BEST + " ")) {
+                double[] values = parse(line.substring(BEST.length()), genes + 1, file);
+                bestFitness = values[0];
+                best = new double[genes];
+                System.arraycopy(values, 1, best, 0, genes);
+            } else {
+                population.add(parse(line, genes, file));
+            }
+        }
+        if (population.isEmpty()) {
+            throw new IllegalArgumentException("Popolazione vuota nello stato del tuner: " + file);
+        }
+        return new PopulationCheckpoint(generation, best, bestFitness, population);
+    }
+
+    private static double[] parse(String line, int expected, Path file) {
+        String[] tokens = line.trim().split("\\s+");
+        if (tokens.length != expected) {
+            throw new IllegalArgumentException("Riga non valida nello stato del tuner " + file + ": " + line);
+        }
+        double[] values = new double[expected];
+        for (int i = 0; i < expected; i++) {
+            values[i] = Double.parseDouble(tokens[i]);
+        }
+        return values;
+    }
+
+    private static String format(double... values) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(String.format(Locale.ROOT, "%.6f", values[i]));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,276 @@
+package it.unicam.cs.mdp2024.formula1game.model.tuning;
+
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.DistanceField;
+import it.unicam.cs.mdp2024.formula1game.model.car.Car;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.checkpoint.CheckpointManager;
+import it.unicam.cs.mdp2024.formula1game.model.game.DefaultMoveValidator;
+import it.unicam.cs.mdp2024.formula1game.model.player.BotPlayer;
+import it.unicam.cs.mdp2024.formula1game.model.player.IPlayer;
+import it.unicam.cs.mdp2024.formula1game.model.strategy.MovementStrategyFactory;
+import it.unicam.cs.mdp2024.formula1game.model.strategy.MovementWeights;
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Vector;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Valuta un insieme di pesi facendo correre gare senza interfaccia su un
+ * circuito.
+ * In ogni gara il bot con i pesi da valutare parte da una delle posizioni di
+ * partenza, a rotazione, insieme a un numero fisso di avversari con i pesi
+ * predefiniti; la gara termina quando il bot arriva, esce di pista o esaurisce
+ * i turni.
+ * Ogni gara crea validatore, checkpoint e giocatori propri, quindi gare
+ * diverse possono essere eseguite contemporaneamente.
+ */
+public class RaceEvaluator {
+
+    /** Costo aggiuntivo di un'uscita di pista, in frazioni del limite di turni. */
+    private static final double CRASH_PENALTY = 1.0;
+
+    /**
+     * Esito di una gara.
+     *
+     * @param finished true se il bot ha tagliato il traguardo
+     * @param crashed  true se il bot è uscito di pista
+     * @param turns    turni giocati dal bot
+     * @param progress frazione del giro percorsa, tra 0 e 1
+     */
+    public record RaceOutcome(boolean finished, boolean crashed, int turns, double progress) {
+    }
+
+    /**
+     * Riepilogo delle gare di un insieme di pesi.
+     */
+    public static final class Evaluation {
+        private final double fitness;
+        private final int races;
+        private final double finishRate;
+        private final double crashRate;
+        private final double meanTurnsToFinish;
+        private final double meanProgress;
+
+        Evaluation(double fitness, int races, double finishRate, double crashRate,
+                double meanTurnsToFinish, double meanProgress) {
+            this.fitness = fitness;
+            this.races = races;
+            this.finishRate = finishRate;
+            this.crashRate = crashRate;
+            this.meanTurnsToFinish = meanTurnsToFinish;
+            this.meanProgress = meanProgress;
+        }
+
+        /**
+         * @return il costo medio per gara, più basso è migliore
+         */
+        public double getFitness() {
+            return fitness;
+        }
+
+        public int getRaces() {
+            return races;
+        }
+
+        public double getFinishRate() {
+            return finishRate;
+        }
+
+        public double getCrashRate() {
+            return crashRate;
+        }
+
+        /**
+         * @return turni medi delle gare concluse, NaN se nessuna lo è
+         */
+        public double getMeanTurnsToFinish() {
+            return meanTurnsToFinish;
+        }
+
+        public double getMeanProgress() {
+            return meanProgress;
+        }
+    }
+
+    private final ICircuit circuit;
+    private final int strategyCode;
+    private final int races;
+    private final int opponents;
+    private final int maxTurns;
+
+    /**
+     * @param circuit      il circuito delle gare
+     * @param strategyCode la strategia dei bot, tra quelle che usano i pesi
+     * @param races        gare per ogni insieme di pesi
+     * @param opponents    avversari in ogni gara
+     * @param maxTurns     turni oltre i quali una gara viene interrotta
+     * @throws IllegalArgumentException se i parametri non sono validi, la
+     *                                  strategia ignora i pesi o il circuito
+     *                                  non ha abbastanza posizioni di partenza
+     */
+    public RaceEvaluator(ICircuit circuit, int strategyCode, int races, int opponents, int maxTurns) {
+        if (!MovementStrategyFactory.isValidCode(strategyCode)) {
+            throw new IllegalArgumentException("Codice strategia non valido: " + strategyCode);
+        }
+        if (!MovementStrategyFactory.usesWeights(strategyCode)) {
+            throw new IllegalArgumentException("La strategia " + strategyCode + " non usa i pesi di movimento");
+        }
+        if (races <= 0 || maxTurns <= 0) {
+            throw new IllegalArgumentException("Gare e turni devono essere positivi");
+        }
+        if (opponents < 0 || opponents >= circuit.getStartPositions().size()) {
+            throw new IllegalArgumentException("Posizioni di partenza insufficienti per " + opponents + " avversari");
+        }
+        this.circuit = circuit;
+        this.strategyCode = strategyCode;
+        this.races = races;
+        this.opponents = opponents;
+        this.maxTurns = maxTurns;
+    }
+
+    public int getRaces() {
+        return races;
+    }
+
+    public int getStrategyCode() {
+        return strategyCode;
+    }
+
+    /**
+     * Corre una delle gare di valutazione.
+     *
+     * @param weights i pesi del bot valutato
+     * @param race    indice della gara, determina le posizioni di partenza
+     * @return l'esito della gara
+     */
+    public RaceOutcome runRace(MovementWeights weights, int race) {
+        DefaultMoveValidator validator = new DefaultMoveValidator();
+        CheckpointManager checkpointManager = new CheckpointManager(circuit);
+        List<IPosition> starts = circuit.getStartPositions();
+        List<IPlayer> players = new ArrayList<>();
+        BotPlayer candidate = null;
+        for (int i = 0; i <= opponents; i++) {
+            BotPlayer bot = new BotPlayer("BOT_" + i, "000000", strategyCode);
+            if (i == 0) {
+                bot.setMovementWeights(weights);
+                candidate = bot;
+            }
+            IPosition start = starts.get((race + i) % starts.size());
+            bot.setCar(new Car(start, new Velocity(new Vector(0, 0)), new Acceleration(new Vector(0, 0))));
+            bot.initializeGameDependencies(circuit, validator, checkpointManager);
+            // Le gare ripetono molte situazioni: con la cache condivisa le
+            // decisioni già prese per gli stessi pesi non vengono ricalcolate
+            bot.setDecisionCaching(true);
+            bot.setCurrentPlayers(players);
+            checkpointManager.initializePlayer(bot);
+            players.add(bot);
+        }
+
+        IPosition candidateStart = candidate.getCar().getPosition();
+        int turn = 0;
+        boolean finished = false;
+        while (turn < maxTurns && candidate.isActive() && !finished) {
+            turn++;
+            for (IPlayer player : players) {
+                if (!player.isActive()) {
+                    continue;
+                }
+                BotPlayer bot = (BotPlayer) player;
+                IPosition oldPosition = bot.getCar().getPosition();
+                IAcceleration acceleration = bot.chooseAcceleration();
+                if (!validator.isValidMove(bot, oldPosition, acceleration, circuit, players)) {
+                    bot.setActive(false);
+                    continue;
+                }
+                bot.getCar().setAcceleration(acceleration);
+                bot.getCar().move();
+                checkpointManager.checkAndUpdateCheckpoints(bot, oldPosition, bot.getCar().getPosition());
+                if (bot == candidate && checkpointManager.hasCompletedAllCheckpoints(bot)
+                        && circuit.getFinishPositions().contains(bot.getCar().getPosition())) {
+                    finished = true;
+                    break;
+                }
+            }
+        }
+        return new RaceOutcome(finished, !candidate.isActive(), turn,
+                finished ? 1.0 : lapProgress(checkpointManager, candidate, candidateStart));
+    }
+
+    /**
+     * Costo di una gara: i turni impiegati se il bot è arrivato, altrimenti
+     * più del limite di turni, tanto più quanto meno giro ha percorso, con una
+     * penalità aggiuntiva per l'uscita di pista.
+     *
+     * @param outcome l'esito della gara
+     * @return il costo, più basso è migliore
+     */
+    public double cost(RaceOutcome outcome) {
+        double cost = outcome.finished() ? outcome.turns() : maxTurns * (2.0 - outcome.progress());
+        if (outcome.crashed()) {
+            cost += maxTurns * CRASH_PENALTY;
+        }
+        return cost;
+    }
+
+    /**
+     * Riassume gli esiti delle gare di un insieme di pesi.
+     *
+     * @param outcomes gli esiti, almeno uno
+     * @return il riepilogo
+     * @throws IllegalArgumentException se non ci sono esiti
+     */
+    public Evaluation summarize(List<RaceOutcome> outcomes) {
+        if (outcomes.isEmpty()) {
+            throw new IllegalArgumentException("Nessuna gara da riassumere");
+        }
+        double totalCost = 0;
+        double totalProgress = 0;
+        int finishedRaces = 0;
+        int crashes = 0;
+        long finishTurns = 0;
+        for (RaceOutcome outcome : outcomes) {
+            totalCost += cost(outcome);
+            totalProgress += outcome.progress();
+            if (outcome.finished()) {
+                finishedRaces++;
+                finishTurns += outcome.turns();
+            }
+            if (outcome.crashed()) {
+                crashes++;
+            }
+        }
+        int count = outcomes.size();
+        return new Evaluation(totalCost / count, count, (double) finishedRaces / count, (double) crashes / count,
+                finishedRaces == 0 ? Double.NaN : (double) finishTurns / finishedRaces, totalProgress / count);
+    }
+
+    /**
+     * Frazione del giro percorsa: checkpoint attraversati più la parte della
+     * tratta verso il prossimo, misurata come distanza sulla strada.
+     */
+    private double lapProgress(CheckpointManager checkpointManager, BotPlayer bot, IPosition start) {
+        List<List<IPosition>> lines = checkpointManager.getCheckpointLines();
+        int passed = checkpointManager.getNextCheckpointIndex(bot);
+        if (lines.isEmpty() || passed >= lines.size()) {
+            return lines.isEmpty() ? 0.0 : 1.0;
+        }
+        IPosition target = checkpointManager.getNextCheckpoint(bot);
+        IPosition legStart = passed == 0 ? start : middle(lines.get(passed - 1));
+        DistanceField field = DistanceField.towards(circuit, List.of(target));
+        int legLength = field.distance(legStart);
+        int remaining = field.distance(bot.getCar().getPosition());
+        double leg = 0.0;
+        if (legLength != DistanceField.UNREACHABLE && legLength > 0 && remaining != DistanceField.UNREACHABLE) {
+            leg = Math.max(0.0, 1.0 - (double) remaining / legLength);
+        }
+        return (passed + leg) / lines.size();
+    }
+
+    private static IPosition middle(List<IPosition> line) {
+        return line.get(line.size() / 2);
+    }
+}
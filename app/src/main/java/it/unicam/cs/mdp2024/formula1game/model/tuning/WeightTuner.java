@@ -0,0 +1,326 @@
+package it.unicam.cs.mdp2024.formula1game.model.tuning;
+
+import it.unicam.cs.mdp2024.formula1game.model.player.BotPlayer;
+import it.unicam.cs.mdp2024.formula1game.model.strategy.MovementWeights;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Algoritmo genetico che cerca i {@link MovementWeights} migliori per una
+ * strategia su un circuito.
+ * Ogni individuo è un vettore di quattro pesi; a ogni generazione tutte le
+ * gare di tutti gli individui vengono distribuite tra i core, poi i migliori
+ * passano invariati alla generazione successiva e gli altri posti vengono
+ * riempiti con figli ottenuti per selezione a torneo, incrocio per
+ * interpolazione e mutazione gaussiana.
+ * La popolazione iniziale contiene i pesi predefiniti della strategia, quindi
+ * il risultato non è mai peggiore di quelli.
+ * Se è indicato un file di stato, la popolazione vi viene salvata dopo ogni
+ * generazione e una nuova esecuzione riprende da lì.
+ */
+public class WeightTuner {
+
+    /** Valore minimo di ogni peso. */
+    public static final double MIN_WEIGHT = 0.0;
+    /** Valore massimo di ogni peso. */
+    public static final double MAX_WEIGHT = 4.0;
+
+    private static final int GENES = 4;
+    private static final int TOURNAMENT_SIZE = 3;
+    /** Ampiezza dell'intervallo di incrocio oltre i pesi dei genitori. */
+    private static final double BLEND_ALPHA = 0.3;
+    private static final double MUTATION_RATE = 0.5;
+
+    /**
+     * Risultato di una ricerca.
+     */
+    public static final class Result {
+        private final MovementWeights weights;
+        private final RaceEvaluator.Evaluation evaluation;
+        private final int generations;
+
+        Result(MovementWeights weights, RaceEvaluator.Evaluation evaluation, int generations) {
+            this.weights = weights;
+            this.evaluation = evaluation;
+            this.generations = generations;
+        }
+
+        /**
+         * @return i pesi migliori dell'ultima generazione valutata
+         */
+        public MovementWeights getWeights() {
+            return weights;
+        }
+
+        public RaceEvaluator.Evaluation getEvaluation() {
+            return evaluation;
+        }
+
+        /**
+         * @return generazioni completate, comprese quelle di esecuzioni precedenti
+         */
+        public int getGenerations() {
+            return generations;
+        }
+    }
+
+    private final RaceEvaluator evaluator;
+    private final int populationSize;
+    private final long seed;
+    private int eliteCount;
+    private double mutationSigma;
+    private int threads;
+    private Path checkpointFile;
+
+    /**
+     * @param evaluator      le gare con cui valutare gli individui
+     * @param populationSize individui per generazione
+     * @param seed           seme dei numeri casuali
+     * @throws IllegalArgumentException se la popolazione ha meno di due individui
+     */
+    public WeightTuner(RaceEvaluator evaluator, int populationSize, long seed) {
+        if (populationSize < 2) {
+            throw new IllegalArgumentException("La popolazione deve avere almeno due individui");
+        }
+        this.evaluator = evaluator;
+        this.populationSize = populationSize;
+        this.seed = seed;
+        this.eliteCount = Math.max(1, populationSize / 8);
+        this.mutationSigma = 0.1;
+        this.threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @param eliteCount individui migliori copiati nella generazione successiva
+     * @throws IllegalArgumentException se non è tra 1 e la dimensione della popolazione
+     */
+    public void setEliteCount(int eliteCount) {
+        if (eliteCount < 1 || eliteCount > populationSize) {
+            throw new IllegalArgumentException("Numero di individui d'élite non valido: " + eliteCount);
+        }
+        this.eliteCount = eliteCount;
+    }
+
+    /**
+     * @param mutationSigma deviazione standard della mutazione, in frazioni
+     *                      dell'intervallo dei pesi
+     * @throws IllegalArgumentException se è negativa
+     */
+    public void setMutationSigma(double mutationSigma) {
+        if (mutationSigma < 0) {
+            throw new IllegalArgumentException("La deviazione della mutazione non può essere negativa");
+        }
+        this.mutationSigma = mutationSigma;
+    }
+
+    /**
+     * @param threads thread che eseguono le gare
+     * @throws IllegalArgumentException se non è positivo
+     */
+    public void setThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Il numero di thread deve essere positivo");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * @param checkpointFile file in cui salvare la popolazione, o null per non salvarla
+     */
+    public void setCheckpointFile(Path checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    /**
+     * Esegue la ricerca fino al numero di generazioni indicato, riprendendo
+     * dal file di stato se esiste.
+     *
+     * @param generations generazioni totali, comprese quelle già salvate
+     * @param log         destinazione dei progressi, uno per generazione
+     * @return i pesi migliori trovati
+     * @throws IOException          se la lettura o la scrittura dello stato fallisce
+     * @throws InterruptedException se l'attesa delle gare viene interrotta
+     */
+    public Result run(int generations, PrintStream log) throws IOException, InterruptedException {
+        int generation = 0;
+        List<double[]> population;
+        if (checkpointFile != null && Files.exists(checkpointFile)) {
+            PopulationCheckpoint checkpoint = PopulationCheckpoint.load(checkpointFile, GENES);
+            generation = checkpoint.getGeneration();
+            population = resize(checkpoint.getPopulation(), new Random(seed));
+            log.printf("Ripresa dalla generazione %d (%s)%n", generation, checkpointFile);
+        } else {
+            population = initialPopulation(new Random(seed));
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            double[] best;
+            RaceEvaluator.Evaluation bestEvaluation;
+            do {
+                long start = System.nanoTime();
+                RaceEvaluator.Evaluation[] evaluations = evaluate(population, executor);
+                Integer[] ranking = rank(evaluations);
+                best = population.get(ranking[0]);
+                bestEvaluation = evaluations[ranking[0]];
+                if (generation >= generations) {
+                    break;
+                }
+                log.printf(Locale.ROOT, "Generazione %d: costo %.2f, arrivi %.0f%%, uscite %.0f%%, giro %.0f%%, "
+                        + "pesi %s, %.1f s%n", generation + 1, bestEvaluation.getFitness(),
+                        bestEvaluation.getFinishRate() * 100, bestEvaluation.getCrashRate() * 100,
+                        bestEvaluation.getMeanProgress() * 100, describe(best),
+                        (System.nanoTime() - start) / 1e9);
+
+                generation++;
+                population = breed(population, ranking, new Random(seed + generation));
+                if (checkpointFile != null) {
+                    new PopulationCheckpoint(generation, best, bestEvaluation.getFitness(), population)
+                            .save(checkpointFile);
+                }
+            } while (generation < generations);
+            return new Result(toWeights(best), bestEvaluation, generation);
+        }
+    }
+
+    private RaceEvaluator.Evaluation[] evaluate(List<double[]> population, ExecutorService executor)
+            throws InterruptedException {
+        int races = evaluator.getRaces();
+        List<Callable<RaceEvaluator.RaceOutcome>> tasks = new ArrayList<>(population.size() * races);
+        for (double[] genome : population) {
+            MovementWeights weights = toWeights(genome);
+            for (int race = 0; race < races; race++) {
+                int index = race;
+                tasks.add(() -> evaluator.runRace(weights, index));
+            }
+        }
+        List<Future<RaceEvaluator.RaceOutcome>> futures = executor.invokeAll(tasks);
+
+        RaceEvaluator.Evaluation[] evaluations = new RaceEvaluator.Evaluation[population.size()];
+        for (int i = 0; i < population.size(); i++) {
+            List<RaceEvaluator.RaceOutcome> outcomes = new ArrayList<>(races);
+            for (int race = 0; race < races; race++) {
+                try {
+                    outcomes.add(futures.get(i * races + race).get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Gara di valutazione fallita", e.getCause());
+                }
+            }
+            evaluations[i] = evaluator.summarize(outcomes);
+        }
+        return evaluations;
+    }
+
+    /**
+     * Indici degli individui dal costo più basso al più alto; a parità di
+     * costo resta l'ordine della popolazione, così l'élite è stabile.
+     */
+    private static Integer[] rank(RaceEvaluator.Evaluation[] evaluations) {
+        Integer[] ranking = new Integer[evaluations.length];
+        for (int i = 0; i < ranking.length; i++) {
+            ranking[i] = i;
+        }
+        Arrays.sort(ranking, (a, b) -> Double.compare(evaluations[a].getFitness(), evaluations[b].getFitness()));
+        return ranking;
+    }
+
+    private List<double[]> breed(List<double[]> population, Integer[] ranking, Random random) {
+        List<double[]> next = new ArrayList<>(populationSize);
+        for (int i = 0; i < eliteCount && i < ranking.length; i++) {
+            next.add(population.get(ranking[i]).clone());
+        }
+        while (next.size() < populationSize) {
+            double[] first = population.get(tournament(ranking, random));
+            double[] second = population.get(tournament(ranking, random));
+            double[] child = new double[GENES];
+            for (int gene = 0; gene < GENES; gene++) {
+                double low = Math.min(first[gene], second[gene]);
+                double high = Math.max(first[gene], second[gene]);
+                double extent = (high - low) * BLEND_ALPHA;
+                double value = low - extent + random.nextDouble() * (high - low + 2 * extent);
+                if (random.nextDouble() < MUTATION_RATE) {
+                    value += random.nextGaussian() * mutationSigma * (MAX_WEIGHT - MIN_WEIGHT);
+                }
+                child[gene] = clamp(value);
+            }
+            next.add(child);
+        }
+        return next;
+    }
+
+    /**
+     * Sceglie il migliore tra alcuni individui estratti a caso.
+     */
+    private static int tournament(Integer[] ranking, Random random) {
+        int bestRank = ranking.length;
+        for (int i = 0; i < TOURNAMENT_SIZE; i++) {
+            bestRank = Math.min(bestRank, random.nextInt(ranking.length));
+        }
+        return ranking[bestRank];
+    }
+
+    private List<double[]> initialPopulation(Random random) {
+        List<double[]> population = new ArrayList<>(populationSize);
+        population.add(toGenome(BotPlayer.defaultWeights(evaluator.getStrategyCode())));
+        while (population.size() < populationSize) {
+            population.add(randomGenome(random));
+        }
+        return population;
+    }
+
+    /**
+     * Adatta una popolazione salvata alla dimensione attuale.
+     */
+    private List<double[]> resize(List<double[]> saved, Random random) {
+        List<double[]> population = new ArrayList<>(saved.subList(0, Math.min(saved.size(), populationSize)));
+        while (population.size() < populationSize) {
+            population.add(randomGenome(random));
+        }
+        return population;
+    }
+
+    private static double[] randomGenome(Random random) {
+        double[] genome = new double[GENES];
+        for (int gene = 0; gene < GENES; gene++) {
+            genome[gene] = MIN_WEIGHT + random.nextDouble() * (MAX_WEIGHT - MIN_WEIGHT);
+        }
+        return genome;
+    }
+
+    private static String describe(double[] genome) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int gene = 0; gene < genome.length; gene++) {
+            builder.append(gene > 0 ? ", " : "").append(String.format(Locale.ROOT, "%.3f", genome[gene]));
+        }
+        return builder.append(']').toString();
+    }
+
+    private static double clamp(double value) {
+        return Math.max(MIN_WEIGHT, Math.min(MAX_WEIGHT, value));
+    }
+
+    private static double[] toGenome(MovementWeights weights) {
+        return new double[] {
+            weights.getPathEfficiencyWeight(),
+            weights.getSpeedControlWeight(),
+            weights.getCollisionAvoidanceWeight(),
+            weights.getCheckpointAlignmentWeight()
+        };
+    }
+
+    private static MovementWeights toWeights(double[] genome) {
+        return new MovementWeights(genome[0], genome[1], genome[2], genome[3]);
+    }
+}
@@ -0,0 +1,99 @@
+package it.unicam.cs.mdp2024.formula1game;
+
+import it.unicam.cs.mdp2024.formula1game.model.circuit.Circuit;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitLoader;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+
+/**
+ * Circuiti di prova costruiti in memoria con la stessa sintassi dei file
+ * in resources/circuits.
+ */
+public final class TestCircuits {
+
+    private TestCircuits() {
+    }
+
+    /**
+     * Costruisce un circuito a partire dalle sue righe.
+     *
+     * @param rows le righe del circuito, tutte della stessa lunghezza
+     * @return il circuito
+     */
+    public static ICircuit of(String... rows) {
+        char[][] track = new char[rows.length][];
+        for (int row = 0; row < rows.length; row++) {
+            track[row] = rows[row].toCharArray();
+        }
+        return new Circuit(CircuitLoader.convertToCells(track));
+    }
+
+    /**
+     * Un rettilineo con un vicolo cieco largo una cella sotto la colonna 6:
+     * la cella (4, 6) ha una sola cella libera adiacente.
+     *
+     * @return il circuito
+     */
+    public static ICircuit deadEnd() {
+        return of(
+                "##########",
+                "#S......*#",
+                "#..@.....#",
+                "######.###",
+                "######.###",
+                "##########");
+    }
+
+    /**
+     * Un tornante: partenza in alto a sinistra, checkpoint sulla colonna 7
+     * del rettilineo superiore, passaggio a destra e traguardo in basso a
+     * sinistra.
+     *
+     * @return il circuito
+     */
+    public static ICircuit hairpin() {
+        return of(
+                "################",
+                "#S.....@.......#",
+                "#S.....@.......#",
+                "#S.....@.......#",
+                "##########.....#",
+                "#*.............#",
+                "#*.............#",
+                "################");
+    }
+
+    /**
+     * Un campo aperto di 34x21 celle con tre partenze distanti tra loro,
+     * nelle posizioni (2, 2), (10, 2) e (18, 2), il checkpoint sulla colonna
+     * 24 e il traguardo sulla colonna 30.
+     *
+     * @return il circuito
+     */
+    public static ICircuit openField() {
+        int width = 34;
+        int height = 21;
+        String[] rows = new String[height];
+        for (int row = 0; row < height; row++) {
+            StringBuilder line = new StringBuilder();
+            for (int column = 0; column < width; column++) {
+                if (row == 0 || row == height - 1 || column == 0 || column == width - 1) {
+                    line.append('#');
+                } else if (column == 24) {
+                    line.append('@');
+                } else if (column == 30) {
+                    line.append('*');
+                } else {
+                    line.append('.');
+                }
+            }
+            rows[row] = line.toString();
+        }
+        // Il loader scambia righe e colonne delle partenze: la S in (2, c) parte in (c, 2)
+        for (int column : new int[] {2, 10, 18}) {
+            char[] line = rows[2].toCharArray();
+            line[column] = 'S';
+            rows[2] = new String(line);
+        }
+        return of(rows);
+    }
+}
@@ -0,0 +1,91 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnytimeAStarTest {
+
+    private static final int TURN_BUDGET = 50;
+    private static final int MAX_TURNS = 1000;
+
+    private final ICircuit circuit = TestCircuits.openField();
+    private final IPosition start = new Position(2, 2);
+    private final IPosition target = new Position(18, 30);
+
+    @Test
+    public void eachTurnStaysWithinTheExpansionBudget() {
+        List<AnytimeAStar.Result> turns = planInTurns();
+        assertTrue(turns.size() > 1, "la ricerca è terminata in un solo turno");
+        for (AnytimeAStar.Result result : turns) {
+            assertTrue(result.getExpansions() <= TURN_BUDGET, result.getExpansions() + " espansioni");
+        }
+    }
+
+    @Test
+    public void searchResumesAcrossTurns() {
+        List<AnytimeAStar.Result> turns = planInTurns();
+        // Ogni turno riparte da dove si era fermato il precedente: il percorso
+        // e il limite di subottimalità possono solo migliorare
+        assertTrue(turns.get(0).isComplete(), "nessun percorso dopo il primo turno");
+        for (int i = 1; i < turns.size(); i++) {
+            assertTrue(turns.get(i).getSuboptimalityBound() <= turns.get(i - 1).getSuboptimalityBound());
+            assertTrue(cost(turns.get(i).getPath()) <= cost(turns.get(i - 1).getPath()) + 1e-9);
+        }
+        AnytimeAStar.Result last = turns.get(turns.size() - 1);
+        assertTrue(last.isOptimal());
+        assertEquals(1.0, last.getSuboptimalityBound());
+    }
+
+    @Test
+    public void convergesToTheOptimalAStarCost() {
+        List<AnytimeAStar.Result> turns = planInTurns();
+        List<IPosition> path = turns.get(turns.size() - 1).getPath();
+        assertEquals(start, path.get(0));
+        assertEquals(target, path.get(path.size() - 1));
+
+        // Senza euristica gonfiata e senza budget la ricerca è un A* completo
+        AnytimeAStar exact = new AnytimeAStar(1.0, 0.5);
+        exact.startSession(start, target, circuit, new Velocity(0, 0));
+        assertEquals(cost(exact.improve(0, Integer.MAX_VALUE).getPath()), cost(path), 1e-9);
+        // A* con l'euristica pesata trova un percorso al più altrettanto buono
+        assertTrue(cost(path) <= cost(new AStar().findPath(start, target, circuit)) + 1e-9);
+    }
+
+    @Test
+    public void improveWithoutSessionIsRejected() {
+        assertThrows(IllegalStateException.class, () -> new AnytimeAStar().improve(0, TURN_BUDGET));
+    }
+
+    /**
+     * Pianifica come la strategia A*, un budget di espansioni per turno,
+     * finché il percorso non è ottimo.
+     */
+    private List<AnytimeAStar.Result> planInTurns() {
+        AnytimeAStar planner = new AnytimeAStar();
+        planner.startSession(start, target, circuit, new Velocity(0, 0));
+        List<AnytimeAStar.Result> turns = new ArrayList<>();
+        do {
+            turns.add(planner.improve(0, TURN_BUDGET));
+            assertTrue(turns.size() <= MAX_TURNS, "la ricerca non converge");
+        } while (!planner.isOptimal());
+        return turns;
+    }
+
+    private static double cost(List<IPosition> path) {
+        double cost = 0;
+        for (int i = 1; i < path.size(); i++) {
+            cost += AStar.getMoveCost(path.get(i - 1), path.get(i));
+        }
+        return cost;
+    }
+}
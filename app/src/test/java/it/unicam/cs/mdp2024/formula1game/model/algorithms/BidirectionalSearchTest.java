@@ -0,0 +1,51 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BidirectionalSearchTest {
+
+    @Test
+    public void bidirectionalCostsMatchSerialSearch() {
+        ICircuit circuit = TestCircuits.hairpin();
+        RaceStateSpace space = RaceStateSpace.forTarget(circuit, new Position(6, 1));
+        BidirectionalSearch serial = new BidirectionalSearch(false);
+        BidirectionalSearch bidirectional = new BidirectionalSearch(true);
+        for (IPosition start : circuit.getStartPositions()) {
+            BidirectionalSearch.Result expected = serial.search(space, start);
+            BidirectionalSearch.Result actual = bidirectional.search(space, start);
+            assertTrue(expected.isFound());
+            assertEquals(expected.getCost(), actual.getCost(), "da " + start);
+        }
+    }
+
+    @Test
+    public void unreachableTargetIsNotFound() {
+        ICircuit circuit = TestCircuits.deadEnd();
+        RaceStateSpace space = RaceStateSpace.forTarget(circuit, new Position(4, 6));
+        assertFalse(new BidirectionalSearch(false).search(space, new Position(1, 1)).isFound());
+        assertFalse(new BidirectionalSearch(true).search(space, new Position(1, 1)).isFound());
+        assertTrue(new BidirectionalSearch(false).search(space, new Position(1, 1)).isExhausted());
+        assertTrue(new BidirectionalSearch(true).search(space, new Position(1, 1)).isExhausted());
+    }
+
+    @Test
+    public void searchStoppedByTheLimitIsNotExhausted() {
+        ICircuit circuit = TestCircuits.hairpin();
+        RaceStateSpace space = RaceStateSpace.forTarget(circuit, new Position(6, 1));
+        for (boolean bidirectional : new boolean[] {false, true}) {
+            BidirectionalSearch.Result result = new BidirectionalSearch(bidirectional, 3)
+                    .search(space, circuit.getStartPositions().get(0));
+            assertFalse(result.isFound());
+            assertFalse(result.isExhausted());
+            assertFalse(new BidirectionalSearch(bidirectional).search(space, circuit.getStartPositions().get(0))
+                    .isExhausted());
+        }
+    }
+}
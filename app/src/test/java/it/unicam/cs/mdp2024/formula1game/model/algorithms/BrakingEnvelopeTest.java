@@ -0,0 +1,129 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BrakingEnvelopeTest {
+
+    private static final int MAX_SPEED = RaceStateSpace.MAX_SPEED;
+    private static final int SIDE = 2 * MAX_SPEED + 1;
+
+    @Test
+    public void deadEndIsNotAStoppingCell() {
+        BrakingEnvelope envelope = BrakingEnvelope.compute(TestCircuits.deadEnd());
+
+        // Da fermi nel vicolo cieco si può solo risalire
+        assertTrue(envelope.canStop(4, 6, 0, 0));
+        // Scendendo nel vicolo cieco non resta nessuna mossa valida
+        assertFalse(envelope.canStop(4, 6, 0, 1));
+        assertFalse(envelope.isSafeMove(3, 6, 0, 1, 0, 0));
+        // Frenare prima del vicolo cieco resta possibile
+        assertTrue(envelope.isSafeMove(3, 6, 0, 1, 0, -1));
+    }
+
+    @Test
+    public void matchesBruteForceStopSearch() {
+        ICircuit circuit = TestCircuits.of(
+                "############",
+                "#S........*#",
+                "#...##.....#",
+                "#..@##..#..#",
+                "#......###.#",
+                "######.#####",
+                "######.#####",
+                "############");
+        assertMatchesBruteForce(circuit);
+        assertMatchesBruteForce(TestCircuits.deadEnd());
+    }
+
+    private static void assertMatchesBruteForce(ICircuit circuit) {
+        BrakingEnvelope envelope = BrakingEnvelope.compute(circuit);
+        boolean[][][][] safe = bruteForce(circuit);
+        for (int row = 0; row < circuit.getHeight(); row++) {
+            for (int column = 0; column < circuit.getWidth(); column++) {
+                if (circuit.isWall(column, row)) continue;
+                for (int vy = -MAX_SPEED; vy <= MAX_SPEED; vy++) {
+                    for (int vx = -MAX_SPEED; vx <= MAX_SPEED; vx++) {
+                        if (vx * vx + vy * vy > MAX_SPEED * MAX_SPEED) continue;
+                        assertEquals(safe[row][column][vy + MAX_SPEED][vx + MAX_SPEED],
+                                envelope.canStop(row, column, vx, vy),
+                                "stato (" + row + ", " + column + ") velocità (" + vx + ", " + vy + ")");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Punto fisso ingenuo: uno stato è salvo se è fermo su una destinazione
+     * valida o se una mossa valida porta in uno stato salvo.
+     */
+    private static boolean[][][][] bruteForce(ICircuit circuit) {
+        int height = circuit.getHeight();
+        int width = circuit.getWidth();
+        boolean[][][][] safe = new boolean[height][width][SIDE][SIDE];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int row = 0; row < height; row++) {
+                for (int column = 0; column < width; column++) {
+                    if (circuit.isWall(column, row)) continue;
+                    for (int vy = -MAX_SPEED; vy <= MAX_SPEED; vy++) {
+                        for (int vx = -MAX_SPEED; vx <= MAX_SPEED; vx++) {
+                            if (safe[row][column][vy + MAX_SPEED][vx + MAX_SPEED]) continue;
+                            if (vx * vx + vy * vy > MAX_SPEED * MAX_SPEED) continue;
+                            if (canEscape(circuit, safe, row, column, vx, vy)) {
+                                safe[row][column][vy + MAX_SPEED][vx + MAX_SPEED] = true;
+                                changed = true;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return safe;
+    }
+
+    private static boolean canEscape(ICircuit circuit, boolean[][][][] safe, int row, int column, int vx, int vy) {
+        if (vx == 0 && vy == 0 && isValidDestination(circuit, row, column)) {
+            return true;
+        }
+        for (int ay = -1; ay <= 1; ay++) {
+            for (int ax = -1; ax <= 1; ax++) {
+                int nvx = vx + ax;
+                int nvy = vy + ay;
+                if (nvx * nvx + nvy * nvy > MAX_SPEED * MAX_SPEED) continue;
+                int nextRow = row + nvy;
+                int nextColumn = column + nvx;
+                if (isValidDestination(circuit, nextRow, nextColumn)
+                        && safe[nextRow][nextColumn][nvy + MAX_SPEED][nvx + MAX_SPEED]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isValidDestination(ICircuit circuit, int row, int column) {
+        if (row < 0 || row >= circuit.getHeight() || column < 0 || column >= circuit.getWidth()
+                || circuit.isWall(column, row)) {
+            return false;
+        }
+        int freeNeighbors = 0;
+        for (int dRow = -1; dRow <= 1; dRow++) {
+            for (int dColumn = -1; dColumn <= 1; dColumn++) {
+                if (dRow == 0 && dColumn == 0) continue;
+                int r = row + dRow;
+                int c = column + dColumn;
+                if (r >= 0 && r < circuit.getHeight() && c >= 0 && c < circuit.getWidth() && !circuit.isWall(c, r)) {
+                    freeNeighbors++;
+                }
+            }
+        }
+        return freeNeighbors >= 2;
+    }
+}
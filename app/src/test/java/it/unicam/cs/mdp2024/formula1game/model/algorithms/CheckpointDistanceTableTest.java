@@ -0,0 +1,62 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointDistanceTableTest {
+
+    private static final List<List<IPosition>> LINES = List.of(
+            List.of(new Position(1, 7), new Position(2, 7), new Position(3, 7)),
+            List.of(new Position(5, 7), new Position(6, 7)));
+
+    private final ICircuit circuit = TestCircuits.hairpin();
+
+    @Test
+    public void distancesMatchTheDistanceFields(@TempDir Path directory) throws IOException {
+        CheckpointDistanceTable table = CheckpointDistanceTable.open(new TableStore(directory), circuit, LINES);
+        assertEquals(LINES.size(), table.getLineCount());
+        for (int line = 0; line < LINES.size(); line++) {
+            DistanceField field = DistanceField.towards(circuit, LINES.get(line));
+            for (int row = 0; row < circuit.getHeight(); row++) {
+                for (int column = 0; column < circuit.getWidth(); column++) {
+                    assertEquals(field.distance(row, column), table.distance(line, row, column),
+                            "linea " + line + " cella " + row + "," + column);
+                }
+            }
+        }
+        assertEquals(DistanceField.UNREACHABLE, table.distance(0, -1, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.distance(LINES.size(), 1, 1));
+    }
+
+    @Test
+    public void storedTableIsMappedBack(@TempDir Path first, @TempDir Path second) throws IOException {
+        CheckpointDistanceTable written = CheckpointDistanceTable.open(new TableStore(first), circuit, LINES);
+        Path file = new TableStore(first).fileOf(CheckpointDistanceTable.TABLE_NAME,
+                CheckpointDistanceTable.fingerprint(circuit, LINES));
+        Files.copy(file, second.resolve(file.getFileName()));
+        long modified = Files.getLastModifiedTime(second.resolve(file.getFileName())).toMillis();
+
+        CheckpointDistanceTable mapped = CheckpointDistanceTable.open(new TableStore(second), circuit, LINES);
+        assertEquals(modified, Files.getLastModifiedTime(second.resolve(file.getFileName())).toMillis(),
+                "la tabella è stata riscritta");
+        assertEquals(written.distance(1, new Position(2, 1)), mapped.distance(1, new Position(2, 1)));
+    }
+
+    @Test
+    public void otherLinesHaveTheirOwnTable() {
+        assertNotEquals(CheckpointDistanceTable.fingerprint(circuit, LINES),
+                CheckpointDistanceTable.fingerprint(circuit, LINES.subList(0, 1)));
+    }
+}
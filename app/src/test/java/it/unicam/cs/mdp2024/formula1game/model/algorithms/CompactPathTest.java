@@ -0,0 +1,71 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactPathTest {
+
+    /** Rettilineo a passo 1, accelerazione a passo 2 e svolta in diagonale. */
+    private final List<IPosition> path = List.of(
+            new Position(2, 1), new Position(2, 2), new Position(2, 3), new Position(2, 4),
+            new Position(2, 6), new Position(2, 8),
+            new Position(3, 9), new Position(4, 10), new Position(5, 11));
+
+    @Test
+    public void onlyTurningPointsAreKept() {
+        CompactPath compact = CompactPath.of(path);
+        assertEquals(List.of(new Position(2, 1), new Position(2, 4), new Position(2, 8), new Position(5, 11)),
+                compact.toList());
+        assertEquals(4, compact.getPointCount());
+        assertEquals(path.size(), compact.getOriginalLength());
+    }
+
+    @Test
+    public void droppedPointsAreStillNearThePath() {
+        CompactPath compact = CompactPath.of(path);
+        for (IPosition position : path) {
+            assertTrue(compact.passesNear(position, 0.0), position + " non è sul percorso");
+        }
+        assertFalse(compact.passesNear(new Position(4, 3), 1.0));
+        assertTrue(compact.passesNear(new Position(3, 3), 1.0));
+
+        // Dopo aver superato la svolta il tratto iniziale non conta più
+        compact.advance();
+        compact.advance();
+        assertFalse(compact.passesNear(new Position(2, 2), 1.0));
+        assertTrue(compact.passesNear(new Position(4, 10), 0.0));
+    }
+
+    @Test
+    public void copiesHaveIndependentCursors() {
+        CompactPath compact = CompactPath.of(path);
+        compact.advanceToNearest(new Position(3, 8));
+        assertEquals(new Position(2, 8), compact.peek());
+        assertEquals(2, compact.remaining());
+
+        CompactPath copy = compact.copy();
+        assertEquals(new Position(2, 1), copy.peek());
+        copy.advance();
+        assertEquals(new Position(2, 8), compact.peek());
+    }
+
+    @Test
+    public void shortAndEmptyPaths() {
+        CompactPath empty = CompactPath.of(List.of());
+        assertTrue(empty.isEmpty());
+        assertFalse(empty.passesNear(new Position(0, 0), 10.0));
+        assertThrows(IllegalStateException.class, empty::peek);
+
+        CompactPath single = CompactPath.of(List.of(new Position(3, 4)));
+        assertEquals(List.of(new Position(3, 4)), single.toList());
+        assertTrue(single.passesNear(new Position(3, 5), 1.0));
+        single.advance();
+        assertTrue(single.isEmpty());
+    }
+}
@@ -0,0 +1,72 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DStarLiteTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void repairedPathMatchesFreshSearch() {
+        ICircuit circuit = TestCircuits.hairpin();
+        IPosition start = new Position(2, 2);
+        IPosition target = new Position(5, 2);
+        DStarLite planner = new DStarLite(circuit, start, target);
+        assertFalse(planner.findPath().isEmpty());
+
+        List<List<IPosition>> updates = List.of(
+                List.of(new Position(2, 8)),
+                List.of(new Position(2, 8), new Position(4, 12)),
+                List.of(new Position(5, 12), new Position(6, 6)),
+                List.of(),
+                List.of(new Position(4, 11), new Position(4, 13)));
+        for (List<IPosition> opponents : updates) {
+            planner.updateObstacles(opponents);
+            List<IPosition> repaired = planner.findPath();
+
+            DStarLite fresh = new DStarLite(circuit, start, target);
+            fresh.updateObstacles(opponents);
+            List<IPosition> expected = fresh.findPath();
+
+            assertEquals(fresh.getCostToGo(start), planner.getCostToGo(start), EPSILON, "avversari " + opponents);
+            assertEquals(expected.isEmpty(), repaired.isEmpty());
+            if (!repaired.isEmpty()) {
+                assertEquals(start, repaired.get(0));
+                assertEquals(target, repaired.get(repaired.size() - 1));
+            }
+        }
+    }
+
+    @Test
+    public void repairedPathMatchesFreshSearchAfterMoving() {
+        ICircuit circuit = TestCircuits.hairpin();
+        IPosition target = new Position(5, 2);
+        DStarLite planner = new DStarLite(circuit, new Position(2, 2), target);
+        planner.findPath();
+
+        IPosition[] route = {new Position(2, 4), new Position(2, 9), new Position(3, 12), new Position(5, 12)};
+        List<IPosition> opponents = List.of(new Position(1, 10));
+        for (IPosition position : route) {
+            planner.moveStart(position);
+            planner.updateObstacles(opponents);
+            List<IPosition> repaired = planner.findPath();
+
+            DStarLite fresh = new DStarLite(circuit, position, target);
+            fresh.updateObstacles(opponents);
+            fresh.findPath();
+
+            assertEquals(fresh.getCostToGo(position), planner.getCostToGo(position), EPSILON, "da " + position);
+            assertEquals(position, repaired.get(0));
+            assertEquals(target, repaired.get(repaired.size() - 1));
+        }
+    }
+}
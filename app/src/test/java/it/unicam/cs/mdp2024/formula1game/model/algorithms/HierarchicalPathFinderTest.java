@@ -0,0 +1,117 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchicalPathFinderTest {
+
+    /** Scarto massimo ammesso tra il percorso HPA* e quello ottimo. */
+    private static final double MAX_OVERHEAD = 1.25;
+
+    @Test
+    public void pathCostsStayCloseToTheOptimum() {
+        ICircuit field = TestCircuits.openField();
+        HierarchicalPathFinder hpa = new HierarchicalPathFinder();
+        assertCloseToOptimum(hpa, field, new Position(2, 2), new Position(18, 30));
+        assertCloseToOptimum(hpa, field, new Position(18, 2), new Position(2, 30));
+        assertCloseToOptimum(hpa, field, new Position(10, 2), new Position(10, 24));
+
+        // Cluster piccoli: il percorso deve girare attorno al muro del tornante
+        ICircuit hairpin = TestCircuits.hairpin();
+        HierarchicalPathFinder small = new HierarchicalPathFinder(4);
+        assertCloseToOptimum(small, hairpin, new Position(2, 1), new Position(5, 1));
+        assertCloseToOptimum(small, hairpin, new Position(1, 7), new Position(6, 2));
+    }
+
+    @Test
+    public void sameClusterPathIsOptimal() {
+        ICircuit field = TestCircuits.openField();
+        IPosition start = new Position(2, 2);
+        IPosition target = new Position(7, 8);
+        List<IPosition> path = new HierarchicalPathFinder().findPath(start, target, field, new Velocity(0, 0));
+        assertEquals(optimalCost(field, start, target), routeCost(field, path), 1e-9);
+    }
+
+    @Test
+    public void wallTargetHasNoPath() {
+        ICircuit hairpin = TestCircuits.hairpin();
+        assertTrue(new HierarchicalPathFinder(4)
+                .findPath(new Position(2, 1), new Position(4, 3), hairpin, new Velocity(0, 0)).isEmpty());
+    }
+
+    @Test
+    public void clusterSizeBelowTwoIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalPathFinder(1));
+    }
+
+    private static void assertCloseToOptimum(HierarchicalPathFinder hpa, ICircuit circuit, IPosition start,
+            IPosition target) {
+        List<IPosition> path = hpa.findPath(start, target, circuit, new Velocity(0, 0));
+        assertFalse(path.isEmpty(), "nessun percorso da " + start + " a " + target);
+        assertEquals(start, path.get(0));
+        assertEquals(target, path.get(path.size() - 1));
+
+        double optimal = optimalCost(circuit, start, target);
+        double cost = routeCost(circuit, path);
+        assertTrue(cost >= optimal - 1e-9);
+        assertTrue(cost <= optimal * MAX_OVERHEAD, "costo " + cost + " contro l'ottimo " + optimal
+                + " da " + start + " a " + target);
+    }
+
+    /**
+     * Costo del percorso completo: i punti di passaggio non raffinati vengono
+     * collegati con il tratto ottimo tra l'uno e l'altro.
+     */
+    private static double routeCost(ICircuit circuit, List<IPosition> path) {
+        double cost = 0;
+        for (int i = 1; i < path.size(); i++) {
+            cost += optimalCost(circuit, path.get(i - 1), path.get(i));
+        }
+        return cost;
+    }
+
+    /**
+     * Dijkstra sulle celle libere con mosse in otto direzioni, come la
+     * ricerca all'interno dei cluster.
+     */
+    private static double optimalCost(ICircuit circuit, IPosition start, IPosition target) {
+        Map<IPosition, Double> distances = new HashMap<>();
+        PriorityQueue<Map.Entry<IPosition, Double>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+        distances.put(start, 0.0);
+        queue.add(Map.entry(start, 0.0));
+        while (!queue.isEmpty()) {
+            Map.Entry<IPosition, Double> entry = queue.poll();
+            IPosition cell = entry.getKey();
+            if (entry.getValue() > distances.get(cell)) continue;
+            if (cell.equals(target)) return entry.getValue();
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    IPosition next = new Position(cell.getRow() + dy, cell.getColumn() + dx);
+                    if ((dx == 0 && dy == 0) || !circuit.isValidPosition(next)
+                            || circuit.isWall(next.getColumn(), next.getRow())) {
+                        continue;
+                    }
+                    double distance = entry.getValue() + (dx != 0 && dy != 0 ? Math.sqrt(2) : 1);
+                    if (distance < distances.getOrDefault(next, Double.POSITIVE_INFINITY)) {
+                        distances.put(next, distance);
+                        queue.add(Map.entry(next, distance));
+                    }
+                }
+            }
+        }
+        fail("nessun percorso da " + start + " a " + target);
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,88 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LapPlannerTest {
+
+    private static final List<List<IPosition>> LINES = List.of(
+            List.of(new Position(1, 7), new Position(2, 7), new Position(3, 7)),
+            List.of(new Position(4, 10), new Position(4, 11), new Position(4, 12), new Position(4, 13),
+                    new Position(4, 14)),
+            List.of(new Position(5, 7), new Position(6, 7)));
+
+    @Test
+    public void trajectoryCrossesCheckpointLinesInOrder() {
+        ICircuit circuit = TestCircuits.hairpin();
+        Trajectory trajectory = new LapPlanner().plan(circuit, LINES, 0, new Position(2, 1), new Velocity(0, 0));
+        assertNotNull(trajectory);
+
+        assertEquals(LINES.size(), crossedLines(trajectory, 0));
+        int last = trajectory.size() - 1;
+        // L'ultima mossa termina su una delle posizioni di arrivo del gioco
+        assertTrue(circuit.getFinishPositions().contains(trajectory.getPosition(last)));
+    }
+
+    @Test
+    public void trajectorySkipsLinesAlreadyCrossed() {
+        ICircuit circuit = TestCircuits.hairpin();
+        Trajectory trajectory = new LapPlanner().plan(circuit, LINES, 2, new Position(3, 12), new Velocity(0, 1));
+        assertNotNull(trajectory);
+        assertEquals(LINES.size(), crossedLines(trajectory, 2));
+    }
+
+    @Test
+    public void unreachableFinishHasNoTrajectory() {
+        ICircuit circuit = TestCircuits.of(
+                "##########",
+                "#S..@.#..#",
+                "#.....#.*#",
+                "#.....#..#",
+                "##########");
+        List<List<IPosition>> lines = List.of(List.of(new Position(1, 4)));
+        assertNull(new LapPlanner(10_000).plan(circuit, lines, 0, new Position(1, 1), new Velocity(0, 0)));
+    }
+
+    @Test
+    public void searchStoppedByTheLimitDoesNotRuleOutTheLeg() {
+        ICircuit circuit = TestCircuits.hairpin();
+        // Dal rettilineo superiore l'ultimo tratto richiede più espansioni del limite,
+        // da quello inferiore meno: la prima ricerca fallisce senza provare nulla sul tratto
+        LapPlanner limited = new LapPlanner(150);
+        assertNull(limited.plan(circuit, LINES, 2, new Position(2, 1), new Velocity(0, 0)));
+        assertNotNull(limited.plan(circuit, LINES, 2, new Position(5, 9), new Velocity(0, 0)));
+        // Il fallimento resta legato allo stato e al limite della ricerca
+        assertNotNull(new LapPlanner().plan(circuit, LINES, 2, new Position(2, 1), new Velocity(0, 0)));
+    }
+
+    /**
+     * Segue le celle toccate da ogni mossa, come lo spazio degli stati, e
+     * conta le linee attraversate nell'ordine a partire da quella indicata.
+     */
+    private static int crossedLines(Trajectory trajectory, int firstLine) {
+        int next = firstLine;
+        for (int i = 1; i < trajectory.size() && next < LINES.size(); i++) {
+            int vx = trajectory.getColumn(i) - trajectory.getColumn(i - 1);
+            int vy = trajectory.getRow(i) - trajectory.getRow(i - 1);
+            int steps = Math.max(Math.abs(vx), Math.abs(vy));
+            for (int step = 1; step <= steps && next < LINES.size(); step++) {
+                IPosition cell = new Position(
+                        trajectory.getRow(i - 1) + (int) Math.round((double) vy * step / steps),
+                        trajectory.getColumn(i - 1) + (int) Math.round((double) vx * step / steps));
+                if (LINES.get(next).contains(cell)) {
+                    next++;
+                }
+            }
+        }
+        return next;
+    }
+}
@@ -0,0 +1,101 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LruCacheTest {
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() {
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        // Leggere "a" la rende la più recente: esce "b"
+        assertEquals(1, cache.get("a"));
+        cache.put("c", 3);
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(3, cache.get("c"));
+    }
+
+    @Test
+    public void hitsAndMissesAreCounted() {
+        LruCache<String, Integer> cache = new LruCache<>(4);
+        assertEquals(0.0, cache.getHitRate());
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.75, cache.getHitRate());
+
+        // Svuotare la cache non azzera i contatori
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(3, cache.getHits());
+    }
+
+    @Test
+    public void getOrComputeLoadsOnlyOnMiss() {
+        LruCache<Integer, String> cache = new LruCache<>(4);
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals("1", cache.getOrCompute(1, key -> {
+            loads.incrementAndGet();
+            return key.toString();
+        }));
+        assertEquals("1", cache.getOrCompute(1, key -> {
+            loads.incrementAndGet();
+            return "altro";
+        }));
+        assertEquals(1, loads.get());
+
+        // Un calcolo senza risultato non viene memorizzato
+        assertNull(cache.getOrCompute(2, key -> null));
+        assertEquals(1, cache.size());
+        cache.remove(1);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void concurrentUseStaysWithinCapacity() throws Exception {
+        LruCache<Integer, Integer> cache = new LruCache<>(16);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int offset = thread;
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        int key = (i * 7 + offset) % 64;
+                        assertEquals(key * 2, cache.getOrCompute(key, k -> k * 2));
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(cache.size() <= cache.getCapacity());
+        assertEquals(20_000, cache.getHits() + cache.getMisses());
+    }
+
+    @Test
+    public void nonPositiveCapacityIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LruCache<>(0));
+    }
+}
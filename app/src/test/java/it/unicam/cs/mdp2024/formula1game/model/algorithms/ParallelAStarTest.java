@@ -0,0 +1,52 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelAStarTest {
+
+    private static RaceStateSpace lapSpace(ICircuit circuit) {
+        List<IPosition> checkpoint = List.of(new Position(1, 7), new Position(2, 7), new Position(3, 7));
+        return new RaceStateSpace(circuit, List.of(checkpoint, circuit.getFinishPositions()), true);
+    }
+
+    @Test
+    public void parallelCostsMatchSerialSearch() {
+        ICircuit circuit = TestCircuits.hairpin();
+        RaceStateSpace space = lapSpace(circuit);
+        BidirectionalSearch serial = new BidirectionalSearch(false);
+        long[] starts = {
+                space.encode(0, 2, 1, 0, 0),
+                space.encode(0, 1, 3, 2, 0),
+                space.encode(1, 3, 12, 0, 1),
+                space.encode(1, 5, 9, -2, 0)};
+        for (int workers : new int[]{1, 2, 4}) {
+            ParallelAStar parallel = new ParallelAStar(workers);
+            for (long start : starts) {
+                BidirectionalSearch.Result expected = serial.search(space, start);
+                ParallelAStar.Result actual = parallel.search(space, start);
+                assertTrue(expected.isFound());
+                assertTrue(actual.isFound());
+                assertEquals(expected.getCost(), actual.getCost(),
+                        workers + " worker da " + space.position(start));
+                assertEquals(actual.getCost() + 1, actual.getPath().size());
+            }
+        }
+    }
+
+    @Test
+    public void unreachableTargetIsNotFound() {
+        ICircuit circuit = TestCircuits.deadEnd();
+        // La cella del vicolo cieco non è una destinazione valida
+        RaceStateSpace space = RaceStateSpace.forTarget(circuit, new Position(4, 6));
+        assertFalse(new ParallelAStar(2).search(space, new Position(1, 1)).isFound());
+    }
+}
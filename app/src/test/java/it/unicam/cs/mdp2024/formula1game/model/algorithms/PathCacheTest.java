@@ -0,0 +1,74 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathCacheTest {
+
+    private final IPosition start = new Position(1, 1);
+    private final IPosition target = new Position(1, 5);
+    private final List<IPosition> path = List.of(start, new Position(1, 2), new Position(1, 3),
+            new Position(1, 4), target);
+
+    @Test
+    public void circuitsWithTheSameCellsShareTheCache() {
+        assertSame(PathCache.forCircuit(TestCircuits.hairpin()), PathCache.forCircuit(TestCircuits.hairpin()));
+        assertNotSame(PathCache.forCircuit(TestCircuits.hairpin()), PathCache.forCircuit(TestCircuits.deadEnd()));
+    }
+
+    @Test
+    public void searchRunsOnceAndEachCallGetsItsOwnCursor() {
+        PathCache cache = new PathCache(4);
+        AtomicInteger searches = new AtomicInteger();
+        CompactPath first = cache.getOrCompute(start, new Velocity(0, 0), target, () -> {
+            searches.incrementAndGet();
+            return path;
+        });
+        first.advance();
+        CompactPath second = cache.getOrCompute(start, new Velocity(0, 0), target, () -> {
+            searches.incrementAndGet();
+            return List.of();
+        });
+
+        assertEquals(1, searches.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(start, second.peek());
+        assertEquals(List.of(start, target), second.toList());
+        assertEquals(path.size(), second.getOriginalLength());
+    }
+
+    @Test
+    public void velocityIsPartOfTheKey() {
+        PathCache cache = new PathCache(4);
+        cache.store(start, new Velocity(0, 0), target, path);
+
+        assertNotNull(cache.find(start, new Velocity(0, 0), target));
+        assertNull(cache.find(start, new Velocity(1, 0), target));
+        assertNull(cache.find(start, new Velocity(0, 0), new Position(1, 4)));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void capacityBoundsTheStoredPaths() {
+        PathCache cache = new PathCache(2);
+        for (int column = 2; column <= 5; column++) {
+            cache.store(start, new Velocity(0, 0), new Position(1, column), path.subList(0, column));
+        }
+        assertEquals(2, cache.size());
+        assertNull(cache.find(start, new Velocity(0, 0), new Position(1, 2)));
+        assertNotNull(cache.find(start, new Velocity(0, 0), new Position(1, 5)));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,93 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.CircuitFingerprint;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PolicyTrainerTest {
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    @Test
+    public void policyFollowsShortestDistances() throws InterruptedException {
+        ICircuit circuit = TestCircuits.hairpin();
+        List<IPosition> checkpoint = List.of(new Position(1, 7), new Position(2, 7), new Position(3, 7));
+        RaceStateSpace space = new RaceStateSpace(circuit, List.of(checkpoint, circuit.getFinishPositions()), true);
+        int[] distances = shortestDistances(space);
+        boolean[] validDestination = RaceStateSpace.computeValidDestinations(circuit);
+
+        for (int parallelism : new int[]{1, 3}) {
+            PolicyTrainer.Result result = new PolicyTrainer(parallelism).train(CircuitFingerprint.of(circuit), space);
+            PolicyTable table = result.getTable();
+            long[] successors = new long[RaceStateSpace.MAX_SUCCESSORS];
+            int longest = 0;
+            for (int state = 0; state < distances.length; state++) {
+                if (space.isGoal(state) || !validDestination[space.row(state) * space.getWidth() + space.column(state)]) {
+                    continue;
+                }
+                int vx = space.velocityX(state);
+                int vy = space.velocityY(state);
+                if (vx * vx + vy * vy > RaceStateSpace.MAX_SPEED * RaceStateSpace.MAX_SPEED) continue;
+
+                int action = table.action(state);
+                if (distances[state] == UNREACHABLE) {
+                    assertEquals(PolicyTable.NO_ACTION, action, "stato " + state);
+                    continue;
+                }
+                longest = Math.max(longest, distances[state]);
+                assertNotEquals(PolicyTable.NO_ACTION, action, "stato " + state);
+                // La mossa scelta porta in uno stato più vicino di un turno all'arrivo
+                int count = space.successors(state, successors);
+                int next = -1;
+                for (int s = 0; s < count; s++) {
+                    if (space.velocityX(successors[s]) == vx + PolicyTable.accelerationX(action)
+                            && space.velocityY(successors[s]) == vy + PolicyTable.accelerationY(action)) {
+                        next = (int) successors[s];
+                    }
+                }
+                assertTrue(next >= 0, "stato " + state);
+                assertEquals(distances[state] - 1, distances[next], "stato " + state);
+            }
+            assertEquals(longest, result.getLayers());
+        }
+    }
+
+    /**
+     * Distanze minime dall'arrivo calcolate in avanti, con l'iterazione
+     * ingenua di Bellman sui successori.
+     */
+    private static int[] shortestDistances(RaceStateSpace space) {
+        int[] distances = new int[(int) space.getStateCount()];
+        Arrays.fill(distances, UNREACHABLE);
+        for (int state = 0; state < distances.length; state++) {
+            if (space.isGoal(state)) {
+                distances[state] = 0;
+            }
+        }
+        long[] successors = new long[RaceStateSpace.MAX_SUCCESSORS];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int state = 0; state < distances.length; state++) {
+                int count = space.successors(state, successors);
+                for (int s = 0; s < count; s++) {
+                    int next = distances[(int) successors[s]];
+                    if (next != UNREACHABLE && next + 1 < distances[state]) {
+                        distances[state] = next + 1;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return distances;
+    }
+}
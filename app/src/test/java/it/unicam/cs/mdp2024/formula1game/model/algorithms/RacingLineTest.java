@@ -0,0 +1,96 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RacingLineTest {
+
+    private static final List<List<IPosition>> LINES = List.of(
+            List.of(new Position(1, 7), new Position(2, 7), new Position(3, 7)),
+            List.of(new Position(4, 10), new Position(4, 11), new Position(4, 12), new Position(4, 13),
+                    new Position(4, 14)),
+            List.of(new Position(5, 7), new Position(6, 7)));
+
+    private final ICircuit circuit = TestCircuits.hairpin();
+    private final IPosition start = new Position(2, 1);
+
+    @Test
+    public void lineStartsAtRestAndStopsOnTheFinish(@TempDir Path directory) throws InterruptedException {
+        Trajectory line = RacingLine.from(new TableStore(directory), circuit, LINES, start);
+        assertNotNull(line);
+        assertEquals(start.getRow(), line.getRow(0));
+        assertEquals(start.getColumn(), line.getColumn(0));
+        assertEquals(0, line.getVelocityX(0));
+        assertEquals(0, line.getVelocityY(0));
+        for (int i = 1; i < line.size(); i++) {
+            // Ogni punto segue il precedente con la velocità del punto, cambiata al più di uno
+            assertEquals(line.getRow(i - 1) + line.getVelocityY(i), line.getRow(i), "punto " + i);
+            assertEquals(line.getColumn(i - 1) + line.getVelocityX(i), line.getColumn(i), "punto " + i);
+            assertTrue(Math.abs(line.getVelocityX(i) - line.getVelocityX(i - 1)) <= 1, "punto " + i);
+            assertTrue(Math.abs(line.getVelocityY(i) - line.getVelocityY(i - 1)) <= 1, "punto " + i);
+            assertFalse(circuit.isWall(line.getColumn(i), line.getRow(i)), "punto " + i);
+        }
+        int last = line.size() - 1;
+        assertTrue(circuit.getFinishPositions().contains(line.getPosition(last)));
+    }
+
+    @Test
+    public void storedLineIsMappedBack(@TempDir Path first, @TempDir Path second)
+            throws IOException, InterruptedException {
+        Trajectory planned = RacingLine.from(new TableStore(first), circuit, LINES, start);
+        try (Stream<Path> files = Files.list(first)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, second.resolve(file.getFileName()));
+            }
+        }
+        // Un'altra cartella è un'altra chiave in cache: la traiettoria viene letta dal file copiato
+        Trajectory mapped = RacingLine.from(new TableStore(second), circuit, LINES, start);
+        assertNotSame(planned, mapped);
+        assertEquals(planned.size(), mapped.size());
+        for (int i = 0; i < planned.size(); i++) {
+            assertEquals(planned.getPosition(i), mapped.getPosition(i), "punto " + i);
+            assertEquals(planned.getVelocityX(i), mapped.getVelocityX(i), "punto " + i);
+            assertEquals(planned.getVelocityY(i), mapped.getVelocityY(i), "punto " + i);
+        }
+    }
+
+    @Test
+    public void interruptedWaitIsNotCachedAsMissingLine(@TempDir Path directory) throws InterruptedException {
+        TableStore store = new TableStore(directory);
+        Thread.currentThread().interrupt();
+        try {
+            RacingLine.from(store, circuit, LINES, start);
+        } catch (InterruptedException e) {
+            // Atteso se il calcolo non era ancora finito: prosegue in background
+        }
+        Thread.interrupted();
+        assertNotNull(RacingLine.from(store, circuit, LINES, start));
+    }
+
+    @Test
+    public void lapWithoutSolutionHasNoLine(@TempDir Path directory) throws InterruptedException {
+        ICircuit walled = TestCircuits.of(
+                "##########",
+                "#S..@.#..#",
+                "#.....#.*#",
+                "#.....#..#",
+                "##########");
+        List<List<IPosition>> lines = List.of(List.of(new Position(1, 4)));
+        TableStore store = new TableStore(directory);
+        assertNull(RacingLine.from(store, walled, lines, new Position(1, 1)));
+        assertNull(RacingLine.from(store, walled, lines, new Position(1, 1)));
+    }
+}
@@ -0,0 +1,65 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReservationTableTest {
+
+    @Test
+    public void arrivalConflictsWithReservationAtSameTime() {
+        ReservationTable table = new ReservationTable(10, 10);
+        assertTrue(table.reserve(0, 3, 5, 5));
+
+        assertTrue(table.isBlocked(1, 3, 5, 5));
+        // Distanza 1 come nel validatore: celle adiacenti in orizzontale e verticale
+        assertTrue(table.isBlocked(1, 3, 4, 5));
+        assertTrue(table.isBlocked(1, 3, 5, 6));
+        assertFalse(table.isBlocked(1, 3, 6, 6));
+        assertFalse(table.isBlocked(1, 3, 5, 7));
+        // Le proprie prenotazioni non bloccano
+        assertFalse(table.isBlocked(0, 3, 5, 5));
+    }
+
+    @Test
+    public void arrivalConflictsWithReservationAtPreviousTime() {
+        ReservationTable table = new ReservationTable(10, 10);
+        table.reserve(0, 3, 5, 5);
+
+        assertTrue(table.isBlocked(1, 4, 5, 5));
+        assertTrue(table.isBlocked(1, 4, 5, 4));
+        assertFalse(table.isBlocked(1, 5, 5, 5));
+        assertFalse(table.isBlocked(1, 2, 5, 5));
+    }
+
+    @Test
+    public void releaseFreesOnlyLaterTimes() {
+        ReservationTable table = new ReservationTable(10, 10);
+        table.reserve(0, 3, 5, 5);
+        table.reserve(0, 4, 5, 6);
+        table.reserve(2, 4, 1, 1);
+        table.release(0, 4);
+
+        assertTrue(table.isBlocked(1, 3, 5, 5));
+        assertFalse(table.isBlocked(1, 5, 5, 6));
+        assertTrue(table.isBlocked(1, 4, 1, 1));
+
+        table.release(0);
+        assertFalse(table.isBlocked(1, 3, 5, 5));
+    }
+
+    @Test
+    public void reservationsOutsideTheWindowAreForgotten() {
+        ReservationTable table = new ReservationTable(10, 10, 4);
+        table.reserve(0, 1, 5, 5);
+        assertFalse(table.reserve(0, table.getLastTime() + 1, 5, 5));
+        assertFalse(table.reserve(0, 1, 10, 5));
+
+        table.advanceTo(6);
+        // Lo slot del tempo 1 viene riusato per il tempo 5 senza vecchie prenotazioni
+        assertTrue(table.reserve(2, 5, 0, 0));
+        assertFalse(table.isBlocked(1, 5, 5, 5));
+        assertThrows(IllegalArgumentException.class, () -> table.advanceTo(5));
+        assertThrows(IllegalArgumentException.class, () -> table.reserve(-1, 6, 0, 0));
+    }
+}
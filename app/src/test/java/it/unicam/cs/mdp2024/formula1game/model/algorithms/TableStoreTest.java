@@ -0,0 +1,132 @@
+package it.unicam.cs.mdp2024.formula1game.model.algorithms;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TableStoreTest {
+
+    private static final String NAME = "prova";
+    private static final long FINGERPRINT = 0x1234_5678_9abc_def0L;
+    private static final int VERSION = 3;
+    private static final int[] SHAPE = {2, 3, 4};
+
+    @Test
+    public void writtenTableIsMappedBack(@TempDir Path first, @TempDir Path second) throws IOException {
+        MappedTable written = writeChars(new TableStore(first));
+        assertEquals(24, written.size());
+        assertEquals(written.size(), valuesOf(written).length);
+
+        // Un'altra cartella non è in cache: la tabella viene letta dal file copiato
+        TableStore copy = new TableStore(second);
+        Files.copy(new TableStore(first).fileOf(NAME, FINGERPRINT), copy.fileOf(NAME, FINGERPRINT));
+        MappedTable mapped = copy.map(NAME, FINGERPRINT, VERSION);
+        assertNotNull(mapped);
+        assertNotSame(written, mapped);
+        assertEquals(FINGERPRINT, mapped.getFingerprint());
+        assertEquals(VERSION, mapped.getContentVersion());
+        assertEquals(2, mapped.getElementBytes());
+        assertTrue(mapped.hasShape(SHAPE));
+        assertArrayEquals(valuesOf(written), valuesOf(mapped));
+    }
+
+    @Test
+    public void byteAndIntTablesKeepTheirValues(@TempDir Path directory) throws IOException {
+        TableStore store = new TableStore(directory);
+        MappedTable bytes = store.write("byte", FINGERPRINT, VERSION, 1, new int[] {5}, buffer -> {
+            for (int i = 0; i < 5; i++) {
+                buffer.put((byte) (i - 2));
+            }
+        });
+        MappedTable ints = store.write("int", FINGERPRINT, VERSION, 4, new int[] {5}, buffer -> {
+            for (int i = 0; i < 5; i++) {
+                buffer.putInt(i * 1_000_000 - 2_000_000);
+            }
+        });
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i - 2, bytes.getByte(i));
+            assertEquals(i * 1_000_000 - 2_000_000, ints.getInt(i));
+        }
+    }
+
+    @Test
+    public void otherVersionOrFingerprintIsNotMapped(@TempDir Path directory) throws IOException {
+        TableStore store = new TableStore(directory);
+        writeChars(store);
+        assertNull(store.map(NAME, FINGERPRINT, VERSION + 1));
+        assertNull(store.map(NAME, FINGERPRINT + 1, VERSION));
+
+        // Il file di un'altra impronta copiato con il nome sbagliato viene riconosciuto dall'intestazione
+        long other = FINGERPRINT + 2;
+        Files.copy(store.fileOf(NAME, FINGERPRINT), store.fileOf(NAME, other));
+        assertNull(store.map(NAME, other, VERSION));
+    }
+
+    @Test
+    public void truncatedOrForeignFileIsRejected(@TempDir Path directory) throws IOException {
+        TableStore store = new TableStore(directory);
+        writeChars(store);
+        Path file = store.fileOf(NAME, FINGERPRINT);
+
+        TableStore truncated = new TableStore(directory.resolve("troncata"));
+        Files.createDirectories(truncated.getDirectory());
+        Path truncatedFile = truncated.fileOf(NAME, FINGERPRINT);
+        Files.copy(file, truncatedFile);
+        try (FileChannel channel = FileChannel.open(truncatedFile, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 1);
+        }
+        assertNull(truncated.map(NAME, FINGERPRINT, VERSION));
+
+        TableStore foreign = new TableStore(directory.resolve("estranea"));
+        Files.createDirectories(foreign.getDirectory());
+        Files.write(foreign.fileOf(NAME, FINGERPRINT), new byte[Math.toIntExact(Files.size(file))]);
+        assertNull(foreign.map(NAME, FINGERPRINT, VERSION));
+    }
+
+    @Test
+    public void writeLeavesNoTemporaryFiles(@TempDir Path directory) throws IOException {
+        TableStore store = new TableStore(directory);
+        writeChars(store);
+        assertThrows(IllegalStateException.class, () -> store.write("fallita", FINGERPRINT, VERSION, 2, SHAPE,
+                buffer -> {
+                    throw new IllegalStateException("calcolo fallito");
+                }));
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void invalidLayoutIsRejected(@TempDir Path directory) {
+        TableStore store = new TableStore(directory);
+        assertThrows(IllegalArgumentException.class,
+                () -> store.write(NAME, FINGERPRINT, VERSION, 3, SHAPE, buffer -> { }));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.write(NAME, FINGERPRINT, VERSION, 2, new int[] {2, 0}, buffer -> { }));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.write(NAME, FINGERPRINT, VERSION, 2, new int[] {1, 1, 1, 1, 1}, buffer -> { }));
+    }
+
+    private static MappedTable writeChars(TableStore store) throws IOException {
+        return store.write(NAME, FINGERPRINT, VERSION, 2, SHAPE, buffer -> {
+            for (int i = 0; i < 24; i++) {
+                buffer.putChar((char) (i * 2_500));
+            }
+        });
+    }
+
+    private static int[] valuesOf(MappedTable table) {
+        int[] values = new int[table.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = table.getChar(i);
+        }
+        return values;
+    }
+}
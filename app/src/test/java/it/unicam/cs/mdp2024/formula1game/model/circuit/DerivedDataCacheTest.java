@@ -0,0 +1,107 @@
+package it.unicam.cs.mdp2024.formula1game.model.circuit;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DerivedDataCacheTest {
+
+    private final ICircuit circuit = TestCircuits.hairpin();
+
+    @BeforeEach
+    @AfterEach
+    public void forgetLoadedData() {
+        DerivedDataCache.clearLoaded();
+    }
+
+    @Test
+    public void fileHoldsVersionFingerprintAndCheckpointLines(@TempDir Path directory) throws IOException {
+        DerivedDataCache cache = new DerivedDataCache(directory);
+        CircuitDerivedData data = cache.get(circuit);
+        assertFalse(data.getCheckpointLines().isEmpty());
+        assertEquals(CircuitDerivedData.compute(circuit).getCheckpointLines(), data.getCheckpointLines());
+
+        long fingerprint = CircuitFingerprint.of(circuit);
+        List<String> lines = Files.readAllLines(cache.fileOf(fingerprint));
+        assertEquals("versione " + DerivedDataCache.DERIVATION_VERSION, lines.get(0));
+        assertEquals("impronta " + Long.toHexString(fingerprint), lines.get(1));
+        assertEquals(2 + data.getCheckpointLines().size(), lines.size());
+        assertEquals(format(data.getCheckpointLines().get(0)), lines.get(2));
+    }
+
+    @Test
+    public void storedLinesAreReadInsteadOfRecomputed(@TempDir Path directory) throws IOException {
+        long fingerprint = CircuitFingerprint.of(circuit);
+        Path file = new DerivedDataCache(directory).fileOf(fingerprint);
+        Files.write(file, List.of("versione " + DerivedDataCache.DERIVATION_VERSION,
+                "impronta " + Long.toHexString(fingerprint), "checkpoint 1,7 2,7"));
+
+        CircuitDerivedData data = new DerivedDataCache(directory).get(circuit);
+        assertEquals(List.of(List.of(new Position(1, 7), new Position(2, 7))), data.getCheckpointLines());
+        assertSame(data, DerivedDataCache.loaded(circuit));
+    }
+
+    @Test
+    public void changedCircuitIsNotServedTheOldLines(@TempDir Path directory) throws IOException {
+        DerivedDataCache cache = new DerivedDataCache(directory);
+        cache.get(circuit);
+        // Il tornante con il checkpoint spostato di una colonna
+        ICircuit changed = TestCircuits.of(
+                "################",
+                "#S......@......#",
+                "#S......@......#",
+                "#S......@......#",
+                "##########.....#",
+                "#*.............#",
+                "#*.............#",
+                "################");
+        long fingerprint = CircuitFingerprint.of(changed);
+        assertNotEquals(CircuitFingerprint.of(circuit), fingerprint);
+        assertNotEquals(cache.fileOf(CircuitFingerprint.of(circuit)), cache.fileOf(fingerprint));
+
+        // Anche un file con il nome giusto ma scritto per un altro circuito viene ignorato
+        Files.copy(cache.fileOf(CircuitFingerprint.of(circuit)), cache.fileOf(fingerprint));
+        CircuitDerivedData data = cache.get(changed);
+        assertEquals(CircuitDerivedData.compute(changed).getCheckpointLines(), data.getCheckpointLines());
+        assertEquals("impronta " + Long.toHexString(fingerprint), Files.readAllLines(cache.fileOf(fingerprint)).get(1));
+    }
+
+    @Test
+    public void corruptFileIsRecomputedAndRewritten(@TempDir Path directory) throws IOException {
+        long fingerprint = CircuitFingerprint.of(circuit);
+        DerivedDataCache cache = new DerivedDataCache(directory);
+        Path file = cache.fileOf(fingerprint);
+        Files.write(file, List.of("versione " + DerivedDataCache.DERIVATION_VERSION,
+                "impronta " + Long.toHexString(fingerprint), "checkpoint 1,x"));
+
+        CircuitDerivedData data = cache.get(circuit);
+        assertEquals(CircuitDerivedData.compute(circuit).getCheckpointLines(), data.getCheckpointLines());
+
+        // Il file riscritto viene letto dall'avvio successivo
+        DerivedDataCache.clearLoaded();
+        assertEquals(data.getCheckpointLines(), new DerivedDataCache(directory).get(circuit).getCheckpointLines());
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList(), "file temporanei rimasti nella cartella");
+        }
+    }
+
+    private static String format(List<IPosition> line) {
+        StringBuilder text = new StringBuilder("checkpoint");
+        for (IPosition position : line) {
+            text.append(' ').append(position.getRow()).append(',').append(position.getColumn());
+        }
+        return text.toString();
+    }
+}
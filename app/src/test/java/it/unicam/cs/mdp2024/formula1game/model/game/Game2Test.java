@@ -0,0 +1,166 @@
+package it.unicam.cs.mdp2024.formula1game.model.game;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.car.Car;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.player.BotPlayer;
+import it.unicam.cs.mdp2024.formula1game.model.player.IPlayer;
+import it.unicam.cs.mdp2024.formula1game.model.player.Player;
+import it.unicam.cs.mdp2024.formula1game.model.player.SpeculativePlanner;
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+import it.unicam.cs.mdp2024.formula1game.model.util.Vector;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Game2Test {
+
+    private static final int ROUNDS = 6;
+
+    @Test
+    public void parallelRoundsMoveBotsLikeSequentialRounds() {
+        ICircuit circuit = TestCircuits.openField();
+        List<List<IPosition>> sequential = playRounds(circuit, false);
+        List<List<IPosition>> parallel = playRounds(circuit, true);
+        assertNotEquals(sequential.get(0), sequential.get(sequential.size() - 1), "i bot sono rimasti fermi");
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void parallelRoundsAreRepeatable() {
+        ICircuit circuit = TestCircuits.openField();
+        assertEquals(playRounds(circuit, true), playRounds(circuit, true));
+    }
+
+    @Test
+    public void speculativePlanningDoesNotChangeTheMoves() {
+        ICircuit circuit = TestCircuits.openField();
+        // Senza avversari le previsioni sono esatte: la decisione speculativa
+        // coincide con quella calcolata nel turno
+        BotPlayer speculating = new BotPlayer("bot1", "0000FF", 1);
+        speculating.setSpeculativePlanning(true);
+        List<List<IPosition>> speculative = playRounds(circuit, false, List.of(speculating));
+        SpeculativePlanner planner = speculating.getSpeculativePlanner();
+        speculating.setSpeculativePlanning(false);
+
+        assertEquals(playRounds(circuit, false, List.of(new BotPlayer("bot1", "0000FF", 1))), speculative);
+        assertTrue(planner.getHits() > 0, "nessuna decisione speculativa usata");
+    }
+
+    @Test
+    public void invalidatedSnapshotDecisionDoesNotCallTheStrategyAgain() {
+        CountingBot bot = new CountingBot();
+        Blocker blocker = new Blocker(bot);
+        Game2 game = new Game2(new DefaultTurnManager(), new DefaultWinningStrategy(), new DefaultMoveValidator(),
+                TestCircuits.openField(), (path, g) -> new ArrayList<>(List.of(blocker, bot)));
+        game.setParallelDecisions(true);
+        game.start();
+        // Il bot parte in (10, 2): l'avversario muove per primo e gli si affianca
+        blocker.setCar(new Car(new Position(12, 4), new Velocity(0, 0), new Acceleration(new Vector(0, 0))));
+
+        game.executeRound();
+        assertTrue(blocker.blocked, "la decisione sull'istantanea è rimasta valida");
+        assertTrue(bot.isActive());
+        assertEquals(1, bot.choices, "strategia chiamata due volte nello stesso turno");
+        assertEquals(1, bot.reconsiderations);
+    }
+
+    /**
+     * Bot A* che conta le decisioni prese e ricorda l'ultima.
+     */
+    private static final class CountingBot extends BotPlayer {
+        private IAcceleration lastChoice;
+        private int choices;
+        private int reconsiderations;
+
+        CountingBot() {
+            super("bot", "0000FF", 1);
+        }
+
+        @Override
+        public IAcceleration chooseAcceleration() {
+            choices++;
+            lastChoice = super.chooseAcceleration();
+            return lastChoice;
+        }
+
+        @Override
+        public IAcceleration reconsiderAcceleration() {
+            reconsiderations++;
+            return super.reconsiderAcceleration();
+        }
+    }
+
+    /**
+     * Giocatore che si porta accanto alla cella in cui il bot ha deciso di
+     * arrivare, rendendo non valida la sua decisione.
+     */
+    private static final class Blocker extends Player {
+        private final CountingBot bot;
+        private boolean blocked;
+
+        Blocker(CountingBot bot) {
+            super("blocker", "FF0000");
+            this.bot = bot;
+        }
+
+        @Override
+        public boolean isBot() {
+            return false;
+        }
+
+        @Override
+        public IAcceleration chooseAcceleration() {
+            IPosition botPosition = bot.getCar().getPosition();
+            IPosition destination = botPosition.nextPosition(bot.getCar().getVelocity().addAcceleration(bot.lastChoice));
+            for (int ay = -1; ay <= 1; ay++) {
+                for (int ax = -1; ax <= 1; ax++) {
+                    IAcceleration move = new Acceleration(new Vector(ax, ay));
+                    IPosition next = getCar().getPosition().nextPosition(getCar().getVelocity().addAcceleration(move));
+                    if (next.distanceTo(destination) <= 1.0 && next.distanceTo(botPosition) > 1.0) {
+                        blocked = true;
+                        return move;
+                    }
+                }
+            }
+            return new Acceleration(new Vector(0, 0));
+        }
+    }
+
+    /**
+     * Gioca alcuni giri con tre bot A* e restituisce le posizioni dopo ogni giro.
+     */
+    private static List<List<IPosition>> playRounds(ICircuit circuit, boolean parallelDecisions) {
+        return playRounds(circuit, parallelDecisions, List.of(new BotPlayer("bot1", "0000FF", 1),
+                new BotPlayer("bot2", "00FF00", 1), new BotPlayer("bot3", "FF0000", 1)));
+    }
+
+    private static List<List<IPosition>> playRounds(ICircuit circuit, boolean parallelDecisions,
+            List<BotPlayer> bots) {
+        Game2 game = new Game2(new DefaultTurnManager(), new DefaultWinningStrategy(), new DefaultMoveValidator(),
+                circuit, (path, g) -> new ArrayList<>(bots));
+        game.setParallelDecisions(parallelDecisions);
+        game.start();
+
+        List<List<IPosition>> positions = new ArrayList<>();
+        for (int round = 0; round < ROUNDS && !game.isGameOver(); round++) {
+            game.executeRound();
+            List<IPosition> roundPositions = new ArrayList<>();
+            for (IPlayer player : game.getPlayers()) {
+                assertTrue(player.isActive(), player.getName() + " eliminato al giro " + round);
+                roundPositions.add(player.getCar().getPosition());
+            }
+            positions.add(roundPositions);
+        }
+        assertFalse(positions.isEmpty());
+        return positions;
+    }
+}
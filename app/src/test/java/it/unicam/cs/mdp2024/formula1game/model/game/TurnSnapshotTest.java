@@ -0,0 +1,58 @@
+package it.unicam.cs.mdp2024.formula1game.model.game;
+
+import it.unicam.cs.mdp2024.formula1game.model.car.Car;
+import it.unicam.cs.mdp2024.formula1game.model.player.BotPlayer;
+import it.unicam.cs.mdp2024.formula1game.model.player.IPlayer;
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+import it.unicam.cs.mdp2024.formula1game.model.util.Vector;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TurnSnapshotTest {
+
+    @Test
+    public void predictedSnapshotMovesOpponentsByTheirVelocity() {
+        BotPlayer bot = botAt("bot", 2, 2, 0, 0);
+        BotPlayer opponent = botAt("avversario", 5, 5, 2, -1);
+        BotPlayer crashed = botAt("eliminato", 8, 8, 1, 1);
+        crashed.setActive(false);
+        List<IPlayer> players = List.of(bot, opponent, crashed);
+
+        TurnSnapshot snapshot = TurnSnapshot.predicted(players, bot, new Position(3, 2), new Velocity(0, 1));
+        // Le auto reali possono cambiare senza toccare l'istantanea
+        bot.getCar().setPosition(new Position(1, 1));
+        opponent.getCar().setPosition(new Position(1, 1));
+
+        IPlayer self = snapshot.frozen(bot);
+        assertNotSame(bot, self);
+        assertEquals(new Position(3, 2), self.getCar().getPosition());
+        assertEquals(1, self.getCar().getVelocity().getCurrentVelocity().getY());
+        assertEquals(opponent.getCar().getVelocity().getCurrentVelocity().getX(),
+                snapshot.frozen(opponent).getCar().getVelocity().getCurrentVelocity().getX());
+        // La posizione prevista segue la velocità dell'avversario
+        assertEquals(new Position(5, 5).nextPosition(new Velocity(2, -1)), snapshot.frozen(opponent).getCar().getPosition());
+        assertEquals(new Position(8, 8), snapshot.frozen(crashed).getCar().getPosition());
+        assertThrows(UnsupportedOperationException.class, () -> self.getCar().move());
+    }
+
+    @Test
+    public void unknownPlayerIsRejected() {
+        BotPlayer bot = botAt("bot", 2, 2, 0, 0);
+        BotPlayer other = botAt("altro", 4, 4, 0, 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> TurnSnapshot.predicted(List.of(bot), other, new Position(4, 4), new Velocity(0, 0)));
+        assertThrows(IllegalArgumentException.class, () -> TurnSnapshot.of(List.of(bot)).frozen(other));
+    }
+
+    private static BotPlayer botAt(String name, int row, int column, int vx, int vy) {
+        BotPlayer bot = new BotPlayer(name, "black");
+        bot.setCar(new Car(new Position(row, column), new Velocity(vx, vy), new Acceleration(new Vector(0, 0))));
+        return bot;
+    }
+}
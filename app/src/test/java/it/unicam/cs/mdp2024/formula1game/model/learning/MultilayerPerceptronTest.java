@@ -0,0 +1,109 @@
+package it.unicam.cs.mdp2024.formula1game.model.learning;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultilayerPerceptronTest {
+
+    @Test
+    public void forwardAppliesReluOnlyToHiddenLayers() {
+        // Strato nascosto: h0 = x0 - x1, h1 = x1 - x0 + 1; uscita: y = 2 h0 + h1 - 3
+        MultilayerPerceptron network = new MultilayerPerceptron(new int[] {2, 2, 1},
+                new float[][] {{1, -1, -1, 1}, {2, 1}}, new float[][] {{0, 1}, {-3}});
+        float[] outputs = new float[2];
+        network.forward(new float[] {3, 1, 1, 3}, 2, outputs);
+        // (3, 1): h = (2, 0) -> y = 1; (1, 3): h = (0, 3) -> y = 0
+        assertEquals(1f, outputs[0]);
+        assertEquals(0f, outputs[1]);
+
+        // (0, 0): h = (0, 1) -> y = -2, l'uscita è lineare e resta negativa
+        float[] negative = new float[1];
+        network.forward(new float[] {0, 0}, 1, negative);
+        assertEquals(-2f, negative[0]);
+    }
+
+    @Test
+    public void batchMatchesSingleSamples() {
+        MultilayerPerceptron network = randomNetwork(new int[] {7, 16, 8, 9}, 3L);
+        int batch = 5;
+        float[] inputs = new float[batch * 7];
+        Random random = new Random(11L);
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = random.nextFloat() * 2 - 1;
+        }
+        float[] outputs = new float[batch * 9];
+        network.forward(inputs, batch, outputs);
+        for (int sample = 0; sample < batch; sample++) {
+            float[] single = new float[9];
+            network.forward(Arrays.copyOfRange(inputs, sample * 7, (sample + 1) * 7), 1, single);
+            assertArrayEquals(single, Arrays.copyOfRange(outputs, sample * 9, (sample + 1) * 9), "campione " + sample);
+        }
+    }
+
+    @Test
+    public void savedNetworkIsLoadedUnchanged(@TempDir Path directory) throws IOException {
+        MultilayerPerceptron network = randomNetwork(new int[] {4, 6, 3}, 5L);
+        Path file = directory.resolve("rete.bin");
+        network.save(file);
+        MultilayerPerceptron loaded = MultilayerPerceptron.load(file);
+        assertArrayEquals(network.getLayerSizes(), loaded.getLayerSizes());
+        for (int layer = 0; layer < 2; layer++) {
+            assertArrayEquals(network.weights()[layer], loaded.weights()[layer]);
+            assertArrayEquals(network.biases()[layer], loaded.biases()[layer]);
+        }
+        assertFalse(Files.exists(directory.resolve("rete.bin.tmp")));
+    }
+
+    @Test
+    public void invalidFilesAreRejected(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("rete.bin");
+        randomNetwork(new int[] {4, 6, 3}, 5L).save(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        Path truncated = directory.resolve("troncata.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IOException.class, () -> MultilayerPerceptron.load(truncated));
+
+        Path foreign = directory.resolve("estranea.bin");
+        byte[] wrongMagic = bytes.clone();
+        wrongMagic[0] ^= 0x7F;
+        Files.write(foreign, wrongMagic);
+        assertThrows(IOException.class, () -> MultilayerPerceptron.load(foreign));
+    }
+
+    @Test
+    public void inconsistentShapesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new MultilayerPerceptron(new int[] {2},
+                new float[0][], new float[0][]));
+        assertThrows(IllegalArgumentException.class, () -> new MultilayerPerceptron(new int[] {2, 2},
+                new float[][] {{1, 2, 3}}, new float[][] {{0, 0}}));
+        MultilayerPerceptron network = randomNetwork(new int[] {3, 2}, 1L);
+        assertThrows(IllegalArgumentException.class, () -> network.forward(new float[5], 2, new float[4]));
+        assertThrows(IllegalArgumentException.class, () -> network.forward(new float[6], 2, new float[3]));
+    }
+
+    private static MultilayerPerceptron randomNetwork(int[] layerSizes, long seed) {
+        Random random = new Random(seed);
+        float[][] weights = new float[layerSizes.length - 1][];
+        float[][] biases = new float[layerSizes.length - 1][];
+        for (int layer = 0; layer < weights.length; layer++) {
+            weights[layer] = new float[layerSizes[layer] * layerSizes[layer + 1]];
+            biases[layer] = new float[layerSizes[layer + 1]];
+            for (int i = 0; i < weights[layer].length; i++) {
+                weights[layer][i] = (float) random.nextGaussian();
+            }
+            for (int i = 0; i < biases[layer].length; i++) {
+                biases[layer][i] = (float) random.nextGaussian() * 0.1f;
+            }
+        }
+        return new MultilayerPerceptron(layerSizes, weights, biases);
+    }
+}
@@ -0,0 +1,138 @@
+package it.unicam.cs.mdp2024.formula1game.model.player;
+
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.Vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpeculativePlannerTest {
+
+    @Test
+    public void takesTheSpeculationForTheRealState() {
+        SpeculativePlanner planner = new SpeculativePlanner();
+        Map<String, Supplier<IAcceleration>> planners = new LinkedHashMap<>();
+        planners.put("scelta", () -> acceleration(1, 0));
+        planners.put("alternativa", () -> acceleration(0, 1));
+        planner.speculate(planners);
+
+        IAcceleration move = planner.take("alternativa", candidate -> true);
+        assertEquals(0, move.getAccelerationVector().getX());
+        assertEquals(1, move.getAccelerationVector().getY());
+        assertEquals(2, planner.getStarted());
+        assertEquals(1, planner.getHits());
+        // Le altre speculazioni non si possono più prendere
+        assertNull(planner.take("scelta", candidate -> true));
+        assertEquals(1, planner.getHits());
+        assertEquals(0, planner.getMisses());
+    }
+
+    @Test
+    public void unknownStateIsAMiss() {
+        SpeculativePlanner planner = new SpeculativePlanner();
+        planner.speculate("scelta", () -> acceleration(1, 0));
+        assertNull(planner.take("altro", candidate -> true));
+        assertEquals(1, planner.getMisses());
+        assertEquals(0, planner.getHitRate());
+    }
+
+    @Test
+    public void invalidSpeculationIsRejected() {
+        SpeculativePlanner planner = new SpeculativePlanner();
+        planner.speculate("scelta", () -> acceleration(1, 0));
+        assertNull(planner.take("scelta", candidate -> false));
+        assertEquals(1, planner.getRejected());
+    }
+
+    @Test
+    public void speculationsNeverOverlap() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            SpeculativePlanner planner = new SpeculativePlanner(executor);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger overlaps = new AtomicInteger();
+            Supplier<IAcceleration> slow = () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+                return acceleration(0, 0);
+            };
+            for (int turn = 0; turn < 20; turn++) {
+                Map<Integer, Supplier<IAcceleration>> planners = new LinkedHashMap<>();
+                for (int candidate = 0; candidate < 3; candidate++) {
+                    planners.put(candidate, slow);
+                }
+                planner.speculate(planners);
+                // Il primo stato previsto viene preso subito, gli altri restano in coda o in corso
+                planner.take(0, candidate -> true);
+            }
+            planner.discard();
+            assertEquals(0, overlaps.get());
+            assertEquals(0, running.get());
+            assertEquals(20, planner.getHits());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void discardCancelsSpeculationsNotYetStarted() throws InterruptedException {
+        SpeculativePlanner planner = new SpeculativePlanner();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Map<String, Supplier<IAcceleration>> planners = new LinkedHashMap<>();
+        planners.put("prima", () -> {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return acceleration(0, 0);
+        });
+        planners.put("seconda", () -> {
+            calls.incrementAndGet();
+            return acceleration(0, 0);
+        });
+        planner.speculate(planners);
+        while (calls.get() == 0) {
+            Thread.sleep(1);
+        }
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            release.countDown();
+        });
+        releaser.start();
+        planner.discard();
+        releaser.join();
+
+        assertEquals(1, calls.get());
+        assertEquals(1, planner.getCancelled());
+    }
+
+    private static IAcceleration acceleration(int x, int y) {
+        return new Acceleration(new Vector(x, y));
+    }
+}
@@ -0,0 +1,72 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.PathCache;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.game.DefaultMoveValidator;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AStarMovementStrategyTest {
+
+    private static final int MAX_TURNS = 40;
+    private static final int SMALL_EXPANSION_BUDGET = 1000;
+
+    private final ICircuit circuit = TestCircuits.openField();
+
+    @BeforeEach
+    public void clearSharedPaths() {
+        // I percorsi condivisi dai test precedenti cambierebbero la guida
+        PathCache.forCircuit(circuit).clear();
+    }
+
+    @Test
+    public void anytimePlanningConvergesWhileDriving() {
+        IPosition start = new Position(18, 2);
+        IPosition target = new Position(2, 24);
+        // 0 lascia il budget predefinito della strategia
+        for (int expansionBudget : new int[] {0, SMALL_EXPANSION_BUDGET}) {
+            PathCache.forCircuit(circuit).clear();
+            AStarMovementStrategy strategy = new AStarMovementStrategy(new DefaultMoveValidator());
+            if (expansionBudget > 0) {
+                strategy.setPlanningBudget(0, expansionBudget);
+            }
+            StrategyRuns.driveToTarget(strategy, circuit, start, target, MAX_TURNS);
+            // Solo il percorso ottimo entra nella cache: la ricerca è proseguita fino in fondo
+            assertEquals(1, PathCache.forCircuit(circuit).size(), "budget " + expansionBudget);
+        }
+    }
+
+    @Test
+    public void hierarchicalPathfindingIsNoSlowerThanAStar() {
+        assertHierarchicalNoSlower(new Position(10, 2), new Position(10, 24));
+        assertHierarchicalNoSlower(new Position(18, 2), new Position(2, 24));
+    }
+
+    @Test
+    public void hierarchicalPathfindingCanBeSwitchedOff() {
+        AStarMovementStrategy strategy = new AStarMovementStrategy(new DefaultMoveValidator());
+        assertFalse(strategy.isHierarchicalPathfinding());
+        strategy.setHierarchicalPathfinding(true);
+        StrategyRuns.driveToTarget(strategy, circuit, new Position(10, 2), new Position(10, 24), MAX_TURNS);
+
+        // Senza HPA* il bot torna a pianificare con ARA*
+        strategy.setHierarchicalPathfinding(false);
+        assertFalse(strategy.isHierarchicalPathfinding());
+        StrategyRuns.driveToTarget(strategy, circuit, new Position(18, 2), new Position(2, 24), MAX_TURNS);
+    }
+
+    private void assertHierarchicalNoSlower(IPosition start, IPosition target) {
+        AStarMovementStrategy hierarchical = new AStarMovementStrategy(new DefaultMoveValidator());
+        hierarchical.setHierarchicalPathfinding(true);
+        int plainTurns = StrategyRuns.driveToTarget(new AStarMovementStrategy(new DefaultMoveValidator()), circuit,
+                start, target, MAX_TURNS);
+        int hierarchicalTurns = StrategyRuns.driveToTarget(hierarchical, circuit, start, target, MAX_TURNS);
+        assertTrue(hierarchicalTurns <= plainTurns, hierarchicalTurns + " mosse contro " + plainTurns);
+    }
+}
@@ -0,0 +1,35 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BeamSearchMovementStrategyTest {
+
+    @Test
+    public void returnsOnlyLegalAccelerations() {
+        ICircuit circuit = TestCircuits.hairpin();
+        int turns = StrategyRuns.driveLegally(new BeamSearchMovementStrategy(), circuit, new Position(2, 1),
+                new Position(2, 14), List.of(), 40);
+        assertTrue(turns > 0);
+    }
+
+    @Test
+    public void returnsOnlyLegalAccelerationsNearOpponents() {
+        ICircuit circuit = TestCircuits.hairpin();
+        StrategyRuns.driveLegally(new BeamSearchMovementStrategy(), circuit, new Position(2, 1),
+                new Position(2, 14), List.of(new Position(1, 5), new Position(3, 9), new Position(5, 12)), 40);
+    }
+
+    @Test
+    public void rejectsNonPositiveDepth() {
+        assertThrows(IllegalArgumentException.class, () -> new BeamSearchMovementStrategy(0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new BeamSearchMovementStrategy().setLookaheadDepth(-1));
+    }
+}
@@ -0,0 +1,101 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.Vector;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DecisionCacheTest {
+
+    private static final int CAPACITY = 64;
+
+    @Test
+    public void missThenHit() {
+        DecisionCache cache = new DecisionCache(CAPACITY);
+        long hash = 0x5DEECE66DL << 8;
+        assertNull(cache.get(hash));
+        cache.put(hash, acceleration(1, -1));
+
+        assertVector(1, -1, cache.get(hash));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    public void everyAccelerationSurvivesTheRoundTrip() {
+        DecisionCache cache = new DecisionCache(CAPACITY);
+        for (int ay = -1; ay <= 1; ay++) {
+            for (int ax = -1; ax <= 1; ax++) {
+                int action = (ay + 1) * 3 + ax + 1;
+                // Anche l'hash nullo resta distinguibile da una posizione vuota
+                long hash = action == 0 ? 0L : 0x9E3779B97F4A7C15L * action;
+                cache.put(hash, acceleration(ax, ay));
+                assertVector(ax, ay, cache.get(hash));
+            }
+        }
+    }
+
+    @Test
+    public void keysSharingASlotDoNotCollide() {
+        DecisionCache cache = new DecisionCache(CAPACITY);
+        long first = 0x1234_5678_9ABC_DE00L;
+        long second = first + CAPACITY; // Stessa posizione, resto dell'hash diverso
+        cache.put(first, acceleration(1, 0));
+
+        assertNull(cache.get(second));
+        cache.put(second, acceleration(-1, 0));
+        assertVector(-1, 0, cache.get(second));
+        // La nuova decisione ha sostituito la precedente
+        assertNull(cache.get(first));
+    }
+
+    @Test
+    public void keysDifferingOnlyInHighBitsAreDistinct() {
+        DecisionCache cache = new DecisionCache(CAPACITY);
+        long first = 0x0000_0000_0000_0030L;
+        cache.put(first, acceleration(0, 1));
+        assertNull(cache.get(first | Long.MIN_VALUE));
+        assertVector(0, 1, cache.get(first));
+    }
+
+    @Test
+    public void ignoresAccelerationsOutOfRangeAndClears() {
+        DecisionCache cache = new DecisionCache(CAPACITY);
+        cache.put(42L << 4, acceleration(2, 0));
+        assertNull(cache.get(42L << 4));
+
+        cache.put(42L << 4, acceleration(0, 0));
+        cache.clear();
+        assertNull(cache.get(42L << 4));
+    }
+
+    @Test
+    public void rejectsInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new DecisionCache(8));
+        assertThrows(IllegalArgumentException.class, () -> new DecisionCache(100));
+    }
+
+    @Test
+    public void sharedCachesFollowTheScope() {
+        DecisionCache cache = DecisionCache.shared("prova-" + CAPACITY);
+        assertSame(cache, DecisionCache.shared("prova-" + CAPACITY));
+        assertNotSame(cache, DecisionCache.shared("altra-" + CAPACITY));
+        assertEquals(DecisionCache.DEFAULT_CAPACITY, cache.getCapacity());
+    }
+
+    private static IAcceleration acceleration(int x, int y) {
+        return new Acceleration(new Vector(x, y));
+    }
+
+    private static void assertVector(int x, int y, IAcceleration acceleration) {
+        assertNotNull(acceleration);
+        IVector vector = acceleration.getAccelerationVector();
+        assertEquals(x, vector.getX());
+        assertEquals(y, vector.getY());
+    }
+}
@@ -0,0 +1,52 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalStateHashTest {
+
+    private static final IPosition TARGET = new Position(6, 2);
+
+    @Test
+    public void incrementalHashMatchesFreshHash() {
+        ICircuit circuit = TestCircuits.hairpin();
+        LocalStateHash incremental = new LocalStateHash(circuit);
+        incremental.update(new Position(2, 1), 0, 0, TARGET, 0, List.of());
+        incremental.update(new Position(2, 2), 1, 0, TARGET, 0, List.of(new Position(1, 4)));
+        long hash = incremental.update(new Position(2, 4), 2, 0, new Position(1, 7), 1,
+                List.of(new Position(3, 5)));
+
+        long fresh = new LocalStateHash(circuit).update(new Position(2, 4), 2, 0, new Position(1, 7), 1,
+                List.of(new Position(3, 5)));
+        assertEquals(fresh, hash);
+    }
+
+    @Test
+    public void hashDependsOnTheLocalSituation() {
+        ICircuit circuit = TestCircuits.hairpin();
+        IPosition position = new Position(2, 4);
+        long base = hash(circuit, position, 1, 0, 0, List.of());
+
+        assertNotEquals(base, hash(circuit, new Position(2, 5), 1, 0, 0, List.of()));
+        assertNotEquals(base, hash(circuit, position, 0, 1, 0, List.of()));
+        assertNotEquals(base, hash(circuit, position, 1, 0, 1, List.of()));
+        assertNotEquals(base, hash(circuit, position, 1, 0, 0, List.of(new Position(2, 6))));
+        // Un avversario lontano non cambia la situazione locale
+        assertEquals(base, hash(circuit, position, 1, 0, 0, List.of(new Position(6, 14))));
+        // Circuiti diversi danno hash diversi
+        assertNotEquals(base, hash(TestCircuits.deadEnd(), position, 1, 0, 0, List.of()));
+    }
+
+    private static long hash(ICircuit circuit, IPosition position, int vx, int vy, int leg,
+            List<IPosition> opponents) {
+        return new LocalStateHash(circuit).update(position, vx, vy, TARGET, leg, opponents);
+    }
+}
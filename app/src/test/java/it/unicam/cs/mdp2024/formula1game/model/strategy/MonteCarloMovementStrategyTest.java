@@ -0,0 +1,35 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloMovementStrategyTest {
+
+    private static final long TIME_BUDGET_NANOS = 20_000_000L;
+
+    @Test
+    public void returnsOnlyLegalAccelerations() {
+        ICircuit circuit = TestCircuits.hairpin();
+        MonteCarloMovementStrategy strategy = new MonteCarloMovementStrategy();
+        strategy.setTimeBudget(TIME_BUDGET_NANOS);
+        int turns = StrategyRuns.driveLegally(strategy, circuit, new Position(2, 1), new Position(2, 14),
+                List.of(), 40);
+        assertTrue(turns > 0);
+    }
+
+    @Test
+    public void returnsOnlyLegalAccelerationsNearOpponents() {
+        ICircuit circuit = TestCircuits.hairpin();
+        MonteCarloMovementStrategy strategy = new MonteCarloMovementStrategy();
+        strategy.setTimeBudget(TIME_BUDGET_NANOS);
+        StrategyRuns.driveLegally(strategy, circuit, new Position(2, 1), new Position(2, 14),
+                List.of(new Position(1, 5), new Position(3, 9), new Position(5, 12)), 40);
+    }
+}
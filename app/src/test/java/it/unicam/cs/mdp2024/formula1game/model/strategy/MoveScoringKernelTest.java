@@ -0,0 +1,115 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+import it.unicam.cs.mdp2024.formula1game.model.util.Vector;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveScoringKernelTest {
+
+    private static final double EPSILON = 1e-12;
+    private static final int STATES = 2_000;
+    private static final DoubleUnaryOperator SPEED_FUNCTION = speed -> 1.0 / (1.0 + Math.abs(speed - 3.0));
+    private static final double DECAY = 3.0;
+
+    /**
+     * Confronta il kernel con le formule dirette usate prima dalle strategie,
+     * su stati casuali che escono anche dalle tabelle: scostamenti oltre 127
+     * celle e velocità oltre 6.
+     */
+    @Test
+    public void scoresMatchTheDirectFormulasOnAllCandidates() {
+        MoveScoringKernel kernel = new MoveScoringKernel(new MoveScoringKernel.Profile(SPEED_FUNCTION, DECAY));
+        Random random = new Random(41);
+        for (int state = 0; state < STATES; state++) {
+            IPosition position = new Position(random.nextInt(300), random.nextInt(300));
+            IVelocity velocity = new Velocity(random.nextInt(17) - 8, random.nextInt(17) - 8);
+            IPosition target = new Position(random.nextInt(300), random.nextInt(300));
+            List<IPosition> opponents = new ArrayList<>();
+            int opponentCount = random.nextInt(6);
+            for (int i = 0; i < opponentCount; i++) {
+                opponents.add(new Position(position.getRow() + random.nextInt(21) - 10,
+                        position.getColumn() + random.nextInt(21) - 10));
+            }
+
+            kernel.prepare(position, velocity, opponents);
+            assertEquals(!opponents.isEmpty(), kernel.hasOpponents());
+            for (int ay = -1; ay <= 1; ay++) {
+                for (int ax = -1; ax <= 1; ax++) {
+                    IAcceleration acceleration = new Acceleration(new Vector(ax, ay));
+                    int candidate = MoveScoringKernel.indexOf(acceleration);
+                    IVelocity newVelocity = velocity.addAcceleration(acceleration);
+                    IPosition newPosition = position.nextPosition(newVelocity);
+                    String message = "stato " + state + ", accelerazione (" + ax + ", " + ay + ")";
+
+                    assertEquals(1.0 / (1.0 + newPosition.distanceTo(target)),
+                            kernel.targetProximity(candidate, target), EPSILON, message);
+                    assertEquals(SPEED_FUNCTION.applyAsDouble(speed(newVelocity)),
+                            kernel.speedScore(candidate), EPSILON, message);
+                    assertEquals(collisionRisk(newPosition, opponents),
+                            kernel.collisionRisk(candidate), EPSILON, message);
+                    assertEquals(alignment(newPosition, newVelocity, target),
+                            kernel.targetAlignment(candidate, target), EPSILON, message);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void candidatesAreIndexedOnceEach() {
+        boolean[] seen = new boolean[MoveScoringKernel.CANDIDATES];
+        for (int ay = -1; ay <= 1; ay++) {
+            for (int ax = -1; ax <= 1; ax++) {
+                int candidate = MoveScoringKernel.indexOf(new Acceleration(new Vector(ax, ay)));
+                assertFalse(seen[candidate]);
+                seen[candidate] = true;
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> MoveScoringKernel.indexOf(new Acceleration(new Vector(2, 0))));
+        assertThrows(IllegalArgumentException.class, () -> new MoveScoringKernel.Profile(SPEED_FUNCTION, 0));
+    }
+
+    private static double speed(IVelocity velocity) {
+        IVector vector = velocity.getCurrentVelocity();
+        return Math.sqrt(vector.getX() * vector.getX() + vector.getY() * vector.getY());
+    }
+
+    private static double collisionRisk(IPosition position, List<IPosition> opponents) {
+        if (opponents.isEmpty()) {
+            return 0.0;
+        }
+        double minDistance = Double.POSITIVE_INFINITY;
+        for (IPosition opponent : opponents) {
+            minDistance = Math.min(minDistance, position.distanceTo(opponent));
+        }
+        return Math.exp(-minDistance / DECAY);
+    }
+
+    private static double alignment(IPosition position, IVelocity velocity, IPosition target) {
+        IVector velocityVector = velocity.getCurrentVelocity();
+        IVector directionVector = position.vectorTo(target);
+        double vx = velocityVector.getX();
+        double vy = velocityVector.getY();
+        double dx = directionVector.getX();
+        double dy = directionVector.getY();
+        double magnitude = Math.sqrt((vx * vx + vy * vy) * (dx * dx + dy * dy));
+        if (magnitude < 0.0001) {
+            return 0;
+        }
+        return ((vx * dx + vy * dy) / magnitude + 1.0) / 2.0;
+    }
+}
@@ -0,0 +1,118 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.game.DefaultMoveValidator;
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVelocity;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+import it.unicam.cs.mdp2024.formula1game.model.util.Vector;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovementContextTest {
+
+    private static final long DEADLINE_NANOS = 20_000_000L;
+    private static final long WAIT_SECONDS = 5;
+
+    private final ICircuit circuit = TestCircuits.hairpin();
+    private final IPosition start = new Position(2, 1);
+    private final IPosition target = new Position(2, 14);
+
+    @Test
+    public void timedOutDecisionIsInterrupted() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch exited = new CountDownLatch(1);
+        MovementContext context = contextWith(() -> {
+            calls.incrementAndGet();
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.onSpinWait();
+            }
+            exited.countDown();
+            return null;
+        });
+
+        assertNotNull(nextMove(context));
+        assertEquals(1, context.getDecisionTimeouts());
+        assertTrue(exited.await(WAIT_SECONDS, TimeUnit.SECONDS), "la strategia non è stata interrotta");
+        awaitIdle(context);
+
+        // Il thread è uscito dalla strategia: il turno successivo la richiama
+        nextMove(context);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void strategyStillRunningIsNotCalledAgain() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        MovementContext context = contextWith(() -> {
+            // Ignora l'interruzione finché non viene rilasciata
+            if (calls.incrementAndGet() == 1) {
+                while (release.getCount() > 0) {
+                    Thread.onSpinWait();
+                }
+            }
+            return new Acceleration(new Vector(1, 0));
+        });
+
+        assertNotNull(nextMove(context));
+        assertTrue(context.isDeciding());
+        assertNotNull(nextMove(context));
+        assertEquals(1, calls.get());
+        assertEquals(2, context.getDecisionTimeouts());
+
+        release.countDown();
+        awaitIdle(context);
+        IAcceleration move = nextMove(context);
+        assertEquals(2, calls.get());
+        assertEquals(1, move.getAccelerationVector().getX());
+        assertEquals(0, move.getAccelerationVector().getY());
+    }
+
+    @Test
+    public void negativeDeadlineIsRejected() {
+        MovementContext context = new MovementContext(new DefaultMoveValidator());
+        assertThrows(IllegalArgumentException.class, () -> context.setDecisionDeadline(-1));
+    }
+
+    private static MovementContext contextWith(Supplier<IAcceleration> decision) {
+        MovementContext context = new MovementContext(new DefaultMoveValidator());
+        context.setStrategy(new MovementStrategy() {
+            @Override
+            public IAcceleration calculateMove(IPosition currentPosition, IVelocity currentVelocity,
+                    List<IPosition> opponentPositions, ICircuit circuit, IPosition nextCheckpoint) {
+                return decision.get();
+            }
+
+            @Override
+            public void configureWeights(MovementWeights weights) {
+            }
+        });
+        context.setDecisionDeadline(DEADLINE_NANOS);
+        return context;
+    }
+
+    private IAcceleration nextMove(MovementContext context) {
+        return context.calculateNextMove(start, new Velocity(0, 0), List.of(), circuit, target);
+    }
+
+    private static void awaitIdle(MovementContext context) throws InterruptedException {
+        long limit = System.nanoTime() + TimeUnit.SECONDS.toNanos(WAIT_SECONDS);
+        while (context.isDeciding()) {
+            assertTrue(System.nanoTime() < limit, "il calcolo non è terminato");
+            Thread.sleep(1);
+        }
+    }
+}
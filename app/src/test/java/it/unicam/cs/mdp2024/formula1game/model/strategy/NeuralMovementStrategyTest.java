@@ -0,0 +1,77 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.game.DefaultMoveValidator;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NeuralMovementStrategyTest {
+
+    private static final long WAIT_SECONDS = 60;
+
+    private final ICircuit circuit = TestCircuits.hairpin();
+    private final IPosition start = new Position(2, 1);
+    private final IPosition target = new Position(2, 7);
+
+    @Test
+    public void networkTrainedOnDemandIsSavedPerCircuit(@TempDir Path directory)
+            throws IOException, InterruptedException {
+        Path weightsFile = directory.resolve("rete.bin");
+        NeuralMovementStrategy strategy = new NeuralMovementStrategy(weightsFile);
+        MovementContext context = new MovementContext(new DefaultMoveValidator());
+        context.setStrategy(strategy);
+        // Ogni decisione scade subito: l'addestramento deve proseguire tra un turno e l'altro
+        context.setDecisionDeadline(1);
+
+        // Senza rete pronta il lotto non viene valutato e la decisione resta al bot
+        strategy.decideBatch(List.of(request(strategy)));
+        long limit = System.nanoTime() + TimeUnit.SECONDS.toNanos(WAIT_SECONDS);
+        while (savedNetworks(directory).isEmpty()) {
+            assertTrue(System.nanoTime() < limit, "la rete non è mai stata addestrata");
+            context.calculateNextMove(start, new Velocity(0, 0), List.of(), circuit, target);
+            Thread.sleep(10);
+        }
+        assertFalse(Files.exists(weightsFile), "la rete del circuito ha sostituito quella predefinita");
+        String name = savedNetworks(directory).get(0).getFileName().toString();
+        assertTrue(name.startsWith("rete-") && name.endsWith(".bin"), name);
+    }
+
+    @Test
+    public void batchedScoresMatchSingleDecisions(@TempDir Path directory) {
+        NeuralMovementStrategy batched = new NeuralMovementStrategy(directory.resolve("rete.bin"));
+        NeuralMovementStrategy single = new NeuralMovementStrategy(directory.resolve("rete.bin"));
+        // La prima decisione attende la rete, poi il lotto la trova pronta
+        IVector expected = single.calculateMove(start, new Velocity(0, 0), List.of(), circuit, target)
+                .getAccelerationVector();
+        batched.decideBatch(List.of(request(batched)));
+        IVector actual = batched.calculateMove(start, new Velocity(0, 0), List.of(), circuit, target)
+                .getAccelerationVector();
+        assertEquals(expected.getX(), actual.getX());
+        assertEquals(expected.getY(), actual.getY());
+    }
+
+    private BatchedMovementStrategy.Request request(BatchedMovementStrategy strategy) {
+        return new BatchedMovementStrategy.Request(strategy, start, new Velocity(0, 0), List.of(), circuit, target);
+    }
+
+    private static List<Path> savedNetworks(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".bin")).toList();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.game.DefaultMoveValidator;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PolicyMovementStrategyTest {
+
+    private static final long WAIT_SECONDS = 30;
+
+    private final ICircuit circuit = TestCircuits.hairpin();
+    private final List<List<IPosition>> lines = List.of(
+            List.of(new Position(1, 7), new Position(2, 7), new Position(3, 7)));
+    private final IPosition start = new Position(2, 1);
+
+    @Test
+    public void trainingInterruptedByTheDeadlineIsResumed(@TempDir Path directory) throws InterruptedException {
+        PolicyMovementStrategy strategy = new PolicyMovementStrategy(directory);
+        MovementContext context = new MovementContext(new DefaultMoveValidator());
+        context.setStrategy(strategy);
+        // Ogni decisione scade subito: l'addestramento deve proseguire tra un turno e l'altro
+        context.setDecisionDeadline(1);
+        context.setLapContext(lines, 0);
+
+        long limit = System.nanoTime() + TimeUnit.SECONDS.toNanos(WAIT_SECONDS);
+        while (strategy.getPolicy() == null) {
+            assertTrue(System.nanoTime() < limit, "la politica non è mai stata ottenuta");
+            context.calculateNextMove(start, new Velocity(0, 0), List.of(), circuit, lines.get(0).get(0));
+            awaitIdle(context, limit);
+        }
+        assertTrue(context.getDecisionTimeouts() > 0);
+    }
+
+    @Test
+    public void policyIsSharedAndMovesTheCar(@TempDir Path directory) {
+        PolicyMovementStrategy first = new PolicyMovementStrategy(directory);
+        PolicyMovementStrategy second = new PolicyMovementStrategy(directory);
+        first.setLapContext(lines, 0);
+        second.setLapContext(lines, 0);
+        IVector move = first.calculateMove(start, new Velocity(0, 0), List.of(), circuit, lines.get(0).get(0))
+                .getAccelerationVector();
+        assertFalse(move.getX() == 0 && move.getY() == 0, "l'auto è rimasta ferma alla partenza");
+        second.calculateMove(start, new Velocity(0, 0), List.of(), circuit, lines.get(0).get(0));
+        assertNotNull(first.getPolicy());
+        assertSame(first.getPolicy(), second.getPolicy());
+    }
+
+    private static void awaitIdle(MovementContext context, long limit) throws InterruptedException {
+        while (context.isDeciding()) {
+            assertTrue(System.nanoTime() < limit, "la strategia non è terminata");
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.CheckpointDistanceTable;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.IVector;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RacingLineMovementStrategyTest {
+
+    /** Il traguardo è oltre il muro: il giro non ha una traiettoria. */
+    private final ICircuit walled = TestCircuits.of(
+            "##########",
+            "#S..@.#..#",
+            "#.....#.*#",
+            "#.....#..#",
+            "##########");
+    private final List<List<IPosition>> lines = List.of(List.of(new Position(1, 4)));
+    private final IPosition start = new Position(1, 1);
+
+    @Test
+    public void withoutTheLineTheCarHeadsForTheCheckpoint(@TempDir Path directory) throws IOException {
+        RacingLineMovementStrategy strategy = new RacingLineMovementStrategy(directory);
+        strategy.setLapContext(lines, 0);
+        IVector move = strategy.calculateMove(start, new Velocity(0, 0), List.of(), walled, lines.get(0).get(0))
+                .getAccelerationVector();
+        assertNull(strategy.getLine());
+        // Il controllo locale segue le distanze dal checkpoint
+        assertEquals(1, move.getX(), "l'auto non si è diretta verso il checkpoint");
+
+        // Le distanze restano nell'archivio per gli avvii successivi
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.anyMatch(file -> file.getFileName().toString()
+                    .startsWith(CheckpointDistanceTable.TABLE_NAME)));
+        }
+    }
+}
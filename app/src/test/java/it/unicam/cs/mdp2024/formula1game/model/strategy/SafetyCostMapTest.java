@@ -0,0 +1,106 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.algorithms.DStarLite;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Position;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SafetyCostMapTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private final ICircuit circuit = TestCircuits.hairpin();
+    private final SafetyWeights weights = new SafetyWeights();
+
+    /** Avversari che avanzano lungo il tornante, fino a sparire. */
+    private final List<List<IPosition>> rounds = List.of(
+            List.of(new Position(2, 4)),
+            List.of(new Position(2, 6), new Position(3, 9)),
+            List.of(new Position(2, 9), new Position(4, 12)),
+            List.of(new Position(4, 12), new Position(5, 12)),
+            List.of(new Position(6, 8)),
+            List.of());
+
+    @Test
+    public void incrementalUpdateMatchesAFreshMap() {
+        SafetyCostMap map = new SafetyCostMap(circuit, weights);
+        for (List<IPosition> opponents : rounds) {
+            double[] before = costs(map);
+            Set<IPosition> changed = new HashSet<>(map.updateOpponents(opponents));
+            double[] after = costs(map);
+
+            SafetyCostMap fresh = new SafetyCostMap(circuit, weights);
+            fresh.updateOpponents(opponents);
+            assertArrayEquals(costs(fresh), after, EPSILON, "avversari " + opponents);
+            // Le celle segnalate sono esattamente quelle il cui costo è cambiato
+            for (int cell = 0; cell < after.length; cell++) {
+                IPosition position = new Position(cell / circuit.getWidth(), cell % circuit.getWidth());
+                assertEquals(before[cell] != after[cell], changed.contains(position), "cella " + position);
+            }
+        }
+    }
+
+    @Test
+    public void unchangedOpponentsChangeNothing() {
+        SafetyCostMap map = new SafetyCostMap(circuit, weights);
+        assertFalse(map.updateOpponents(List.of(new Position(2, 6))).isEmpty());
+        assertTrue(map.updateOpponents(List.of(new Position(2, 6))).isEmpty());
+    }
+
+    @Test
+    public void wallsAndOpponentsRaiseTheCost() {
+        SafetyCostMap map = new SafetyCostMap(circuit, weights);
+        assertTrue(map.getCellCost(1, 4) > map.getCellCost(2, 4), "la cella accanto al muro non costa di più");
+        double free = map.getCellCost(2, 8);
+        map.updateOpponents(List.of(new Position(2, 9)));
+        assertTrue(map.getCellCost(2, 8) > free, "la cella accanto all'avversario non costa di più");
+        assertEquals(0, map.getTurnCost(0, 1, 0, 1));
+    }
+
+    @Test
+    public void repairedDStarLiteMatchesAFreshSearch() {
+        IPosition target = new Position(5, 2);
+        IPosition[] route = {new Position(2, 2), new Position(2, 4), new Position(2, 7),
+                new Position(3, 10), new Position(4, 12), new Position(5, 11)};
+        SafetyCostMap map = new SafetyCostMap(circuit, weights);
+        DStarLite planner = new DStarLite(circuit, route[0], target, map);
+        planner.findPath();
+
+        for (int round = 0; round < rounds.size(); round++) {
+            IPosition position = route[round];
+            List<IPosition> opponents = rounds.get(round);
+            planner.updateCosts(map.updateOpponents(opponents));
+            planner.moveStart(position);
+            List<IPosition> repaired = planner.findPath();
+
+            SafetyCostMap freshMap = new SafetyCostMap(circuit, weights);
+            freshMap.updateOpponents(opponents);
+            DStarLite fresh = new DStarLite(circuit, position, target, freshMap);
+            fresh.findPath();
+
+            assertEquals(fresh.getCostToGo(position), planner.getCostToGo(position), EPSILON,
+                    "da " + position + " con avversari " + opponents);
+            assertEquals(position, repaired.get(0));
+            assertEquals(target, repaired.get(repaired.size() - 1));
+        }
+    }
+
+    private double[] costs(SafetyCostMap map) {
+        double[] costs = new double[circuit.getWidth() * circuit.getHeight()];
+        for (int row = 0; row < circuit.getHeight(); row++) {
+            for (int column = 0; column < circuit.getWidth(); column++) {
+                costs[row * circuit.getWidth() + column] = map.getCellCost(row, column);
+            }
+        }
+        return costs;
+    }
+}
@@ -0,0 +1,109 @@
+package it.unicam.cs.mdp2024.formula1game.model.strategy;
+
+import it.unicam.cs.mdp2024.formula1game.model.car.Car;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.game.DefaultMoveValidator;
+import it.unicam.cs.mdp2024.formula1game.model.player.BotPlayer;
+import it.unicam.cs.mdp2024.formula1game.model.player.IPlayer;
+import it.unicam.cs.mdp2024.formula1game.model.util.Acceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IAcceleration;
+import it.unicam.cs.mdp2024.formula1game.model.util.IPosition;
+import it.unicam.cs.mdp2024.formula1game.model.util.Vector;
+import it.unicam.cs.mdp2024.formula1game.model.util.Velocity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fa guidare una strategia su un circuito di prova controllando ogni mossa
+ * con il validatore del gioco.
+ */
+final class StrategyRuns {
+
+    private StrategyRuns() {
+    }
+
+    /**
+     * Guida un'auto ferma dalla partenza verso il target, tra avversari fermi,
+     * finché non lo raggiunge, finiscono i turni o non resta alcuna mossa
+     * valida: da lì nessuna strategia può evitare l'eliminazione.
+     *
+     * @param strategy  la strategia da provare
+     * @param circuit   il circuito
+     * @param start     la posizione di partenza
+     * @param target    la posizione da raggiungere
+     * @param opponents le posizioni degli avversari
+     * @param maxTurns  il numero massimo di turni
+     * @return il numero di mosse giocate
+     */
+    static int driveLegally(MovementStrategy strategy, ICircuit circuit, IPosition start, IPosition target,
+            List<IPosition> opponents, int maxTurns) {
+        return drive(strategy, circuit, start, target, opponents, maxTurns).turns();
+    }
+
+    /**
+     * Come {@link #driveLegally}, ma senza avversari e verificando che l'auto
+     * raggiunga il target entro i turni indicati.
+     *
+     * @return il numero di mosse giocate per raggiungere il target
+     */
+    static int driveToTarget(MovementStrategy strategy, ICircuit circuit, IPosition start, IPosition target,
+            int maxTurns) {
+        Run run = drive(strategy, circuit, start, target, List.of(), maxTurns);
+        assertEquals(target, run.end(), "target non raggiunto in " + run.turns() + " mosse");
+        return run.turns();
+    }
+
+    private record Run(int turns, IPosition end) {
+    }
+
+    private static Run drive(MovementStrategy strategy, ICircuit circuit, IPosition start, IPosition target,
+            List<IPosition> opponents, int maxTurns) {
+        DefaultMoveValidator validator = new DefaultMoveValidator();
+        BotPlayer bot = botAt("bot", start);
+        List<IPlayer> players = new ArrayList<>();
+        players.add(bot);
+        for (int i = 0; i < opponents.size(); i++) {
+            players.add(botAt("avversario" + i, opponents.get(i)));
+        }
+
+        int turns = 0;
+        while (turns < maxTurns && !bot.getCar().getPosition().equals(target)) {
+            Car car = (Car) bot.getCar();
+            if (!hasLegalMove(validator, bot, circuit, players)) {
+                break;
+            }
+            IAcceleration move = strategy.calculateMove(car.getPosition(), car.getVelocity(), opponents,
+                    circuit, target);
+            assertNotNull(move);
+            assertTrue(validator.isValidMove(bot, car.getPosition(), move, circuit, players),
+                    "mossa " + move.getAccelerationVector() + " da " + car.getPosition()
+                            + " a velocità " + car.getVelocity().getCurrentVelocity());
+            car.setVelocity(car.getVelocity().addAcceleration(move));
+            car.setPosition(car.getPosition().nextPosition(car.getVelocity()));
+            turns++;
+        }
+        return new Run(turns, bot.getCar().getPosition());
+    }
+
+    private static boolean hasLegalMove(DefaultMoveValidator validator, BotPlayer bot, ICircuit circuit,
+            List<IPlayer> players) {
+        for (int ay = -1; ay <= 1; ay++) {
+            for (int ax = -1; ax <= 1; ax++) {
+                IAcceleration move = new Acceleration(new Vector(ax, ay));
+                if (validator.isValidMove(bot, bot.getCar().getPosition(), move, circuit, players)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static BotPlayer botAt(String name, IPosition position) {
+        BotPlayer bot = new BotPlayer(name, "black");
+        bot.setCar(new Car(position, new Velocity(0, 0), new Acceleration(new Vector(0, 0))));
+        return bot;
+    }
+}
@@ -0,0 +1,71 @@
+package it.unicam.cs.mdp2024.formula1game.model.tuning;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.player.BotPlayer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RaceEvaluatorTest {
+
+    private static final int MAX_TURNS = 60;
+
+    private final ICircuit circuit = TestCircuits.openField();
+
+    @Test
+    public void strategiesThatIgnoreWeightsAreRejected() {
+        for (int code = 3; code <= 8; code++) {
+            int strategy = code;
+            assertThrows(IllegalArgumentException.class, () -> new RaceEvaluator(circuit, strategy, 1, 0, MAX_TURNS));
+        }
+        assertDoesNotThrow(() -> new RaceEvaluator(circuit, 2, 1, 0, MAX_TURNS));
+    }
+
+    @Test
+    public void tooManyOpponentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new RaceEvaluator(circuit, 1, 1, 3, MAX_TURNS));
+    }
+
+    @Test
+    public void racesAreRepeatable() {
+        RaceEvaluator evaluator = new RaceEvaluator(circuit, 1, 3, 0, MAX_TURNS);
+        for (int race = 0; race < evaluator.getRaces(); race++) {
+            RaceEvaluator.RaceOutcome outcome = evaluator.runRace(BotPlayer.defaultWeights(1), race);
+            assertEquals(outcome, evaluator.runRace(BotPlayer.defaultWeights(1), race));
+            assertFalse(outcome.crashed(), "il bot è uscito di pista nella gara " + race);
+            assertTrue(outcome.turns() > 0 && outcome.turns() <= MAX_TURNS);
+            assertTrue(outcome.progress() >= 0 && outcome.progress() <= 1);
+        }
+    }
+
+    @Test
+    public void unfinishedRacesCostMoreThanAnyFinishedOne() {
+        RaceEvaluator evaluator = new RaceEvaluator(circuit, 1, 1, 0, MAX_TURNS);
+        RaceEvaluator.RaceOutcome slowest = new RaceEvaluator.RaceOutcome(true, false, MAX_TURNS, 1.0);
+        RaceEvaluator.RaceOutcome almost = new RaceEvaluator.RaceOutcome(false, false, MAX_TURNS, 0.9);
+        RaceEvaluator.RaceOutcome halfway = new RaceEvaluator.RaceOutcome(false, false, MAX_TURNS, 0.5);
+        RaceEvaluator.RaceOutcome crashed = new RaceEvaluator.RaceOutcome(false, true, 10, 0.5);
+        assertTrue(evaluator.cost(slowest) < evaluator.cost(almost));
+        assertTrue(evaluator.cost(almost) < evaluator.cost(halfway));
+        assertTrue(evaluator.cost(halfway) < evaluator.cost(crashed));
+    }
+
+    @Test
+    public void summaryAveragesTheRaces() {
+        RaceEvaluator evaluator = new RaceEvaluator(circuit, 1, 2, 0, MAX_TURNS);
+        RaceEvaluator.Evaluation evaluation = evaluator.summarize(List.of(
+                new RaceEvaluator.RaceOutcome(true, false, 20, 1.0),
+                new RaceEvaluator.RaceOutcome(false, true, 5, 0.5)));
+        assertEquals(2, evaluation.getRaces());
+        assertEquals(0.5, evaluation.getFinishRate());
+        assertEquals(0.5, evaluation.getCrashRate());
+        assertEquals(20.0, evaluation.getMeanTurnsToFinish());
+        assertEquals(0.75, evaluation.getMeanProgress());
+        assertEquals((20 + MAX_TURNS * 1.5 + MAX_TURNS) / 2, evaluation.getFitness());
+        assertThrows(IllegalArgumentException.class, () -> evaluator.summarize(List.of()));
+    }
+}
@@ -0,0 +1,84 @@
+package it.unicam.cs.mdp2024.formula1game.model.tuning;
+
+import it.unicam.cs.mdp2024.formula1game.TestCircuits;
+import it.unicam.cs.mdp2024.formula1game.model.circuit.ICircuit;
+import it.unicam.cs.mdp2024.formula1game.model.player.BotPlayer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeightTunerTest {
+
+    private static final int MAX_TURNS = 60;
+    private static final int POPULATION = 4;
+    private static final long SEED = 7;
+
+    private final ICircuit circuit = TestCircuits.openField();
+    private final RaceEvaluator evaluator = new RaceEvaluator(circuit, 1, 1, 0, MAX_TURNS);
+
+    @Test
+    public void tunedWeightsAreNoWorseThanTheDefaults() throws IOException, InterruptedException {
+        WeightTuner tuner = new WeightTuner(evaluator, POPULATION, SEED);
+        tuner.setThreads(2);
+        WeightTuner.Result result = tuner.run(1, quietLog());
+
+        RaceEvaluator.Evaluation defaults = evaluator.summarize(
+                List.of(evaluator.runRace(BotPlayer.defaultWeights(1), 0)));
+        assertEquals(1, result.getGenerations());
+        assertTrue(result.getEvaluation().getFitness() <= defaults.getFitness());
+        assertWeightsInRange(result);
+    }
+
+    @Test
+    public void runResumesFromTheSavedPopulation(@TempDir Path directory) throws IOException, InterruptedException {
+        Path checkpoint = directory.resolve("popolazione.txt");
+        WeightTuner first = new WeightTuner(evaluator, POPULATION, SEED);
+        first.setCheckpointFile(checkpoint);
+        first.run(1, quietLog());
+        assertTrue(Files.exists(checkpoint));
+
+        WeightTuner resumed = new WeightTuner(evaluator, POPULATION, SEED);
+        resumed.setCheckpointFile(checkpoint);
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        WeightTuner.Result result = resumed.run(2, new PrintStream(log));
+        assertEquals(2, result.getGenerations());
+        assertTrue(log.toString().startsWith("Ripresa dalla generazione 1"), log.toString());
+        assertWeightsInRange(result);
+    }
+
+    @Test
+    public void invalidParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new WeightTuner(evaluator, 1, SEED));
+        WeightTuner tuner = new WeightTuner(evaluator, POPULATION, SEED);
+        assertThrows(IllegalArgumentException.class, () -> tuner.setEliteCount(POPULATION + 1));
+        assertThrows(IllegalArgumentException.class, () -> tuner.setMutationSigma(-0.1));
+        assertThrows(IllegalArgumentException.class, () -> tuner.setThreads(0));
+    }
+
+    private static void assertWeightsInRange(WeightTuner.Result result) {
+        double[] weights = {
+            result.getWeights().getPathEfficiencyWeight(),
+            result.getWeights().getSpeedControlWeight(),
+            result.getWeights().getCollisionAvoidanceWeight(),
+            result.getWeights().getCheckpointAlignmentWeight()
+        };
+        for (double weight : weights) {
+            assertTrue(weight >= WeightTuner.MIN_WEIGHT && weight <= WeightTuner.MAX_WEIGHT,
+                    "peso fuori intervallo: " + weight);
+        }
+    }
+
+    private static PrintStream quietLog() {
+        return new PrintStream(OutputStream.nullOutputStream());
+    }
+}